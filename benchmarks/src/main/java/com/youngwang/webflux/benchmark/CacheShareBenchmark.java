@@ -0,0 +1,52 @@
+package com.youngwang.webflux.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mono#cache 和 Mono#share 的对比，对应 MonoController 的 /mono/cache 和 /mono/share
+ * <p>
+ * 每次操作都重新组装操作链，并订阅两次，和示例接口的用法一致。去掉了 delayElement 和打印
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CacheShareBenchmark {
+
+    private final String name = "张三";
+
+    @Benchmark
+    public void cache(Blackhole bh) {
+        Mono<String> m = chain().cache();
+        m.subscribe(bh::consume);
+        m.subscribe(bh::consume);
+    }
+
+    @Benchmark
+    public void share(Blackhole bh) {
+        Mono<String> m = chain().share();
+        m.subscribe(bh::consume);
+        m.subscribe(bh::consume);
+    }
+
+    private Mono<String> chain() {
+        return Mono.just(name)
+                .filter("张三"::equals)
+                .map(s -> "hello " + s)
+                .map(String::toUpperCase);
+    }
+}
@@ -0,0 +1,97 @@
+package com.youngwang.webflux.benchmark;
+
+import com.youngwang.webflux.streaming.CodePoints;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * /simple/flux/from 输出码点 JSON 数组的两种写法，对应 SimpleController#simpleFluxFrom 修改前后
+ * <p>
+ * boxed 是原来的写法：split("") 得到每个字符的子串，装箱成 Integer，再由 Jackson2JsonEncoder 逐个编码；
+ * primitive 直接调用主工程的 CodePoints#encode，按码点遍历，用 ASCII 数字写入池化的 DataBuffer。
+ * 两者都写入 PooledByteBufAllocator 的 DataBuffer 并在消费后释放，gc.alloc.rate.norm 只统计堆上的对象
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodePointBenchmark {
+
+    private static final ResolvableType INTEGER = ResolvableType.forClass(Integer.class);
+
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * 输入的 char 个数
+     */
+    @Param({"16", "1024", "65536"})
+    private int length;
+
+    private final DataBufferFactory factory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    private final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder();
+
+    private String text;
+
+    private long bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 拉丁字母和汉字为主，不含代理对，两种写法输出相同的内容
+        StringBuilder builder = new StringBuilder(length);
+        String alphabet = "zhangsan张三";
+        while (builder.length() < length) {
+            builder.append(alphabet.charAt(builder.length() % alphabet.length()));
+        }
+        text = builder.toString();
+        long boxed = boxed();
+        long primitive = primitive();
+        if (boxed != primitive) {
+            throw new IllegalStateException("boxed wrote " + boxed + " bytes, primitive wrote " + primitive);
+        }
+    }
+
+    @Benchmark
+    public long boxed() {
+        Flux<Integer> values = Flux.fromStream(Stream.of(text.split(""))).map(s -> (int) s.charAt(0));
+        return drain(encoder.encode(values, factory, INTEGER, MediaType.APPLICATION_JSON, null));
+    }
+
+    @Benchmark
+    public long primitive() {
+        return drain(CodePoints.encode(factory, text, CodePoints.Format.JSON_ARRAY, BATCH_SIZE));
+    }
+
+    private long drain(Flux<DataBuffer> buffers) {
+        bytes = 0;
+        buffers.subscribe(buffer -> {
+            bytes += buffer.readableByteCount();
+            DataBufferUtils.release(buffer);
+        });
+        return bytes;
+    }
+}
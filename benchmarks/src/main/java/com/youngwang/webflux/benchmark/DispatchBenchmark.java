@@ -0,0 +1,108 @@
+package com.youngwang.webflux.benchmark;
+
+import com.youngwang.webflux.eventlog.EventLogConfiguration;
+import com.youngwang.webflux.functional.FunctionalRoutingConfiguration;
+import com.youngwang.webflux.metrics.MetricsConfiguration;
+import com.youngwang.webflux.offload.OffloadConfiguration;
+import com.youngwang.webflux.streaming.StreamingConfiguration;
+import com.youngwang.webflux.syntax.SimpleController;
+import com.youngwang.webflux.syntax.ZipController;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 注解映射（@RestController + @RequestParam）和函数式路由（RouterFunction + HandlerFunction）的单次请求开销，
+ * 对应主工程 webflux.routing.mode=annotated / functional
+ * <p>
+ * 不经过网络，直接用 Mock 请求调用 WebHttpHandlerBuilder 构建的 HttpHandler，
+ * 包括路由匹配、参数解析、返回值处理和响应编码。两种方式都注册主工程的 SimpleController、ZipController 及其依赖的装配，
+ * functional 再加上 FunctionalRoutingConfiguration（SimpleHandler、ZipHandler），和主工程一样由 RouterFunctionMapping 优先处理。
+ * EventLog 采样率设为 0，只保留采样判断的开销，不输出日志
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    @Param({"annotated", "functional"})
+    private String style;
+
+    @Param({"/simple/mono?name=wzy", "/simple/flux/range?size=10", "/zip/tuples2?name=wzy"})
+    private String uri;
+
+    private AnnotationConfigApplicationContext context;
+
+    private HttpHandler handler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "webflux.routing.mode", style,
+                "webflux.event-log.sample-rate", "0")));
+        context.register(WebConfig.class, EventLogConfiguration.class, StreamingConfiguration.class,
+                MetricsConfiguration.class, OffloadConfiguration.class, SimpleController.class, ZipController.class);
+        if ("functional".equals(style)) {
+            context.register(FunctionalRoutingConfiguration.class);
+        }
+        context.refresh();
+        handler = WebHttpHandlerBuilder.applicationContext(context).build();
+        // 注解映射没有显式设置状态码时为 null，由服务器按 200 输出
+        HttpStatus status = dispatch();
+        if (status != null && status != HttpStatus.OK) {
+            throw new IllegalStateException(style + " " + uri + " returned " + status);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public HttpStatus dispatch() {
+        MockServerHttpRequest request = MockServerHttpRequest.get(uri).build();
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        handler.handle(request, response).block();
+        return response.getStatusCode();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableWebFlux
+    static class WebConfig {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.youngwang.webflux.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mono.just 和 Mono.defer 的对比，对应 SimpleController 的 /simple/mono/order/just 和 /simple/mono/order/defer
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JustDeferBenchmark {
+
+    private final String name = "张三";
+
+    @Benchmark
+    public void just(Blackhole bh) {
+        Mono.just("hello " + name).subscribe(bh::consume);
+    }
+
+    @Benchmark
+    public void defer(Blackhole bh) {
+        Mono.defer(() -> Mono.just("hello " + name)).subscribe(bh::consume);
+    }
+}
@@ -0,0 +1,49 @@
+package com.youngwang.webflux.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mono#mergeWith 和 Mono#concatWith 的对比，对应 MonoController 的 /mono/merge-with 和 /mono/concat-with
+ * <p>
+ * 去掉了示例中的 delay，只比较操作符本身的开销
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MergeConcatBenchmark {
+
+    private final String name = "张三";
+
+    @Benchmark
+    public void mergeWith(Blackhole bh) {
+        Mono.just("hello ")
+                .mergeWith(Mono.defer(() -> Mono.justOrEmpty(name)))
+                .mergeWith(Mono.defer(() -> Mono.just("这是新的编程方式")))
+                .collectList()
+                .subscribe(bh::consume);
+    }
+
+    @Benchmark
+    public void concatWith(Blackhole bh) {
+        Mono.just("hello ")
+                .concatWith(Mono.defer(() -> Mono.justOrEmpty(name)))
+                .concatWith(Mono.defer(() -> Mono.just("这是新的编程方式")))
+                .collectList()
+                .subscribe(bh::consume);
+    }
+}
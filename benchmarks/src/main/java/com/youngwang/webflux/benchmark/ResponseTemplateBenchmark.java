@@ -0,0 +1,71 @@
+package com.youngwang.webflux.benchmark;
+
+import com.youngwang.webflux.template.ResponseTemplate;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.CharSequenceEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /simple/mono 响应体的两种写法，对应 SimpleController#simpleMono 修改前后
+ * <p>
+ * concat 是原来的写法："hello " + name 拼接出新的字符串，再由 CharSequenceEncoder 编码进 DataBuffer；
+ * template 直接调用主工程的 ResponseTemplate#write：常量部分预先编码成 byte[]，name 直接以 UTF-8 写进池化的 DataBuffer。
+ * 两者都在消费后释放 DataBuffer，gc.alloc.rate.norm 只统计堆上的对象
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseTemplateBenchmark {
+
+    private static final ResolvableType STRING = ResolvableType.forClass(String.class);
+
+    private static final MimeType TEXT_PLAIN_UTF8 = new MimeType(MimeTypeUtils.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private static final ResponseTemplate HELLO = ResponseTemplate.compile("hello {name}");
+
+    @Param({"wzy", "张三", "zhangsan-zhangsan-zhangsan-zhangsan"})
+    private String name;
+
+    private final DataBufferFactory factory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    private final CharSequenceEncoder encoder = CharSequenceEncoder.textPlainOnly();
+
+    @Benchmark
+    public int concat() {
+        DataBuffer buffer = encoder.encodeValue("hello " + name, factory, STRING, TEXT_PLAIN_UTF8, null);
+        return release(buffer);
+    }
+
+    @Benchmark
+    public int template() {
+        return release(HELLO.write(factory, name));
+    }
+
+    private static int release(DataBuffer buffer) {
+        int bytes = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+}
@@ -0,0 +1,142 @@
+package com.youngwang.webflux.benchmark;
+
+import com.youngwang.webflux.offload.ExecutionMode;
+import com.youngwang.webflux.offload.OffloadExecutors;
+import com.youngwang.webflux.offload.OffloadProperties;
+import com.youngwang.webflux.offload.RejectPolicy;
+import com.youngwang.webflux.offload.VirtualThreads;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * webflux.offload.mode 三种执行方式的对比：提交 tasks 个 sleep 任务，最多 concurrency 个同时执行，全部结束算一次操作，
+ * 对应 ZipController 的 /zip/with、/zip/when 和 MonoFromController 的 /mono/from/future/concurrent
+ * <p>
+ * 调度器来自主工程的 OffloadExecutors#ioScheduler()，blocking 线程池和 application.yaml 的配置一致：
+ * 16 ~ 64 个线程，队列 512，ABORT。concurrency 不超过 max-size + queue-capacity（576）时不会被拒绝，
+ * 10000 时 pool 模式的大部分任务被拒绝（生产中为 503），耗时主要是拒绝的开销，不能和其它模式直接比较，
+ * 因此结果里通过 {@link Tasks} 额外输出 completed / rejected 两列，看耗时前先确认 rejected 为 0。
+ * <p>
+ * virtual 需要用 JDK 21 及以上运行 benchmarks.jar，否则该参数组合会报错跳过
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedulerBenchmark {
+
+    @Param({"virtual", "boundedElastic", "pool"})
+    private String mode;
+
+    @Param({"10000"})
+    private int tasks;
+
+    @Param({"576", "10000"})
+    private int concurrency;
+
+    @Param({"10"})
+    private long sleepMillis;
+
+    private OffloadExecutors executors;
+
+    private Scheduler scheduler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OffloadProperties properties = new OffloadProperties();
+        switch (mode) {
+            case "virtual":
+                if (!VirtualThreads.isSupported()) {
+                    // OffloadExecutors 会退化为 boundedElastic，这里直接失败，避免结果张冠李戴
+                    throw new UnsupportedOperationException("virtual threads are not supported on Java "
+                            + System.getProperty("java.version"));
+                }
+                properties.setMode(ExecutionMode.VIRTUAL);
+                break;
+            case "boundedElastic":
+                properties.setMode(ExecutionMode.BOUNDED_ELASTIC);
+                break;
+            case "pool":
+                properties.setMode(ExecutionMode.POOL);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown mode: " + mode);
+        }
+        OffloadProperties.Pool blocking = new OffloadProperties.Pool();
+        blocking.setCoreSize(16);
+        blocking.setMaxSize(64);
+        blocking.setQueueCapacity(512);
+        blocking.setKeepAlive(Duration.ofSeconds(60));
+        blocking.setRejectPolicy(RejectPolicy.ABORT);
+        properties.getPools().put(OffloadExecutors.BLOCKING, blocking);
+
+        executors = new OffloadExecutors(properties, new SimpleMeterRegistry());
+        scheduler = executors.ioScheduler();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executors.destroy();
+    }
+
+    @Benchmark
+    public Integer concurrentSleeps(Tasks counters) {
+        AtomicLong rejected = new AtomicLong();
+        int completed = Flux.range(0, tasks)
+                .flatMap(i -> Mono.fromCallable(() -> {
+                    Thread.sleep(sleepMillis);
+                    return i;
+                }).subscribeOn(scheduler)
+                        .onErrorResume(RejectedExecutionException.class, e -> {
+                            rejected.incrementAndGet();
+                            return Mono.empty();
+                        }), concurrency)
+                .count()
+                .map(Long::intValue)
+                .block();
+        counters.completed += completed;
+        counters.rejected += rejected.get();
+        return completed;
+    }
+
+    /**
+     * 每次迭代执行完成和被拒绝的任务数，JMH 结果中作为 concurrentSleeps:completed / :rejected 输出
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Tasks {
+
+        public long completed;
+
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            completed = 0;
+            rejected = 0;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.youngwang.webflux.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Mono#transform 和 Mono#transformDeferred 的对比，对应 MonoController 的 /mono/transform 和 /mono/transform-deferred
+ * <p>
+ * transform 在组装时执行一次 function，transformDeferred 在每次订阅时执行 function
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransformBenchmark {
+
+    private final String name = "张三";
+
+    private final Function<Mono<String>, Mono<String>> transformer = m -> m.filter("张三"::equals)
+            .map(s -> "hello " + s)
+            .map(String::toUpperCase);
+
+    @Benchmark
+    public void transform(Blackhole bh) {
+        Mono.just(name).transform(transformer).subscribe(bh::consume);
+    }
+
+    @Benchmark
+    public void transformDeferred(Blackhole bh) {
+        Mono.just(name).transformDeferred(transformer).subscribe(bh::consume);
+    }
+}
@@ -0,0 +1,65 @@
+package com.youngwang.webflux.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Mono.zip 的 tuple8 形式和 Mono.zip(Iterable, Function) 形式的对比，
+ * 对应 ZipController 的 /zip/tuple8 和 /zip/tuples2。两者都合并 8 个 Mono.just
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ZipBenchmark {
+
+    private final String[] values = {
+            "Mono.just0", "Mono.just1", "Mono.just2", "Mono.just3",
+            "Mono.just4", "Mono.just5", "Mono.just6", "Mono.just7"
+    };
+
+    @Benchmark
+    public void tuple8(Blackhole bh) {
+        Mono.zip(
+                Mono.just(values[0]),
+                Mono.just(values[1]),
+                Mono.just(values[2]),
+                Mono.just(values[3]),
+                Mono.just(values[4]),
+                Mono.just(values[5]),
+                Mono.just(values[6]),
+                Mono.just(values[7])
+        )
+                .map(t -> t.toList().stream()
+                        .map(o -> (String) o)
+                        .collect(Collectors.joining("\n")))
+                .subscribe(bh::consume);
+    }
+
+    @Benchmark
+    public void iterable(Blackhole bh) {
+        List<Mono<String>> monoList = new ArrayList<>(8);
+        for (String value : values) {
+            monoList.add(Mono.just(value));
+        }
+        Mono.zip(monoList, objs -> Arrays.stream(objs).map(o -> (String) o).collect(Collectors.joining("\n")))
+                .subscribe(bh::consume);
+    }
+}
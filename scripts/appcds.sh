@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+# 生成 AppCDS 归档（类数据共享）：启动一次应用并请求几个接口，把加载过的类写入 target/startup/app.jsa，
+# 之后用 -XX:SharedArchiveFile=target/startup/app.jsa 启动时直接映射归档中已经解析、校验过的类
+#
+# CDS 只能归档 jar 中的类，这里把应用打成普通 jar、依赖复制到 target/startup/lib，
+# 生成和使用归档时的 classpath 必须一致，写在 target/startup/classpath.txt
+#
+# 用法：scripts/appcds.sh            环境变量 PROFILE（默认 fast-startup）、PORT（默认 18080）
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+OUT=target/startup
+PROFILE=${PROFILE-fast-startup}
+PORT=${PORT:-18080}
+JAVA=${JAVA:-java}
+
+mkdir -p "$OUT"
+rm -rf "$OUT/lib" "$OUT/app.jsa" "$OUT/classes.lst"
+mvn -B -q -DskipTests package dependency:copy-dependencies -DincludeScope=runtime -DoutputDirectory="$OUT/lib"
+cp target/wzy-webflux-demo-*.jar "$OUT/app.jar"
+CP="$OUT/app.jar:$(ls "$OUT"/lib/*.jar | sort | paste -sd: -)"
+echo "$CP" > "$OUT/classpath.txt"
+
+ARGS=(--server.port="$PORT")
+if [ -n "$PROFILE" ]; then
+  ARGS+=(--spring.profiles.active="$PROFILE")
+fi
+
+# 请求几个接口，把处理请求、编解码用到的类也放进归档
+train() {
+  local up=
+  for _ in $(seq 1 600); do
+    curl -sf "http://localhost:$PORT/simple/mono?name=cds" > /dev/null && up=1 && break
+    kill -0 "$PID" 2> /dev/null || break
+    sleep 0.1
+  done
+  if [ -z "$up" ]; then
+    echo "application did not start, see $OUT/cds-training.log" >&2
+    kill -TERM "$PID" 2> /dev/null || true
+    exit 1
+  fi
+  curl -sf "http://localhost:$PORT/simple/flux/range?size=100" > /dev/null
+  curl -sf -H 'Accept: application/x-ndjson' "http://localhost:$PORT/simple/flux/range?size=100" > /dev/null
+  curl -sf "http://localhost:$PORT/mono/just-or-empty?name=cds" > /dev/null
+  curl -sf "http://localhost:$PORT/actuator/health" > /dev/null
+}
+
+if "$JAVA" -XX:+PrintFlagsFinal -version 2>/dev/null | grep -q ArchiveClassesAtExit; then
+  # JDK 13+：动态归档，进程正常退出时写入
+  "$JAVA" -XX:ArchiveClassesAtExit="$OUT/app.jsa" -cp "$CP" com.youngwang.webflux.WebfluxApplication "${ARGS[@]}" \
+    > "$OUT/cds-training.log" 2>&1 &
+  PID=$!
+  train
+  kill -TERM "$PID"
+  wait "$PID" || true
+else
+  # JDK 11：先导出类列表，再单独生成静态归档
+  "$JAVA" -XX:DumpLoadedClassList="$OUT/classes.lst" -cp "$CP" com.youngwang.webflux.WebfluxApplication "${ARGS[@]}" \
+    > "$OUT/cds-training.log" 2>&1 &
+  PID=$!
+  train
+  kill -TERM "$PID"
+  wait "$PID" || true
+  "$JAVA" -Xshare:dump -XX:SharedClassListFile="$OUT/classes.lst" -XX:SharedArchiveFile="$OUT/app.jsa" -cp "$CP" \
+    >> "$OUT/cds-training.log" 2>&1
+fi
+
+if [ ! -s "$OUT/app.jsa" ]; then
+  echo "failed to create $OUT/app.jsa, see $OUT/cds-training.log" >&2
+  exit 1
+fi
+echo "archive: $OUT/app.jsa ($(du -h "$OUT/app.jsa" | cut -f1))"
+echo "run:     $JAVA -XX:SharedArchiveFile=$OUT/app.jsa -cp \"\$(cat $OUT/classpath.txt)\" com.youngwang.webflux.WebfluxApplication ${ARGS[*]}"
@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+# 冷启动对比：同一台机器上分别以 默认配置、fast-startup、fast-startup + AppCDS 启动 RUNS 次，
+# 从启动 JVM 开始轮询 /simple/mono，直到第一个请求成功，取中位数。
+# 同时从日志中读取 StartupRecorder 记录的 started / ready / first-response（距 JVM 启动的毫秒数）
+#
+# 用法：scripts/startup-benchmark.sh     环境变量 RUNS（默认 5）、PORT（默认 18080）
+# 没有 target/startup/app.jsa 时先执行 scripts/appcds.sh
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+OUT=target/startup
+RUNS=${RUNS:-5}
+PORT=${PORT:-18080}
+JAVA=${JAVA:-java}
+
+if [ ! -s "$OUT/app.jsa" ]; then
+  PORT="$PORT" JAVA="$JAVA" scripts/appcds.sh
+fi
+CP=$(cat "$OUT/classpath.txt")
+URL="http://localhost:$PORT/simple/mono?name=bench"
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { if (NR == 0) print "-"; else if (NR % 2) print v[(NR + 1) / 2]; else print int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+# run 名称 JVM参数... -- 应用参数...
+run() {
+  local name=$1
+  shift
+  local jvm=()
+  while [ "$1" != "--" ]; do
+    jvm+=("$1")
+    shift
+  done
+  shift
+  local log="$OUT/bench-$name.log"
+  : > "$OUT/bench-$name.ttfr"
+  : > "$log"
+  for i in $(seq 1 "$RUNS"); do
+    local start
+    start=$(now_ms)
+    "$JAVA" "${jvm[@]}" -cp "$CP" com.youngwang.webflux.WebfluxApplication --server.port="$PORT" "$@" > "$log.$i" 2>&1 &
+    local pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+      if ! kill -0 "$pid" 2> /dev/null; then
+        echo "$name run $i failed, see $log.$i" >&2
+        exit 1
+      fi
+      sleep 0.01
+    done
+    echo $(( $(now_ms) - start )) >> "$OUT/bench-$name.ttfr"
+    # 等首个请求的日志输出后再停止
+    sleep 0.5
+    kill -TERM "$pid"
+    wait "$pid" || true
+    cat "$log.$i" >> "$log"
+    rm -f "$log.$i"
+  done
+  local phases=()
+  for phase in started ready first-response; do
+    phases+=("$(grep -o "$phase=[0-9]*" "$log" | cut -d= -f2 | median)")
+  done
+  printf '%-22s %10s %10s %10s %16s\n' "$name" "$(median < "$OUT/bench-$name.ttfr")" "${phases[@]}"
+}
+
+echo "$RUNS runs each, median ms"
+printf '%-22s %10s %10s %10s %16s\n' config client-ttfr started ready first-response
+run default -- 
+run fast-startup -- --spring.profiles.active=fast-startup
+run fast-startup+appcds -XX:SharedArchiveFile="$OUT/app.jsa" -Xshare:auto -- --spring.profiles.active=fast-startup
@@ -0,0 +1,205 @@
+package com.youngwang.webflux.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 跨请求的按 key 批量加载（DataLoader 风格）
+ * <p>
+ * 并发请求各自调用 load(key)，key 先进入当前批次，批次在第一个 key 进入 maxWait 之后、
+ * 或者不同的 key 达到 maxBatchSize 时发出，调用一次批量加载函数，再把结果按 key 分发给各自等待的 Mono。
+ * 同一批次内相同的 key 只加载一次
+ * <p>
+ * 和 SingleFlight 的区别：SingleFlight 合并相同 key 的调用，这里把不同 key 的调用合并成一次批量调用
+ * <p>
+ * 批量加载返回的 Map 中没有的 key 得到空 Mono，批量加载失败时整批的 Mono 都失败。
+ * key 进入批次后调用方取消不会把 key 移出批次，只是丢弃结果
+ * <p>
+ * 指标（tag name）：batch.size 每批的 key 个数，batch.wait 每个 key 在批次中等待的时间，
+ * batch.loads 批量加载次数
+ *
+ * @param <K> key 类型
+ * @param <V> 结果类型
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<? super List<K>, ? extends Mono<? extends Map<K, ? extends V>>> loader;
+
+    private final int maxBatchSize;
+
+    private final Duration maxWait;
+
+    private final DistributionSummary batchSize;
+
+    private final Timer waitTime;
+
+    private final Counter loads;
+
+    private final Object lock = new Object();
+
+    /**
+     * 正在收集的批次，由 lock 保护
+     */
+    private Batch current;
+
+    /**
+     * @param name         名称，用作指标的 tag
+     * @param loader       批量加载函数，参数为去重后的 key
+     * @param maxBatchSize 每批最多的 key 个数
+     * @param maxWait      第一个 key 进入批次后最多等待的时间
+     * @param registry     指标注册
+     */
+    public BatchLoader(String name, Function<? super List<K>, ? extends Mono<? extends Map<K, ? extends V>>> loader,
+                       int maxBatchSize, Duration maxWait, MeterRegistry registry) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("max batch size must be positive");
+        }
+        this.loader = loader;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+        this.batchSize = DistributionSummary.builder("batch.size")
+                .description("每批的 key 个数")
+                .tag("name", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.waitTime = Timer.builder("batch.wait")
+                .description("key 在批次中等待发出的时间")
+                .tag("name", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.loads = Counter.builder("batch.loads")
+                .description("批量加载次数")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    /**
+     * 加载一个 key，订阅时才进入批次
+     *
+     * @param key key
+     * @return key 对应的结果，没有结果时为空
+     */
+    public Mono<V> load(K key) {
+        return Mono.create(sink -> enqueue(key, sink));
+    }
+
+    private void enqueue(K key, MonoSink<V> sink) {
+        Batch full = null;
+        synchronized (lock) {
+            Batch batch = current;
+            if (batch == null) {
+                batch = new Batch();
+                current = batch;
+                Batch scheduled = batch;
+                // 每次取当前的 parallel 调度器，测试中可以被虚拟时间替换
+                batch.timer = Schedulers.parallel().schedule(() -> flush(scheduled), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            batch.add(key, sink);
+            if (batch.waiters.size() >= maxBatchSize) {
+                current = null;
+                full = batch;
+            }
+        }
+        if (full != null) {
+            full.timer.dispose();
+            dispatch(full);
+        }
+    }
+
+    private void flush(Batch batch) {
+        synchronized (lock) {
+            if (current != batch) {
+                // 已经因为达到 maxBatchSize 发出
+                return;
+            }
+            current = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        long now = System.nanoTime();
+        for (List<Waiter<V>> waiters : batch.waiters.values()) {
+            for (Waiter<V> waiter : waiters) {
+                waitTime.record(now - waiter.enqueuedNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        batchSize.record(batch.waiters.size());
+        loads.increment();
+
+        Mono<? extends Map<K, ? extends V>> result;
+        try {
+            result = loader.apply(new ArrayList<>(batch.waiters.keySet()));
+        } catch (Throwable e) {
+            batch.error(e);
+            return;
+        }
+        result.subscribe(batch::complete, batch::error, () -> batch.complete(null));
+    }
+
+    private static final class Waiter<V> {
+
+        private final MonoSink<V> sink;
+
+        private final long enqueuedNanos = System.nanoTime();
+
+        private Waiter(MonoSink<V> sink) {
+            this.sink = sink;
+        }
+    }
+
+    private final class Batch {
+
+        private final Map<K, List<Waiter<V>>> waiters = new LinkedHashMap<>();
+
+        private Disposable timer;
+
+        /**
+         * 批量加载完成时分发结果，空结果和 onComplete 只会执行一次：Mono 发出值之后的 onComplete 不再处理
+         */
+        private boolean completed;
+
+        private void add(K key, MonoSink<V> sink) {
+            waiters.computeIfAbsent(key, k -> new ArrayList<>(1)).add(new Waiter<>(sink));
+        }
+
+        private void complete(Map<K, ? extends V> values) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            for (Map.Entry<K, List<Waiter<V>>> entry : waiters.entrySet()) {
+                V value = values != null ? values.get(entry.getKey()) : null;
+                for (Waiter<V> waiter : entry.getValue()) {
+                    if (value != null) {
+                        waiter.sink.success(value);
+                    } else {
+                        waiter.sink.success();
+                    }
+                }
+            }
+        }
+
+        private void error(Throwable e) {
+            for (List<Waiter<V>> list : waiters.values()) {
+                for (Waiter<V> waiter : list) {
+                    waiter.sink.error(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.youngwang.webflux.blocking;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 一个阻塞调用点的统计：同一路由、同一阻塞方法、同一调用位置的多次阻塞合并为一条
+ */
+public class BlockingCall {
+
+    private final String route;
+
+    private final String blockingMethod;
+
+    private final String callSite;
+
+    private final List<String> stack;
+
+    private String thread;
+
+    private long count;
+
+    private long totalNanos;
+
+    private long maxNanos;
+
+    private long lastSeen;
+
+    BlockingCall(String route, String blockingMethod, String callSite, List<String> stack) {
+        this.route = route;
+        this.blockingMethod = blockingMethod;
+        this.callSite = callSite;
+        this.stack = stack;
+    }
+
+    synchronized void record(String thread, long nanos) {
+        this.thread = thread;
+        this.count++;
+        this.totalNanos += nanos;
+        this.maxNanos = Math.max(maxNanos, nanos);
+        this.lastSeen = System.currentTimeMillis();
+    }
+
+    /**
+     * 发生阻塞时线程正在处理的路由，无法确定时为 unknown
+     */
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * 阻塞的方法，即调用位置调用的最外层 JDK / 框架方法，例如 java.lang.Thread.sleep、java.util.concurrent.CompletableFuture.get
+     */
+    public String getBlockingMethod() {
+        return blockingMethod;
+    }
+
+    /**
+     * 栈中第一个应用代码的帧
+     */
+    public String getCallSite() {
+        return callSite;
+    }
+
+    /**
+     * 第一次采到时的栈
+     */
+    public List<String> getStack() {
+        return stack;
+    }
+
+    /**
+     * 最近一次阻塞的线程
+     */
+    public synchronized String getThread() {
+        return thread;
+    }
+
+    /**
+     * 阻塞次数，连续多次采样都阻塞在同一位置算一次
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * 累计阻塞时长（毫秒），按采样间隔估算
+     */
+    public synchronized double getTotalMillis() {
+        return totalNanos / 1e6;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxNanos / 1e6;
+    }
+
+    public synchronized Instant getLastSeen() {
+        return Instant.ofEpochMilli(lastSeen);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return route + ": " + blockingMethod + " <- " + callSite + " on " + thread
+                + " (" + count + " times, max " + maxNanos / 1_000_000 + " ms)";
+    }
+}
@@ -0,0 +1,416 @@
+package com.youngwang.webflux.blocking;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.scheduler.NonBlocking;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * NonBlocking 线程（Netty event loop、Schedulers.parallel 等）上的阻塞调用检测
+ * <p>
+ * 不修改字节码：后台线程按固定间隔通过 ThreadMXBean 抓取这些线程的栈，线程处于 WAITING / TIMED_WAITING
+ * （sleep、park、wait、Future#get、Mono#block），或者正在执行文件、阻塞 socket、DNS 等本地方法时认为发生了阻塞，
+ * 空闲等待（epoll_wait、线程池取任务）除外。和 BlockHound 一样不统计 synchronized 的锁竞争（BLOCKED），
+ * 否则冷启动时的类加载、各种缓存的初始化都会被报告。连续多次采样阻塞在同一位置算一次阻塞，时长按采样次数估算。
+ * <p>
+ * 路由优先取 BlockingDetectorFilter 在线程上标记的当前请求（覆盖 handler 调用和同步订阅），
+ * 其次按栈帧中的 controller 方法查找，都没有时为 unknown
+ */
+public class BlockingDetector implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockingDetector.class);
+
+    static final String UNKNOWN_ROUTE = "unknown";
+
+    /**
+     * 线程空闲时所在的方法，栈中有这些帧时不是阻塞
+     */
+    private static final FrameMatcher IDLE = new FrameMatcher(Arrays.asList(
+            "io.netty.channel.epoll.EpollEventLoop.epollWait",
+            "io.netty.channel.epoll.EpollEventLoop.epollWaitNoTimerChange",
+            "io.netty.channel.epoll.EpollEventLoop.epollBusyWait",
+            "io.netty.channel.nio.NioEventLoop.select",
+            "io.netty.channel.kqueue.KQueueEventLoop.kqueueWait",
+            "java.util.concurrent.ThreadPoolExecutor.getTask"));
+
+    /**
+     * 总是允许的阻塞：类加载只发生在第一次使用时，Netty 关闭 event loop 时会 sleep 等待剩余任务，
+     * 定时任务（Mono.timeout / delay）入队、取消时短暂持有延迟队列的锁
+     */
+    private static final List<String> ALWAYS_ALLOWED = Arrays.asList(
+            "java.lang.ClassLoader.loadClass",
+            "io.netty.util.concurrent.SingleThreadEventExecutor.confirmShutdown",
+            "java.util.concurrent.ScheduledThreadPoolExecutor$DelayedWorkQueue");
+
+    /**
+     * 线程状态是 RUNNABLE 但实际阻塞在 I/O 上的本地方法所在的类
+     */
+    private static final FrameMatcher BLOCKING_NATIVE = new FrameMatcher(Arrays.asList(
+            "java.io.FileInputStream",
+            "java.io.FileOutputStream",
+            "java.io.RandomAccessFile",
+            "java.io.UnixFileSystem",
+            "java.io.WinNTFileSystem",
+            "sun.nio.ch.FileDispatcherImpl",
+            "sun.nio.fs.UnixNativeDispatcher",
+            "java.net.SocketInputStream",
+            "java.net.SocketOutputStream",
+            "sun.nio.ch.Net.poll",
+            "java.net.Inet4AddressImpl",
+            "java.net.Inet6AddressImpl"));
+
+    /**
+     * 不算应用代码的包，调用位置取栈中第一个不在这些包里的帧
+     */
+    private static final String[] FRAMEWORK_PACKAGES = {
+            "java.", "javax.", "jdk.", "sun.", "com.sun.", "reactor.", "io.netty.", "org.springframework.",
+            "io.micrometer.", "org.slf4j.", "ch.qos.logback.", "org.apache.logging.",
+            BlockingDetector.class.getPackageName() + "."};
+
+    private static final String[] JDK_PACKAGES = {"java.", "javax.", "jdk.", "sun.", "com.sun."};
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final long intervalNanos;
+
+    private final long minDurationNanos;
+
+    private final int stackDepth;
+
+    private final int maxCalls;
+
+    private final FrameMatcher allowed;
+
+    private final Supplier<Map<RequestMappingInfo, HandlerMethod>> handlerMethods;
+
+    private volatile RouteMap routeMap;
+
+    /**
+     * 线程 -> 正在同步处理的请求，由 BlockingDetectorFilter 维护
+     */
+    private final Map<Thread, ServerWebExchange> current = new ConcurrentHashMap<>();
+
+    private final Map<String, BlockingCall> calls = new ConcurrentHashMap<>();
+
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * 以下只在采样线程中访问
+     */
+    private final Map<Long, Episode> episodes = new HashMap<>();
+
+    private final Thread sampler;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param properties     配置
+     * @param handlerMethods 注解路由，第一次需要按栈帧查找路由时才获取
+     */
+    public BlockingDetector(BlockingDetectorProperties properties,
+                            Supplier<Map<RequestMappingInfo, HandlerMethod>> handlerMethods) {
+        this.intervalNanos = Math.max(1, properties.getSampleInterval().toNanos());
+        this.minDurationNanos = properties.getMinDuration().toNanos();
+        this.stackDepth = properties.getStackDepth();
+        this.maxCalls = properties.getMaxCalls();
+        List<String> allowed = new ArrayList<>(ALWAYS_ALLOWED);
+        allowed.addAll(properties.getAllowed());
+        this.allowed = new FrameMatcher(allowed);
+        this.handlerMethods = handlerMethods;
+
+        this.sampler = new Thread(this::sampleLoop, "blocking-detector");
+        this.sampler.setDaemon(true);
+        this.sampler.start();
+    }
+
+    /**
+     * 标记当前线程开始同步处理一个请求
+     *
+     * @return 之前标记的请求，传给 exit 恢复
+     */
+    ServerWebExchange enter(ServerWebExchange exchange) {
+        return current.put(Thread.currentThread(), exchange);
+    }
+
+    void exit(ServerWebExchange previous) {
+        if (previous == null) {
+            current.remove(Thread.currentThread());
+        } else {
+            current.put(Thread.currentThread(), previous);
+        }
+    }
+
+    /**
+     * 已经结束的阻塞调用，按累计时长从大到小排序。还在阻塞中的调用结束后才出现
+     */
+    public List<BlockingCall> calls() {
+        return calls.values().stream()
+                .sorted(Comparator.comparingDouble(BlockingCall::getTotalMillis).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 超过 max-calls 后没有记录的阻塞次数
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public void reset() {
+        calls.clear();
+        dropped.reset();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        sampler.join(TimeUnit.SECONDS.toMillis(1));
+    }
+
+    private void sampleLoop() {
+        while (running) {
+            long now = System.nanoTime();
+            try {
+                sample(now);
+            } catch (RuntimeException e) {
+                // 采样失败不影响下一次
+                log.debug("blocking detector sample failed", e);
+            }
+            LockSupport.parkNanos(intervalNanos);
+        }
+    }
+
+    /**
+     * 每次采样前重新枚举线程（不抓取栈，开销很小），Schedulers.parallel 等按需创建的线程创建后马上就能被采到
+     */
+    private static Thread[] discover() {
+        ThreadGroup root = Thread.currentThread().getThreadGroup();
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        Thread[] all = new Thread[root.activeCount() * 2 + 16];
+        int count = root.enumerate(all, true);
+        List<Thread> nonBlocking = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (all[i] instanceof NonBlocking) {
+                nonBlocking.add(all[i]);
+            }
+        }
+        return nonBlocking.toArray(new Thread[0]);
+    }
+
+    private void sample(long now) {
+        Thread[] targets = discover();
+        if (targets.length == 0) {
+            return;
+        }
+        long[] ids = new long[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            ids[i] = targets[i].getId();
+        }
+        ThreadInfo[] infos = threads.getThreadInfo(ids, stackDepth);
+        for (int i = 0; i < infos.length; i++) {
+            long id = ids[i];
+            Episode episode = episodes.get(id);
+            Site site = infos[i] == null ? null : site(infos[i]);
+            if (site != null && episode != null && episode.site.key.equals(site.key)) {
+                episode.lastSeen = now;
+                continue;
+            }
+            if (episode != null) {
+                episodes.remove(id);
+                close(episode);
+            }
+            if (site != null) {
+                episodes.put(id, new Episode(site, route(targets[i], infos[i].getStackTrace()), infos[i].getThreadName(), now));
+            }
+        }
+    }
+
+    /**
+     * 判断一次采样是否阻塞，是则返回阻塞方法和调用位置
+     */
+    private Site site(ThreadInfo info) {
+        StackTraceElement[] stack = info.getStackTrace();
+        if (stack.length == 0 || IDLE.matchesAny(stack)) {
+            return null;
+        }
+        Thread.State state = info.getThreadState();
+        boolean blocked = state == Thread.State.WAITING
+                || state == Thread.State.TIMED_WAITING
+                || (state == Thread.State.RUNNABLE && stack[0].isNativeMethod() && BLOCKING_NATIVE.matches(stack[0]));
+        if (!blocked || allowed.matchesAny(stack)) {
+            return null;
+        }
+        int callSite = indexOf(stack, FRAMEWORK_PACKAGES);
+        if (callSite < 0) {
+            // 整个栈都是框架代码时，取第一个不是 JDK 的帧
+            callSite = indexOf(stack, JDK_PACKAGES);
+        }
+        if (callSite < 0) {
+            callSite = stack.length - 1;
+        }
+        StackTraceElement blockingMethod = stack[Math.max(0, callSite - 1)];
+        return new Site(blockingMethod.getClassName() + "." + blockingMethod.getMethodName(), format(stack[callSite]), stack);
+    }
+
+    private static int indexOf(StackTraceElement[] stack, String[] excludedPackages) {
+        for (int i = 0; i < stack.length; i++) {
+            String className = stack[i].getClassName();
+            boolean excluded = false;
+            for (String prefix : excludedPackages) {
+                if (className.startsWith(prefix)) {
+                    excluded = true;
+                    break;
+                }
+            }
+            if (!excluded) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 和 StackTraceElement#toString 相同，但不带类加载器和模块名
+     */
+    private static String format(StackTraceElement frame) {
+        String location = frame.isNativeMethod() ? "Native Method"
+                : frame.getFileName() == null ? "Unknown Source"
+                : frame.getLineNumber() >= 0 ? frame.getFileName() + ":" + frame.getLineNumber()
+                : frame.getFileName();
+        return frame.getClassName() + "." + frame.getMethodName() + "(" + location + ")";
+    }
+
+    private String route(Thread thread, StackTraceElement[] stack) {
+        ServerWebExchange exchange = current.get(thread);
+        if (exchange != null) {
+            Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return pattern instanceof PathPattern ? ((PathPattern) pattern).getPatternString()
+                    : exchange.getRequest().getPath().pathWithinApplication().value();
+        }
+        RouteMap map = routeMap;
+        if (map == null) {
+            map = new RouteMap(handlerMethods.get());
+            routeMap = map;
+        }
+        String route = map.find(stack);
+        return route != null ? route : UNKNOWN_ROUTE;
+    }
+
+    private void close(Episode episode) {
+        // 第一次和最后一次采到之间的时间，再加上一个采样间隔
+        long nanos = episode.lastSeen - episode.firstSeen + intervalNanos;
+        if (nanos < minDurationNanos) {
+            return;
+        }
+        Site site = episode.site;
+        String key = episode.route + '|' + site.key;
+        BlockingCall call = calls.get(key);
+        if (call == null) {
+            if (calls.size() >= maxCalls) {
+                dropped.increment();
+                return;
+            }
+            call = calls.computeIfAbsent(key, k -> new BlockingCall(episode.route, site.blockingMethod, site.callSite,
+                    Arrays.stream(site.stack).map(BlockingDetector::format).collect(Collectors.toList())));
+            log.warn("blocking call on {}: {} <- {} (route {}, ~{} ms)",
+                    episode.thread, site.blockingMethod, site.callSite, episode.route, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+        call.record(episode.thread, nanos);
+    }
+
+    private static final class Site {
+
+        private final String blockingMethod;
+
+        private final String callSite;
+
+        private final String key;
+
+        private final StackTraceElement[] stack;
+
+        private Site(String blockingMethod, String callSite, StackTraceElement[] stack) {
+            this.blockingMethod = blockingMethod;
+            this.callSite = callSite;
+            this.key = blockingMethod + '|' + callSite;
+            this.stack = stack;
+        }
+    }
+
+    private static final class Episode {
+
+        private final Site site;
+
+        private final String route;
+
+        private final String thread;
+
+        private final long firstSeen;
+
+        private long lastSeen;
+
+        private Episode(Site site, String route, String thread, long now) {
+            this.site = site;
+            this.route = route;
+            this.thread = thread;
+            this.firstSeen = now;
+            this.lastSeen = now;
+        }
+    }
+
+    /**
+     * 按 类名 或 类名.方法名 匹配栈帧
+     */
+    private static final class FrameMatcher {
+
+        private final List<String> patterns;
+
+        private FrameMatcher(List<String> patterns) {
+            this.patterns = new ArrayList<>(patterns);
+        }
+
+        private boolean matches(StackTraceElement frame) {
+            for (String pattern : patterns) {
+                String className = frame.getClassName();
+                if (pattern.equals(className)
+                        || (pattern.length() == className.length() + 1 + frame.getMethodName().length()
+                        && pattern.startsWith(className) && pattern.charAt(className.length()) == '.'
+                        && pattern.endsWith(frame.getMethodName()))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matchesAny(StackTraceElement[] stack) {
+            for (StackTraceElement frame : stack) {
+                if (matches(frame)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.youngwang.webflux.blocking;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Collections;
+
+/**
+ * 阻塞调用检测的装配，默认关闭，webflux.blocking.enabled=true 时开启
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(BlockingDetectorProperties.class)
+@ConditionalOnProperty(prefix = "webflux.blocking", name = "enabled", havingValue = "true")
+public class BlockingDetectorConfiguration {
+
+    @Bean
+    public BlockingDetector blockingDetector(BlockingDetectorProperties properties,
+                                             @Qualifier("requestMappingHandlerMapping") ObjectProvider<RequestMappingHandlerMapping> handlerMapping) {
+        return new BlockingDetector(properties, () -> {
+            RequestMappingHandlerMapping mapping = handlerMapping.getIfAvailable();
+            return mapping != null ? mapping.getHandlerMethods() : Collections.emptyMap();
+        });
+    }
+
+    @Bean
+    public BlockingDetectorFilter blockingDetectorFilter(BlockingDetector detector) {
+        return new BlockingDetectorFilter(detector);
+    }
+}
@@ -0,0 +1,44 @@
+package com.youngwang.webflux.blocking;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 阻塞调用报告，webflux.blocking.enabled=true 时注册
+ */
+@RestController
+@RequestMapping("/blocking")
+@ConditionalOnProperty(prefix = "webflux.blocking", name = "enabled", havingValue = "true")
+public class BlockingDetectorController {
+
+    private final BlockingDetector detector;
+
+    public BlockingDetectorController(BlockingDetector detector) {
+        this.detector = detector;
+    }
+
+    /**
+     * 检测到的阻塞调用，按累计阻塞时长排序
+     */
+    @GetMapping("/calls")
+    public Map<String, Object> calls() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("dropped", detector.dropped());
+        report.put("calls", detector.calls());
+        return report;
+    }
+
+    /**
+     * 清空报告
+     */
+    @DeleteMapping("/calls")
+    public void reset() {
+        detector.reset();
+    }
+}
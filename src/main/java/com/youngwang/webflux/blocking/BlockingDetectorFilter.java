@@ -0,0 +1,39 @@
+package com.youngwang.webflux.blocking;
+
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * 在调用后续过滤器、handler 以及同步订阅处理链期间，把当前请求标记在线程上，
+ * 这段时间内采到的阻塞调用直接归到该请求的路由。排在所有过滤器之前
+ */
+public class BlockingDetectorFilter implements WebFilter, Ordered {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+    private final BlockingDetector detector;
+
+    public BlockingDetectorFilter(BlockingDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return Mono.fromDirect(subscriber -> {
+            ServerWebExchange previous = detector.enter(exchange);
+            try {
+                chain.filter(exchange).subscribe(subscriber);
+            } finally {
+                detector.exit(previous);
+            }
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
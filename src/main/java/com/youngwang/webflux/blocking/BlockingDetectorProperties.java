@@ -0,0 +1,92 @@
+package com.youngwang.webflux.blocking;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 阻塞调用检测配置
+ */
+@ConfigurationProperties(prefix = "webflux.blocking")
+public class BlockingDetectorProperties {
+
+    /**
+     * 是否开启检测，默认关闭。开启后后台线程按 sample-interval 抓取所有 NonBlocking 线程的栈
+     */
+    private boolean enabled = false;
+
+    /**
+     * 采样间隔，也是阻塞时长的精度。比间隔短的阻塞调用只会按概率被采到
+     */
+    private Duration sampleInterval = Duration.ofMillis(5);
+
+    /**
+     * 阻塞时长（估算值）小于该值的调用不记录
+     */
+    private Duration minDuration = Duration.ZERO;
+
+    /**
+     * 每次采样抓取的栈深度
+     */
+    private int stackDepth = 64;
+
+    /**
+     * 最多记录的调用点个数（路由 + 阻塞方法 + 调用位置），超过后新的调用点只计数
+     */
+    private int maxCalls = 256;
+
+    /**
+     * 允许阻塞的方法，格式 类名 或 类名.方法名，栈中任意一帧匹配时忽略这次采样
+     */
+    private List<String> allowed = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getSampleInterval() {
+        return sampleInterval;
+    }
+
+    public void setSampleInterval(Duration sampleInterval) {
+        this.sampleInterval = sampleInterval;
+    }
+
+    public Duration getMinDuration() {
+        return minDuration;
+    }
+
+    public void setMinDuration(Duration minDuration) {
+        this.minDuration = minDuration;
+    }
+
+    public int getStackDepth() {
+        return stackDepth;
+    }
+
+    public void setStackDepth(int stackDepth) {
+        this.stackDepth = stackDepth;
+    }
+
+    public int getMaxCalls() {
+        return maxCalls;
+    }
+
+    public void setMaxCalls(int maxCalls) {
+        this.maxCalls = maxCalls;
+    }
+
+    public List<String> getAllowed() {
+        return allowed;
+    }
+
+    public void setAllowed(List<String> allowed) {
+        this.allowed = allowed;
+    }
+}
@@ -0,0 +1,68 @@
+package com.youngwang.webflux.blocking;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * controller 方法到路由的映射，按栈帧找出阻塞调用所属的路由
+ * <p>
+ * 用于线程上没有标记当前请求的情况，例如 delayElement 之后在 parallel 线程上执行的 map：
+ * 栈中 controller 方法本身或者其中的 lambda（ZipController.lambda$tuple8$3）对应的就是该方法的路由
+ */
+class RouteMap {
+
+    private static final String LAMBDA_PREFIX = "lambda$";
+
+    /**
+     * 类名 -> 方法名 -> 路由，同名方法有多个路由时用逗号连接
+     */
+    private final Map<String, Map<String, String>> routes = new HashMap<>();
+
+    RouteMap(Map<RequestMappingInfo, HandlerMethod> handlerMethods) {
+        Map<String, Map<String, TreeSet<String>>> patterns = new HashMap<>();
+        handlerMethods.forEach((info, method) -> {
+            TreeSet<String> set = patterns.computeIfAbsent(method.getBeanType().getName(), k -> new HashMap<>())
+                    .computeIfAbsent(method.getMethod().getName(), k -> new TreeSet<>());
+            for (PathPattern pattern : info.getPatternsCondition().getPatterns()) {
+                set.add(pattern.getPatternString());
+            }
+        });
+        patterns.forEach((type, methods) -> {
+            Map<String, String> byMethod = new HashMap<>();
+            methods.forEach((name, set) -> byMethod.put(name, String.join(",", set)));
+            routes.put(type, byMethod);
+        });
+    }
+
+    /**
+     * 从栈顶开始找第一个属于 controller 方法的帧
+     *
+     * @return 路由，找不到时为 null
+     */
+    String find(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            Map<String, String> methods = routes.get(frame.getClassName());
+            if (methods == null) {
+                continue;
+            }
+            String route = methods.get(methodName(frame.getMethodName()));
+            if (route != null) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static String methodName(String name) {
+        if (name.startsWith(LAMBDA_PREFIX)) {
+            int end = name.indexOf('$', LAMBDA_PREFIX.length());
+            return end < 0 ? name : name.substring(LAMBDA_PREFIX.length(), end);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,88 @@
+package com.youngwang.webflux.codec;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 二进制整数流的解码器基类
+ * <p>
+ * 一个元素的字节可能被拆在相邻的两个 DataBuffer 里，所以每次订阅创建一个有状态的 Parser，
+ * 逐字节推进，读完一个 DataBuffer 立即释放。输入结束时停在元素中间报 DecodingException
+ */
+public abstract class AbstractIntegerDecoder implements Decoder<Integer> {
+
+    private final MediaType mediaType;
+
+    protected AbstractIntegerDecoder(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return mimeType != null && mediaType.equalsTypeAndSubtype(mimeType) && elementType.toClass() == Integer.class;
+    }
+
+    @Override
+    public List<MimeType> getDecodableMimeTypes() {
+        return List.of(mediaType);
+    }
+
+    @Override
+    public Flux<Integer> decode(Publisher<DataBuffer> inputStream, ResolvableType elementType,
+                                MimeType mimeType, Map<String, Object> hints) {
+        return Flux.defer(() -> {
+            Parser parser = newParser();
+            return Flux.from(inputStream)
+                    .concatMapIterable(buffer -> {
+                        try {
+                            List<Integer> values = new ArrayList<>();
+                            while (buffer.readableByteCount() > 0) {
+                                parser.next(buffer.read() & 0xFF, values);
+                            }
+                            return values;
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    })
+                    .concatWith(Mono.fromRunnable(parser::complete));
+        });
+    }
+
+    @Override
+    public Mono<Integer> decodeToMono(Publisher<DataBuffer> inputStream, ResolvableType elementType,
+                                      MimeType mimeType, Map<String, Object> hints) {
+        return decode(inputStream, elementType, mimeType, hints).singleOrEmpty();
+    }
+
+    protected abstract Parser newParser();
+
+    /**
+     * 单次解码的状态
+     */
+    protected interface Parser {
+
+        /**
+         * 处理一个字节，解出完整的元素时加入 values
+         *
+         * @param b      无符号字节
+         * @param values 解出的元素
+         */
+        void next(int b, List<Integer> values);
+
+        /**
+         * 输入结束，检查没有停在元素中间
+         */
+        void complete();
+    }
+}
@@ -0,0 +1,106 @@
+package com.youngwang.webflux.codec;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flux&lt;Integer&gt; 的二进制编码器基类：每 batchSize 个元素编码进一个 DataBuffer，
+ * 媒体类型同时声明为流式类型，EncoderHttpMessageWriter 每写完一个 DataBuffer flush 一次
+ * <p>
+ * 只在显式给出本编码器的媒体类型时才可用。自定义编码器在写出器列表中排在 Jackson 之前，
+ * 如果 canEncode(type, null) 也返回 true，Accept 为 *&#47;* 的请求会被协商成二进制格式。
+ * 所以接口要通过 {@code @GetMapping(produces = ...)} 显式声明支持的二进制类型
+ */
+public abstract class AbstractIntegerEncoder implements HttpMessageEncoder<Integer> {
+
+    private final MediaType mediaType;
+
+    private final int batchSize;
+
+    protected AbstractIntegerEncoder(MediaType mediaType, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        this.mediaType = mediaType;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return mimeType != null && mediaType.equalsTypeAndSubtype(mimeType) && elementType.toClass() == Integer.class;
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return List.of(mediaType);
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return List.of(mediaType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends Integer> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                    .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+        Flux<DataBuffer> batches = Flux.from(inputStream)
+                .buffer(batchSize)
+                .map(batch -> encodeBatch(bufferFactory, batch));
+        return Flux.concat(prefix(bufferFactory), batches, suffix(bufferFactory));
+    }
+
+    @Override
+    public DataBuffer encodeValue(Integer value, DataBufferFactory bufferFactory,
+                                  ResolvableType valueType, MimeType mimeType, Map<String, Object> hints) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(maxLength());
+        write(buffer, value);
+        return buffer;
+    }
+
+    private DataBuffer encodeBatch(DataBufferFactory bufferFactory, List<? extends Integer> batch) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(batch.size() * maxLength());
+        for (Integer value : batch) {
+            write(buffer, value);
+        }
+        return buffer;
+    }
+
+    /**
+     * 序列开头的字节，默认没有
+     */
+    protected Mono<DataBuffer> prefix(DataBufferFactory bufferFactory) {
+        return Mono.empty();
+    }
+
+    /**
+     * 序列结尾的字节，默认没有
+     */
+    protected Mono<DataBuffer> suffix(DataBufferFactory bufferFactory) {
+        return Mono.empty();
+    }
+
+    /**
+     * 单个元素编码后的最大字节数
+     */
+    protected abstract int maxLength();
+
+    /**
+     * 写入单个元素
+     */
+    protected abstract void write(DataBuffer buffer, int value);
+}
@@ -0,0 +1,111 @@
+package com.youngwang.webflux.codec;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * application/cbor 整数流的解码器：接受单个整数、定长数组或不定长数组，数组元素只能是 32 位范围内的整数
+ */
+public class CborIntegerDecoder extends AbstractIntegerDecoder {
+
+    private static final int MAJOR_UNSIGNED = 0;
+
+    private static final int MAJOR_NEGATIVE = 1;
+
+    private static final int MAJOR_ARRAY = 4;
+
+    public CborIntegerDecoder() {
+        super(MediaType.APPLICATION_CBOR);
+    }
+
+    @Override
+    protected Parser newParser() {
+        return new Parser() {
+
+            /**
+             * 当前数据项还要读的参数字节数，-1 表示等待下一个头字节
+             */
+            private int pending = -1;
+
+            private int major;
+
+            private long argument;
+
+            private boolean array;
+
+            private boolean indefinite;
+
+            /**
+             * 定长数组剩余的元素个数
+             */
+            private long remaining;
+
+            private boolean done;
+
+            @Override
+            public void next(int b, List<Integer> values) {
+                if (done) {
+                    throw new DecodingException("unexpected data after the end of CBOR item");
+                }
+                if (pending > 0) {
+                    argument = (argument << 8) | b;
+                    if (--pending == 0) {
+                        item(values);
+                    }
+                    return;
+                }
+                if (indefinite && b == CborIntegerEncoder.BREAK) {
+                    done = true;
+                    return;
+                }
+                major = b >>> 5;
+                int info = b & 0x1F;
+                if (major == MAJOR_ARRAY && !array && info == 31) {
+                    array = true;
+                    indefinite = true;
+                    return;
+                }
+                if (major != MAJOR_UNSIGNED && major != MAJOR_NEGATIVE && (major != MAJOR_ARRAY || array)) {
+                    throw new DecodingException("unsupported CBOR item, major type " + major);
+                }
+                if (info < 24) {
+                    argument = info;
+                    item(values);
+                } else if (info <= 26) {
+                    // 24、25、26 分别跟 1、2、4 个字节
+                    argument = 0;
+                    pending = 1 << (info - 24);
+                } else {
+                    throw new DecodingException("unsupported CBOR additional info " + info);
+                }
+            }
+
+            private void item(List<Integer> values) {
+                pending = -1;
+                if (major == MAJOR_ARRAY) {
+                    array = true;
+                    remaining = argument;
+                    done = remaining == 0;
+                    return;
+                }
+                long value = major == MAJOR_UNSIGNED ? argument : -1 - argument;
+                if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    throw new DecodingException("CBOR integer out of int range: " + value);
+                }
+                values.add((int) value);
+                if (!array || (!indefinite && --remaining == 0)) {
+                    done = true;
+                }
+            }
+
+            @Override
+            public void complete() {
+                if (!done && (array || pending > 0)) {
+                    throw new DecodingException("truncated CBOR at end of input");
+                }
+            }
+        };
+    }
+}
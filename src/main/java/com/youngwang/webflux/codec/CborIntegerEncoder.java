@@ -0,0 +1,72 @@
+package com.youngwang.webflux.codec;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+
+/**
+ * application/cbor（RFC 8949）：Flux 编码成不定长数组（0x9F ... 0xFF），可以边生成边输出，
+ * 每个元素是主类型 0（非负）或 1（负数，存 -1 - value）的整数，按大小占 1、2、3 或 5 个字节
+ * <p>
+ * Spring 5.3 的 Jackson2CborEncoder 不支持流式编码，Flux 会直接报错，所以整数流单独实现
+ */
+public class CborIntegerEncoder extends AbstractIntegerEncoder {
+
+    static final int MAX_LENGTH = 5;
+
+    static final int INDEFINITE_ARRAY = 0x9F;
+
+    static final int BREAK = 0xFF;
+
+    public CborIntegerEncoder(int batchSize) {
+        super(MediaType.APPLICATION_CBOR, batchSize);
+    }
+
+    @Override
+    protected Mono<DataBuffer> prefix(DataBufferFactory bufferFactory) {
+        return Mono.fromSupplier(() -> bufferFactory.allocateBuffer(1).write((byte) INDEFINITE_ARRAY));
+    }
+
+    @Override
+    protected Mono<DataBuffer> suffix(DataBufferFactory bufferFactory) {
+        return Mono.fromSupplier(() -> bufferFactory.allocateBuffer(1).write((byte) BREAK));
+    }
+
+    @Override
+    protected int maxLength() {
+        return MAX_LENGTH;
+    }
+
+    @Override
+    protected void write(DataBuffer buffer, int value) {
+        int major = 0;
+        // 负数存 -1 - value，Integer.MIN_VALUE 对应 2^31 - 1，4 个字节放得下
+        int argument = value;
+        if (value < 0) {
+            major = 0x20;
+            argument = -1 - value;
+        }
+        if (argument < 24) {
+            buffer.write((byte) (major | argument));
+        } else if (argument < 0x100) {
+            buffer.write((byte) (major | 24));
+            buffer.write((byte) argument);
+        } else if (argument < 0x10000) {
+            buffer.write((byte) (major | 25));
+            writeBytes(buffer, argument, 2);
+        } else {
+            buffer.write((byte) (major | 26));
+            writeBytes(buffer, argument, 4);
+        }
+    }
+
+    /**
+     * 大端写入 argument 的低 count 个字节，逐个写入避免每个元素分配一个数组
+     */
+    private static void writeBytes(DataBuffer buffer, int argument, int count) {
+        for (int shift = (count - 1) * 8; shift >= 0; shift -= 8) {
+            buffer.write((byte) (argument >>> shift));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.youngwang.webflux.codec;
+
+import com.youngwang.webflux.streaming.StreamingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 整数流二进制编解码器的装配，服务端和 WebClient 的 codec 都会加上这几个编解码器。
+ * 批大小沿用 webflux.streaming.batch-size
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(StreamingProperties.class)
+public class IntegerCodecConfiguration {
+
+    @Bean
+    public CodecCustomizer integerCodecCustomizer(StreamingProperties properties) {
+        return configurer -> {
+            configurer.customCodecs().register(new VarintIntegerEncoder(properties.getBatchSize()));
+            configurer.customCodecs().register(new VarintIntegerDecoder());
+            configurer.customCodecs().register(new CborIntegerEncoder(properties.getBatchSize()));
+            configurer.customCodecs().register(new CborIntegerDecoder());
+        };
+    }
+}
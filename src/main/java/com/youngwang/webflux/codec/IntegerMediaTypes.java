@@ -0,0 +1,29 @@
+package com.youngwang.webflux.codec;
+
+import org.springframework.http.MediaType;
+
+/**
+ * 整数流的紧凑二进制媒体类型
+ * <p>
+ * 同一个 Flux&lt;Integer&gt; 在几种格式下的体积（0 ~ 999 的 1000 个元素）：
+ * JSON 数组约 3.9KB，Smile 约 3.0KB，CBOR 约 2.7KB，varint 约 1.9KB
+ */
+public final class IntegerMediaTypes {
+
+    /**
+     * 连续的 zigzag varint，每个元素 1 ~ 5 个字节，没有分隔符和外层结构
+     */
+    public static final String VARINT_VALUE = "application/x-varint";
+
+    public static final MediaType VARINT = MediaType.parseMediaType(VARINT_VALUE);
+
+    /**
+     * Jackson Smile 二进制 JSON，由 WebFlux 默认的 Jackson2SmileEncoder 编码
+     */
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    private IntegerMediaTypes() {
+    }
+}
@@ -0,0 +1,47 @@
+package com.youngwang.webflux.codec;
+
+import org.springframework.core.codec.DecodingException;
+
+import java.util.List;
+
+/**
+ * application/x-varint 的解码器，和 VarintIntegerEncoder 对应
+ */
+public class VarintIntegerDecoder extends AbstractIntegerDecoder {
+
+    public VarintIntegerDecoder() {
+        super(IntegerMediaTypes.VARINT);
+    }
+
+    @Override
+    protected Parser newParser() {
+        return new Parser() {
+
+            private int value;
+
+            private int shift;
+
+            @Override
+            public void next(int b, List<Integer> values) {
+                if (shift == 7 * (VarintIntegerEncoder.MAX_LENGTH - 1) && (b & ~0x0F) != 0) {
+                    throw new DecodingException("varint exceeds 32 bits");
+                }
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) != 0) {
+                    shift += 7;
+                    return;
+                }
+                values.add((value >>> 1) ^ -(value & 1));
+                value = 0;
+                shift = 0;
+            }
+
+            @Override
+            public void complete() {
+                if (shift != 0) {
+                    throw new DecodingException("truncated varint at end of input");
+                }
+            }
+        };
+    }
+}
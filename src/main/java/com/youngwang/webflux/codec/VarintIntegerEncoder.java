@@ -0,0 +1,35 @@
+package com.youngwang.webflux.codec;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+/**
+ * application/x-varint：每个元素先 zigzag 映射成无符号数（0, -1, 1, -2 ... 依次对应 0, 1, 2, 3 ...），
+ * 再按 LEB128 每 7 位一个字节写出，最高位为 1 表示后面还有字节。
+ * varint 本身就是自带长度的，元素之间不需要分隔符，和 protobuf 的 packed sint32 相同
+ */
+public class VarintIntegerEncoder extends AbstractIntegerEncoder {
+
+    /**
+     * 32 位需要 5 个 7 位组
+     */
+    static final int MAX_LENGTH = 5;
+
+    public VarintIntegerEncoder(int batchSize) {
+        super(IntegerMediaTypes.VARINT, batchSize);
+    }
+
+    @Override
+    protected int maxLength() {
+        return MAX_LENGTH;
+    }
+
+    @Override
+    protected void write(DataBuffer buffer, int value) {
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            buffer.write((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.write((byte) zigzag);
+    }
+}
@@ -0,0 +1,174 @@
+package com.youngwang.webflux.compression;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 按协商出的编码压缩响应体
+ * <p>
+ * writeWith（非流式）：有 Content-Length 时直接按长度判断阈值，否则先攒到阈值大小再决定，
+ * 在阈值以内结束的响应原样输出。压缩时只在最后 finish，整个响应一个 deflate 流。
+ * <p>
+ * writeAndFlushWith（流式）：每个内层 Publisher 是一批，压缩后 SYNC_FLUSH，保持原来的 flush 节奏。
+ * <p>
+ * 零拷贝写文件（sendfile）不经过用户态，无法压缩，直接交给原始响应
+ */
+class CompressingResponse extends ServerHttpResponseDecorator implements ZeroCopyHttpOutputMessage {
+
+    private static final int FILE_CHUNK_SIZE = 64 * 1024;
+
+    private final ContentEncoding encoding;
+
+    private final CompressionFilter filter;
+
+    CompressingResponse(ServerHttpResponse delegate, ContentEncoding encoding, CompressionFilter filter) {
+        super(delegate);
+        this.encoding = encoding;
+        this.filter = filter;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        if (!compressible()) {
+            return super.writeWith(body);
+        }
+        long minSize = filter.getMinResponseSize();
+        long contentLength = getHeaders().getContentLength();
+        if (contentLength >= 0) {
+            if (contentLength < minSize) {
+                filter.skipped(CompressionFilter.SKIP_THRESHOLD);
+                return super.writeWith(body);
+            }
+            return super.writeWith(compress(Flux.from(body)));
+        }
+        // 长度未知：bufferUntil 先攒够 minSize 字节作为第一组，之后每个 buffer 单独一组，
+        // 第一组不够 minSize 说明整个响应都在阈值以内。
+        // 响应在收到第一个 buffer 时才提交，所以在第一组发出之前还可以修改响应头
+        return super.writeWith(Flux.defer(() -> {
+            long[] seen = new long[1];
+            return Flux.<DataBuffer>from(body).bufferUntil(buffer -> {
+                seen[0] += buffer.readableByteCount();
+                return seen[0] >= minSize;
+            });
+        }).switchOnFirst((first, groups) -> {
+            Flux<DataBuffer> buffers = groups.concatMapIterable(group -> group);
+            if (first.hasValue() && size(first.get()) >= minSize) {
+                return compress(buffers);
+            }
+            filter.skipped(CompressionFilter.SKIP_THRESHOLD);
+            return buffers;
+        }).doOnDiscard(DataBuffer.class, DataBufferUtils::release));
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        if (!compressible()) {
+            return super.writeAndFlushWith(body);
+        }
+        Compressor compressor = filter.newCompressor(encoding, bufferFactory());
+        prepareHeaders();
+        Flux<Mono<DataBuffer>> batches = Flux.from(body)
+                .map(batch -> Flux.<DataBuffer>from(batch).collectList().map(list -> compressor.compress(list, true)));
+        // 外层完成时最后一批（finish）可能还没有被订阅，不能在外层结束时释放 compressor
+        return super.writeAndFlushWith(batches
+                .concatWith(Mono.just(Mono.fromSupplier(() -> finish(compressor, true))))
+                .doFinally(signal -> {
+                    if (signal != SignalType.ON_COMPLETE) {
+                        compressor.end();
+                    }
+                }));
+    }
+
+    @Override
+    public Mono<Void> writeWith(Path file, long position, long count) {
+        ServerHttpResponse delegate = getDelegate();
+        if (delegate instanceof ZeroCopyHttpOutputMessage) {
+            return ((ZeroCopyHttpOutputMessage) delegate).writeWith(file, position, count);
+        }
+        return writeWith(DataBufferUtils.takeUntilByteCount(
+                DataBufferUtils.read(new FileSystemResource(file), position, bufferFactory(), FILE_CHUNK_SIZE), count));
+    }
+
+    private Flux<DataBuffer> compress(Flux<DataBuffer> buffers) {
+        return Flux.defer(() -> {
+            Compressor compressor = filter.newCompressor(encoding, bufferFactory());
+            prepareHeaders();
+            return buffers
+                    .map(buffer -> compressor.compress(List.of(buffer), false))
+                    // 不 flush 时 deflater 内部还有缓冲，输出可能是空的
+                    .filter(output -> {
+                        if (output.readableByteCount() > 0) {
+                            return true;
+                        }
+                        DataBufferUtils.release(output);
+                        return false;
+                    })
+                    .concatWith(Mono.fromSupplier(() -> finish(compressor, false)))
+                    .doFinally(signal -> compressor.end());
+        });
+    }
+
+    /**
+     * 判断响应是否需要压缩，在写出响应体之前调用，此时 Content-Type 等响应头已经确定
+     */
+    private boolean compressible() {
+        HttpHeaders headers = getHeaders();
+        HttpStatus status = getStatusCode();
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING) || headers.containsKey(HttpHeaders.CONTENT_RANGE)
+                || status == HttpStatus.PARTIAL_CONTENT || status == HttpStatus.NO_CONTENT
+                || status == HttpStatus.NOT_MODIFIED) {
+            return false;
+        }
+        MediaType contentType = headers.getContentType();
+        if (contentType == null || !filter.isCompressible(contentType)) {
+            filter.skipped(CompressionFilter.SKIP_CONTENT_TYPE);
+            return false;
+        }
+        // 同一个 URL 按 Accept-Encoding 返回不同内容，缓存需要区分
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (encoding == null) {
+            filter.skipped(CompressionFilter.SKIP_NOT_ACCEPTED);
+            return false;
+        }
+        return true;
+    }
+
+    private void prepareHeaders() {
+        HttpHeaders headers = getHeaders();
+        headers.set(HttpHeaders.CONTENT_ENCODING, encoding.token());
+        // 压缩后的长度事先未知，改为 chunked 传输
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+    }
+
+    private DataBuffer finish(Compressor compressor, boolean streaming) {
+        try {
+            DataBuffer output = compressor.finish();
+            filter.record(compressor, streaming);
+            return output;
+        } finally {
+            compressor.end();
+        }
+    }
+
+    private static long size(List<DataBuffer> group) {
+        long size = 0;
+        for (DataBuffer buffer : group) {
+            size += buffer.readableByteCount();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,21 @@
+package com.youngwang.webflux.compression;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 响应压缩的装配，webflux.compression.enabled=false 时不注册过滤器
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(CompressionProperties.class)
+public class CompressionConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "webflux.compression", name = "enabled", matchIfMissing = true)
+    public CompressionFilter compressionFilter(CompressionProperties properties, MeterRegistry registry) {
+        return new CompressionFilter(properties, registry);
+    }
+}
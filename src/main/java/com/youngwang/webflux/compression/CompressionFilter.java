@@ -0,0 +1,181 @@
+package com.youngwang.webflux.compression;
+
+import com.youngwang.webflux.deadline.DeadlineFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应压缩：按 Accept-Encoding 协商 gzip / deflate，替换 exchange 中的响应为 CompressingResponse
+ * <p>
+ * 指标（tag encoding、mode=buffered|streaming）：http.compression.ratio 压缩后 / 压缩前的大小，
+ * http.compression.cpu 每个响应压缩消耗的 CPU 时间，http.compression.bytes 压缩前后的字节数（tag direction=in|out），
+ * http.compression.skipped 没有压缩的响应数（tag reason=threshold|content-type|not-accepted）
+ */
+public class CompressionFilter implements WebFilter, Ordered {
+
+    public static final int ORDER = DeadlineFilter.ORDER + 10;
+
+    static final String SKIP_THRESHOLD = "threshold";
+
+    static final String SKIP_CONTENT_TYPE = "content-type";
+
+    static final String SKIP_NOT_ACCEPTED = "not-accepted";
+
+    private final long minResponseSize;
+
+    private final int level;
+
+    private final List<MediaType> mimeTypes = new ArrayList<>();
+
+    private final List<PathPattern> excludes = new ArrayList<>();
+
+    private final MeterRegistry registry;
+
+    private final Map<ContentEncoding, Meters> buffered = new EnumMap<>(ContentEncoding.class);
+
+    private final Map<ContentEncoding, Meters> streaming = new EnumMap<>(ContentEncoding.class);
+
+    private final Map<String, Counter> skipped = new ConcurrentHashMap<>();
+
+    public CompressionFilter(CompressionProperties properties, MeterRegistry registry) {
+        if (properties.getLevel() < 1 || properties.getLevel() > 9) {
+            throw new IllegalArgumentException("webflux.compression.level must be between 1 and 9");
+        }
+        this.minResponseSize = properties.getMinResponseSize().toBytes();
+        this.level = properties.getLevel();
+        for (String mimeType : properties.getMimeTypes()) {
+            mimeTypes.add(MediaType.parseMediaType(mimeType));
+        }
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        for (String exclude : properties.getExcludes()) {
+            excludes.add(parser.parse(exclude));
+        }
+        this.registry = registry;
+        for (ContentEncoding encoding : ContentEncoding.values()) {
+            buffered.put(encoding, new Meters(encoding, "buffered", registry));
+            streaming.put(encoding, new Meters(encoding, "streaming", registry));
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() == HttpMethod.HEAD || excluded(request.getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
+        ContentEncoding encoding = ContentEncoding.negotiate(request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING));
+        CompressingResponse response = new CompressingResponse(exchange.getResponse(), encoding, this);
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    long getMinResponseSize() {
+        return minResponseSize;
+    }
+
+    boolean isCompressible(MediaType contentType) {
+        for (MediaType mimeType : mimeTypes) {
+            if (mimeType.isCompatibleWith(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Compressor newCompressor(ContentEncoding encoding, DataBufferFactory bufferFactory) {
+        return new Compressor(encoding, level, bufferFactory);
+    }
+
+    void record(Compressor compressor, boolean streaming) {
+        if (compressor.getBytesIn() == 0) {
+            return;
+        }
+        (streaming ? this.streaming : buffered).get(compressor.getEncoding()).record(compressor);
+    }
+
+    void skipped(String reason) {
+        skipped.computeIfAbsent(reason, key -> Counter.builder("http.compression.skipped")
+                .description("没有压缩的响应数")
+                .tag("reason", key)
+                .register(registry))
+                .increment();
+    }
+
+    private boolean excluded(PathContainer path) {
+        for (PathPattern exclude : excludes) {
+            if (exclude.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Meters {
+
+        private final DistributionSummary ratio;
+
+        private final Timer cpu;
+
+        private final Counter bytesIn;
+
+        private final Counter bytesOut;
+
+        private Meters(ContentEncoding encoding, String mode, MeterRegistry registry) {
+            this.ratio = DistributionSummary.builder("http.compression.ratio")
+                    .description("压缩后与压缩前的大小之比")
+                    .tag("encoding", encoding.token())
+                    .tag("mode", mode)
+                    .register(registry);
+            this.cpu = Timer.builder("http.compression.cpu")
+                    .description("每个响应压缩消耗的 CPU 时间")
+                    .tag("encoding", encoding.token())
+                    .tag("mode", mode)
+                    .register(registry);
+            this.bytesIn = Counter.builder("http.compression.bytes")
+                    .baseUnit("bytes")
+                    .tag("encoding", encoding.token())
+                    .tag("mode", mode)
+                    .tag("direction", "in")
+                    .register(registry);
+            this.bytesOut = Counter.builder("http.compression.bytes")
+                    .baseUnit("bytes")
+                    .tag("encoding", encoding.token())
+                    .tag("mode", mode)
+                    .tag("direction", "out")
+                    .register(registry);
+        }
+
+        private void record(Compressor compressor) {
+            ratio.record((double) compressor.getBytesOut() / compressor.getBytesIn());
+            cpu.record(compressor.getCpuNanos(), TimeUnit.NANOSECONDS);
+            bytesIn.increment(compressor.getBytesIn());
+            bytesOut.increment(compressor.getBytesOut());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.youngwang.webflux.compression;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 响应压缩配置
+ * <p>
+ * 对应 application.yaml 中的 webflux.compression。和 server.compression（Netty 的 HttpContentCompressor）不要同时开启，
+ * 已经带有 Content-Encoding 的响应不会再次压缩
+ */
+@ConfigurationProperties(prefix = "webflux.compression")
+public class CompressionProperties {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled = true;
+
+    /**
+     * 小于该大小的响应不压缩。只对非流式响应生效，流式响应的总大小事先未知，总是压缩
+     */
+    private DataSize minResponseSize = DataSize.ofKilobytes(2);
+
+    /**
+     * 压缩级别 1 ~ 9，越大压缩率越高、CPU 开销越大
+     */
+    private int level = 6;
+
+    /**
+     * 需要压缩的媒体类型，忽略参数（如 charset）
+     */
+    private List<String> mimeTypes = new ArrayList<>(List.of(
+            "text/html", "text/plain", "text/css", "text/event-stream",
+            "application/json", "application/*+json", "application/x-ndjson",
+            "application/javascript", "application/xml", "text/xml"));
+
+    /**
+     * 不压缩的路径模式
+     */
+    private List<String> excludes = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public DataSize getMinResponseSize() {
+        return minResponseSize;
+    }
+
+    public void setMinResponseSize(DataSize minResponseSize) {
+        this.minResponseSize = minResponseSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public List<String> getMimeTypes() {
+        return mimeTypes;
+    }
+
+    public void setMimeTypes(List<String> mimeTypes) {
+        this.mimeTypes = mimeTypes;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    public void setExcludes(List<String> excludes) {
+        this.excludes = excludes;
+    }
+}
@@ -0,0 +1,199 @@
+package com.youngwang.webflux.compression;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 单个响应的压缩状态，输入的 DataBuffer 读完即释放
+ * <p>
+ * 流式响应每批调用一次 compress(batch, true)：Deflater.SYNC_FLUSH 把这一批已经输入的数据全部输出，
+ * 并以空的存储块对齐字节边界，客户端收到后立即就能解压出这一批，不需要等整个响应结束。
+ * 代价是每批多 5 个字节左右，并且会打断跨批次的匹配，批次越小压缩率越低
+ * <p>
+ * Deflater 占用堆外内存，响应结束（包括出错和取消）时必须调用 end()。
+ * 取消可能和写出发生在不同线程，所以方法都加了锁，end() 之后的调用直接释放输入
+ */
+public class Compressor {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+
+    /**
+     * gzip 头：魔数、deflate、无标志、无修改时间、无额外标志、未知操作系统
+     */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ContentEncoding encoding;
+
+    private final DataBufferFactory bufferFactory;
+
+    private final Deflater deflater;
+
+    private final CRC32 crc;
+
+    private final byte[] scratch = new byte[8192];
+
+    private boolean headerWritten;
+
+    private boolean ended;
+
+    private long bytesIn;
+
+    private long bytesOut;
+
+    private long cpuNanos;
+
+    public Compressor(ContentEncoding encoding, int level, DataBufferFactory bufferFactory) {
+        this.encoding = encoding;
+        this.bufferFactory = bufferFactory;
+        boolean gzip = encoding == ContentEncoding.GZIP;
+        // gzip 自己写头尾，deflater 只输出裸 deflate 数据；deflate 使用 zlib 格式
+        this.deflater = new Deflater(level, gzip);
+        this.crc = gzip ? new CRC32() : null;
+    }
+
+    /**
+     * 压缩一批数据
+     *
+     * @param inputs 输入，方法返回时已释放
+     * @param flush  是否 SYNC_FLUSH，流式响应每批都要 flush
+     * @return 这一批产生的压缩数据，不 flush 时可能为空
+     */
+    public synchronized DataBuffer compress(List<? extends DataBuffer> inputs, boolean flush) {
+        if (ended) {
+            inputs.forEach(DataBufferUtils::release);
+            return bufferFactory.allocateBuffer(0);
+        }
+        long start = cpuTime();
+        DataBuffer output = bufferFactory.allocateBuffer(estimate(inputs));
+        try {
+            writeHeader(output);
+            for (DataBuffer input : inputs) {
+                try {
+                    ByteBuffer bytes = input.asByteBuffer();
+                    bytesIn += bytes.remaining();
+                    if (crc != null) {
+                        crc.update(bytes.duplicate());
+                    }
+                    deflater.setInput(bytes);
+                    while (!deflater.needsInput()) {
+                        drain(output, Deflater.NO_FLUSH);
+                    }
+                    // 输入已经读完，不再持有即将释放的 buffer
+                    deflater.setInput(EMPTY);
+                } finally {
+                    DataBufferUtils.release(input);
+                }
+            }
+            if (flush) {
+                // 输出填满 scratch 时可能还有剩余，继续调用直到不满
+                int length;
+                do {
+                    length = drain(output, Deflater.SYNC_FLUSH);
+                } while (length == scratch.length);
+            }
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(output);
+            throw e;
+        }
+        bytesOut += output.readableByteCount();
+        cpuNanos += cpuTime() - start;
+        return output;
+    }
+
+    /**
+     * 结束压缩，输出剩余数据和 gzip 尾部（CRC32、原始长度）
+     */
+    public synchronized DataBuffer finish() {
+        if (ended) {
+            return bufferFactory.allocateBuffer(0);
+        }
+        long start = cpuTime();
+        DataBuffer output = bufferFactory.allocateBuffer(64);
+        writeHeader(output);
+        deflater.finish();
+        while (!deflater.finished()) {
+            drain(output, Deflater.NO_FLUSH);
+        }
+        if (crc != null) {
+            writeIntLittleEndian(output, (int) crc.getValue());
+            writeIntLittleEndian(output, (int) bytesIn);
+        }
+        bytesOut += output.readableByteCount();
+        cpuNanos += cpuTime() - start;
+        return output;
+    }
+
+    /**
+     * 释放 Deflater 的堆外内存，可以重复调用
+     */
+    public synchronized void end() {
+        if (!ended) {
+            ended = true;
+            deflater.end();
+        }
+    }
+
+    public ContentEncoding getEncoding() {
+        return encoding;
+    }
+
+    public synchronized long getBytesIn() {
+        return bytesIn;
+    }
+
+    public synchronized long getBytesOut() {
+        return bytesOut;
+    }
+
+    /**
+     * 压缩消耗的 CPU 时间，不支持线程 CPU 时间的 JVM 上为墙上时间
+     */
+    public synchronized long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    private int drain(DataBuffer output, int flush) {
+        int length = deflater.deflate(scratch, 0, scratch.length, flush);
+        output.write(scratch, 0, length);
+        return length;
+    }
+
+    private void writeHeader(DataBuffer output) {
+        if (crc != null && !headerWritten) {
+            output.write(GZIP_HEADER);
+        }
+        headerWritten = true;
+    }
+
+    private static int estimate(List<? extends DataBuffer> inputs) {
+        int total = 0;
+        for (DataBuffer input : inputs) {
+            total += input.readableByteCount();
+        }
+        // 文本通常能压到一半以下，不够时 DataBuffer 会自动扩容
+        return Math.max(64, total / 2);
+    }
+
+    private static void writeIntLittleEndian(DataBuffer output, int value) {
+        output.write((byte) value);
+        output.write((byte) (value >>> 8));
+        output.write((byte) (value >>> 16));
+        output.write((byte) (value >>> 24));
+    }
+
+    private static long cpuTime() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
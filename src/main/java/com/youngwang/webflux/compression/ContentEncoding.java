@@ -0,0 +1,77 @@
+package com.youngwang.webflux.compression;
+
+import java.util.List;
+
+/**
+ * 支持的内容编码
+ */
+public enum ContentEncoding {
+
+    /**
+     * RFC 1952，deflate 数据加上 gzip 头和 CRC32 尾
+     */
+    GZIP("gzip"),
+
+    /**
+     * HTTP 的 deflate 实际是 RFC 1950 的 zlib 格式，不是裸 deflate
+     */
+    DEFLATE("deflate");
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    /**
+     * 按 Accept-Encoding 选择编码：q 值最高的优先，相同时 gzip 优先，q=0 表示不接受
+     *
+     * @param acceptEncoding Accept-Encoding 请求头的所有值
+     * @return 选中的编码，都不接受时返回 null
+     */
+    public static ContentEncoding negotiate(List<String> acceptEncoding) {
+        // -1 表示没有列出
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String header : acceptEncoding) {
+            for (String element : header.split(",")) {
+                String[] parts = element.split(";");
+                String coding = parts[0].trim().toLowerCase();
+                double quality = 1;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            quality = Double.parseDouble(parameter.substring(2));
+                        } catch (NumberFormatException e) {
+                            quality = 0;
+                        }
+                    }
+                }
+                if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                    gzip = Math.max(gzip, quality);
+                } else if (coding.equals("deflate")) {
+                    deflate = Math.max(deflate, quality);
+                } else if (coding.equals("*")) {
+                    any = quality;
+                }
+            }
+        }
+        // * 只作用于没有单独列出的编码
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+}
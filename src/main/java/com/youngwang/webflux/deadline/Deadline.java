@@ -0,0 +1,59 @@
+package com.youngwang.webflux.deadline;
+
+import java.time.Duration;
+
+/**
+ * 请求的绝对截止时间，基于 System.nanoTime，只在进程内有效，跨进程传递时换算成剩余时间
+ */
+public final class Deadline {
+
+    private final long startNanos;
+
+    private final long budgetNanos;
+
+    private Deadline(long startNanos, long budgetNanos) {
+        this.startNanos = startNanos;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * 从现在开始 budget 之后截止
+     */
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime(), Math.max(0, budget.toNanos()));
+    }
+
+    /**
+     * 剩余时间，已经截止时为 0
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, budgetNanos - elapsedNanos()));
+    }
+
+    public boolean isExpired() {
+        return elapsedNanos() >= budgetNanos;
+    }
+
+    /**
+     * 已经用掉的时间
+     */
+    public Duration elapsed() {
+        return Duration.ofNanos(elapsedNanos());
+    }
+
+    /**
+     * 总的时间预算
+     */
+    public Duration budget() {
+        return Duration.ofNanos(budgetNanos);
+    }
+
+    private long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[budget=" + budget().toMillis() + "ms, remaining=" + remaining().toMillis() + "ms]";
+    }
+}
@@ -0,0 +1,20 @@
+package com.youngwang.webflux.deadline;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 请求截止时间的装配，webflux.deadline.enabled=false 时不注册过滤器
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(DeadlineProperties.class)
+public class DeadlineConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "webflux.deadline", name = "enabled", matchIfMissing = true)
+    public DeadlineFilter deadlineFilter(DeadlineProperties properties) {
+        return new DeadlineFilter(properties);
+    }
+}
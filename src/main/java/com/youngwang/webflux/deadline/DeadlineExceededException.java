@@ -0,0 +1,21 @@
+package com.youngwang.webflux.deadline;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 请求的截止时间已到，或者剩余时间不足以完成某个步骤，响应 504
+ * <p>
+ * 继承 TimeoutException，并发限制会把它当作过载处理
+ */
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class DeadlineExceededException extends TimeoutException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,137 @@
+package com.youngwang.webflux.deadline;
+
+import com.youngwang.webflux.limiter.ConcurrencyLimitFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 为请求设置截止时间并写入 Reactor Context，handler 中的各个步骤通过 Deadlines 读取剩余时间
+ * <p>
+ * 截止时间到了还没有响应时取消整个处理链：还没有提交响应时返回 504，已经开始输出（流式接口）时直接结束。
+ * 响应头 X-Deadline-Budget 为时间预算、X-Deadline-Used 为提交响应时已用掉的时间（毫秒）
+ * <p>
+ * 排在并发限制之后，被拒绝的请求不占用时间预算
+ */
+public class DeadlineFilter implements WebFilter, Ordered {
+
+    public static final int ORDER = ConcurrencyLimitFilter.ORDER + 10;
+
+    public static final String BUDGET_HEADER = "X-Deadline-Budget";
+
+    public static final String USED_HEADER = "X-Deadline-Used";
+
+    private final String header;
+
+    private final Duration defaultTimeout;
+
+    private final Duration maxTimeout;
+
+    private final List<PathPattern> excludes = new ArrayList<>();
+
+    private final List<Route> routes = new ArrayList<>();
+
+    public DeadlineFilter(DeadlineProperties properties) {
+        this.header = properties.getHeader();
+        this.defaultTimeout = properties.getDefaultTimeout();
+        this.maxTimeout = properties.getMaxTimeout();
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        for (String exclude : properties.getExcludes()) {
+            excludes.add(parser.parse(exclude));
+        }
+        for (Map.Entry<String, Duration> entry : properties.getRoutes().entrySet()) {
+            routes.add(new Route(parser.parse(entry.getKey()), entry.getValue()));
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Duration budget = resolve(exchange.getRequest());
+        if (budget == null) {
+            return chain.filter(exchange);
+        }
+        Deadline deadline = Deadline.after(budget);
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            response.getHeaders().set(BUDGET_HEADER, Long.toString(budget.toMillis()));
+            response.getHeaders().set(USED_HEADER, Long.toString(deadline.elapsed().toMillis()));
+            return Mono.empty();
+        });
+        return chain.filter(exchange)
+                .timeout(budget, Mono.defer(() -> expired(response)))
+                .contextWrite(Deadlines.with(deadline));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private Duration resolve(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        for (PathPattern exclude : excludes) {
+            if (exclude.matches(path)) {
+                return null;
+            }
+        }
+        Duration budget = fromHeader(request.getHeaders().getFirst(header));
+        if (budget == null) {
+            budget = defaultTimeout;
+            for (Route route : routes) {
+                if (route.pattern.matches(path)) {
+                    budget = route.timeout;
+                    break;
+                }
+            }
+        }
+        if (budget != null && maxTimeout != null && budget.compareTo(maxTimeout) > 0) {
+            budget = maxTimeout;
+        }
+        return budget;
+    }
+
+    private static Duration fromHeader(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofMillis(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            // 格式不对时当作没有传
+            return null;
+        }
+    }
+
+    private static Mono<Void> expired(ServerHttpResponse response) {
+        if (response.isCommitted()) {
+            return Mono.empty();
+        }
+        response.setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+        return response.setComplete();
+    }
+
+    private static final class Route {
+
+        private final PathPattern pattern;
+
+        private final Duration timeout;
+
+        private Route(PathPattern pattern, Duration timeout) {
+            this.pattern = pattern;
+            this.timeout = timeout;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.youngwang.webflux.deadline;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 请求截止时间配置
+ * <p>
+ * 对应 application.yaml 中的 webflux.deadline。请求头 header 给出剩余时间（毫秒）时使用请求头，
+ * 否则按 routes 中第一个匹配的路径模式，都没有时使用 default-timeout，为空则不设截止时间
+ */
+@ConfigurationProperties(prefix = "webflux.deadline")
+public class DeadlineProperties {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled = true;
+
+    /**
+     * 调用方传入剩余时间（毫秒）的请求头
+     */
+    private String header = "X-Request-Timeout";
+
+    /**
+     * 没有请求头、也没有匹配路由时的时间预算，为空时不设截止时间
+     */
+    private Duration defaultTimeout;
+
+    /**
+     * 时间预算的上限，请求头中过大的值会被截断
+     */
+    private Duration maxTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 按路径模式配置的时间预算
+     */
+    private Map<String, Duration> routes = new LinkedHashMap<>();
+
+    /**
+     * 不设截止时间的路径模式
+     */
+    private List<String> excludes = new ArrayList<>(List.of("/actuator/**"));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    public void setDefaultTimeout(Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    public Duration getMaxTimeout() {
+        return maxTimeout;
+    }
+
+    public void setMaxTimeout(Duration maxTimeout) {
+        this.maxTimeout = maxTimeout;
+    }
+
+    public Map<String, Duration> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Duration> routes) {
+        this.routes = routes;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    public void setExcludes(List<String> excludes) {
+        this.excludes = excludes;
+    }
+}
@@ -0,0 +1,139 @@
+package com.youngwang.webflux.deadline;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 通过 Reactor Context 传递请求的截止时间
+ * <p>
+ * DeadlineFilter 把 Deadline 写入 Context，下游各个步骤读取剩余时间：
+ * 剩余时间不够时直接失败（DeadlineExceededException），而不是继续执行调用方已经不要的工作。
+ * Context 中没有截止时间时，这里的方法和普通的 Mono 操作一致
+ */
+public final class Deadlines {
+
+    /**
+     * Context 中截止时间的 key
+     */
+    public static final String CONTEXT_KEY = Deadline.class.getName();
+
+    private Deadlines() {
+    }
+
+    /**
+     * 写入截止时间，用于 contextWrite
+     */
+    public static Function<Context, Context> with(Deadline deadline) {
+        return context -> context.put(CONTEXT_KEY, deadline);
+    }
+
+    /**
+     * 读取截止时间
+     */
+    public static Optional<Deadline> get(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+
+    /**
+     * 剩余时间不超过 timeout 时按剩余时间超时，否则按 timeout 超时。用于 transform
+     *
+     * @param timeout 步骤本身的超时时间
+     */
+    public static <T> Function<Mono<T>, Mono<T>> timeout(Duration timeout) {
+        return mono -> mono.transformDeferredContextual((m, context) -> get(context)
+                .filter(deadline -> deadline.remaining().compareTo(timeout) < 0)
+                .map(deadline -> m.timeout(deadline.remaining(),
+                        Mono.error(() -> new DeadlineExceededException("deadline exceeded: " + deadline))))
+                .orElseGet(() -> m.timeout(timeout)));
+    }
+
+    /**
+     * 在剩余时间内完成，截止时取消。用于 transform
+     */
+    public static <T> Function<Mono<T>, Mono<T>> enforce() {
+        return mono -> mono.transformDeferredContextual((m, context) -> get(context)
+                .map(deadline -> m.timeout(deadline.remaining(),
+                        Mono.error(() -> new DeadlineExceededException("deadline exceeded: " + deadline))))
+                .orElse(m));
+    }
+
+    /**
+     * 延迟 delay 后发出 0。剩余时间不足 delay 时立即失败，不白白等到截止
+     */
+    public static Mono<Long> delay(Duration delay) {
+        return Mono.deferContextual(context -> {
+            Optional<Deadline> deadline = get(context);
+            if (deadline.isPresent() && deadline.get().remaining().compareTo(delay) < 0) {
+                return Mono.error(new DeadlineExceededException("delay " + delay.toMillis() + "ms exceeds " + deadline.get()));
+            }
+            return Mono.delay(delay);
+        });
+    }
+
+    /**
+     * 把阻塞任务卸载到调度器执行。截止时 Mono 失败并取消订阅：还在队列中的任务被跳过，不会再执行，
+     * 已经在执行的任务由调度器中断（fromExecutorService、boundedElastic），结果被丢弃
+     * <p>
+     * 基于 subscribeOn(scheduler)，取消时 Reactor 会标记排队中的任务，执行前检查后直接返回，
+     * 不会像 CompletableFuture 那样在任务里抛出一个已经没人接收的异常（onErrorDropped）
+     * <p>
+     * 调度器由调用方传入并复用，例如 OffloadExecutors#ioScheduler()，不在每次调用时包装 executor
+     *
+     * @param task      阻塞任务
+     * @param scheduler 卸载的调度器，例如 OffloadExecutors#ioScheduler()、blockingScheduler()
+     */
+    public static <T> Mono<T> supplyAsync(Supplier<T> task, Scheduler scheduler) {
+        Mono<T> offloaded = Mono.fromSupplier(task).subscribeOn(scheduler);
+        return Mono.deferContextual(context -> {
+            Optional<Deadline> deadline = get(context);
+            if (deadline.isPresent() && deadline.get().isExpired()) {
+                return Mono.error(new DeadlineExceededException("deadline exceeded before offloading: " + deadline.get()));
+            }
+            return offloaded.transform(enforce());
+        });
+    }
+
+    /**
+     * 订阅时才创建 CompletableFuture，截止时 Mono 失败并取消 future：
+     * 还在线程池队列中的 supplyAsync / runAsync 任务执行前检查到已完成，直接跳过
+     * <p>
+     * 截止时间已过时不调用 futureSupplier，任务不会被提交
+     *
+     * @param futureSupplier 创建 future，例如 CompletableFuture.supplyAsync(task, executor)
+     */
+    public static <T> Mono<T> fromFuture(Supplier<? extends CompletableFuture<? extends T>> futureSupplier) {
+        return Mono.deferContextual(context -> {
+            Optional<Deadline> deadline = get(context);
+            if (deadline.isPresent() && deadline.get().isExpired()) {
+                return Mono.error(new DeadlineExceededException("deadline exceeded before offloading: " + deadline.get()));
+            }
+            // reactor-core 3.4 的 Mono.fromFuture 取消时不会取消 future；取消后 future 的 CancellationException 也不再下发
+            Mono<T> mono = Mono.create(sink -> {
+                CompletableFuture<? extends T> future = futureSupplier.get();
+                sink.onCancel(() -> future.cancel(false));
+                future.whenComplete((value, error) -> {
+                    if (future.isCancelled()) {
+                        return;
+                    }
+                    if (error instanceof CompletionException && error.getCause() != null) {
+                        sink.error(error.getCause());
+                    } else if (error != null) {
+                        sink.error(error);
+                    } else {
+                        sink.success(value);
+                    }
+                });
+            });
+            return mono.transform(enforce());
+        });
+    }
+}
@@ -0,0 +1,184 @@
+package com.youngwang.webflux.eventlog;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步、可采样的事件日志，用来替代热点路径上的 System.out.println
+ * <p>
+ * System.out.println 内部是同步加锁的阻塞写，在 event loop 线程上调用会拖慢所有请求。
+ * 这里调用线程只做三件事：按路由采样、记录原始字段、放入无锁环形队列，队列满了直接丢弃。
+ * 格式化和真正的输出由后台线程按批完成
+ * <p>
+ * 用法：eventLog.log("/simple/mono", "调用 getResponse", "name", name, "response", response)
+ */
+public class EventLog implements MeterBinder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLog.class);
+
+    private static final Object[] NO_FIELDS = new Object[0];
+
+    private final MpscRingBuffer<LogEvent> buffer;
+
+    private final int batchSize;
+
+    private final long idleWaitNanos;
+
+    private final double defaultSampleRate;
+
+    private final Map<String, Double> sampleRates;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder sampledOut = new LongAdder();
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final Thread drainer;
+
+    private volatile boolean running = true;
+
+    public EventLog(EventLogProperties properties) {
+        this.buffer = new MpscRingBuffer<>(properties.getBufferSize());
+        this.batchSize = properties.getBatchSize();
+        this.idleWaitNanos = properties.getIdleWait().toNanos();
+        this.defaultSampleRate = properties.getSampleRate();
+        this.sampleRates = new HashMap<>(properties.getRoutes());
+
+        this.drainer = new Thread(this::drainLoop, "event-log-drainer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * 记录一条事件
+     *
+     * @param route   路由，用于采样和输出
+     * @param message 消息
+     */
+    public void log(String route, String message) {
+        log(route, message, NO_FIELDS);
+    }
+
+    /**
+     * 记录一条带结构化字段的事件
+     *
+     * @param route   路由，用于采样和输出
+     * @param message 消息
+     * @param fields  结构化字段，key、value 交替排列
+     */
+    public void log(String route, String message, Object... fields) {
+        if (!sampled(route)) {
+            sampledOut.increment();
+            return;
+        }
+        LogEvent event = new LogEvent(System.currentTimeMillis(), Thread.currentThread().getName(), route, message, fields);
+        if (!buffer.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    private boolean sampled(String route) {
+        double rate = sampleRates.getOrDefault(route, defaultSampleRate);
+        if (rate >= 1.0) {
+            return true;
+        }
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private void drainLoop() {
+        List<LogEvent> batch = new ArrayList<>(batchSize);
+        StringBuilder line = new StringBuilder(256);
+        while (running) {
+            if (buffer.drain(batch::add, batchSize) == 0) {
+                LockSupport.parkNanos(idleWaitNanos);
+                continue;
+            }
+            write(batch, line);
+        }
+        // 停止前把剩余的事件输出完
+        while (buffer.drain(batch::add, batchSize) > 0) {
+            write(batch, line);
+        }
+    }
+
+    private void write(List<LogEvent> batch, StringBuilder line) {
+        try {
+            for (LogEvent event : batch) {
+                // 单条事件格式化或输出失败（比如字段的 toString() 抛异常）只丢弃这一条，不能让后台线程退出
+                try {
+                    write(event, line);
+                    written.increment();
+                } catch (RuntimeException e) {
+                    if (failed.sum() == 0) {
+                        log.warn("event log failed to write an event of route {}, further failures are only counted as eventlog.events result=failed",
+                                event.route, e);
+                    }
+                    failed.increment();
+                }
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void write(LogEvent event, StringBuilder line) {
+        line.setLength(0);
+        line.append("ts=").append(Instant.ofEpochMilli(event.timestamp))
+                .append(" thread=").append(event.thread)
+                .append(" route=").append(event.route)
+                .append(" msg=\"").append(event.message).append('"');
+        Object[] fields = event.fields;
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(' ').append(fields[i]).append('=').append(fields[i + 1]);
+        }
+        log.info(line.toString());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("eventlog.buffer.size", buffer, MpscRingBuffer::size)
+                .description("环形队列中等待输出的事件数")
+                .register(registry);
+        FunctionCounter.builder("eventlog.events", written, LongAdder::sum)
+                .description("已输出的事件数")
+                .tag("result", "written")
+                .register(registry);
+        FunctionCounter.builder("eventlog.events", dropped, LongAdder::sum)
+                .description("队列满被丢弃的事件数")
+                .tag("result", "dropped")
+                .register(registry);
+        FunctionCounter.builder("eventlog.events", sampledOut, LongAdder::sum)
+                .description("未被采样的事件数")
+                .tag("result", "sampled_out")
+                .register(registry);
+        FunctionCounter.builder("eventlog.events", failed, LongAdder::sum)
+                .description("格式化或输出失败的事件数")
+                .tag("result", "failed")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
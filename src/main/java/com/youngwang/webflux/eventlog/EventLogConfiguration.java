@@ -0,0 +1,18 @@
+package com.youngwang.webflux.eventlog;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 异步事件日志的装配
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(EventLogProperties.class)
+public class EventLogConfiguration {
+
+    @Bean
+    public EventLog eventLog(EventLogProperties properties) {
+        return new EventLog(properties);
+    }
+}
@@ -0,0 +1,79 @@
+package com.youngwang.webflux.eventlog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 异步事件日志配置
+ */
+@ConfigurationProperties(prefix = "webflux.event-log")
+public class EventLogProperties {
+
+    /**
+     * 环形队列容量，满了之后新的事件直接丢弃，不阻塞调用线程
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * 后台线程每批最多输出的事件数
+     */
+    private int batchSize = 256;
+
+    /**
+     * 队列为空时后台线程的休眠时间
+     */
+    private Duration idleWait = Duration.ofMillis(5);
+
+    /**
+     * 没有单独配置的路由的采样率，0 ~ 1
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * 按路由配置的采样率，key 为路由
+     */
+    private Map<String, Double> routes = new LinkedHashMap<>();
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getIdleWait() {
+        return idleWait;
+    }
+
+    public void setIdleWait(Duration idleWait) {
+        this.idleWait = idleWait;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public Map<String, Double> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Double> routes) {
+        this.routes = routes;
+    }
+}
@@ -0,0 +1,30 @@
+package com.youngwang.webflux.eventlog;
+
+/**
+ * 一条待输出的日志事件
+ * <p>
+ * 生产者线程只记录原始值，格式化放到后台线程做
+ */
+final class LogEvent {
+
+    final long timestamp;
+
+    final String thread;
+
+    final String route;
+
+    final String message;
+
+    /**
+     * 结构化字段，key、value 交替排列
+     */
+    final Object[] fields;
+
+    LogEvent(long timestamp, String thread, String route, String message, Object[] fields) {
+        this.timestamp = timestamp;
+        this.thread = thread;
+        this.route = route;
+        this.message = message;
+        this.fields = fields;
+    }
+}
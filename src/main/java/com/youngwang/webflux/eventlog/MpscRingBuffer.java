@@ -0,0 +1,119 @@
+package com.youngwang.webflux.eventlog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 有界、无锁的多生产者单消费者环形队列
+ * <p>
+ * 每个槽位有一个序号：序号等于生产者的位置时槽位可写，等于位置 + 1 时槽位可读。
+ * 生产者只通过 CAS 抢占位置，不加锁；队列满时 offer 直接返回 false，不会阻塞调用线程。
+ * poll / drain 只能由同一个线程调用
+ *
+ * @param <E> 元素类型
+ */
+public class MpscRingBuffer<E> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 只有消费者线程写，volatile 是为了 size() 能在其他线程读到
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 放入元素
+     *
+     * @param e 元素
+     * @return 队列已满时返回 false
+     */
+    public boolean offer(E e) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, e);
+                    // 发布：序号变为 position + 1 之后消费者才能读到
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // 槽位还没被消费，队列已满
+                return false;
+            }
+            // diff > 0：其他生产者已经抢到了这个位置，重试
+        }
+    }
+
+    /**
+     * 取出一个元素，只能由消费者线程调用
+     *
+     * @return 没有元素时返回 null
+     */
+    public E poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        E e = slots.get(index);
+        slots.lazySet(index, null);
+        // 槽位可以被下一圈的生产者使用
+        sequences.set(index, head + mask + 1);
+        head++;
+        return e;
+    }
+
+    /**
+     * 批量取出元素，只能由消费者线程调用
+     *
+     * @param consumer 元素处理
+     * @param limit    最多取出的个数
+     * @return 实际取出的个数
+     */
+    public int drain(Consumer<? super E> consumer, int limit) {
+        int count = 0;
+        E e;
+        while (count < limit && (e = poll()) != null) {
+            consumer.accept(e);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 近似的元素个数
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head, mask + 1));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,85 @@
+package com.youngwang.webflux.fanout;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有并发上限和截止时间的扇出
+ * <p>
+ * Mono.zip 要等所有 Mono 完成，任何一个失败整体失败，最慢的一个决定了整体的耗时。
+ * gather 最多同时执行 concurrency 个任务，到截止时间时取消还没完成的任务，
+ * 返回截止时间前完成的结果和每个任务的状态，单个任务失败不影响其它任务
+ * <p>
+ * 用法：FanOut.gather(shards, 8, Duration.ofMillis(500)).map(GatherResult::getValues)
+ */
+public final class FanOut {
+
+    private FanOut() {
+    }
+
+    /**
+     * 扇出执行任务，返回的 Mono 不会失败，最晚在截止时间完成
+     *
+     * @param tasks       任务，订阅时才执行
+     * @param concurrency 最多同时执行的任务数
+     * @param deadline    从订阅开始计算的截止时间
+     * @return 汇总结果
+     */
+    public static <T> Mono<GatherResult<T>> gather(List<? extends Mono<? extends T>> tasks, int concurrency, Duration deadline) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+        List<Mono<? extends T>> copy = new ArrayList<>(tasks);
+        return Mono.defer(() -> {
+            int size = copy.size();
+            long start = System.nanoTime();
+            // 任务开始时距 start 的纳秒数 + 1，0 表示没有开始
+            AtomicLongArray started = new AtomicLongArray(size);
+            AtomicReferenceArray<TaskResult<T>> finished = new AtomicReferenceArray<>(size);
+            return Flux.range(0, size)
+                    .flatMap(i -> FanOut.<T>run(i, copy.get(i), started, start), concurrency)
+                    // 截止时间到时 take 完成，取消 flatMap 中执行中的任务，不再开始新任务
+                    .take(deadline)
+                    .doOnNext(result -> finished.set(result.getIndex(), result))
+                    .then(Mono.fromSupplier(() -> collect(started, finished, start)));
+        });
+    }
+
+    private static <T> Mono<TaskResult<T>> run(int index, Mono<? extends T> task, AtomicLongArray started, long start) {
+        return Mono.defer(() -> {
+            long begin = System.nanoTime();
+            started.set(index, begin - start + 1);
+            return task.<TaskResult<T>>map(value -> new TaskResult<>(index, TaskStatus.SUCCESS, value, null, millisSince(begin)))
+                    .switchIfEmpty(Mono.fromSupplier(() -> new TaskResult<>(index, TaskStatus.EMPTY, null, null, millisSince(begin))))
+                    .onErrorResume(e -> Mono.just(new TaskResult<>(index, TaskStatus.FAILED, null, String.valueOf(e), millisSince(begin))));
+        });
+    }
+
+    private static <T> GatherResult<T> collect(AtomicLongArray started, AtomicReferenceArray<TaskResult<T>> finished, long start) {
+        int size = finished.length();
+        long now = System.nanoTime();
+        List<TaskResult<T>> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            TaskResult<T> result = finished.get(i);
+            if (result == null) {
+                long offset = started.get(i);
+                result = offset == 0
+                        ? new TaskResult<>(i, TaskStatus.NOT_STARTED, null, null, 0)
+                        : new TaskResult<>(i, TaskStatus.TIMED_OUT, null, null, TimeUnit.NANOSECONDS.toMillis(now - start - offset + 1));
+            }
+            results.add(result);
+        }
+        return new GatherResult<>(results, TimeUnit.NANOSECONDS.toMillis(now - start));
+    }
+
+    private static long millisSince(long begin) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+    }
+}
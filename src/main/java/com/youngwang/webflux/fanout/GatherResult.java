@@ -0,0 +1,71 @@
+package com.youngwang.webflux.fanout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 扇出的汇总结果，results 和输入的任务一一对应、顺序相同
+ *
+ * @param <T> 值类型
+ */
+public class GatherResult<T> {
+
+    private final List<TaskResult<T>> results;
+
+    private final long elapsedMillis;
+
+    GatherResult(List<TaskResult<T>> results, long elapsedMillis) {
+        this.results = Collections.unmodifiableList(results);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<TaskResult<T>> getResults() {
+        return results;
+    }
+
+    /**
+     * 成功任务的值，按任务顺序
+     */
+    public List<T> getValues() {
+        List<T> values = new ArrayList<>();
+        for (TaskResult<T> result : results) {
+            if (result.getStatus() == TaskStatus.SUCCESS) {
+                values.add(result.getValue());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 各状态的任务个数
+     */
+    public Map<TaskStatus, Integer> getCounts() {
+        Map<TaskStatus, Integer> counts = new EnumMap<>(TaskStatus.class);
+        for (TaskResult<T> result : results) {
+            counts.merge(result.getStatus(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * 所有任务都在截止时间前成功完成
+     */
+    public boolean isComplete() {
+        for (TaskResult<T> result : results) {
+            if (result.getStatus() != TaskStatus.SUCCESS && result.getStatus() != TaskStatus.EMPTY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 从开始扇出到返回的耗时
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,59 @@
+package com.youngwang.webflux.fanout;
+
+/**
+ * 单个扇出任务的结果
+ *
+ * @param <T> 值类型
+ */
+public class TaskResult<T> {
+
+    private final int index;
+
+    private final TaskStatus status;
+
+    private final T value;
+
+    private final String error;
+
+    private final long elapsedMillis;
+
+    TaskResult(int index, TaskStatus status, T value, String error, long elapsedMillis) {
+        this.index = index;
+        this.status = status;
+        this.value = value;
+        this.error = error;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * 任务在输入列表中的下标
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * 任务的值，只有 SUCCESS 时不为空
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * 失败原因，只有 FAILED 时不为空
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * 从任务开始到完成（或被取消）的耗时，NOT_STARTED 时为 0
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
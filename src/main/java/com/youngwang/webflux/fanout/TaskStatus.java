@@ -0,0 +1,32 @@
+package com.youngwang.webflux.fanout;
+
+/**
+ * 扇出任务在截止时间时的状态
+ */
+public enum TaskStatus {
+
+    /**
+     * 成功并返回了值
+     */
+    SUCCESS,
+
+    /**
+     * 成功但没有值（空 Mono）
+     */
+    EMPTY,
+
+    /**
+     * 失败
+     */
+    FAILED,
+
+    /**
+     * 已经开始，截止时间到了还没有完成，已被取消
+     */
+    TIMED_OUT,
+
+    /**
+     * 受并发上限限制，截止时间到了还没有开始
+     */
+    NOT_STARTED
+}
@@ -0,0 +1,169 @@
+package com.youngwang.webflux.file;
+
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * 文件下载，支持 Range 请求
+ * <p>
+ * MonoController#using 用 BufferedReader 在 event loop 上读取整个文件，拼成 String 返回，
+ * 每次请求都要读一遍文件，占用的堆内存和文件大小成正比。这里按以下顺序选择传输方式：
+ * <ol>
+ * <li>热点小文件：内存缓存的 byte[] 直接包装成 DataBuffer，不拷贝</li>
+ * <li>传输层支持时（reactor netty，未开启 SSL 和压缩）：ZeroCopyHttpOutputMessage，由内核 sendfile 直接发送，不经过堆</li>
+ * <li>其他情况：订阅响应体时打开 AsynchronousFileChannel，按 chunk-size 分块读取为 DataBuffer，边读边写</li>
+ * </ol>
+ * 文件属性的读取、缓存的加载都在 boundedElastic 上执行，不占用 event loop
+ */
+@RestController
+@RequestMapping("/files")
+public class FileController {
+
+    private final FileServingProperties properties;
+
+    private final HotFileCache cache;
+
+    private final Path root;
+
+    public FileController(FileServingProperties properties, HotFileCache cache) {
+        this.properties = properties;
+        this.cache = cache;
+        this.root = properties.getRoot().toAbsolutePath().normalize();
+    }
+
+    @GetMapping("/{*path}")
+    public Mono<Void> download(@PathVariable("path") String path, ServerWebExchange exchange) {
+        return Mono.fromCallable(() -> load(path))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(file -> write(exchange, file));
+    }
+
+    /**
+     * 解析路径并读取文件属性，小文件顺便加载到缓存。会阻塞，需要在 boundedElastic 上调用
+     */
+    private FileInfo load(String path) throws IOException {
+        Path file = root.resolve(path.startsWith("/") ? path.substring(1) : path).normalize();
+        try {
+            // 防止 ../ 或符号链接访问根目录之外的文件
+            if (!file.startsWith(root) || !file.toRealPath().startsWith(root.toRealPath())) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            }
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            }
+
+            byte[] content = null;
+            if (properties.getCache().isEnabled() && cache.cacheable(attributes.size())) {
+                content = cache.get(file, attributes.lastModifiedTime(), attributes.size());
+                if (content == null) {
+                    content = Files.readAllBytes(file);
+                    cache.put(file, attributes.lastModifiedTime(), content);
+                }
+            }
+            long size = content != null ? content.length : attributes.size();
+            return new FileInfo(file, size, attributes.lastModifiedTime(), content);
+        } catch (NoSuchFileException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, FileInfo file) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(MediaTypeFactory.getMediaType(file.path.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM));
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setLastModified(file.lastModified.toMillis());
+
+        long position = 0;
+        long count = file.size;
+        try {
+            // 只处理单个 range，多个 range 时按 RFC 7233 忽略 Range 返回整个文件
+            List<HttpRange> ranges = exchange.getRequest().getHeaders().getRange();
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                position = range.getRangeStart(file.size);
+                if (position >= file.size) {
+                    throw new IllegalArgumentException("range start exceeds file size");
+                }
+                count = range.getRangeEnd(file.size) - position + 1;
+                response.setStatusCode(HttpStatus.PARTIAL_CONTENT);
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + position + "-" + (position + count - 1) + "/" + file.size);
+            }
+        } catch (IllegalArgumentException e) {
+            // Range 格式错误，或者起始位置超出文件大小
+            response.setStatusCode(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + file.size);
+            return response.setComplete();
+        }
+        headers.setContentLength(count);
+        if (count == 0) {
+            return response.setComplete();
+        }
+
+        if (file.content != null) {
+            ByteBuffer slice = ByteBuffer.wrap(file.content, (int) position, (int) count);
+            return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(slice)));
+        }
+        if (properties.isZeroCopy() && response instanceof ZeroCopyHttpOutputMessage) {
+            return ((ZeroCopyHttpOutputMessage) response).writeWith(file.path, position, count);
+        }
+        return readWithChannel(response, file.path, position, count);
+    }
+
+    private Mono<Void> readWithChannel(ServerHttpResponse response, Path path, long position, long count) {
+        // readAsynchronousFileChannel 内部用 Flux.using 管理通道：订阅响应体时打开，读完、异常、取消时关闭。
+        // 通道的生命周期跟随响应体而不是 writeWith 的完成信号，writeWith 先于响应体读完结束时（例如 WebTestClient）也不会提前关闭
+        return response.writeWith(DataBufferUtils.takeUntilByteCount(
+                DataBufferUtils.readAsynchronousFileChannel(() -> AsynchronousFileChannel.open(path, StandardOpenOption.READ),
+                        position, response.bufferFactory(), (int) properties.getChunkSize().toBytes()),
+                count));
+    }
+
+    private static final class FileInfo {
+
+        private final Path path;
+
+        private final long size;
+
+        private final FileTime lastModified;
+
+        /**
+         * 缓存的文件内容，文件太大或缓存关闭时为 null
+         */
+        private final byte[] content;
+
+        private FileInfo(Path path, long size, FileTime lastModified, byte[] content) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.content = content;
+        }
+    }
+}
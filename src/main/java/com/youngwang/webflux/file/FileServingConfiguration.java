@@ -0,0 +1,19 @@
+package com.youngwang.webflux.file;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文件下载的装配
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(FileServingProperties.class)
+public class FileServingConfiguration {
+
+    @Bean
+    public HotFileCache hotFileCache(FileServingProperties properties) {
+        FileServingProperties.Cache cache = properties.getCache();
+        return new HotFileCache(cache.getMaxFileSize().toBytes(), cache.getMaxTotalSize().toBytes());
+    }
+}
@@ -0,0 +1,101 @@
+package com.youngwang.webflux.file;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 文件下载配置
+ */
+@ConfigurationProperties(prefix = "webflux.files")
+public class FileServingProperties {
+
+    /**
+     * 对外提供下载的根目录，请求路径只能访问这个目录下的文件
+     */
+    private Path root = Paths.get("files");
+
+    /**
+     * 传输层支持时是否使用 sendfile 零拷贝
+     */
+    private boolean zeroCopy = true;
+
+    /**
+     * 不能零拷贝时，AsynchronousFileChannel 每次读取的大小
+     */
+    private DataSize chunkSize = DataSize.ofKilobytes(64);
+
+    private final Cache cache = new Cache();
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public void setRoot(Path root) {
+        this.root = root;
+    }
+
+    public boolean isZeroCopy() {
+        return zeroCopy;
+    }
+
+    public void setZeroCopy(boolean zeroCopy) {
+        this.zeroCopy = zeroCopy;
+    }
+
+    public DataSize getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(DataSize chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * 热点小文件的内存缓存
+     */
+    public static class Cache {
+
+        private boolean enabled = true;
+
+        /**
+         * 超过这个大小的文件不缓存，直接从磁盘传输
+         */
+        private DataSize maxFileSize = DataSize.ofKilobytes(256);
+
+        /**
+         * 缓存的总大小，超过后淘汰最久未访问的文件
+         */
+        private DataSize maxTotalSize = DataSize.ofMegabytes(32);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getMaxFileSize() {
+            return maxFileSize;
+        }
+
+        public void setMaxFileSize(DataSize maxFileSize) {
+            this.maxFileSize = maxFileSize;
+        }
+
+        public DataSize getMaxTotalSize() {
+            return maxTotalSize;
+        }
+
+        public void setMaxTotalSize(DataSize maxTotalSize) {
+            this.maxTotalSize = maxTotalSize;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.youngwang.webflux.file;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 热点小文件的内存缓存，按最近访问淘汰（LRU）
+ * <p>
+ * 缓存项记录了文件的修改时间和大小，文件变化后自动失效
+ */
+public class HotFileCache {
+
+    private final long maxFileSize;
+
+    private final long maxTotalSize;
+
+    /**
+     * accessOrder = true，迭代顺序即最久未访问到最近访问
+     */
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalSize;
+
+    public HotFileCache(long maxFileSize, long maxTotalSize) {
+        this.maxFileSize = maxFileSize;
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    /**
+     * 文件是否适合缓存
+     */
+    public boolean cacheable(long size) {
+        return size <= maxFileSize && size <= maxTotalSize;
+    }
+
+    /**
+     * 获取缓存的文件内容
+     *
+     * @param path         文件
+     * @param lastModified 当前的修改时间
+     * @param size         当前的大小
+     * @return 未缓存或已过期时返回 null
+     */
+    public synchronized byte[] get(Path path, FileTime lastModified, long size) {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.lastModified.equals(lastModified) || entry.content.length != size) {
+            remove(path);
+            return null;
+        }
+        return entry.content;
+    }
+
+    public synchronized void put(Path path, FileTime lastModified, byte[] content) {
+        if (!cacheable(content.length)) {
+            return;
+        }
+        remove(path);
+        entries.put(path, new Entry(lastModified, content));
+        totalSize += content.length;
+
+        Iterator<Map.Entry<Path, Entry>> it = entries.entrySet().iterator();
+        while (totalSize > maxTotalSize && it.hasNext()) {
+            totalSize -= it.next().getValue().content.length;
+            it.remove();
+        }
+    }
+
+    public synchronized long totalSize() {
+        return totalSize;
+    }
+
+    private void remove(Path path) {
+        Entry removed = entries.remove(path);
+        if (removed != null) {
+            totalSize -= removed.content.length;
+        }
+    }
+
+    private static final class Entry {
+
+        private final FileTime lastModified;
+
+        private final byte[] content;
+
+        private Entry(FileTime lastModified, byte[] content) {
+            this.lastModified = lastModified;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.youngwang.webflux.functional;
+
+import com.youngwang.webflux.streaming.IntegerStreamWriter;
+import com.youngwang.webflux.syntax.SimpleController;
+import com.youngwang.webflux.syntax.ZipController;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * webflux.routing.mode=functional 时注册 SimpleController、ZipController 路由的 RouterFunction 版本
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(RoutingProperties.class)
+@ConditionalOnProperty(prefix = "webflux.routing", name = "mode", havingValue = "functional")
+public class FunctionalRoutingConfiguration {
+
+    @Bean
+    public RouterFunction<ServerResponse> functionalRoutes(RoutingProperties properties,
+                                                           SimpleController simpleController,
+                                                           ZipController zipController) {
+        SimpleHandler simple = new SimpleHandler(simpleController);
+        ZipHandler zip = new ZipHandler(zipController);
+        // 和注解映射的 produces 一样，Accept 明确为 NDJSON 或 SSE 时走流式输出，需要排在普通路由之前。
+        // RequestPredicates.accept 会让 */* 和没有 Accept 的请求也匹配上，而注解映射对它们返回 JSON 数组
+        RequestPredicate streaming = request -> request.headers().accept().stream()
+                .filter(mediaType -> !mediaType.isWildcardType() && !mediaType.isWildcardSubtype())
+                .anyMatch(mediaType -> IntegerStreamWriter.STREAMING_MEDIA_TYPES.stream().anyMatch(mediaType::isCompatibleWith));
+        String prefix = properties.getPrefix();
+        return route()
+                .path(prefix + "/simple", builder -> builder
+                        .GET("/mono", simple::mono)
+                        .GET("/mono/order/just", simple::monoJustOrder)
+                        .GET("/mono/order/defer", simple::monoDeferOrder)
+                        .GET("/flux/just", simple::fluxJust)
+                        .GET("/flux/just/string/array", simple::fluxJustStringArray)
+                        .GET("/flux/from", streaming, simple::fluxFromStream)
+                        .GET("/flux/from", simple::fluxFrom)
+                        .GET("/flux/range", streaming, simple::fluxRangeStream)
+                        .GET("/flux/range", simple::fluxRange))
+                .path(prefix + "/zip", builder -> builder
+                        .GET("/tuple2", zip::tuple2)
+                        .GET("/tuple8", zip::tuple8)
+                        .GET("/tuples", zip::tuples)
+                        .GET("/tuples2", zip::tuples2)
+                        .GET("/gather", zip::gather)
+                        .GET("/with", zip::with)
+                        .GET("/with2", zip::with2)
+                        .GET("/when", zip::when))
+                .build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.youngwang.webflux.functional;
+
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * 函数式路由中读取查询参数，缺少或者格式错误时和 @RequestParam 一样响应 400
+ */
+final class RequestParams {
+
+    private RequestParams() {
+    }
+
+    static String required(ServerRequest request, String name) {
+        return request.queryParam(name)
+                .orElseThrow(() -> new ServerWebInputException("Required String parameter '" + name + "' is not present"));
+    }
+
+    static int requiredInt(ServerRequest request, String name) {
+        return parseInt(name, required(request, name));
+    }
+
+    static int optionalInt(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name).map(value -> parseInt(name, value)).orElse(defaultValue);
+    }
+
+    static long optionalLong(ServerRequest request, String name, long defaultValue) {
+        return request.queryParam(name).map(value -> {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new ServerWebInputException("Parameter '" + name + "' is not a number: " + value);
+            }
+        }).orElse(defaultValue);
+    }
+
+    private static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Parameter '" + name + "' is not a number: " + value);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.youngwang.webflux.functional;
+
+/**
+ * SimpleController、ZipController 路由的注册方式
+ */
+public enum RoutingMode {
+
+    /**
+     * 只使用 @RestController 注解映射
+     */
+    ANNOTATED,
+
+    /**
+     * 额外注册 RouterFunction。RouterFunctionMapping 排在 RequestMappingHandlerMapping 之前，
+     * prefix 为空时同一路径由 RouterFunction 处理
+     */
+    FUNCTIONAL
+}
@@ -0,0 +1,36 @@
+package com.youngwang.webflux.functional;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 函数式路由配置
+ */
+@ConfigurationProperties(prefix = "webflux.routing")
+public class RoutingProperties {
+
+    /**
+     * 路由的注册方式
+     */
+    private RoutingMode mode = RoutingMode.ANNOTATED;
+
+    /**
+     * 函数式路由的路径前缀。为空时替换同一路径的注解映射；例如 /fn 时两种方式并存，便于对比压测
+     */
+    private String prefix = "";
+
+    public RoutingMode getMode() {
+        return mode;
+    }
+
+    public void setMode(RoutingMode mode) {
+        this.mode = mode;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+}
@@ -0,0 +1,113 @@
+package com.youngwang.webflux.functional;
+
+import com.youngwang.webflux.codec.IntegerMediaTypes;
+import com.youngwang.webflux.syntax.SimpleController;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.youngwang.webflux.functional.RequestParams.required;
+import static com.youngwang.webflux.functional.RequestParams.requiredInt;
+
+/**
+ * SimpleController 路由的 HandlerFunction 版本，业务逻辑直接调用 SimpleController，
+ * 区别只在分发和参数解析：查询参数由 ServerRequest 直接读取，不经过 HandlerMethodArgumentResolver
+ */
+public class SimpleHandler {
+
+    /**
+     * 和注解映射的二进制 produces 一致，按顺序优先
+     */
+    private static final List<MediaType> BINARY_MEDIA_TYPES = List.of(
+            IntegerMediaTypes.VARINT, MediaType.APPLICATION_CBOR, IntegerMediaTypes.SMILE);
+
+    private static final ParameterizedTypeReference<List<String>> STRING_LIST = new ParameterizedTypeReference<>() {
+    };
+
+    private final SimpleController controller;
+
+    public SimpleHandler(SimpleController controller) {
+        this.controller = controller;
+    }
+
+    public Mono<ServerResponse> mono(ServerRequest request) {
+        String name = required(request, "name");
+        // 模板设置 Content-Type 并渲染 DataBuffer，直接写到响应上，不经过编码器
+        return ServerResponse.ok().build((exchange, context) -> exchange.getResponse().writeWith(controller.simpleMono(name, exchange)));
+    }
+
+    public Mono<ServerResponse> monoJustOrder(ServerRequest request) {
+        return ServerResponse.ok().body(controller.simpleMonoJustOrder(required(request, "name")), String.class);
+    }
+
+    public Mono<ServerResponse> monoDeferOrder(ServerRequest request) {
+        return ServerResponse.ok().body(controller.simpleMonoDeferOrder(required(request, "name")), String.class);
+    }
+
+    public Mono<ServerResponse> fluxJust(ServerRequest request) {
+        return ServerResponse.ok().body(controller.simpleFluxJust(required(request, "name")), String.class);
+    }
+
+    public Mono<ServerResponse> fluxJustStringArray(ServerRequest request) {
+        return ServerResponse.ok().body(controller.simpleFluxJustStringArray(required(request, "name")), STRING_LIST);
+    }
+
+    public Mono<ServerResponse> fluxFrom(ServerRequest request) {
+        String name = required(request, "name");
+        Optional<MediaType> binary = binaryMediaType(request);
+        if (binary.isPresent()) {
+            return ServerResponse.ok().contentType(binary.get()).body(controller.simpleFluxFromBinary(name), Integer.class);
+        }
+        // 和注解映射一样直接写 JSON 数组，不经过 Jackson
+        return ServerResponse.ok().build((exchange, context) -> controller.simpleFluxFrom(name, exchange));
+    }
+
+    public Mono<ServerResponse> fluxFromStream(ServerRequest request) {
+        String name = required(request, "name");
+        // IntegerStreamWriter 直接写 ServerHttpResponse，自己设置 Content-Type 并分批 flush
+        return ServerResponse.ok().build((exchange, context) -> controller.simpleFluxFromStream(name, exchange));
+    }
+
+    public Mono<ServerResponse> fluxRange(ServerRequest request) {
+        int size = requiredInt(request, "size");
+        Optional<MediaType> binary = binaryMediaType(request);
+        if (binary.isPresent()) {
+            return ServerResponse.ok().contentType(binary.get()).body(controller.simpleFluxRangeBinary(size), Integer.class);
+        }
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(controller.simpleFluxRange(size), Integer.class);
+    }
+
+    public Mono<ServerResponse> fluxRangeStream(ServerRequest request) {
+        int size = requiredInt(request, "size");
+        return ServerResponse.ok().build((exchange, context) -> controller.simpleFluxRangeStream(size, exchange));
+    }
+
+    /**
+     * Accept 中明确给出的二进制类型。ServerResponse.body 不按 Accept 协商，没有 Content-Type 时用第一个能写的编码器（JSON），
+     * 所以需要先选出类型再设置 Content-Type。通配符和注解映射一样按 JSON 处理
+     */
+    private static Optional<MediaType> binaryMediaType(ServerRequest request) {
+        List<MediaType> accept = new ArrayList<>(request.headers().accept());
+        MediaType.sortBySpecificityAndQuality(accept);
+        for (MediaType mediaType : accept) {
+            if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+                continue;
+            }
+            if (MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) {
+                return Optional.empty();
+            }
+            for (MediaType binary : BINARY_MEDIA_TYPES) {
+                if (binary.isCompatibleWith(mediaType)) {
+                    return Optional.of(binary);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
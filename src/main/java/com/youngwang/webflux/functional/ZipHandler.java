@@ -0,0 +1,62 @@
+package com.youngwang.webflux.functional;
+
+import com.youngwang.webflux.fanout.GatherResult;
+import com.youngwang.webflux.syntax.ZipController;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static com.youngwang.webflux.functional.RequestParams.optionalInt;
+import static com.youngwang.webflux.functional.RequestParams.optionalLong;
+import static com.youngwang.webflux.functional.RequestParams.required;
+
+/**
+ * ZipController 路由的 HandlerFunction 版本，业务逻辑直接调用 ZipController
+ */
+public class ZipHandler {
+
+    private static final ParameterizedTypeReference<GatherResult<String>> GATHER_RESULT = new ParameterizedTypeReference<>() {
+    };
+
+    private final ZipController controller;
+
+    public ZipHandler(ZipController controller) {
+        this.controller = controller;
+    }
+
+    public Mono<ServerResponse> tuple2(ServerRequest request) {
+        return ServerResponse.ok().body(controller.tuple2(required(request, "name")), String.class);
+    }
+
+    public Mono<ServerResponse> tuple8(ServerRequest request) {
+        return ServerResponse.ok().body(controller.tuple8(required(request, "name")), String.class);
+    }
+
+    public Mono<ServerResponse> tuples(ServerRequest request) {
+        return ServerResponse.ok().body(controller.tuples(required(request, "name")), String.class);
+    }
+
+    public Mono<ServerResponse> tuples2(ServerRequest request) {
+        return ServerResponse.ok().body(controller.tuples2(required(request, "name")), String.class);
+    }
+
+    public Mono<ServerResponse> gather(ServerRequest request) {
+        return ServerResponse.ok().body(controller.gather(required(request, "name"),
+                optionalInt(request, "shards", 20),
+                optionalInt(request, "concurrency", 8),
+                optionalLong(request, "deadline", 500)), GATHER_RESULT);
+    }
+
+    public Mono<ServerResponse> with(ServerRequest request) {
+        return ServerResponse.ok().body(controller.with(required(request, "name")), String.class);
+    }
+
+    public Mono<ServerResponse> with2(ServerRequest request) {
+        return ServerResponse.ok().body(controller.with2(required(request, "name")), String.class);
+    }
+
+    public Mono<ServerResponse> when(ServerRequest request) {
+        return ServerResponse.ok().body(controller.when(required(request, "name")), String.class);
+    }
+}
@@ -0,0 +1,170 @@
+package com.youngwang.webflux.graph;
+
+import java.util.Arrays;
+
+/**
+ * 压缩稀疏行（CSR）格式的有向图
+ * <p>
+ * 节点用 0 ~ nodeCount-1 的 int 表示，节点 i 的子节点是 targets[offsets[i]] ~ targets[offsets[i+1]-1]。
+ * 整张图只有两个 int 数组，每个节点 4 字节、每条边 4 字节，没有对象头和 ArrayList 的开销，
+ * 遍历子节点是连续的数组访问。百万节点的树只占几 MB
+ */
+public final class CsrGraph {
+
+    private final int nodeCount;
+
+    private final int[] offsets;
+
+    private final int[] targets;
+
+    private CsrGraph(int nodeCount, int[] offsets, int[] targets) {
+        this.nodeCount = nodeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return offsets[nodeCount];
+    }
+
+    /**
+     * 节点的出度
+     */
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * 节点的第 index 个子节点
+     */
+    public int child(int node, int index) {
+        return targets[offsets[node] + index];
+    }
+
+    /**
+     * 子节点在 targets 中的起始位置，配合 {@link #target(int)} 顺序访问
+     */
+    int firstEdge(int node) {
+        return offsets[node];
+    }
+
+    int endEdge(int node) {
+        return offsets[node + 1];
+    }
+
+    int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * 生成一棵满 k 叉树，节点按层序编号，根节点为 0
+     *
+     * @param fanout 每个节点的子节点个数
+     * @param depth  树的深度，只有根节点时为 0
+     * @return 图
+     */
+    public static CsrGraph completeTree(int fanout, int depth) {
+        long count = completeTreeSize(fanout, depth);
+        if (count > Integer.MAX_VALUE - 1) {
+            throw new IllegalArgumentException("tree too large: fanout=" + fanout + ", depth=" + depth);
+        }
+        int n = (int) count;
+        // 层序编号下，节点 i 的子节点是 fanout*i+1 ~ fanout*i+fanout，即 targets[j] = j+1
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i <= n; i++) {
+            offsets[i] = (int) Math.min((long) fanout * i, n - 1);
+        }
+        int[] targets = new int[n - 1];
+        for (int j = 0; j < targets.length; j++) {
+            targets[j] = j + 1;
+        }
+        return new CsrGraph(n, offsets, targets);
+    }
+
+    /**
+     * 满 k 叉树的节点数，溢出时返回 Long.MAX_VALUE
+     */
+    public static long completeTreeSize(int fanout, int depth) {
+        if (fanout < 0 || depth < 0) {
+            throw new IllegalArgumentException("fanout and depth must not be negative");
+        }
+        long count = 1;
+        long level = 1;
+        for (int d = 0; d < depth && level > 0; d++) {
+            if (level > Long.MAX_VALUE / Math.max(fanout, 1)) {
+                return Long.MAX_VALUE;
+            }
+            level *= fanout;
+            count += level;
+            if (count < 0) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return count;
+    }
+
+    public static Builder builder(int nodeCount) {
+        return new Builder(nodeCount);
+    }
+
+    /**
+     * 按边构建 CSR 图，同一个节点的子节点保持添加顺序
+     */
+    public static final class Builder {
+
+        private final int nodeCount;
+
+        private int[] from = new int[16];
+
+        private int[] to = new int[16];
+
+        private int edges;
+
+        private Builder(int nodeCount) {
+            if (nodeCount <= 0) {
+                throw new IllegalArgumentException("node count must be positive");
+            }
+            this.nodeCount = nodeCount;
+        }
+
+        public Builder addEdge(int source, int target) {
+            checkNode(source);
+            checkNode(target);
+            if (edges == from.length) {
+                from = Arrays.copyOf(from, edges * 2);
+                to = Arrays.copyOf(to, edges * 2);
+            }
+            from[edges] = source;
+            to[edges] = target;
+            edges++;
+            return this;
+        }
+
+        private void checkNode(int node) {
+            if (node < 0 || node >= nodeCount) {
+                throw new IllegalArgumentException("node out of range: " + node);
+            }
+        }
+
+        public CsrGraph build() {
+            // 计数排序：先统计每个节点的出度得到 offsets，再按原顺序放入 targets
+            int[] offsets = new int[nodeCount + 1];
+            for (int i = 0; i < edges; i++) {
+                offsets[from[i] + 1]++;
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] cursor = Arrays.copyOf(offsets, nodeCount);
+            int[] targets = new int[edges];
+            for (int i = 0; i < edges; i++) {
+                targets[cursor[from[i]]++] = to[i];
+            }
+            return new CsrGraph(nodeCount, offsets, targets);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.youngwang.webflux.graph;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 图遍历接口的装配
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(GraphProperties.class)
+public class GraphConfiguration {
+}
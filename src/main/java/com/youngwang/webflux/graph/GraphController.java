@@ -0,0 +1,132 @@
+package com.youngwang.webflux.graph;
+
+import com.youngwang.webflux.streaming.AsciiInts;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 大规模树的遍历，MonoController#expand / expandDeep 的可扩展版本
+ * <p>
+ * 树用 CsrGraph 表示，遍历结果按批编码成 NDJSON 边遍历边输出，每行 {"node":1,"depth":1}，不会 collectList 到内存
+ */
+@RestController
+@RequestMapping("/graph")
+public class GraphController {
+
+    private static final byte[] NODE = "{\"node\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] DEPTH = ",\"depth\":".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 每行最大长度：两个字段名、两个 int、右括号和换行
+     */
+    private static final int MAX_LINE_LENGTH = NODE.length + DEPTH.length + 2 * AsciiInts.MAX_LENGTH + 2;
+
+    private final GraphProperties properties;
+
+    /**
+     * 最近一次生成的树，相同参数的请求直接复用
+     */
+    private volatile Tree lastTree;
+
+    public GraphController(GraphProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 遍历一棵满 k 叉树
+     *
+     * @param fanout      每个节点的子节点个数
+     * @param depth       树的深度
+     * @param order       bfs 或 dfs
+     * @param maxDepth    最大遍历深度，默认遍历整棵树
+     * @param concurrency 并发度
+     */
+    @GetMapping(value = "/tree", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<Void> tree(@RequestParam(value = "fanout", defaultValue = "3") int fanout,
+                           @RequestParam(value = "depth", defaultValue = "2") int depth,
+                           @RequestParam(value = "order", defaultValue = "bfs") String order,
+                           @RequestParam(value = "maxDepth", defaultValue = "" + Integer.MAX_VALUE) int maxDepth,
+                           @RequestParam(value = "concurrency", defaultValue = "1") int concurrency,
+                           ServerWebExchange exchange) {
+        if (fanout < 0 || depth < 0 || maxDepth < 0) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "fanout, depth and maxDepth must not be negative"));
+        }
+        if (CsrGraph.completeTreeSize(fanout, depth) > properties.getMaxNodes()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "tree exceeds " + properties.getMaxNodes() + " nodes"));
+        }
+        TraversalOrder traversalOrder;
+        try {
+            traversalOrder = TraversalOrder.valueOf(order.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "order must be bfs or dfs"));
+        }
+        int parallelism = Math.max(1, Math.min(concurrency, properties.getMaxConcurrency()));
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+        DataBufferFactory factory = response.bufferFactory();
+
+        // 生成百万节点的树需要几十毫秒，不放在 event loop 上
+        return Mono.fromCallable(() -> tree(fanout, depth))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(graph -> response.writeAndFlushWith(GraphTraversal.of(graph)
+                        .order(traversalOrder)
+                        .maxDepth(maxDepth)
+                        .batchSize(properties.getBatchSize())
+                        .concurrency(parallelism, Schedulers.parallel())
+                        .from(0)
+                        .map(batch -> Mono.fromSupplier(() -> encode(factory, batch)))));
+    }
+
+    private CsrGraph tree(int fanout, int depth) {
+        Tree tree = lastTree;
+        if (tree != null && tree.fanout == fanout && tree.depth == depth) {
+            return tree.graph;
+        }
+        CsrGraph graph = CsrGraph.completeTree(fanout, depth);
+        lastTree = new Tree(fanout, depth, graph);
+        return graph;
+    }
+
+    private DataBuffer encode(DataBufferFactory factory, VisitBatch batch) {
+        DataBuffer buffer = factory.allocateBuffer(batch.size() * MAX_LINE_LENGTH);
+        for (int i = 0; i < batch.size(); i++) {
+            buffer.write(NODE);
+            AsciiInts.write(buffer, batch.node(i));
+            buffer.write(DEPTH);
+            AsciiInts.write(buffer, batch.depth(i));
+            buffer.write((byte) '}');
+            buffer.write((byte) '\n');
+        }
+        return buffer;
+    }
+
+    private static final class Tree {
+
+        private final int fanout;
+
+        private final int depth;
+
+        private final CsrGraph graph;
+
+        private Tree(int fanout, int depth, CsrGraph graph) {
+            this.fanout = fanout;
+            this.depth = depth;
+            this.graph = graph;
+        }
+    }
+}
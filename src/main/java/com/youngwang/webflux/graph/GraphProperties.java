@@ -0,0 +1,49 @@
+package com.youngwang.webflux.graph;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 图遍历接口配置
+ */
+@ConfigurationProperties(prefix = "webflux.graph")
+public class GraphProperties {
+
+    /**
+     * 单个图允许的最大节点数，每个节点约占 8 字节（offsets + targets）
+     */
+    private int maxNodes = 5_000_000;
+
+    /**
+     * 允许的最大并发度，默认为 CPU 核数
+     */
+    private int maxConcurrency = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 每批输出的节点个数，每写完一批 flush 一次
+     */
+    private int batchSize = 512;
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public void setMaxNodes(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
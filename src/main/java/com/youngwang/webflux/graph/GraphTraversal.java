@@ -0,0 +1,152 @@
+package com.youngwang.webflux.graph;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * CSR 图的遍历，结果以 Flux&lt;VisitBatch&gt; 流式输出
+ * <p>
+ * Flux#expand / expandDeep 每个节点都要经过一次订阅、一次 Iterable 包装，结果再 collectList 到内存。
+ * 这里用 Flux.generate 驱动一个 int 数组队列，下游请求一批才遍历一批，内存只和待访问的节点数有关：
+ * <pre>
+ * GraphTraversal.of(graph)
+ *         .order(TraversalOrder.DFS)
+ *         .maxDepth(5)
+ *         .concurrency(4, Schedulers.parallel())
+ *         .from(0)
+ * </pre>
+ * concurrency &gt; 1 时，先从起点按 BFS 展开出若干个待访问节点，再以它们为起点并行遍历，共享同一个已访问位图。
+ * 此时整体输出不再是严格的 BFS / DFS 顺序（每个子任务内部仍然是），DAG 中被多条路径共享的节点输出的深度也不一定最短。
+ * 限制了 maxDepth 时，DFS 和并发遍历会记录每个节点展开过的最小深度，以更短的路径再次到达时重新展开，
+ * 所以不会漏掉距离起点不超过 maxDepth 的节点，代价是每个节点多 4 字节，以及共享节点的子树可能被展开多次
+ */
+public final class GraphTraversal {
+
+    /**
+     * 并发遍历时，每个并发度对应的子任务个数。子任务越多，各个子树大小不均时负载越均衡
+     */
+    private static final int TASKS_PER_WORKER = 4;
+
+    private final CsrGraph graph;
+
+    private TraversalOrder order = TraversalOrder.BFS;
+
+    private int maxDepth = Integer.MAX_VALUE;
+
+    private int batchSize = 256;
+
+    private int concurrency = 1;
+
+    private Scheduler scheduler = Schedulers.parallel();
+
+    private GraphTraversal(CsrGraph graph) {
+        this.graph = graph;
+    }
+
+    public static GraphTraversal of(CsrGraph graph) {
+        return new GraphTraversal(graph);
+    }
+
+    public GraphTraversal order(TraversalOrder order) {
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * 最大深度，起点深度为 0，最短路径超过最大深度的节点不会被访问，其余节点都会被访问
+     */
+    public GraphTraversal maxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("max depth must not be negative");
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * 每个 VisitBatch 的最大节点数
+     */
+    public GraphTraversal batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * 并发遍历
+     *
+     * @param concurrency 同时执行的子任务数
+     * @param scheduler   子任务执行的调度器，遍历是 CPU 密集型任务，一般用 Schedulers.parallel()
+     */
+    public GraphTraversal concurrency(int concurrency, Scheduler scheduler) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+        this.concurrency = concurrency;
+        this.scheduler = scheduler;
+        return this;
+    }
+
+    /**
+     * 从 root 开始遍历，每次订阅都重新遍历
+     *
+     * @param root 起点
+     * @return 遍历结果
+     */
+    public Flux<VisitBatch> from(int root) {
+        if (root < 0 || root >= graph.nodeCount()) {
+            return Flux.error(new IllegalArgumentException("node out of range: " + root));
+        }
+        CsrGraph graph = this.graph;
+        TraversalOrder order = this.order;
+        int maxDepth = this.maxDepth;
+        int batchSize = this.batchSize;
+        int concurrency = this.concurrency;
+        Scheduler scheduler = this.scheduler;
+
+        if (concurrency == 1) {
+            return Flux.defer(() -> generate(new TraversalState(graph, order, maxDepth,
+                    new VisitedSet(graph.nodeCount(), false, tracksDepth(order, maxDepth, false)), root, 0), batchSize));
+        }
+        return Flux.defer(() -> {
+            VisitedSet visited = new VisitedSet(graph.nodeCount(), true, tracksDepth(order, maxDepth, true));
+            TraversalState split = new TraversalState(graph, TraversalOrder.BFS, maxDepth, visited, root, 0);
+            // 展开的节点数有上限，链状的图展开不出足够多的分支时，直接用已有的待访问节点
+            VisitBatch prefix = split.expandUntil(concurrency * TASKS_PER_WORKER, batchSize);
+
+            int tasks = split.pending();
+            int[] seeds = new int[tasks];
+            int[] seedDepths = new int[tasks];
+            for (int i = 0; i < tasks; i++) {
+                seeds[i] = split.pendingNode(i);
+                seedDepths[i] = split.pendingDepth(i);
+            }
+            Flux<VisitBatch> rest = Flux.range(0, tasks)
+                    .flatMap(i -> generate(new TraversalState(graph, order, maxDepth, visited, seeds[i], seedDepths[i]), batchSize)
+                            .subscribeOn(scheduler), concurrency);
+            return prefix.size() == 0 ? rest : Flux.just(prefix).concatWith(rest);
+        });
+    }
+
+    /**
+     * 单线程 BFS 按深度递增出队，第一次到达的深度就是最短深度，不需要记录。
+     * DFS 和并发遍历可能先沿较长的路径到达共享节点，限制了深度时需要记录展开过的最小深度
+     */
+    private static boolean tracksDepth(TraversalOrder order, int maxDepth, boolean concurrent) {
+        return maxDepth != Integer.MAX_VALUE && (concurrent || order == TraversalOrder.DFS);
+    }
+
+    private static Flux<VisitBatch> generate(TraversalState state, int batchSize) {
+        return Flux.generate(sink -> {
+            VisitBatch batch = state.next(batchSize);
+            if (batch == null) {
+                sink.complete();
+            } else {
+                sink.next(batch);
+            }
+        });
+    }
+}
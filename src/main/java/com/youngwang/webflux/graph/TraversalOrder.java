@@ -0,0 +1,17 @@
+package com.youngwang.webflux.graph;
+
+/**
+ * 遍历顺序
+ */
+public enum TraversalOrder {
+
+    /**
+     * 广度优先，对应 Flux#expand
+     */
+    BFS,
+
+    /**
+     * 深度优先（先序），对应 Flux#expandDeep
+     */
+    DFS
+}
@@ -0,0 +1,156 @@
+package com.youngwang.webflux.graph;
+
+import java.util.Arrays;
+
+/**
+ * 单线程遍历的状态：一个 int 数组实现的队列（BFS）或栈（DFS）
+ * <p>
+ * 节点在出队时才标记为已访问，这样 BFS 输出的深度一定是最短深度，DFS 输出的是真正的先序。
+ * 入队前会先检查一次位图，已访问的节点不再入队，队列长度不会超过边数。
+ * 限制了最大深度时，已访问的节点以更浅的深度再次出队会重新展开子节点（不再输出），见 VisitedSet
+ */
+final class TraversalState {
+
+    private final CsrGraph graph;
+
+    private final TraversalOrder order;
+
+    private final int maxDepth;
+
+    private final VisitedSet visited;
+
+    private int[] nodes;
+
+    private int[] depths;
+
+    /**
+     * BFS 时为队首，DFS 时始终为 0
+     */
+    private int head;
+
+    private int tail;
+
+    TraversalState(CsrGraph graph, TraversalOrder order, int maxDepth, VisitedSet visited, int node, int depth) {
+        this.graph = graph;
+        this.order = order;
+        this.maxDepth = maxDepth;
+        this.visited = visited;
+        this.nodes = new int[16];
+        this.depths = new int[16];
+        push(node, depth);
+    }
+
+    /**
+     * 取出最多 batchSize 个节点
+     *
+     * @return 这一批遍历到的节点，遍历结束时返回 null
+     */
+    VisitBatch next(int batchSize) {
+        int[] outNodes = new int[batchSize];
+        int[] outDepths = new int[batchSize];
+        int size = 0;
+        while (size < batchSize && head < tail) {
+            if (poll(outNodes, outDepths, size)) {
+                size++;
+            }
+        }
+        return size == 0 ? null : new VisitBatch(outNodes, outDepths, size);
+    }
+
+    /**
+     * 按 BFS 展开，直到待访问的节点数达到 frontier，或者已经访问了 maxVisits 个节点。
+     * 并发遍历用它把图切分成多个互不依赖的子任务
+     *
+     * @return 展开过程中访问到的节点
+     */
+    VisitBatch expandUntil(int frontier, int maxVisits) {
+        int[] outNodes = new int[maxVisits];
+        int[] outDepths = new int[maxVisits];
+        int size = 0;
+        while (size < maxVisits && head < tail && tail - head < frontier) {
+            if (poll(outNodes, outDepths, size)) {
+                size++;
+            }
+        }
+        return new VisitBatch(outNodes, outDepths, size);
+    }
+
+    int pending() {
+        return tail - head;
+    }
+
+    int pendingNode(int index) {
+        return nodes[head + index];
+    }
+
+    int pendingDepth(int index) {
+        return depths[head + index];
+    }
+
+    private boolean poll(int[] outNodes, int[] outDepths, int index) {
+        int node;
+        int depth;
+        if (order == TraversalOrder.BFS) {
+            node = nodes[head];
+            depth = depths[head];
+            head++;
+        } else {
+            tail--;
+            node = nodes[tail];
+            depth = depths[tail];
+        }
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+        boolean first = visited.mark(node);
+        if (visited.expand(node, depth, first) && depth < maxDepth) {
+            pushChildren(node, depth + 1);
+        }
+        if (!first) {
+            return false;
+        }
+        outNodes[index] = node;
+        outDepths[index] = depth;
+        return true;
+    }
+
+    private void pushChildren(int node, int depth) {
+        int first = graph.firstEdge(node);
+        int end = graph.endEdge(node);
+        if (order == TraversalOrder.BFS) {
+            for (int e = first; e < end; e++) {
+                int child = graph.target(e);
+                if (visited.shouldVisit(child, depth)) {
+                    push(child, depth);
+                }
+            }
+        } else {
+            // 逆序入栈，第一个子节点最先出栈
+            for (int e = end - 1; e >= first; e--) {
+                int child = graph.target(e);
+                if (visited.shouldVisit(child, depth)) {
+                    push(child, depth);
+                }
+            }
+        }
+    }
+
+    private void push(int node, int depth) {
+        if (tail == nodes.length) {
+            if (head >= nodes.length / 2) {
+                // 队首之前的空间已经过半，前移复用而不是扩容
+                System.arraycopy(nodes, head, nodes, 0, tail - head);
+                System.arraycopy(depths, head, depths, 0, tail - head);
+                tail -= head;
+                head = 0;
+            } else {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                depths = Arrays.copyOf(depths, depths.length * 2);
+            }
+        }
+        nodes[tail] = node;
+        depths[tail] = depth;
+        tail++;
+    }
+}
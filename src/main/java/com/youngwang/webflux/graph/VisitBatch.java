@@ -0,0 +1,33 @@
+package com.youngwang.webflux.graph;
+
+/**
+ * 一批遍历结果：节点和它到起点的深度
+ * <p>
+ * 遍历按批输出而不是每个节点一个对象，百万节点的遍历只产生几千个批次
+ */
+public final class VisitBatch {
+
+    private final int[] nodes;
+
+    private final int[] depths;
+
+    private final int size;
+
+    VisitBatch(int[] nodes, int[] depths, int size) {
+        this.nodes = nodes;
+        this.depths = depths;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int node(int index) {
+        return nodes[index];
+    }
+
+    public int depth(int index) {
+        return depths[index];
+    }
+}
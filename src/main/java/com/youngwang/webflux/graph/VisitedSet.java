@@ -0,0 +1,99 @@
+package com.youngwang.webflux.graph;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 已访问节点的位图，每个节点 1 bit
+ * <p>
+ * 图中有环或者 DAG 中多条路径指向同一个节点时，靠它保证每个节点只输出一次、遍历一定会结束。
+ * 并发遍历时多个线程共享同一个位图，用 CAS 抢占节点
+ * <p>
+ * 限制了最大深度时还要记录每个节点展开过的最小深度：DFS 或并发遍历可能先沿较长的路径到达共享节点，
+ * 之后沿较短的路径再到达时需要重新展开，否则距离起点不超过最大深度的子节点会被漏掉
+ */
+final class VisitedSet {
+
+    private final AtomicLongArray words;
+
+    /**
+     * 每个节点展开过的最小深度加 1，0 表示还没有展开过。不限制深度时为 null
+     */
+    private final AtomicIntegerArray depths;
+
+    private final boolean concurrent;
+
+    VisitedSet(int nodeCount, boolean concurrent) {
+        this(nodeCount, concurrent, false);
+    }
+
+    VisitedSet(int nodeCount, boolean concurrent, boolean trackDepth) {
+        this.words = new AtomicLongArray((nodeCount + 63) >>> 6);
+        this.depths = trackDepth ? new AtomicIntegerArray(nodeCount) : null;
+        this.concurrent = concurrent;
+    }
+
+    boolean isVisited(int node) {
+        return (words.get(node >>> 6) & (1L << node)) != 0;
+    }
+
+    /**
+     * 标记节点为已访问
+     *
+     * @return 之前未被访问过时返回 true，即当前调用方抢到了这个节点
+     */
+    boolean mark(int node) {
+        int index = node >>> 6;
+        long bit = 1L << node;
+        long word = words.get(index);
+        if (!concurrent) {
+            if ((word & bit) != 0) {
+                return false;
+            }
+            words.lazySet(index, word | bit);
+            return true;
+        }
+        while ((word & bit) == 0) {
+            if (words.compareAndSet(index, word, word | bit)) {
+                return true;
+            }
+            word = words.get(index);
+        }
+        return false;
+    }
+
+    /**
+     * 以 depth 到达节点时是否还需要入队：没有访问过，或者记录深度时比展开过的深度更浅
+     */
+    boolean shouldVisit(int node, int depth) {
+        if (depths == null) {
+            return !isVisited(node);
+        }
+        int expanded = depths.get(node);
+        return expanded == 0 || depth + 1 < expanded;
+    }
+
+    /**
+     * 记录以 depth 展开节点。不记录深度时只能展开一次，即 mark 抢到节点的调用方
+     *
+     * @param first 当前调用方是否刚刚标记了这个节点
+     * @return 需要展开时返回 true：第一次到达，或者比之前展开过的深度更浅
+     */
+    boolean expand(int node, int depth, boolean first) {
+        if (depths == null) {
+            return first;
+        }
+        int expanded = depths.get(node);
+        while (expanded == 0 || depth + 1 < expanded) {
+            if (!concurrent) {
+                depths.lazySet(node, depth + 1);
+                return true;
+            }
+            if (depths.compareAndSet(node, expanded, depth + 1)) {
+                return true;
+            }
+            expanded = depths.get(node);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package com.youngwang.webflux.hedge;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对冲请求的装配
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(HedgeProperties.class)
+public class HedgeConfiguration {
+
+    @Bean
+    public HedgePolicies hedgePolicies(HedgeProperties properties, MeterRegistry registry) {
+        return new HedgePolicies(properties, registry);
+    }
+}
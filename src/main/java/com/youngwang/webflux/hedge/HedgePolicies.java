@@ -0,0 +1,36 @@
+package com.youngwang.webflux.hedge;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按路由获取对冲策略，每个路由单独统计耗时分位数和对冲预算
+ * <p>
+ * 用法：hedgePolicies.forRoute("/mono/hedge").hedge(() -> backend.call())
+ */
+public class HedgePolicies {
+
+    private final HedgeProperties properties;
+
+    private final MeterRegistry registry;
+
+    private final ConcurrentMap<String, HedgePolicy> policies = new ConcurrentHashMap<>();
+
+    public HedgePolicies(HedgeProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    /**
+     * 获取路由的对冲策略，routes 中没有配置时使用 defaults
+     *
+     * @param route 路由，作为指标的 route tag
+     * @return 对冲策略
+     */
+    public HedgePolicy forRoute(String route) {
+        return policies.computeIfAbsent(route, r -> new HedgePolicy(r,
+                properties.getRoutes().getOrDefault(r, properties.getDefaults()), registry));
+    }
+}
@@ -0,0 +1,137 @@
+package com.youngwang.webflux.hedge;
+
+import com.youngwang.webflux.retry.RetryBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 对冲请求（hedged request）：第一次请求超过最近耗时的分位数仍未返回时，再发出一次相同的请求，
+ * 用 Mono.firstWithSignal（即 Mono#or）取先返回的结果，其余请求被取消
+ * <p>
+ * 第 n 次对冲在 n 倍分位数时发出。对冲只用来削减尾延迟，不是重试：任一请求先失败时整体失败。
+ * 对冲预算复用 RetryBudget 令牌桶：每次调用存入 budgetRatio 个令牌，每次对冲取出 1 个，
+ * 下游整体变慢时对冲最多增加 budgetRatio 比例的请求，不会把负载翻倍
+ * <p>
+ * 分位数只统计每次调用中第一次请求的耗时，代表下游本身的延迟分布：先返回时记录实际耗时，
+ * 被先返回的对冲请求取消时记录取消时已经等待的时间（实际耗时的下限）。
+ * 如果只记录先返回的请求，慢请求被对冲取消后从不计入，分位数随着对冲获胜越来越小，对冲越来越多，直到被预算限制
+ * <p>
+ * 指标（tag route）：hedge.calls 调用次数，hedge.attempts 对冲次数，hedge.wins 对冲请求先返回的次数，
+ * hedge.denied 预算不足放弃对冲的次数，hedge.delay 当前的对冲等待时间
+ */
+public class HedgePolicy {
+
+    private final int maxAttempts;
+
+    private final LatencyTracker latency;
+
+    private final RetryBudget budget;
+
+    private final Counter calls;
+
+    private final Counter attempts;
+
+    private final Counter wins;
+
+    private final Counter denied;
+
+    public HedgePolicy(String route, HedgeProperties.Policy policy, MeterRegistry registry) {
+        if (policy.getMaxAttempts() < 1) {
+            throw new IllegalArgumentException("hedge policy [" + route + "] max-attempts must be positive");
+        }
+        this.maxAttempts = policy.getMaxAttempts();
+        this.latency = new LatencyTracker(policy.getPercentile(), policy.getMinDelay().toNanos(),
+                policy.getMaxDelay().toNanos(), policy.getWindow().toNanos(), policy.getMinSamples());
+        this.budget = new RetryBudget(policy.getBudgetRatio(), policy.getBudgetMaxTokens());
+        this.calls = Counter.builder("hedge.calls")
+                .description("调用次数")
+                .tag("route", route)
+                .register(registry);
+        this.attempts = Counter.builder("hedge.attempts")
+                .description("对冲请求次数")
+                .tag("route", route)
+                .register(registry);
+        this.wins = Counter.builder("hedge.wins")
+                .description("对冲请求先于第一次请求返回的次数")
+                .tag("route", route)
+                .register(registry);
+        this.denied = Counter.builder("hedge.denied")
+                .description("对冲预算不足放弃对冲的次数")
+                .tag("route", route)
+                .register(registry);
+        Gauge.builder("hedge.delay", latency, l -> l.percentileNanos() / 1e6)
+                .description("当前的对冲等待时间（毫秒）")
+                .tag("route", route)
+                .register(registry);
+    }
+
+    /**
+     * 对 call 发出的请求做对冲，每次订阅返回的 Mono 都是一次新的调用
+     *
+     * @param call 每次调用返回一个新的请求，会被订阅多次
+     * @return 先返回的请求的结果
+     */
+    public <T> Mono<T> hedge(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            calls.increment();
+            budget.deposit();
+            AtomicBoolean hedgeWon = new AtomicBoolean();
+            if (maxAttempts == 1) {
+                return primary(call, hedgeWon);
+            }
+            long delay = latency.percentileNanos();
+            List<Mono<T>> racers = new ArrayList<>(maxAttempts);
+            racers.add(primary(call, hedgeWon));
+            for (int i = 1; i < maxAttempts; i++) {
+                // Mono.delay(...).then 订阅时就请求数据，定时器触发时不会因为没有请求而报错
+                racers.add(Mono.delay(Duration.ofNanos(delay * i)).then(Mono.defer(() -> {
+                    if (!budget.tryWithdraw()) {
+                        denied.increment();
+                        return Mono.never();
+                    }
+                    attempts.increment();
+                    return hedged(call, hedgeWon);
+                })));
+            }
+            return Mono.firstWithSignal(racers);
+        });
+    }
+
+    /**
+     * 当前的对冲等待时间
+     */
+    public Duration delay() {
+        return Duration.ofNanos(latency.percentileNanos());
+    }
+
+    private <T> Mono<T> primary(Supplier<Mono<T>> call, AtomicBoolean hedgeWon) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.get()
+                    .doOnSuccess(v -> latency.record(System.nanoTime() - start))
+                    .doOnCancel(() -> {
+                        // 调用方取消时耗时没有意义，只记录被对冲请求取消的情况
+                        if (hedgeWon.get()) {
+                            latency.record(System.nanoTime() - start);
+                        }
+                    });
+        });
+    }
+
+    private <T> Mono<T> hedged(Supplier<Mono<T>> call, AtomicBoolean hedgeWon) {
+        // doOnSuccess 在结果发给 firstWithSignal 之前执行，第一次请求被取消时已经能看到 hedgeWon
+        return call.get().doOnSuccess(v -> {
+            if (hedgeWon.compareAndSet(false, true)) {
+                wins.increment();
+            }
+        });
+    }
+}
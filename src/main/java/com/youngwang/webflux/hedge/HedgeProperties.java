@@ -0,0 +1,152 @@
+package com.youngwang.webflux.hedge;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 对冲请求配置
+ * <p>
+ * 对应 application.yaml 中的 webflux.hedge，routes 中没有配置的路由使用 defaults
+ */
+@ConfigurationProperties(prefix = "webflux.hedge")
+public class HedgeProperties {
+
+    /**
+     * 默认的对冲策略
+     */
+    private Policy defaults = new Policy();
+
+    /**
+     * 按路由覆盖的对冲策略，key 为路由
+     */
+    private Map<String, Policy> routes = new LinkedHashMap<>();
+
+    public Policy getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Policy defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Policy> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Policy> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * 单个路由的对冲策略
+     */
+    public static class Policy {
+
+        /**
+         * 最多同时发出的请求数，包括第一次请求，2 表示最多对冲 1 次
+         */
+        private int maxAttempts = 2;
+
+        /**
+         * 第一次请求超过最近耗时的这个分位数仍未返回时发出对冲请求
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 对冲等待时间的下限
+         */
+        private Duration minDelay = Duration.ofMillis(5);
+
+        /**
+         * 对冲等待时间的上限，样本不足时也使用这个值
+         */
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        /**
+         * 重新计算分位数的间隔
+         */
+        private Duration window = Duration.ofSeconds(10);
+
+        /**
+         * 重新计算分位数至少需要的样本数，不足时继续累积
+         */
+        private int minSamples = 100;
+
+        /**
+         * 对冲预算：每次调用存入 budget-ratio 个令牌，每次对冲取出 1 个，0.1 表示对冲最多增加 10% 的请求
+         */
+        private double budgetRatio = 0.1;
+
+        /**
+         * 令牌上限，也是启动时的初始令牌数
+         */
+        private int budgetMaxTokens = 10;
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public int getBudgetMaxTokens() {
+            return budgetMaxTokens;
+        }
+
+        public void setBudgetMaxTokens(int budgetMaxTokens) {
+            this.budgetMaxTokens = budgetMaxTokens;
+        }
+    }
+}
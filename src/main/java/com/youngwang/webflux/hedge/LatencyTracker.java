@@ -0,0 +1,74 @@
+package com.youngwang.webflux.hedge;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 最近一段时间的耗时分位数
+ * <p>
+ * 耗时记录到 HdrHistogram 的 Recorder（无锁写入），每隔 window 且累积了 minSamples 个样本后，
+ * 由读取方顺带取出这段时间的直方图重新计算分位数，再清空重新累积。两次计算之间读取的是缓存值
+ */
+public class LatencyTracker {
+
+    private final double percentile;
+
+    private final long minNanos;
+
+    private final long maxNanos;
+
+    private final long windowNanos;
+
+    private final int minSamples;
+
+    private final Recorder recorder = new Recorder(3);
+
+    private final AtomicLong samples = new AtomicLong();
+
+    private final AtomicLong nextRefresh;
+
+    private volatile long current;
+
+    public LatencyTracker(double percentile, long minNanos, long maxNanos, long windowNanos, int minSamples) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1)");
+        }
+        if (minNanos > maxNanos) {
+            throw new IllegalArgumentException("min-delay must be <= max-delay");
+        }
+        this.percentile = percentile * 100;
+        this.minNanos = minNanos;
+        this.maxNanos = maxNanos;
+        this.windowNanos = windowNanos;
+        this.minSamples = minSamples;
+        this.current = maxNanos;
+        this.nextRefresh = new AtomicLong(System.nanoTime() + windowNanos);
+    }
+
+    /**
+     * 记录一次耗时
+     */
+    public void record(long nanos) {
+        if (nanos > 0) {
+            recorder.recordValue(nanos);
+            samples.incrementAndGet();
+        }
+    }
+
+    /**
+     * 当前的分位数，限制在 [min, max] 之间，样本不足时为 max
+     */
+    public long percentileNanos() {
+        long now = System.nanoTime();
+        long refresh = nextRefresh.get();
+        if (now - refresh >= 0 && samples.get() >= minSamples && nextRefresh.compareAndSet(refresh, now + windowNanos)) {
+            Histogram interval = recorder.getIntervalHistogram();
+            samples.addAndGet(-interval.getTotalCount());
+            long value = interval.getValueAtPercentile(percentile);
+            current = Math.max(minNanos, Math.min(maxNanos, value));
+        }
+        return current;
+    }
+}
@@ -0,0 +1,189 @@
+package com.youngwang.webflux.introspect;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerAdapter;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.HandlerResult;
+import org.springframework.web.reactive.function.server.EntityResponse;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.adapter.DefaultServerWebExchange;
+import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.http.HttpStatus;
+import reactor.core.Fuseable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 按 URI 找到处理该请求的 handler，调用它得到组装好的 Publisher（不订阅），生成 AssemblyReport
+ * <p>
+ * handler 使用独立的 exchange 调用：请求复制自当前请求（替换 URI 和 Accept），响应是 DetachedResponse，
+ * exchange 的属性（匹配到的路由等）也不会写到当前请求上，不影响当前请求的指标。
+ * 注意调用 handler 本身的副作用仍然会发生，例如组装时就开始执行的 CompletableFuture
+ * <p>
+ * 分配字节数来自 com.sun.management.ThreadMXBean#getThreadAllocatedBytes，
+ * 统计 handler 调用前后当前线程的分配量，包括参数解析和组装操作符
+ */
+public class AssemblyInspector {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Supplier<List<HandlerMapping>> handlerMappings;
+
+    private final Supplier<List<HandlerAdapter>> handlerAdapters;
+
+    private final ServerCodecConfigurer codecConfigurer;
+
+    private final int maxNodes;
+
+    private final int maxSamples;
+
+    public AssemblyInspector(Supplier<List<HandlerMapping>> handlerMappings, Supplier<List<HandlerAdapter>> handlerAdapters,
+                             ServerCodecConfigurer codecConfigurer, IntrospectProperties properties) {
+        this.handlerMappings = handlerMappings;
+        this.handlerAdapters = handlerAdapters;
+        this.codecConfigurer = codecConfigurer;
+        this.maxNodes = properties.getMaxNodes();
+        this.maxSamples = properties.getMaxSamples();
+    }
+
+    /**
+     * 检查一个路由
+     *
+     * @param exchange 当前请求
+     * @param uri      目标路由，包括查询参数，例如 /zip/tuple8?name=a
+     * @param accept   目标请求的 Accept，为空时使用 application/json
+     * @param samples  调用 handler 的次数
+     * @return 报告
+     */
+    public Mono<AssemblyReport> inspect(ServerWebExchange exchange, String uri, MediaType accept, int samples) {
+        int count = Math.max(1, Math.min(samples, maxSamples));
+        return Mono.fromSupplier(() -> detach(exchange, uri, accept)).flatMap(first -> resolve(first).flatMap(handler -> {
+            HandlerAdapter adapter = adapterFor(handler);
+            long[] allocated = new long[count];
+            return Flux.range(0, count)
+                    .<HandlerResult>concatMap(i -> assemble(i == 0 ? first : detach(exchange, uri, accept), handler, adapter, allocated, i))
+                    .last()
+                    .flatMap(this::unwrap)
+                    .map(publisher -> new AssemblyReport(uri, describe(handler), publisher.getClass().getName(), count,
+                            min(allocated), allocated[0], OperatorGraph.of(publisher, maxNodes)));
+        }));
+    }
+
+    private ServerWebExchange detach(ServerWebExchange exchange, String uri, MediaType accept) {
+        URI target;
+        try {
+            target = URI.create(uri);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid uri: " + uri, e);
+        }
+        if (target.getRawPath() == null || !target.getRawPath().startsWith("/") || target.getRawPath().startsWith("/introspect")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "uri must be an application path outside /introspect");
+        }
+        URI absolute = UriComponentsBuilder.fromUri(exchange.getRequest().getURI())
+                .replacePath(target.getRawPath())
+                .replaceQuery(target.getRawQuery())
+                .build(true)
+                .toUri();
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .method(HttpMethod.GET)
+                .uri(absolute)
+                .headers(headers -> headers.setAccept(List.of(accept != null ? accept : MediaType.APPLICATION_JSON)))
+                .build();
+        return new DefaultServerWebExchange(request, new DetachedResponse(exchange.getResponse().bufferFactory()),
+                new DefaultWebSessionManager(), codecConfigurer, new AcceptHeaderLocaleContextResolver());
+    }
+
+    private Mono<Object> resolve(ServerWebExchange exchange) {
+        return Flux.fromIterable(handlerMappings.get())
+                .concatMap(mapping -> mapping.getHandler(exchange))
+                .next()
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "no handler for " + exchange.getRequest().getURI().getRawPath())))
+                .filter(handler -> handler instanceof HandlerMethod || handler instanceof HandlerFunction)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "only controller methods and handler functions can be inspected")));
+    }
+
+    private HandlerAdapter adapterFor(Object handler) {
+        for (HandlerAdapter adapter : handlerAdapters.get()) {
+            if (adapter.supports(handler)) {
+                return adapter;
+            }
+        }
+        throw new IllegalStateException("no HandlerAdapter for " + handler);
+    }
+
+    private Mono<HandlerResult> assemble(ServerWebExchange exchange, Object handler, HandlerAdapter adapter,
+                                         long[] allocated, int sample) {
+        return Mono.defer(() -> {
+            Thread thread = Thread.currentThread();
+            long before = allocatedBytes(thread);
+            return adapter.handle(exchange, handler).doOnNext(result -> {
+                // 参数解析是异步的（例如读取请求体）时，调用可能在另一个线程上完成，此时无法统计
+                allocated[sample] = before >= 0 && Thread.currentThread() == thread ? allocatedBytes(thread) - before : -1;
+            });
+        });
+    }
+
+    /**
+     * 取出 handler 返回的 Publisher。HandlerFunction 返回 Mono&lt;ServerResponse&gt;，
+     * 组装阶段就已经有值（ServerResponse 的 builder 返回 Mono.just）时直接取出 EntityResponse 的响应体
+     */
+    private Mono<Object> unwrap(HandlerResult result) {
+        Object value = result.getReturnValue();
+        if (value == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "handler returned null"));
+        }
+        if (value instanceof Fuseable.ScalarCallable && result.getHandler() instanceof HandlerFunction) {
+            try {
+                Object response = ((Fuseable.ScalarCallable<?>) value).call();
+                if (response instanceof EntityResponse) {
+                    return Mono.just(((EntityResponse<?>) response).entity());
+                }
+            } catch (Exception e) {
+                return Mono.error(e);
+            }
+        }
+        return Mono.just(value);
+    }
+
+    private static String describe(Object handler) {
+        if (handler instanceof HandlerMethod) {
+            return ((HandlerMethod) handler).getShortLogMessage();
+        }
+        return handler.toString();
+    }
+
+    private static long min(long[] values) {
+        long min = Long.MAX_VALUE;
+        for (long value : values) {
+            if (value < 0) {
+                return -1;
+            }
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static long allocatedBytes(Thread thread) {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(thread.getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,103 @@
+package com.youngwang.webflux.introspect;
+
+import java.util.List;
+
+/**
+ * 一个路由返回的 Publisher 的组装报告
+ */
+public class AssemblyReport {
+
+    private final String uri;
+
+    private final String handler;
+
+    private final String returnType;
+
+    private final int samples;
+
+    private final long allocatedBytes;
+
+    private final long firstAllocatedBytes;
+
+    private final OperatorGraph graph;
+
+    AssemblyReport(String uri, String handler, String returnType, int samples, long allocatedBytes,
+                   long firstAllocatedBytes, OperatorGraph graph) {
+        this.uri = uri;
+        this.handler = handler;
+        this.returnType = returnType;
+        this.samples = samples;
+        this.allocatedBytes = allocatedBytes;
+        this.firstAllocatedBytes = firstAllocatedBytes;
+        this.graph = graph;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * 处理该请求的 controller 方法或 HandlerFunction
+     */
+    public String getHandler() {
+        return handler;
+    }
+
+    public String getReturnType() {
+        return returnType;
+    }
+
+    /**
+     * 调用 handler 的次数
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * 调用一次 handler（解析参数 + 组装操作符，不订阅）在当前线程上分配的字节数，多次调用取最小值。
+     * JVM 不支持线程分配统计、或者调用过程中切换了线程时为 -1
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * 第一次调用分配的字节数，包含类加载、lambda 链接等一次性开销
+     */
+    public long getFirstAllocatedBytes() {
+        return firstAllocatedBytes;
+    }
+
+    public int getOperators() {
+        return graph.getOperators();
+    }
+
+    public int getFuseable() {
+        return graph.getFuseable();
+    }
+
+    public int getLinks() {
+        return graph.getLinks();
+    }
+
+    public int getFusedLinks() {
+        return graph.getFusedLinks();
+    }
+
+    public int getAsyncBoundaries() {
+        return graph.getAsyncBoundaries();
+    }
+
+    public List<String> getBarriers() {
+        return graph.getBarriers();
+    }
+
+    public boolean isTruncated() {
+        return graph.isTruncated();
+    }
+
+    public OperatorNode getGraph() {
+        return graph.getRoot();
+    }
+}
@@ -0,0 +1,33 @@
+package com.youngwang.webflux.introspect;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.reactive.HandlerAdapter;
+import org.springframework.web.reactive.HandlerMapping;
+
+import java.util.stream.Collectors;
+
+/**
+ * 操作符图检查的装配，只有 webflux.introspect.enabled=true 时才注册 /introspect 接口
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(IntrospectProperties.class)
+public class IntrospectConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "webflux.introspect", name = "enabled", matchIfMissing = false)
+    public AssemblyInspector assemblyInspector(ObjectProvider<HandlerMapping> handlerMappings,
+                                               ObjectProvider<HandlerAdapter> handlerAdapters,
+                                               ServerCodecConfigurer codecConfigurer,
+                                               IntrospectProperties properties) {
+        // 和 DispatcherHandler 一样按 Order 排序，HandlerMapping 在第一次检查时才获取
+        return new AssemblyInspector(
+                () -> handlerMappings.orderedStream().collect(Collectors.toList()),
+                () -> handlerAdapters.orderedStream().collect(Collectors.toList()),
+                codecConfigurer, properties);
+    }
+}
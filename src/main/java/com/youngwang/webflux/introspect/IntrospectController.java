@@ -0,0 +1,70 @@
+package com.youngwang.webflux.introspect;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 查看路由返回的 Publisher 的操作符图、融合情况和组装开销
+ * <p>
+ * 例如 /introspect/assembly?uri=/zip/tuple8?name=a&amp;samples=5（uri 中的 ? & 需要 URL 编码）
+ */
+@RestController
+@RequestMapping("/introspect")
+@ConditionalOnProperty(prefix = "webflux.introspect", name = "enabled", matchIfMissing = false)
+public class IntrospectController {
+
+    private final AssemblyInspector inspector;
+
+    private final RequestMappingHandlerMapping handlerMapping;
+
+    public IntrospectController(AssemblyInspector inspector,
+                                @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping) {
+        this.inspector = inspector;
+        this.handlerMapping = handlerMapping;
+    }
+
+    /**
+     * 可以检查的注解路由：GET 并且返回 Publisher。RouterFunction 注册的路由也可以检查，这里不列出
+     */
+    @GetMapping("/routes")
+    public List<String> routes() {
+        return handlerMapping.getHandlerMethods().entrySet().stream()
+                .filter(entry -> Publisher.class.isAssignableFrom(entry.getValue().getReturnType().getParameterType()))
+                .filter(entry -> entry.getKey().getMethodsCondition().getMethods().isEmpty()
+                        || entry.getKey().getMethodsCondition().getMethods().contains(RequestMethod.GET))
+                .flatMap(entry -> entry.getKey().getPatternsCondition().getPatterns().stream())
+                .map(Object::toString)
+                .filter(pattern -> !pattern.startsWith("/introspect"))
+                .sorted()
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 调用 uri 对应的 handler 得到组装好的 Publisher，不订阅
+     *
+     * @param uri     目标路由和查询参数
+     * @param accept  目标请求的 Accept，默认 application/json
+     * @param samples 调用次数，分配字节数取最小值
+     */
+    @GetMapping("/assembly")
+    public Mono<AssemblyReport> assembly(@RequestParam("uri") String uri,
+                                         @RequestParam(value = "accept", required = false) MediaType accept,
+                                         @RequestParam(value = "samples", defaultValue = "1") int samples,
+                                         ServerWebExchange exchange) {
+        return inspector.inspect(exchange, uri, accept, samples);
+    }
+}
@@ -0,0 +1,49 @@
+package com.youngwang.webflux.introspect;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 操作符图检查配置
+ */
+@ConfigurationProperties(prefix = "webflux.introspect")
+public class IntrospectProperties {
+
+    /**
+     * 是否开启 /introspect 接口，默认关闭。会调用任意 GET 路由的 handler，只在开发环境按需开启
+     */
+    private boolean enabled = false;
+
+    /**
+     * 每个报告最多包含的操作符个数
+     */
+    private int maxNodes = 256;
+
+    /**
+     * 每次检查最多调用 handler 的次数
+     */
+    private int maxSamples = 20;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public void setMaxNodes(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    public int getMaxSamples() {
+        return maxSamples;
+    }
+
+    public void setMaxSamples(int maxSamples) {
+        this.maxSamples = maxSamples;
+    }
+}
@@ -0,0 +1,211 @@
+package com.youngwang.webflux.introspect;
+
+import org.reactivestreams.Publisher;
+import reactor.core.Fuseable;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * 组装好（还没有订阅）的 Publisher 的操作符图
+ * <p>
+ * 单上游的操作符通过 Scannable.Attr.PARENT 找到上游。zip、when、switchIfEmpty 等多个上游的操作符
+ * 组装阶段不通过 Scannable 暴露其他上游，这里再反射读取 Publisher、Publisher[] 和 Publisher 集合类型的字段。
+ * flatMap、concatMap 等的内层 Publisher 在运行时才创建，不在图中
+ * <p>
+ * 融合是订阅时协商的，组装阶段只能判断相邻两个操作符是否都实现了 Fuseable：
+ * 都实现时订阅后可以融合（同步融合，或者 publishOn 这类线程边界上的异步融合），否则这里是一个融合屏障
+ */
+public class OperatorGraph {
+
+    private final OperatorNode root;
+
+    private int operators;
+
+    private int fuseable;
+
+    private int links;
+
+    private int fusedLinks;
+
+    private int asyncBoundaries;
+
+    private final List<String> barriers = new ArrayList<>();
+
+    private boolean truncated;
+
+    private OperatorGraph(Object publisher, int maxNodes) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.root = visit(publisher, seen, maxNodes);
+    }
+
+    /**
+     * 遍历 publisher 的上游
+     *
+     * @param publisher 组装好的 Publisher
+     * @param maxNodes  最多访问的操作符个数，超过时 truncated 为 true
+     * @return 操作符图
+     */
+    public static OperatorGraph of(Object publisher, int maxNodes) {
+        return new OperatorGraph(publisher, maxNodes);
+    }
+
+    public OperatorNode getRoot() {
+        return root;
+    }
+
+    public int getOperators() {
+        return operators;
+    }
+
+    /**
+     * 实现了 Fuseable 的操作符个数
+     */
+    public int getFuseable() {
+        return fuseable;
+    }
+
+    /**
+     * 上下游之间的连接数
+     */
+    public int getLinks() {
+        return links;
+    }
+
+    /**
+     * 两端都是 Fuseable 的连接数
+     */
+    public int getFusedLinks() {
+        return fusedLinks;
+    }
+
+    /**
+     * 可能切换线程的操作符个数（subscribeOn、publishOn、delayElement 等）
+     */
+    public int getAsyncBoundaries() {
+        return asyncBoundaries;
+    }
+
+    /**
+     * 没有实现 Fuseable 的操作符，按从下游到上游的顺序
+     */
+    public List<String> getBarriers() {
+        return barriers;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    private OperatorNode visit(Object publisher, Set<Object> seen, int maxNodes) {
+        Scannable scannable = Scannable.from(publisher);
+        boolean isFuseable = publisher instanceof Fuseable;
+        String scalar = publisher instanceof Fuseable.ScalarCallable ? "scalar"
+                : publisher instanceof Callable ? "callable" : null;
+        Object runOn = scannable.scan(Scannable.Attr.RUN_ON);
+        Scannable.Attr.RunStyle runStyle = scannable.scan(Scannable.Attr.RUN_STYLE);
+        OperatorNode node = new OperatorNode(
+                scannable.isScanAvailable() ? scannable.stepName() : publisher.getClass().getName(),
+                publisher.getClass().getSimpleName(),
+                isFuseable,
+                scalar,
+                positive(scannable.scan(Scannable.Attr.PREFETCH)),
+                positive(scannable.scan(Scannable.Attr.CAPACITY)),
+                runOn != null && runOn != Schedulers.immediate() ? runOn.toString() : null,
+                runStyle != null && runStyle != Scannable.Attr.RunStyle.UNKNOWN ? runStyle.name() : null);
+        seen.add(publisher);
+        operators++;
+        if (isFuseable) {
+            fuseable++;
+        } else {
+            barriers.add(node.getOperator());
+        }
+        if (node.getRunOn() != null || runStyle == Scannable.Attr.RunStyle.ASYNC) {
+            asyncBoundaries++;
+        }
+        for (Object source : sources(publisher, scannable)) {
+            if (seen.contains(source)) {
+                continue;
+            }
+            if (operators >= maxNodes) {
+                truncated = true;
+                break;
+            }
+            OperatorNode child = visit(source, seen, maxNodes);
+            boolean fused = isFuseable && child.isFuseable();
+            child.setFusedWithDownstream(fused);
+            links++;
+            if (fused) {
+                fusedLinks++;
+            }
+            node.getSources().add(child);
+        }
+        return node;
+    }
+
+    private static List<Object> sources(Object publisher, Scannable scannable) {
+        List<Object> sources = new ArrayList<>();
+        Object parent = scannable.scan(Scannable.Attr.PARENT);
+        if (parent instanceof Publisher) {
+            sources.add(parent);
+        }
+        for (Class<?> type = publisher.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Object value = read(publisher, field);
+                if (value instanceof Publisher) {
+                    addSource(sources, value);
+                } else if (value instanceof Publisher[]) {
+                    for (Publisher<?> element : (Publisher<?>[]) value) {
+                        addSource(sources, element);
+                    }
+                } else if (value instanceof Collection) {
+                    // 只读已经物化的集合，不迭代可能是惰性的 Iterable
+                    for (Object element : (Collection<?>) value) {
+                        if (element instanceof Publisher) {
+                            addSource(sources, element);
+                        }
+                    }
+                }
+            }
+        }
+        return sources;
+    }
+
+    private static void addSource(List<Object> sources, Object source) {
+        if (source == null) {
+            return;
+        }
+        for (Object existing : sources) {
+            if (existing == source) {
+                return;
+            }
+        }
+        sources.add(source);
+    }
+
+    private static Object read(Object target, Field field) {
+        try {
+            field.setAccessible(true);
+            return field.get(target);
+        } catch (RuntimeException | IllegalAccessException e) {
+            // 模块限制等原因读不到时忽略这个字段
+            return null;
+        }
+    }
+
+    private static Integer positive(Integer value) {
+        return value != null && value > 0 ? value : null;
+    }
+}
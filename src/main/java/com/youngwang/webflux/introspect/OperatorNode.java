@@ -0,0 +1,116 @@
+package com.youngwang.webflux.introspect;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 组装好的 Publisher 图中的一个操作符，sources 是它的上游
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OperatorNode {
+
+    private final String name;
+
+    private final String operator;
+
+    private final boolean fuseable;
+
+    private final String scalar;
+
+    private final Integer prefetch;
+
+    private final Integer capacity;
+
+    private final String runOn;
+
+    private final String runStyle;
+
+    private final List<OperatorNode> sources = new ArrayList<>();
+
+    private boolean fusedWithDownstream;
+
+    OperatorNode(String name, String operator, boolean fuseable, String scalar, Integer prefetch, Integer capacity,
+                 String runOn, String runStyle) {
+        this.name = name;
+        this.operator = operator;
+        this.fuseable = fuseable;
+        this.scalar = scalar;
+        this.prefetch = prefetch;
+        this.capacity = capacity;
+        this.runOn = runOn;
+        this.runStyle = runStyle;
+    }
+
+    /**
+     * Scannable#stepName，带 checkpoint 或 name() 时是对应的名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 实现类，例如 MonoMapFuseable
+     */
+    public String getOperator() {
+        return operator;
+    }
+
+    /**
+     * 是否实现了 Fuseable，可以和上下游协商融合
+     */
+    public boolean isFuseable() {
+        return fuseable;
+    }
+
+    /**
+     * scalar：组装时就有值（Mono.just 等），callable：订阅时同步求值（Mono.fromCallable 等），其他为空
+     */
+    public String getScalar() {
+        return scalar;
+    }
+
+    /**
+     * 向上游预取的个数，Integer.MAX_VALUE 表示不限
+     */
+    public Integer getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * 缓存容量（cache、replay、buffer 等）
+     */
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 执行所在的调度器，同步执行时为空
+     */
+    public String getRunOn() {
+        return runOn;
+    }
+
+    /**
+     * SYNC：不会切换线程；ASYNC：可能切换线程
+     */
+    public String getRunStyle() {
+        return runStyle;
+    }
+
+    /**
+     * 和下游的操作符都是 Fuseable，订阅时可以融合成一个队列 / 省掉 request 往返
+     */
+    public boolean isFusedWithDownstream() {
+        return fusedWithDownstream;
+    }
+
+    void setFusedWithDownstream(boolean fusedWithDownstream) {
+        this.fusedWithDownstream = fusedWithDownstream;
+    }
+
+    public List<OperatorNode> getSources() {
+        return sources;
+    }
+}
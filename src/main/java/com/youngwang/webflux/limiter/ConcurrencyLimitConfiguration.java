@@ -0,0 +1,27 @@
+package com.youngwang.webflux.limiter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+
+import java.util.stream.Collectors;
+
+/**
+ * 自适应并发限制的装配，webflux.limiter.enabled=false 时不注册过滤器
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "webflux.limiter", name = "enabled", matchIfMissing = true)
+    public ConcurrencyLimitFilter concurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry registry,
+                                                         ObjectProvider<HandlerMapping> handlerMappings) {
+        // 路由模式从 HandlerMapping 中收集，在第一次请求时才获取
+        return new ConcurrencyLimitFilter(properties, registry, () -> handlerMappings.orderedStream().collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,194 @@
+package com.youngwang.webflux.limiter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 自适应并发限制：超过路由的并发上限时直接响应 503 和 Retry-After，不进入 handler，
+ * 让节点在过载时拒绝一部分请求，而不是所有请求一起变慢直到超时
+ * <p>
+ * 每个路由（注解映射或函数式路由的路径模式）在第一次请求时创建自己的限制器，耗时不同的路由互不影响。
+ * 在 WebFilter 中 handler 还没有匹配，按请求路径找到最具体的路由模式；参数取 webflux.limiter.routes 中第一个匹配请求路径的配置，
+ * 都不匹配时用 defaults。没有对应路由的请求（404 等）共用一个 unmatched 限制器
+ * <p>
+ * 请求的耗时从进入过滤器开始，到响应写完（chain 完成）结束。NDJSON、SSE 等流式响应的耗时取决于流的长度和客户端，
+ * 只占用名额，不参与上限的计算，见 webflux.limiter.unsampled-media-types
+ * <p>
+ * 响应为 503、504 时视为过载，和超时、线程池拒绝的异常一样减小上限
+ * <p>
+ * 排在 MetricsWebFilter 之后，被拒绝的请求也会记入 http.server.requests（status=503）
+ */
+public class ConcurrencyLimitFilter implements WebFilter, Ordered {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    /**
+     * 没有匹配任何路由的请求使用的限制器名称
+     */
+    public static final String UNMATCHED = "unmatched";
+
+    private final List<PathPattern> excludes = new ArrayList<>();
+
+    private final List<RouteLimit> overrides = new ArrayList<>();
+
+    private final ConcurrencyLimitProperties.Limit defaults;
+
+    private final List<MediaType> unsampledMediaTypes;
+
+    private final MeterRegistry registry;
+
+    private final Supplier<List<HandlerMapping>> handlerMappings;
+
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    private volatile RoutePatterns routePatterns;
+
+    /**
+     * 不按已注册的路由区分，只按 webflux.limiter.routes 中的模式创建限制器
+     */
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry registry) {
+        this(properties, registry, List::of);
+    }
+
+    /**
+     * @param handlerMappings 在第一次请求时获取，从中收集已注册的路由模式
+     */
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry registry,
+                                  Supplier<List<HandlerMapping>> handlerMappings) {
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        for (String exclude : properties.getExcludes()) {
+            excludes.add(parser.parse(exclude));
+        }
+        for (Map.Entry<String, ConcurrencyLimitProperties.Limit> entry : properties.getRoutes().entrySet()) {
+            overrides.add(new RouteLimit(parser.parse(entry.getKey()), entry.getValue()));
+        }
+        this.defaults = properties.getDefaults();
+        this.unsampledMediaTypes = properties.getUnsampledMediaTypes();
+        this.registry = registry;
+        this.handlerMappings = handlerMappings;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        for (PathPattern exclude : excludes) {
+            if (exclude.matches(path)) {
+                return chain.filter(exchange);
+            }
+        }
+        ConcurrencyLimiter limiter = resolve(path);
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            return reject(exchange.getResponse(), limiter);
+        }
+        return chain.filter(exchange)
+                .doOnSuccess(v -> {
+                    if (isOverload(exchange.getResponse())) {
+                        permit.onOverload();
+                    } else if (isUnsampled(exchange.getResponse())) {
+                        permit.release();
+                    } else {
+                        permit.onSuccess();
+                    }
+                })
+                .doOnError(permit::onError)
+                .doOnCancel(permit::onCancel);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * 已创建的限制器，key 为路由模式
+     */
+    public Map<String, ConcurrencyLimiter> getLimiters() {
+        return limiters;
+    }
+
+    private ConcurrencyLimiter resolve(PathContainer path) {
+        RouteLimit override = null;
+        for (RouteLimit candidate : overrides) {
+            if (candidate.pattern.matches(path)) {
+                override = candidate;
+                break;
+            }
+        }
+        PathPattern route = routePatterns().match(path);
+        String name = route != null ? route.getPatternString()
+                : override != null ? override.pattern.getPatternString() : UNMATCHED;
+        ConcurrencyLimitProperties.Limit config = override != null ? override.limit : defaults;
+        ConcurrencyLimiter limiter = limiters.get(name);
+        return limiter != null ? limiter : limiters.computeIfAbsent(name, key -> new ConcurrencyLimiter(key, config, registry));
+    }
+
+    private RoutePatterns routePatterns() {
+        RoutePatterns patterns = routePatterns;
+        if (patterns == null) {
+            // HandlerMapping 在上下文刷新完成后才有完整的路由，第一次请求时再收集
+            patterns = RoutePatterns.collect(handlerMappings.get());
+            routePatterns = patterns;
+        }
+        return patterns;
+    }
+
+    /**
+     * OffloadRejectedHandler 把线程池拒绝转换为 503，DeadlineFilter 把截止时间已过转换为 504，
+     * 都是正常完成的响应，不会以异常的形式到达这里
+     */
+    private static boolean isOverload(ServerHttpResponse response) {
+        HttpStatus status = response.getStatusCode();
+        return status == HttpStatus.SERVICE_UNAVAILABLE || status == HttpStatus.GATEWAY_TIMEOUT;
+    }
+
+    private boolean isUnsampled(ServerHttpResponse response) {
+        MediaType contentType = response.getHeaders().getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        for (MediaType unsampled : unsampledMediaTypes) {
+            if (unsampled.isCompatibleWith(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response, ConcurrencyLimiter limiter) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        long seconds = Math.max(1, (limiter.getRetryAfter().toMillis() + 999) / 1000);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        return response.setComplete();
+    }
+
+    private static final class RouteLimit {
+
+        private final PathPattern pattern;
+
+        private final ConcurrencyLimitProperties.Limit limit;
+
+        private RouteLimit(PathPattern pattern, ConcurrencyLimitProperties.Limit limit) {
+            this.pattern = pattern;
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.youngwang.webflux.limiter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.MediaType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 自适应并发限制配置
+ * <p>
+ * 对应 application.yaml 中的 webflux.limiter。每个路由都有自己的限制器，
+ * routes 的 key 为路径模式（PathPattern），按配置顺序匹配请求路径，第一个匹配的参数生效，都不匹配时用 defaults
+ */
+@ConfigurationProperties(prefix = "webflux.limiter")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled = true;
+
+    /**
+     * 不做限制的路径模式，默认排除 actuator，过载时也能拿到指标
+     */
+    private List<String> excludes = new ArrayList<>(List.of("/actuator/**"));
+
+    /**
+     * 默认的限制参数
+     */
+    private Limit defaults = new Limit();
+
+    /**
+     * 按路由覆盖的限制参数，一个模式可以匹配多个路由，每个路由仍然单独计算上限
+     */
+    private Map<String, Limit> routes = new LinkedHashMap<>();
+
+    /**
+     * 这些 Content-Type 的响应只占用名额，耗时不参与上限的计算。流式响应的耗时取决于流的长度和客户端读取的速度
+     */
+    private List<MediaType> unsampledMediaTypes = new ArrayList<>(List.of(MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    public void setExcludes(List<String> excludes) {
+        this.excludes = excludes;
+    }
+
+    public Limit getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Limit defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Limit> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Limit> routes) {
+        this.routes = routes;
+    }
+
+    public List<MediaType> getUnsampledMediaTypes() {
+        return unsampledMediaTypes;
+    }
+
+    public void setUnsampledMediaTypes(List<MediaType> unsampledMediaTypes) {
+        this.unsampledMediaTypes = unsampledMediaTypes;
+    }
+
+    /**
+     * 单个路由的限制参数
+     */
+    public static class Limit {
+
+        /**
+         * 启动时的并发上限
+         */
+        private int initialLimit = 50;
+
+        /**
+         * 并发上限的下限
+         */
+        private int minLimit = 4;
+
+        /**
+         * 并发上限的上限
+         */
+        private int maxLimit = 1000;
+
+        /**
+         * 请求耗时在平均耗时的 tolerance 倍以内时不认为在排队
+         */
+        private double tolerance = 2.0;
+
+        /**
+         * 每个样本对上限的调整权重，越小越平缓
+         */
+        private double smoothing = 0.2;
+
+        /**
+         * 平均耗时的统计窗口（样本数）
+         */
+        private int longWindow = 600;
+
+        /**
+         * 超过上限时响应 503 的 Retry-After
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public int getLongWindow() {
+            return longWindow;
+        }
+
+        public void setLongWindow(int longWindow) {
+            this.longWindow = longWindow;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+}
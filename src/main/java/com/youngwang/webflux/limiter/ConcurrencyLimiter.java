@@ -0,0 +1,149 @@
+package com.youngwang.webflux.limiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个路由的并发限制器：在途请求数达到 GradientLimit 的上限时拒绝新请求，请求结束时把耗时反馈给 GradientLimit
+ * <p>
+ * 指标（tag route）：limiter.limit 当前上限，limiter.inflight 在途请求数，limiter.rejected 拒绝次数
+ */
+public class ConcurrencyLimiter {
+
+    private final GradientLimit limit;
+
+    private final Duration retryAfter;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter rejected;
+
+    public ConcurrencyLimiter(String route, ConcurrencyLimitProperties.Limit config, MeterRegistry registry) {
+        this.limit = new GradientLimit(config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(),
+                config.getTolerance(), config.getSmoothing(), config.getLongWindow());
+        this.retryAfter = config.getRetryAfter();
+        Gauge.builder("limiter.limit", limit, GradientLimit::getLimit)
+                .description("当前的并发上限")
+                .tag("route", route)
+                .register(registry);
+        Gauge.builder("limiter.inflight", inFlight, AtomicInteger::get)
+                .description("在途请求数")
+                .tag("route", route)
+                .register(registry);
+        this.rejected = Counter.builder("limiter.rejected")
+                .description("超过并发上限被拒绝的请求数")
+                .tag("route", route)
+                .register(registry);
+    }
+
+    /**
+     * 尝试占用一个并发名额
+     *
+     * @return 成功时返回名额，请求结束时必须释放；超过上限时返回 null
+     */
+    public Permit tryAcquire() {
+        int max = limit.getLimit();
+        for (; ; ) {
+            int current = inFlight.get();
+            if (current >= max) {
+                rejected.increment();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(current + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * 一个并发名额。只有第一次释放生效：响应完成后上游仍可能收到 cancel
+     */
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+
+        private final int acquiredInFlight;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int acquiredInFlight) {
+            this.acquiredInFlight = acquiredInFlight;
+        }
+
+        /**
+         * 请求正常结束
+         */
+        public void onSuccess() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                limit.onSample(System.nanoTime() - startNanos, acquiredInFlight, false);
+            }
+        }
+
+        /**
+         * 请求正常结束，但响应是过载导致的 503、504（线程池拒绝、截止时间已过），按过载减小上限
+         */
+        public void onOverload() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                limit.onSample(System.nanoTime() - startNanos, acquiredInFlight, true);
+            }
+        }
+
+        /**
+         * 请求失败：超时、线程池拒绝说明已经过载，减小上限；其它业务异常不影响上限
+         */
+        public void onError(Throwable error) {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                if (isOverload(error)) {
+                    limit.onSample(System.nanoTime() - startNanos, acquiredInFlight, true);
+                }
+            }
+        }
+
+        /**
+         * 客户端取消，耗时不代表服务端的处理能力，只释放名额
+         */
+        public void onCancel() {
+            release();
+        }
+
+        /**
+         * 只释放名额，不把耗时反馈给上限，用于耗时取决于客户端的流式响应
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private static boolean isOverload(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof RejectedExecutionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,110 @@
+package com.youngwang.webflux.limiter;
+
+/**
+ * 按延迟梯度自适应的并发上限
+ * <p>
+ * 维护最近 longWindow 个请求耗时的指数移动平均 longRtt，和当前请求的耗时比较：
+ * gradient = clamp(tolerance * longRtt / rtt, 0.5, 1)。耗时在平均值的 tolerance 倍以内时 gradient 为 1，
+ * 上限增加 sqrt(limit)；请求开始排队、耗时整体上升时 gradient 小于 1，上限按比例减小。
+ * 新上限和旧上限按 smoothing 加权，个别慢请求只会让上限小幅下降
+ * <p>
+ * 相比以最小延迟为基准的 Vegas，对本身耗时波动较大的接口更稳定，不会把正常的长尾当成排队
+ * <p>
+ * 请求因过载失败（超时、线程池拒绝）时上限乘以 0.9
+ */
+public class GradientLimit {
+
+    private static final double DROP_FACTOR = 0.9;
+
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final double smoothing;
+
+    private final double decay;
+
+    /**
+     * 上限的估计值，只在 onSample 中持锁读写
+     */
+    private double limit;
+
+    /**
+     * 发布给 getLimit 的上限，每次获取许可都会读取，不需要加锁
+     */
+    private volatile int publishedLimit;
+
+    private double longRtt;
+
+    private int samples;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing, int longWindow) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("require 0 < min-limit <= max-limit");
+        }
+        if (tolerance < 1) {
+            throw new IllegalArgumentException("tolerance must be >= 1");
+        }
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("smoothing must be in (0, 1]");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.decay = 2.0 / (Math.max(1, longWindow) + 1);
+        update(initialLimit);
+    }
+
+    /**
+     * 当前的并发上限
+     */
+    public int getLimit() {
+        return publishedLimit;
+    }
+
+    /**
+     * 记录一次请求的结果
+     *
+     * @param rttNanos 请求耗时
+     * @param inFlight 请求开始时的在途请求数
+     * @param dropped  是否因过载失败
+     */
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (dropped) {
+            update(limit * DROP_FACTOR);
+            return;
+        }
+        double rtt = rttNanos;
+        if (samples < WARMUP_SAMPLES) {
+            // 前几个样本取算术平均，避免第一个样本决定 longRtt
+            samples++;
+            longRtt += (rtt - longRtt) / samples;
+            return;
+        }
+        longRtt += (rtt - longRtt) * decay;
+        if (inFlight * 2 < limit) {
+            // 在途请求远低于上限时，耗时不能说明上限是否合适，不做调整
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / rtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        update(limit * (1 - smoothing) + newLimit * smoothing);
+    }
+
+    private void update(double value) {
+        limit = clamp(value);
+        publishedLimit = (int) limit;
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
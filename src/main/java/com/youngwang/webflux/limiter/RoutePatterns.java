@@ -0,0 +1,189 @@
+package com.youngwang.webflux.limiter;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.support.RouterFunctionMapping;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.RequestMappingInfoHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 已注册路由的路径模式，用于在 WebFilter 中（handler 匹配之前）按请求路径找到对应的路由
+ * <p>
+ * 注解映射取 RequestMappingInfo 的 patterns，函数式路由遍历 RouterFunction 中的 path 谓词（包括 path/nest 的前缀）。
+ * 按 PathPattern.SPECIFICITY_COMPARATOR 排序，和 RequestMappingHandlerMapping 选择最具体模式的规则一致
+ */
+final class RoutePatterns {
+
+    private final List<PathPattern> patterns;
+
+    RoutePatterns(Collection<PathPattern> patterns) {
+        List<PathPattern> sorted = new ArrayList<>(new LinkedHashSet<>(patterns));
+        sorted.sort(PathPattern.SPECIFICITY_COMPARATOR);
+        this.patterns = sorted;
+    }
+
+    /**
+     * 收集所有 HandlerMapping 中的路径模式
+     */
+    static RoutePatterns collect(List<HandlerMapping> handlerMappings) {
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        List<PathPattern> patterns = new ArrayList<>();
+        for (HandlerMapping mapping : handlerMappings) {
+            if (mapping instanceof RequestMappingInfoHandlerMapping) {
+                for (RequestMappingInfo info : ((RequestMappingInfoHandlerMapping) mapping).getHandlerMethods().keySet()) {
+                    patterns.addAll(info.getPatternsCondition().getPatterns());
+                }
+            } else if (mapping instanceof RouterFunctionMapping) {
+                RouterFunction<?> routerFunction = ((RouterFunctionMapping) mapping).getRouterFunction();
+                if (routerFunction != null) {
+                    FunctionalPaths visitor = new FunctionalPaths();
+                    routerFunction.accept(visitor);
+                    for (String path : visitor.paths) {
+                        patterns.add(parser.parse(path));
+                    }
+                }
+            }
+        }
+        return new RoutePatterns(patterns);
+    }
+
+    /**
+     * @return 最具体的匹配模式，没有匹配时返回 null
+     */
+    PathPattern match(PathContainer path) {
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return pattern;
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return patterns.size();
+    }
+
+    /**
+     * 把 RouterFunction 展开成完整的路径，nest 的前缀和路由自己的路径直接拼接
+     */
+    private static final class FunctionalPaths implements RouterFunctions.Visitor {
+
+        private final Deque<String> prefixes = new ArrayDeque<>(List.of(""));
+
+        private final Set<String> paths = new LinkedHashSet<>();
+
+        @Override
+        public void startNested(RequestPredicate predicate) {
+            List<String> nested = pathsOf(predicate);
+            prefixes.push(prefixes.peek() + (nested.isEmpty() ? "" : nested.get(0)));
+        }
+
+        @Override
+        public void endNested(RequestPredicate predicate) {
+            prefixes.pop();
+        }
+
+        @Override
+        public void route(RequestPredicate predicate, HandlerFunction<?> handlerFunction) {
+            for (String path : pathsOf(predicate)) {
+                paths.add(prefixes.peek() + path);
+            }
+        }
+
+        @Override
+        public void resources(Function<ServerRequest, Mono<Resource>> lookupFunction) {
+        }
+
+        @Override
+        public void attributes(Map<String, Object> attributes) {
+        }
+
+        @Override
+        public void unknown(RouterFunction<?> routerFunction) {
+        }
+
+        private static List<String> pathsOf(RequestPredicate predicate) {
+            List<String> paths = new ArrayList<>();
+            predicate.accept(new RequestPredicates.Visitor() {
+                @Override
+                public void method(Set<HttpMethod> methods) {
+                }
+
+                @Override
+                public void path(String pattern) {
+                    paths.add(pattern);
+                }
+
+                @Override
+                public void pathExtension(String extension) {
+                }
+
+                @Override
+                public void header(String name, String value) {
+                }
+
+                @Override
+                public void queryParam(String name, String value) {
+                }
+
+                @Override
+                public void startAnd() {
+                }
+
+                @Override
+                public void and() {
+                }
+
+                @Override
+                public void endAnd() {
+                }
+
+                @Override
+                public void startOr() {
+                }
+
+                @Override
+                public void or() {
+                }
+
+                @Override
+                public void endOr() {
+                }
+
+                @Override
+                public void startNegate() {
+                }
+
+                @Override
+                public void endNegate() {
+                }
+
+                @Override
+                public void unknown(RequestPredicate predicate) {
+                }
+            });
+            return paths;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.youngwang.webflux.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 指标相关的装配
+ * <p>
+ * 路由级别的耗时直方图和按 outcome 区分的请求数由 actuator 的 http.server.requests 提供，
+ * 分位数、直方图在 application.yaml 的 management.metrics.distribution 下配置，
+ * 通过 /actuator/prometheus 抓取
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ReactorMetricsProperties.class)
+public class MetricsConfiguration {
+
+    @Bean
+    public ReactorMetrics reactorMetrics(ReactorMetricsProperties properties, MeterRegistry registry) {
+        return new ReactorMetrics(properties, registry);
+    }
+}
@@ -0,0 +1,155 @@
+package com.youngwang.webflux.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.Scannable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import reactor.core.publisher.SignalType;
+
+import java.util.function.Function;
+
+/**
+ * 按路由开关的 Reactor 操作符指标
+ * <p>
+ * 用法：mono.transform(reactorMetrics.mono("/mono/metrics", "test"))。
+ * 路由没有开启时返回原样的流，不会产生任何额外的操作符。
+ * <p>
+ * Reactor 3.4 的 metrics() 只能写到 Metrics.MicrometerConfiguration 里 JVM 全局的 registry，
+ * 多个应用上下文（例如测试）会互相覆盖，这里直接写到注入的 registry，和 /actuator/prometheus 是同一个。
+ * 指标名和 tag 与 metrics() 一致：name.subscribed、name.flow.duration，上游 tag() 声明的 tag 同样会带上
+ */
+public class ReactorMetrics {
+
+    private final ReactorMetricsProperties properties;
+
+    private final MeterRegistry registry;
+
+    public ReactorMetrics(ReactorMetricsProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    /**
+     * 路由是否开启了操作符指标
+     *
+     * @param route 路由
+     * @return 是否开启
+     */
+    public boolean isEnabled(String route) {
+        return properties.getRoutes().getOrDefault(route, properties.isEnabled());
+    }
+
+    /**
+     * Mono 的指标转换
+     *
+     * @param route 路由，作为 route tag
+     * @param name  序列名称，作为指标名的前缀
+     * @return 用于 Mono#transform 的函数
+     */
+    public <T> Function<Mono<T>, Mono<T>> mono(String route, String name) {
+        if (!isEnabled(route)) {
+            return Function.identity();
+        }
+        return m -> {
+            // tag 要在 transform 之前声明，这里只会读取上游的 tag
+            Tags tags = tags(m, "Mono", route);
+            return Mono.defer(() -> {
+                Flow flow = new Flow(name, tags, true);
+                return m.doOnSubscribe(s -> flow.onSubscribe())
+                        .doOnEach(flow::onSignal)
+                        .doOnCancel(flow::onCancel);
+            });
+        };
+    }
+
+    /**
+     * Flux 的指标转换
+     *
+     * @param route 路由，作为 route tag
+     * @param name  序列名称，作为指标名的前缀
+     * @return 用于 Flux#transform 的函数
+     */
+    public <T> Function<Flux<T>, Flux<T>> flux(String route, String name) {
+        if (!isEnabled(route)) {
+            return Function.identity();
+        }
+        return f -> {
+            Tags tags = tags(f, "Flux", route);
+            return Flux.defer(() -> {
+                Flow flow = new Flow(name, tags, false);
+                return f.doOnSubscribe(s -> flow.onSubscribe())
+                        .doOnEach(flow::onSignal)
+                        .doOnCancel(flow::onCancel);
+            });
+        };
+    }
+
+    private static Tags tags(Object source, String type, String route) {
+        Tags tags = Tags.of("type", type, "route", route);
+        return Scannable.from(source).tags()
+                .reduce(tags, (acc, tag) -> acc.and(tag.getT1(), tag.getT2()), Tags::and);
+    }
+
+    /**
+     * 一次订阅的耗时，status 和 metrics() 相同：completed、completedEmpty、error、cancelled
+     */
+    private final class Flow {
+
+        private final String name;
+
+        private final Tags tags;
+
+        private final boolean mono;
+
+        private Timer.Sample sample;
+
+        private boolean hasValue;
+
+        private Flow(String name, Tags tags, boolean mono) {
+            this.name = name;
+            this.tags = tags;
+            this.mono = mono;
+        }
+
+        private void onSubscribe() {
+            Counter.builder(name + ".subscribed")
+                    .tags(tags)
+                    .register(registry)
+                    .increment();
+            sample = Timer.start(registry);
+        }
+
+        private void onSignal(Signal<?> signal) {
+            if (signal.getType() == SignalType.ON_NEXT) {
+                hasValue = true;
+                // Mono 最多一个元素，下游收到后可能直接取消，收到元素时就算完成
+                if (mono) {
+                    stop("completed", "");
+                }
+            } else if (signal.getType() == SignalType.ON_COMPLETE) {
+                stop(hasValue ? "completed" : "completedEmpty", "");
+            } else if (signal.getType() == SignalType.ON_ERROR) {
+                Throwable error = signal.getThrowable();
+                stop("error", error != null ? error.getClass().getName() : "");
+            }
+        }
+
+        private void onCancel() {
+            stop("cancelled", "");
+        }
+
+        private synchronized void stop(String status, String exception) {
+            if (sample == null) {
+                return;
+            }
+            sample.stop(Timer.builder(name + ".flow.duration")
+                    .tags(tags.and("status", status, "exception", exception))
+                    .register(registry));
+            sample = null;
+        }
+    }
+}
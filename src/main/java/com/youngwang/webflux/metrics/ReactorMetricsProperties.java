@@ -0,0 +1,41 @@
+package com.youngwang.webflux.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reactor 操作符级别指标（Mono#metrics / Flux#metrics）的开关
+ * <p>
+ * 操作符指标会给每次订阅记录耗时、请求数等，开销比 http.server.requests 大，所以按路由单独开启
+ */
+@ConfigurationProperties(prefix = "webflux.metrics.reactor")
+public class ReactorMetricsProperties {
+
+    /**
+     * 没有单独配置的路由是否开启
+     */
+    private boolean enabled = false;
+
+    /**
+     * 按路由开关，key 为路由，例如 /mono/metrics
+     */
+    private Map<String, Boolean> routes = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<String, Boolean> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Boolean> routes) {
+        this.routes = routes;
+    }
+}
@@ -0,0 +1,22 @@
+package com.youngwang.webflux.offload;
+
+/**
+ * 阻塞 I/O 类任务（sleep、同步的远程调用）的执行方式
+ */
+public enum ExecutionMode {
+
+    /**
+     * 每个任务一个虚拟线程，阻塞时只挂起虚拟线程、不占用平台线程。需要运行在 JDK 21 及以上，否则退化为 BOUNDED_ELASTIC
+     */
+    VIRTUAL,
+
+    /**
+     * Reactor 的 Schedulers.boundedElastic()，线程数上限为 10 * CPU 核数
+     */
+    BOUNDED_ELASTIC,
+
+    /**
+     * webflux.offload.pools 中的 blocking 线程池
+     */
+    POOL
+}
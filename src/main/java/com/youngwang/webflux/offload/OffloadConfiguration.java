@@ -0,0 +1,19 @@
+package com.youngwang.webflux.offload;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 阻塞任务卸载线程池的装配
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(OffloadProperties.class)
+public class OffloadConfiguration {
+
+    @Bean
+    public OffloadExecutors offloadExecutors(OffloadProperties properties, MeterRegistry registry) {
+        return new OffloadExecutors(properties, registry);
+    }
+}
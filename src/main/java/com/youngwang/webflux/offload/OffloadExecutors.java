@@ -0,0 +1,202 @@
+package com.youngwang.webflux.offload;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 具名的阻塞任务卸载线程池
+ * <p>
+ * CompletableFuture.supplyAsync 不指定 executor 时，会使用 JVM 全局共享的 ForkJoinPool.commonPool，
+ * 它的大小等于 CPU 核数，阻塞任务一多就会把它占满，影响其他所有使用它的代码。
+ * 所以阻塞任务应该放到这里的有界线程池中执行
+ * <p>
+ * 每个线程池都会注册 Micrometer 指标（tag name=offload.{pool}）：
+ * executor.queued 队列深度，executor.idle 排队等待时间，executor 执行耗时，offload.rejected 拒绝次数
+ * <p>
+ * sleep、同步远程调用这类阻塞 I/O 任务使用 io() / ioScheduler()，由 webflux.offload.mode 决定在
+ * 虚拟线程、boundedElastic 还是 blocking 线程池上执行
+ */
+public class OffloadExecutors implements DisposableBean {
+
+    /**
+     * 默认的阻塞任务线程池名称
+     */
+    public static final String BLOCKING = "blocking";
+
+    private static final Logger log = LoggerFactory.getLogger(OffloadExecutors.class);
+
+    private final Map<String, ThreadPoolExecutor> pools = new LinkedHashMap<>();
+
+    private final Map<String, ExecutorService> monitored = new LinkedHashMap<>();
+
+    private final Map<String, Scheduler> schedulers = new LinkedHashMap<>();
+
+    private final ExecutionMode mode;
+
+    private final Executor ioExecutor;
+
+    private final Scheduler ioScheduler;
+
+    /**
+     * VIRTUAL 模式下的虚拟线程 executor，其他模式为 null
+     */
+    private final ExecutorService virtualExecutor;
+
+    public OffloadExecutors(OffloadProperties properties, MeterRegistry registry) {
+        Map<String, OffloadProperties.Pool> config = new LinkedHashMap<>(properties.getPools());
+        // 没有配置时也保证默认线程池存在
+        config.putIfAbsent(BLOCKING, new OffloadProperties.Pool());
+
+        config.forEach((name, pool) -> {
+            ThreadPoolExecutor executor = createExecutor(name, pool, registry);
+            pools.put(name, executor);
+            ExecutorService service = ExecutorServiceMetrics.monitor(registry, executor, "offload." + name, Tags.empty());
+            monitored.put(name, service);
+            schedulers.put(name, Schedulers.fromExecutorService(service, "offload-" + name));
+        });
+
+        ExecutionMode mode = properties.getMode();
+        if (mode == ExecutionMode.VIRTUAL && !VirtualThreads.isSupported()) {
+            log.warn("virtual threads are not supported on Java {}, falling back to {}",
+                    System.getProperty("java.version"), ExecutionMode.BOUNDED_ELASTIC);
+            mode = ExecutionMode.BOUNDED_ELASTIC;
+        }
+        this.mode = mode;
+        switch (mode) {
+            case VIRTUAL:
+                this.virtualExecutor = ExecutorServiceMetrics.monitor(registry,
+                        VirtualThreads.newExecutor("offload-virtual-"), "offload.virtual", Tags.empty());
+                this.ioExecutor = virtualExecutor;
+                this.ioScheduler = Schedulers.fromExecutorService(virtualExecutor, "offload-virtual");
+                break;
+            case BOUNDED_ELASTIC:
+                this.virtualExecutor = null;
+                this.ioScheduler = Schedulers.boundedElastic();
+                // 队列满时 schedule 抛出 RejectedExecutionException，和 ABORT 策略的线程池一样返回 503
+                this.ioExecutor = task -> ioScheduler.schedule(task);
+                break;
+            default:
+                this.virtualExecutor = null;
+                this.ioExecutor = blocking();
+                this.ioScheduler = blockingScheduler();
+        }
+    }
+
+    private ThreadPoolExecutor createExecutor(String name, OffloadProperties.Pool pool, MeterRegistry registry) {
+        if (pool.getMaxSize() < pool.getCoreSize()) {
+            throw new IllegalArgumentException("offload pool [" + name + "] max-size must be >= core-size");
+        }
+        Counter rejected = Counter.builder("offload.rejected")
+                .description("被拒绝的卸载任务数")
+                .tag("pool", name)
+                .register(registry);
+        RejectedExecutionHandler delegate = pool.getRejectPolicy().handler();
+
+        return new ThreadPoolExecutor(
+                pool.getCoreSize(),
+                pool.getMaxSize(),
+                pool.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(pool.getQueueCapacity()),
+                new CustomizableThreadFactory("offload-" + name + "-"),
+                (r, e) -> {
+                    rejected.increment();
+                    delegate.rejectedExecution(r, e);
+                });
+    }
+
+    /**
+     * 获取带监控的线程池，用于 CompletableFuture.supplyAsync(supplier, executor)
+     *
+     * @param name 线程池名称
+     * @return 线程池
+     */
+    public ExecutorService get(String name) {
+        ExecutorService executor = monitored.get(name);
+        if (executor == null) {
+            throw new IllegalArgumentException("unknown offload pool: " + name);
+        }
+        return executor;
+    }
+
+    /**
+     * 默认的阻塞任务线程池
+     */
+    public ExecutorService blocking() {
+        return get(BLOCKING);
+    }
+
+    /**
+     * 获取线程池对应的 Reactor 调度器，用于 subscribeOn / publishOn
+     *
+     * @param name 线程池名称
+     * @return 调度器
+     */
+    public Scheduler scheduler(String name) {
+        Scheduler scheduler = schedulers.get(name);
+        if (scheduler == null) {
+            throw new IllegalArgumentException("unknown offload pool: " + name);
+        }
+        return scheduler;
+    }
+
+    /**
+     * 默认阻塞任务线程池对应的调度器
+     */
+    public Scheduler blockingScheduler() {
+        return scheduler(BLOCKING);
+    }
+
+    /**
+     * 阻塞 I/O 类任务的执行方式，VIRTUAL 不受支持时为退化后的 BOUNDED_ELASTIC
+     */
+    public ExecutionMode mode() {
+        return mode;
+    }
+
+    /**
+     * 按 webflux.offload.mode 选择的 executor，用于 CompletableFuture.supplyAsync(supplier, executor)
+     */
+    public Executor io() {
+        return ioExecutor;
+    }
+
+    /**
+     * 按 webflux.offload.mode 选择的调度器，用于 subscribeOn / publishOn
+     */
+    public Scheduler ioScheduler() {
+        return ioScheduler;
+    }
+
+    public Set<String> names() {
+        return Collections.unmodifiableSet(pools.keySet());
+    }
+
+    @Override
+    public void destroy() {
+        schedulers.values().forEach(Scheduler::dispose);
+        pools.values().forEach(ThreadPoolExecutor::shutdown);
+        if (virtualExecutor != null) {
+            ioScheduler.dispose();
+            virtualExecutor.shutdown();
+        }
+    }
+}
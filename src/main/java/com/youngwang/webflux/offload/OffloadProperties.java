@@ -0,0 +1,113 @@
+package com.youngwang.webflux.offload;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 阻塞任务卸载线程池配置
+ * <p>
+ * 对应 application.yaml 中的 webflux.offload.pools，每个 key 是一个具名线程池
+ */
+@ConfigurationProperties(prefix = "webflux.offload")
+public class OffloadProperties {
+
+    /**
+     * 具名线程池，key 为线程池名称
+     */
+    private Map<String, Pool> pools = new LinkedHashMap<>();
+
+    /**
+     * 阻塞 I/O 类任务的执行方式，对应 OffloadExecutors#io() / ioScheduler()
+     */
+    private ExecutionMode mode = ExecutionMode.POOL;
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    public void setMode(ExecutionMode mode) {
+        this.mode = mode;
+    }
+
+    public Map<String, Pool> getPools() {
+        return pools;
+    }
+
+    public void setPools(Map<String, Pool> pools) {
+        this.pools = pools;
+    }
+
+    /**
+     * 单个线程池的配置
+     */
+    public static class Pool {
+
+        /**
+         * 核心线程数
+         */
+        private int coreSize = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * 最大线程数，队列满了之后才会创建超过核心数的线程
+         */
+        private int maxSize = Runtime.getRuntime().availableProcessors() * 4;
+
+        /**
+         * 等待队列容量，必须有界，否则拒绝策略永远不会生效
+         */
+        private int queueCapacity = 256;
+
+        /**
+         * 非核心线程的空闲存活时间
+         */
+        private Duration keepAlive = Duration.ofSeconds(60);
+
+        /**
+         * 队列满时的拒绝策略
+         */
+        private RejectPolicy rejectPolicy = RejectPolicy.ABORT;
+
+        public int getCoreSize() {
+            return coreSize;
+        }
+
+        public void setCoreSize(int coreSize) {
+            this.coreSize = coreSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public RejectPolicy getRejectPolicy() {
+            return rejectPolicy;
+        }
+
+        public void setRejectPolicy(RejectPolicy rejectPolicy) {
+            this.rejectPolicy = rejectPolicy;
+        }
+    }
+}
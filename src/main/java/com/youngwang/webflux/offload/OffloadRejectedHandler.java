@@ -0,0 +1,23 @@
+package com.youngwang.webflux.offload;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 卸载线程池满了之后，把 RejectedExecutionException 转换为 503，让调用方稍后重试
+ */
+@RestControllerAdvice
+public class OffloadRejectedHandler {
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> rejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("服务繁忙，请稍后重试");
+    }
+}
@@ -0,0 +1,35 @@
+package com.youngwang.webflux.offload;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 线程池队列满时的拒绝策略
+ * <p>
+ * 没有提供 DISCARD 类策略：被丢弃的任务对应的 CompletableFuture 永远不会完成，请求会一直挂起
+ */
+public enum RejectPolicy {
+
+    /**
+     * 直接抛出 RejectedExecutionException，请求快速失败（503）
+     */
+    ABORT {
+        @Override
+        RejectedExecutionHandler handler() {
+            return new ThreadPoolExecutor.AbortPolicy();
+        }
+    },
+
+    /**
+     * 由提交任务的线程自己执行。
+     * 注意：在 webflux 中提交线程通常是 event loop，慎用
+     */
+    CALLER_RUNS {
+        @Override
+        RejectedExecutionHandler handler() {
+            return new ThreadPoolExecutor.CallerRunsPolicy();
+        }
+    };
+
+    abstract RejectedExecutionHandler handler();
+}
@@ -0,0 +1,62 @@
+package com.youngwang.webflux.offload;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 通过反射创建虚拟线程
+ * <p>
+ * 工程编译目标是 Java 11：Spring Boot 2.4 自带的 ASM 解析不了 Java 21 的 class 文件，不能直接调用 Thread.ofVirtual()。
+ * 运行在 JDK 21 及以上时通过反射获取，其他版本返回不支持
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前 JVM 是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        try {
+            threadFactory("virtual-probe-");
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 每个任务一个虚拟线程的 ExecutorService，相当于 Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())
+     *
+     * @param prefix 线程名前缀
+     * @return ExecutorService
+     * @throws UnsupportedOperationException 当前 JVM 不支持虚拟线程
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        ThreadFactory factory = threadFactory(prefix);
+        try {
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new UnsupportedOperationException("virtual threads are not supported", e);
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            throw new UnsupportedOperationException("virtual threads are not supported", e);
+        } catch (InvocationTargetException e) {
+            // JDK 19、20 未开启 --enable-preview 时会抛出 UnsupportedOperationException
+            throw new UnsupportedOperationException("virtual threads are not supported", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.youngwang.webflux.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程级的重试令牌桶
+ * <p>
+ * 每次首次调用存入 ratio 个令牌，每次重试取出 1 个。下游正常时令牌始终充足，
+ * 下游故障、大部分请求都在重试时，重试次数被限制在首次调用次数的 ratio 倍以内，
+ * 不会因为重试把下游的负载放大数倍（重试风暴）
+ */
+public class RetryBudget {
+
+    /**
+     * 令牌用定点数表示，1 个令牌 = 1000 个单位，避免浮点数的 CAS
+     */
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+
+    private final long capacity;
+
+    private final AtomicLong balance;
+
+    public RetryBudget(double ratio, int maxTokens) {
+        if (ratio < 0) {
+            throw new IllegalArgumentException("retry ratio must not be negative");
+        }
+        if (maxTokens < 0) {
+            throw new IllegalArgumentException("max tokens must not be negative");
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = maxTokens * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * 记录一次首次调用，存入令牌
+     */
+    public void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    /**
+     * 尝试取出一个令牌用于重试
+     *
+     * @return 令牌不足时返回 false，调用方应放弃重试
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /**
+     * 当前可用的令牌数
+     */
+    public double tokens() {
+        return (double) balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,19 @@
+package com.youngwang.webflux.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 重试策略的装配
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(RetryProperties.class)
+public class RetryConfiguration {
+
+    @Bean
+    public RetryPolicies retryPolicies(RetryProperties properties, MeterRegistry registry) {
+        return new RetryPolicies(properties, registry);
+    }
+}
@@ -0,0 +1,48 @@
+package com.youngwang.webflux.retry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按路由获取重试策略，所有策略共享同一个重试预算
+ * <p>
+ * 用法：mono.retryWhen(retryPolicies.forRoute("/mono/retry"))
+ */
+public class RetryPolicies {
+
+    private final RetryProperties properties;
+
+    private final MeterRegistry registry;
+
+    private final RetryBudget budget;
+
+    private final ConcurrentMap<String, RetryPolicy> policies = new ConcurrentHashMap<>();
+
+    public RetryPolicies(RetryProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+        RetryProperties.Budget config = properties.getBudget();
+        this.budget = new RetryBudget(config.getRatio(), config.getMaxTokens());
+        Gauge.builder("retry.budget.tokens", budget, RetryBudget::tokens)
+                .description("重试预算中剩余的令牌数")
+                .register(registry);
+    }
+
+    /**
+     * 获取路由的重试策略，routes 中没有配置时使用 defaults
+     *
+     * @param route 路由，作为指标的 route tag
+     * @return 重试策略
+     */
+    public RetryPolicy forRoute(String route) {
+        return policies.computeIfAbsent(route, r -> new RetryPolicy(r,
+                properties.getRoutes().getOrDefault(r, properties.getDefaults()), budget, registry));
+    }
+
+    public RetryBudget budget() {
+        return budget;
+    }
+}
@@ -0,0 +1,125 @@
+package com.youngwang.webflux.retry;
+
+import com.youngwang.webflux.deadline.Deadline;
+import com.youngwang.webflux.deadline.Deadlines;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 带重试预算、指数退避和完全随机抖动（full jitter）的重试策略，用于 Mono#retryWhen / Flux#retryWhen
+ * <p>
+ * 第 n 次重试前等待 [0, min(maxBackoff, minBackoff * 2^n)] 之间的随机时间，
+ * 避免同一时刻失败的请求在同一时刻重试。超过最大重试次数、请求剩余时间（Deadlines）不够退避、
+ * 或者重试预算不足时放弃重试，抛出最后一次的异常
+ * <p>
+ * retryWhen 每次订阅都会调用一次 generateCompanion，所以在这里记录首次调用、存入预算
+ * <p>
+ * 指标（tag route）：retry.calls 首次调用次数，retry.attempts 重试次数，
+ * retry.giveups 放弃重试次数（tag reason=exhausted|deadline|budget）
+ */
+public class RetryPolicy extends Retry {
+
+    private final RetryBudget budget;
+
+    private final long maxRetries;
+
+    private final long minBackoffNanos;
+
+    private final long maxBackoffNanos;
+
+    private final Counter calls;
+
+    private final Counter attempts;
+
+    private final Counter exhausted;
+
+    private final Counter budgetExhausted;
+
+    private final Counter deadlineExceeded;
+
+    public RetryPolicy(String route, RetryProperties.Policy policy, RetryBudget budget, MeterRegistry registry) {
+        if (policy.getMaxRetries() < 0) {
+            throw new IllegalArgumentException("retry policy [" + route + "] max-retries must not be negative");
+        }
+        if (policy.getMaxBackoff().compareTo(policy.getMinBackoff()) < 0) {
+            throw new IllegalArgumentException("retry policy [" + route + "] max-backoff must be >= min-backoff");
+        }
+        this.budget = budget;
+        this.maxRetries = policy.getMaxRetries();
+        this.minBackoffNanos = policy.getMinBackoff().toNanos();
+        this.maxBackoffNanos = policy.getMaxBackoff().toNanos();
+        this.calls = Counter.builder("retry.calls")
+                .description("首次调用次数")
+                .tag("route", route)
+                .register(registry);
+        this.attempts = Counter.builder("retry.attempts")
+                .description("重试次数")
+                .tag("route", route)
+                .register(registry);
+        this.exhausted = Counter.builder("retry.giveups")
+                .description("达到最大重试次数后放弃的次数")
+                .tag("route", route)
+                .tag("reason", "exhausted")
+                .register(registry);
+        this.budgetExhausted = Counter.builder("retry.giveups")
+                .description("重试预算不足放弃的次数")
+                .tag("route", route)
+                .tag("reason", "budget")
+                .register(registry);
+        this.deadlineExceeded = Counter.builder("retry.giveups")
+                .description("请求剩余时间不够退避放弃的次数")
+                .tag("route", route)
+                .tag("reason", "deadline")
+                .register(registry);
+    }
+
+    @Override
+    public Publisher<?> generateCompanion(Flux<RetrySignal> signals) {
+        calls.increment();
+        budget.deposit();
+        // companion 的 Context 就是 retryWhen 下游的 Context，可以读到请求的截止时间
+        return Flux.deferContextual(context -> {
+            Optional<Deadline> deadline = Deadlines.get(context);
+            return signals.concatMap(signal -> {
+                long retries = signal.totalRetries();
+                Throwable failure = signal.failure();
+                if (retries >= maxRetries) {
+                    exhausted.increment();
+                    return Mono.error(failure);
+                }
+                Duration backoff = backoff(retries);
+                if (deadline.isPresent() && deadline.get().remaining().compareTo(backoff) <= 0) {
+                    // 退避结束时调用方已经不要结果了，不再重试，也不消耗预算
+                    deadlineExceeded.increment();
+                    return Mono.error(failure);
+                }
+                if (!budget.tryWithdraw()) {
+                    budgetExhausted.increment();
+                    return Mono.error(failure);
+                }
+                attempts.increment();
+                // 不用 Mono.delay：完全抖动可能得到接近 0 的退避时间，定时器在 concatMap 请求之前触发时
+                // Mono.delay 会报 OverflowException，delayElement 则会等到有请求才发出
+                return backoff.isZero() ? Mono.just(retries) : Mono.just(retries).delayElement(backoff);
+            });
+        });
+    }
+
+    /**
+     * 第 retries 次重试（从 0 开始）前的等待时间
+     */
+    Duration backoff(long retries) {
+        long ceiling = retries >= 62 || minBackoffNanos > (maxBackoffNanos >> retries)
+                ? maxBackoffNanos
+                : minBackoffNanos << retries;
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+}
@@ -0,0 +1,132 @@
+package com.youngwang.webflux.retry;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 重试策略配置
+ * <p>
+ * 对应 application.yaml 中的 webflux.retry，routes 中没有配置的路由使用 defaults
+ */
+@ConfigurationProperties(prefix = "webflux.retry")
+public class RetryProperties {
+
+    /**
+     * 进程级的重试预算
+     */
+    private Budget budget = new Budget();
+
+    /**
+     * 默认的重试策略
+     */
+    private Policy defaults = new Policy();
+
+    /**
+     * 按路由覆盖的重试策略，key 为路由
+     */
+    private Map<String, Policy> routes = new LinkedHashMap<>();
+
+    public Budget getBudget() {
+        return budget;
+    }
+
+    public void setBudget(Budget budget) {
+        this.budget = budget;
+    }
+
+    public Policy getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Policy defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Policy> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Policy> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * 重试预算：每次首次调用存入 ratio 个令牌，每次重试取出 1 个，令牌不足时放弃重试
+     */
+    public static class Budget {
+
+        /**
+         * 重试次数和首次调用次数的比例，0.1 表示重试最多给下游增加 10% 的负载
+         */
+        private double ratio = 0.1;
+
+        /**
+         * 令牌上限，也是启动时的初始令牌数，决定了低流量时允许的突发重试次数
+         */
+        private int maxTokens = 100;
+
+        public double getRatio() {
+            return ratio;
+        }
+
+        public void setRatio(double ratio) {
+            this.ratio = ratio;
+        }
+
+        public int getMaxTokens() {
+            return maxTokens;
+        }
+
+        public void setMaxTokens(int maxTokens) {
+            this.maxTokens = maxTokens;
+        }
+    }
+
+    /**
+     * 单个路由的重试策略
+     */
+    public static class Policy {
+
+        /**
+         * 最大重试次数，不包括首次调用
+         */
+        private int maxRetries = 3;
+
+        /**
+         * 第一次重试的退避上限，之后每次翻倍
+         */
+        private Duration minBackoff = Duration.ofMillis(100);
+
+        /**
+         * 退避时间的上限
+         */
+        private Duration maxBackoff = Duration.ofSeconds(2);
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public Duration getMinBackoff() {
+            return minBackoff;
+        }
+
+        public void setMinBackoff(Duration minBackoff) {
+            this.minBackoff = minBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.youngwang.webflux.server;
+
+import org.springframework.boot.web.server.GracefulShutdownCallback;
+import org.springframework.boot.web.server.GracefulShutdownResult;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.boot.web.server.WebServerException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * 绑定同一端口的多个 WebServer，对外表现为一个
+ */
+class MultiAcceptorWebServer implements WebServer {
+
+    private final WebServer primary;
+
+    private final IntFunction<WebServer> extraFactory;
+
+    private final int extraCount;
+
+    private final List<WebServer> extras = new ArrayList<>();
+
+    MultiAcceptorWebServer(WebServer primary, IntFunction<WebServer> extraFactory, int extraCount) {
+        this.primary = primary;
+        this.extraFactory = extraFactory;
+        this.extraCount = extraCount;
+    }
+
+    @Override
+    public synchronized void start() throws WebServerException {
+        primary.start();
+        if (!extras.isEmpty()) {
+            return;
+        }
+        int port = primary.getPort();
+        for (int i = 0; i < extraCount; i++) {
+            WebServer extra = extraFactory.apply(port);
+            extra.start();
+            extras.add(extra);
+        }
+    }
+
+    @Override
+    public synchronized void stop() throws WebServerException {
+        for (WebServer extra : extras) {
+            extra.stop();
+        }
+        extras.clear();
+        primary.stop();
+    }
+
+    @Override
+    public int getPort() {
+        return primary.getPort();
+    }
+
+    @Override
+    public void shutDownGracefully(GracefulShutdownCallback callback) {
+        List<WebServer> servers = new ArrayList<>(extras);
+        servers.add(primary);
+        // 所有 server 都结束后才回调，结果以主 server 为准
+        AtomicInteger remaining = new AtomicInteger(servers.size());
+        GracefulShutdownResult[] primaryResult = new GracefulShutdownResult[1];
+        for (WebServer server : servers) {
+            server.shutDownGracefully(result -> {
+                if (server == primary) {
+                    primaryResult[0] = result;
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    callback.shutdownComplete(primaryResult[0]);
+                }
+            });
+        }
+    }
+}
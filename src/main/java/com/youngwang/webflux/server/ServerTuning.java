@@ -0,0 +1,151 @@
+package com.youngwang.webflux.server;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import reactor.netty.NettyPipeline;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+
+/**
+ * 根据配置和运行环境算出的实际生效的传输层参数，同时作为 NettyServerCustomizer 应用到每个 HttpServer
+ * <p>
+ * epoll 不可用时退回 NIO，此时 SO_REUSEPORT 也不可用，acceptors 退化为 1
+ */
+public class ServerTuning implements NettyServerCustomizer {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTuning.class);
+
+    private final boolean nativeTransport;
+
+    private final String transportReason;
+
+    private final int selectorThreads;
+
+    private final int workerThreads;
+
+    private final int acceptors;
+
+    private final boolean tcpNoDelay;
+
+    private final int backlog;
+
+    private final Duration idleTimeout;
+
+    private final int maxKeepAliveRequests;
+
+    private final LoopResources loops;
+
+    public ServerTuning(ServerTuningProperties properties) {
+        if (!properties.isNativeTransport()) {
+            this.nativeTransport = false;
+            this.transportReason = "disabled by configuration";
+        } else if (Epoll.isAvailable()) {
+            this.nativeTransport = true;
+            this.transportReason = "available";
+        } else {
+            this.nativeTransport = false;
+            Throwable cause = Epoll.unavailabilityCause();
+            this.transportReason = "unavailable: " + (cause != null ? cause.getMessage() : "unknown");
+        }
+        int acceptors = Math.max(1, properties.getAcceptors());
+        if (acceptors > 1 && !nativeTransport) {
+            log.warn("SO_REUSEPORT requires the epoll transport, webflux.server.acceptors={} is reduced to 1", acceptors);
+            acceptors = 1;
+        }
+        this.acceptors = acceptors;
+        // 每个 server channel 注册到 selector 线程组中的一个线程上，线程数不能少于 acceptors
+        this.selectorThreads = Math.max(properties.getSelectorThreads(), acceptors);
+        this.workerThreads = Math.max(1, properties.getWorkerThreads());
+        this.tcpNoDelay = properties.isTcpNoDelay();
+        this.backlog = properties.getBacklog();
+        this.idleTimeout = properties.getIdleTimeout();
+        this.maxKeepAliveRequests = properties.getMaxKeepAliveRequests();
+        this.loops = LoopResources.create("webflux-http", selectorThreads, workerThreads, true);
+    }
+
+    @Override
+    public HttpServer apply(HttpServer server) {
+        HttpServer tuned = server.runOn(loops, nativeTransport)
+                .option(ChannelOption.SO_BACKLOG, backlog)
+                .childOption(ChannelOption.TCP_NODELAY, tcpNoDelay);
+        if (acceptors > 1) {
+            tuned = tuned.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+        if (idleTimeout != null) {
+            tuned = tuned.idleTimeout(idleTimeout);
+        }
+        if (maxKeepAliveRequests > 0) {
+            int max = maxKeepAliveRequests;
+            tuned = tuned.doOnChannelInit((observer, channel, remoteAddress) -> {
+                if (channel.pipeline().get(NettyPipeline.HttpTrafficHandler) != null) {
+                    channel.pipeline().addAfter(NettyPipeline.HttpTrafficHandler, "keepAliveLimit", new KeepAliveLimitHandler(max));
+                }
+            });
+        }
+        return tuned;
+    }
+
+    public int getAcceptors() {
+        return acceptors;
+    }
+
+    /**
+     * 启动报告
+     *
+     * @param port 实际监听的端口
+     * @return 报告内容
+     */
+    public String report(int port) {
+        return "Netty server tuning:"
+                + "\n  port                    " + port
+                + "\n  transport               " + (nativeTransport ? "epoll" : "nio") + " (epoll " + transportReason + ")"
+                + "\n  selector threads        " + selectorThreads
+                + "\n  worker threads          " + workerThreads + " (available processors " + Runtime.getRuntime().availableProcessors() + ")"
+                + "\n  acceptors               " + acceptors + (acceptors > 1 ? " (SO_REUSEPORT)" : "")
+                + "\n  TCP_NODELAY             " + tcpNoDelay
+                + "\n  SO_BACKLOG              " + backlog
+                + "\n  idle timeout            " + (idleTimeout != null ? idleTimeout : "none")
+                + "\n  max keep-alive requests " + (maxKeepAliveRequests > 0 ? maxKeepAliveRequests : "unlimited");
+    }
+
+    /**
+     * 关闭 event loop 线程
+     */
+    public void dispose() {
+        loops.disposeLater().block(Duration.ofSeconds(10));
+    }
+
+    /**
+     * 连接上的第 max 个响应加上 Connection: close，Reactor Netty 写完该响应后关闭连接。
+     * 位于 HttpTrafficHandler 之后，出站时先于它处理响应头
+     */
+    private static final class KeepAliveLimitHandler extends ChannelOutboundHandlerAdapter {
+
+        private final int max;
+
+        private int responses;
+
+        private KeepAliveLimitHandler(int max) {
+            this.max = max;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof HttpResponse && ++responses >= max) {
+                HttpUtil.setKeepAlive((HttpResponse) msg, false);
+            }
+            super.write(ctx, msg, promise);
+        }
+    }
+}
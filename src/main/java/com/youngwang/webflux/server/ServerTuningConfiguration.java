@@ -0,0 +1,53 @@
+package com.youngwang.webflux.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyRouteProvider;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.stream.Collectors;
+
+/**
+ * Reactor Netty 传输层调优的装配
+ * <p>
+ * 用 TunedNettyWebServerFactory 替换 Spring Boot 默认的 NettyReactiveWebServerFactory（ConditionalOnMissingBean），
+ * 其余 NettyServerCustomizer、NettyRouteProvider 照常应用
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ServerTuningProperties.class)
+public class ServerTuningConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTuningConfiguration.class);
+
+    @Bean(destroyMethod = "dispose")
+    public ServerTuning serverTuning(ServerTuningProperties properties) {
+        return new ServerTuning(properties);
+    }
+
+    @Bean
+    public TunedNettyWebServerFactory tunedNettyWebServerFactory(ServerTuning tuning,
+                                                                 ObjectProvider<NettyServerCustomizer> customizers,
+                                                                 ObjectProvider<NettyRouteProvider> routes) {
+        TunedNettyWebServerFactory factory = new TunedNettyWebServerFactory(tuning);
+        // ServerTuning 本身也是 NettyServerCustomizer，已经在构造时添加
+        factory.getServerCustomizers().addAll(customizers.orderedStream()
+                .filter(customizer -> customizer != tuning)
+                .collect(Collectors.toList()));
+        routes.orderedStream().forEach(factory::addRouteProviders);
+        return factory;
+    }
+
+    /**
+     * 启动后输出实际生效的传输层参数
+     */
+    @Bean
+    public ApplicationListener<ReactiveWebServerInitializedEvent> serverTuningReport(ServerTuning tuning) {
+        return event -> log.info(tuning.report(event.getWebServer().getPort()));
+    }
+}
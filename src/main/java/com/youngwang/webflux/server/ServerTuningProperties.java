@@ -0,0 +1,118 @@
+package com.youngwang.webflux.server;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+
+/**
+ * Reactor Netty 服务端传输层配置
+ */
+@ConfigurationProperties(prefix = "webflux.server")
+public class ServerTuningProperties {
+
+    /**
+     * 优先使用 epoll 原生传输，不可用时（非 linux、缺少 native 库）退回 NIO
+     */
+    private boolean nativeTransport = true;
+
+    /**
+     * 接收连接的 selector（boss）线程数，不会小于 acceptors
+     */
+    private int selectorThreads = 1;
+
+    /**
+     * 处理读写的 event loop（worker）线程数，默认和 Reactor Netty 一致：max(CPU 核数, 4)
+     */
+    private int workerThreads = LoopResources.DEFAULT_IO_WORKER_COUNT;
+
+    /**
+     * 绑定同一端口的 server channel 个数。大于 1 时开启 SO_REUSEPORT，由内核把新连接分散到多个 accept 线程，
+     * 只在 epoll 下生效
+     */
+    private int acceptors = 1;
+
+    /**
+     * 关闭 Nagle 算法，小响应立即发送
+     */
+    private boolean tcpNoDelay = true;
+
+    /**
+     * 全连接队列长度，实际值还受内核 net.core.somaxconn 限制
+     */
+    private int backlog = 1024;
+
+    /**
+     * 连接空闲（没有读写）多久后关闭，为空时不限制
+     */
+    private Duration idleTimeout;
+
+    /**
+     * 单个 keep-alive 连接最多处理的请求数，达到后响应带上 Connection: close。0 表示不限制
+     */
+    private int maxKeepAliveRequests = 0;
+
+    public boolean isNativeTransport() {
+        return nativeTransport;
+    }
+
+    public void setNativeTransport(boolean nativeTransport) {
+        this.nativeTransport = nativeTransport;
+    }
+
+    public int getSelectorThreads() {
+        return selectorThreads;
+    }
+
+    public void setSelectorThreads(int selectorThreads) {
+        this.selectorThreads = selectorThreads;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    public int getAcceptors() {
+        return acceptors;
+    }
+
+    public void setAcceptors(int acceptors) {
+        this.acceptors = acceptors;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getMaxKeepAliveRequests() {
+        return maxKeepAliveRequests;
+    }
+
+    public void setMaxKeepAliveRequests(int maxKeepAliveRequests) {
+        this.maxKeepAliveRequests = maxKeepAliveRequests;
+    }
+}
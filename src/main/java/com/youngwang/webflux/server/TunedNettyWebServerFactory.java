@@ -0,0 +1,38 @@
+package com.youngwang.webflux.server;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.http.server.reactive.HttpHandler;
+
+/**
+ * acceptors &gt; 1 时，在同一个端口上绑定多个 HttpServer（SO_REUSEPORT），每个都有自己的 accept 线程
+ * <p>
+ * 额外的 HttpServer 同样由 NettyReactiveWebServerFactory#getWebServer 创建，
+ * 压缩、SSL、HTTP/2 等 server.* 配置和所有 NettyServerCustomizer 都和主 server 一致
+ */
+public class TunedNettyWebServerFactory extends NettyReactiveWebServerFactory {
+
+    private final ServerTuning tuning;
+
+    public TunedNettyWebServerFactory(ServerTuning tuning) {
+        this.tuning = tuning;
+        addServerCustomizers(tuning);
+    }
+
+    @Override
+    public WebServer getWebServer(HttpHandler httpHandler) {
+        if (tuning.getAcceptors() <= 1) {
+            return super.getWebServer(httpHandler);
+        }
+        return new MultiAcceptorWebServer(super.getWebServer(httpHandler), port -> {
+            // 端口可能是 0（随机端口），额外的 server 要绑定到主 server 实际监听的端口上，创建后恢复配置的端口
+            int configured = getPort();
+            setPort(port);
+            try {
+                return super.getWebServer(httpHandler);
+            } finally {
+                setPort(configured);
+            }
+        }, tuning.getAcceptors() - 1);
+    }
+}
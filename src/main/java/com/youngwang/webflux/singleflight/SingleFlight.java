@@ -0,0 +1,111 @@
+package com.youngwang.webflux.singleflight;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 相同 key 的并发调用合并为一次执行
+ * <p>
+ * Mono#cache 只能在同一个流内复用结果，不同请求之间拿不到。
+ * 这里按 key 保存正在执行中的 Mono，同一时刻相同 key 的调用都订阅这一个 Mono，
+ * 上游只执行一次，结果分发给所有调用方。Mono 完成或异常后立即移除，之后的调用会重新执行，不做结果缓存。
+ * <p>
+ * 共享用的是 replay(1).refCount()：所有调用方都取消后，上游也会被取消
+ *
+ * @param <K> key 类型
+ * @param <V> 结果类型
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flight> flights = new ConcurrentHashMap<>();
+
+    private final Counter executions;
+
+    private final Counter shared;
+
+    /**
+     * @param name     名称，用作指标的 tag
+     * @param registry 指标注册
+     */
+    public SingleFlight(String name, MeterRegistry registry) {
+        this.executions = Counter.builder("singleflight.executions")
+                .description("实际执行的次数")
+                .tag("name", name)
+                .register(registry);
+        this.shared = Counter.builder("singleflight.shared")
+                .description("复用了正在执行中的调用的次数")
+                .tag("name", name)
+                .register(registry);
+        registry.gaugeMapSize("singleflight.inflight", Tags.of("name", name), flights);
+    }
+
+    /**
+     * 执行调用，相同 key 正在执行中时直接复用
+     *
+     * @param key  合并的 key，例如 路由 + 参数
+     * @param call 实际的调用，只有没有相同 key 在执行时才会被调用
+     * @return 调用结果
+     */
+    public Mono<V> execute(K key, Supplier<? extends Mono<? extends V>> call) {
+        // defer：每次订阅都重新查找，重试等重新订阅的场景不会拿到已经结束的 flight
+        return Mono.defer(() -> {
+            Flight flight = flights.get(key);
+            if (flight == null) {
+                Flight created = new Flight(key, call);
+                flight = flights.putIfAbsent(key, created);
+                if (flight == null) {
+                    return created.mono;
+                }
+            }
+            shared.increment();
+            return flight.mono;
+        });
+    }
+
+    /**
+     * 当前正在执行中的 key 的个数
+     */
+    public int inFlight() {
+        return flights.size();
+    }
+
+    private final class Flight {
+
+        private final Mono<V> mono;
+
+        /**
+         * 上游结束后的结果。refCount 在上游结束后会重置，之后再订阅会重新连接上游，
+         * 这时直接发出这个结果，不会再次执行 call
+         */
+        private volatile Mono<V> result;
+
+        private Flight(K key, Supplier<? extends Mono<? extends V>> call) {
+            // 完成、异常、取消都立即移除，只移除自己，避免误删后来的 flight
+            // 在结束信号传给调用方之前移除，调用方拿到结果时 key 已经可以重新执行
+            Runnable remove = () -> flights.remove(key, this);
+            // 在订阅上游时计数：所有调用方都取消后再订阅同一个 flight，会重新执行，同样计入 executions
+            Mono<V> execution = Mono.<V>defer(call)
+                    .doOnSubscribe(s -> executions.increment())
+                    .doOnSuccess(value -> result = Mono.justOrEmpty(value))
+                    .doOnError(error -> result = Mono.error(error));
+            // replay(1)：上游完成的同时订阅 refCount 的调用方也能拿到结果；
+            // 拿到 flight 之后、订阅之前上游已经结束、refCount 已经重置的调用方，由 result 给出结果
+            this.mono = Mono.defer(() -> {
+                        Mono<V> done = result;
+                        return done != null ? done : execution;
+                    })
+                    .doOnTerminate(remove)
+                    .doOnCancel(remove)
+                    .flux()
+                    .replay(1)
+                    .refCount()
+                    .singleOrEmpty();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.youngwang.webflux.startup;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 记录第一个业务请求的开始和完成时间，之后的请求直接放行
+ */
+public class FirstRequestFilter implements WebFilter, Ordered {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+    private final StartupRecorder recorder;
+
+    private final List<PathPattern> excludes = new ArrayList<>();
+
+    private volatile boolean done;
+
+    public FirstRequestFilter(StartupRecorder recorder, StartupProperties properties) {
+        this.recorder = recorder;
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        for (String exclude : properties.getFirstRequestExcludes()) {
+            excludes.add(parser.parse(exclude));
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (done) {
+            return chain.filter(exchange);
+        }
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        for (PathPattern exclude : excludes) {
+            if (exclude.matches(path)) {
+                return chain.filter(exchange);
+            }
+        }
+        if (!recorder.firstRequestStarted()) {
+            return chain.filter(exchange);
+        }
+        done = true;
+        return chain.filter(exchange)
+                .doFinally(signal -> recorder.firstRequestCompleted(path.value()));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
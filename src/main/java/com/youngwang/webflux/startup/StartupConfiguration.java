@@ -0,0 +1,47 @@
+package com.youngwang.webflux.startup;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.web.server.WebFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动时间线和选择性懒加载的装配
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(StartupProperties.class)
+public class StartupConfiguration {
+
+    /**
+     * 开启 spring.main.lazy-initialization 时仍然提前创建的 bean：WebFilter、记录启动时间线的 bean
+     * 和 webflux.startup.eager-types 中的类型。
+     * <p>
+     * 这个 bean 在 BeanFactoryPostProcessor 阶段就会被获取，此时配置属性还没有绑定，直接从 Environment 读取
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans(Environment environment) {
+        List<Class<?>> types = new ArrayList<>(List.of(WebFilter.class, StartupRecorder.class));
+        types.addAll(Binder.get(environment)
+                .bind("webflux.startup", StartupProperties.class)
+                .orElseGet(StartupProperties::new)
+                .getEagerTypes());
+        return LazyInitializationExcludeFilter.forBeanTypes(types.toArray(new Class<?>[0]));
+    }
+
+    @Bean
+    public StartupRecorder startupRecorder(ApplicationStartup applicationStartup, StartupProperties properties) {
+        return new StartupRecorder(applicationStartup, properties);
+    }
+
+    @Bean
+    public FirstRequestFilter firstRequestFilter(StartupRecorder recorder, StartupProperties properties) {
+        return new FirstRequestFilter(recorder, properties);
+    }
+}
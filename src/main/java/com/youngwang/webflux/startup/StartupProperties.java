@@ -0,0 +1,53 @@
+package com.youngwang.webflux.startup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动耗时相关配置
+ */
+@ConfigurationProperties(prefix = "webflux.startup")
+public class StartupProperties {
+
+    /**
+     * spring.main.lazy-initialization=true 时仍然在启动时创建的 bean 类型（包括子类）。
+     * 创建时会启动线程、初始化线程池的 bean 放在这里，避免第一个请求在 event loop 上做这些事
+     */
+    private List<Class<?>> eagerTypes = new ArrayList<>();
+
+    /**
+     * 统计首个请求时忽略的路径，默认忽略健康检查等 actuator 请求
+     */
+    private List<String> firstRequestExcludes = new ArrayList<>(List.of("/actuator/**"));
+
+    /**
+     * 首个请求完成时日志中列出的最慢启动步骤个数，需要使用 BufferingApplicationStartup
+     */
+    private int slowestSteps = 10;
+
+    public List<Class<?>> getEagerTypes() {
+        return eagerTypes;
+    }
+
+    public void setEagerTypes(List<Class<?>> eagerTypes) {
+        this.eagerTypes = eagerTypes;
+    }
+
+    public List<String> getFirstRequestExcludes() {
+        return firstRequestExcludes;
+    }
+
+    public void setFirstRequestExcludes(List<String> firstRequestExcludes) {
+        this.firstRequestExcludes = firstRequestExcludes;
+    }
+
+    public int getSlowestSteps() {
+        return slowestSteps;
+    }
+
+    public void setSlowestSteps(int slowestSteps) {
+        this.slowestSteps = slowestSteps;
+    }
+}
@@ -0,0 +1,152 @@
+package com.youngwang.webflux.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.event.SpringApplicationEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * 记录启动时间线，时间均为距 JVM 启动的毫秒数（RuntimeMXBean#getUptime），包括 JVM 自身初始化和类加载：
+ * <ul>
+ *     <li>main：SpringApplication 开始记录启动步骤，需要使用 BufferingApplicationStartup</li>
+ *     <li>started：上下文刷新完成，Web 服务器已经开始监听</li>
+ *     <li>ready：ApplicationRunner 等执行完成</li>
+ *     <li>first-request / first-response：收到、完成第一个业务请求（懒加载的 bean 在这时创建）</li>
+ * </ul>
+ * 第一个请求完成时输出一行日志，并列出耗时最长的启动步骤；同时注册 application.startup.time 指标（tag phase）
+ */
+public class StartupRecorder implements ApplicationListener<SpringApplicationEvent>, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupRecorder.class);
+
+    private static final RuntimeMXBean RUNTIME = ManagementFactory.getRuntimeMXBean();
+
+    private final ApplicationStartup applicationStartup;
+
+    private final int slowestSteps;
+
+    private final AtomicBoolean firstRequestClaimed = new AtomicBoolean();
+
+    private volatile long started = -1;
+
+    private volatile long ready = -1;
+
+    private volatile long firstRequest = -1;
+
+    private volatile long firstResponse = -1;
+
+    public StartupRecorder(ApplicationStartup applicationStartup, StartupProperties properties) {
+        this.applicationStartup = applicationStartup;
+        this.slowestSteps = properties.getSlowestSteps();
+    }
+
+    @Override
+    public void onApplicationEvent(SpringApplicationEvent event) {
+        if (event instanceof ApplicationStartedEvent) {
+            started = RUNTIME.getUptime();
+        } else if (event instanceof ApplicationReadyEvent) {
+            ready = RUNTIME.getUptime();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauge(registry, "main", recorder -> recorder.main());
+        gauge(registry, "started", recorder -> recorder.started);
+        gauge(registry, "ready", recorder -> recorder.ready);
+        gauge(registry, "first-request", recorder -> recorder.firstRequest);
+        gauge(registry, "first-response", recorder -> recorder.firstResponse);
+    }
+
+    private void gauge(MeterRegistry registry, String phase, ToDoubleFunction<StartupRecorder> value) {
+        TimeGauge.builder("application.startup.time", this, TimeUnit.MILLISECONDS, recorder -> {
+            double millis = value.applyAsDouble(recorder);
+            return millis < 0 ? Double.NaN : millis;
+        })
+                .tag("phase", phase)
+                .description("time since JVM start")
+                .register(registry);
+    }
+
+    /**
+     * 第一个请求开始时调用，只有第一次调用返回 true
+     */
+    boolean firstRequestStarted() {
+        if (firstRequest >= 0 || !firstRequestClaimed.compareAndSet(false, true)) {
+            return false;
+        }
+        firstRequest = RUNTIME.getUptime();
+        return true;
+    }
+
+    void firstRequestCompleted(String path) {
+        firstResponse = RUNTIME.getUptime();
+        log.info("startup timeline (ms since JVM start): main={} started={} ready={} first-request={} first-response={} path={}",
+                main(), started, ready, firstRequest, firstResponse, path);
+        if (applicationStartup instanceof BufferingApplicationStartup && slowestSteps > 0) {
+            StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).getBufferedTimeline();
+            // 步骤是嵌套的，父步骤的耗时包含子步骤
+            String steps = timeline.getEvents().stream()
+                    .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                    .limit(slowestSteps)
+                    .map(e -> "\n\t" + e.getDuration().toMillis() + " ms " + describe(e.getStartupStep()))
+                    .collect(Collectors.joining());
+            log.info("slowest startup steps:{}", steps);
+        }
+    }
+
+    public long getMain() {
+        return main();
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public long getReady() {
+        return ready;
+    }
+
+    public long getFirstRequest() {
+        return firstRequest;
+    }
+
+    public long getFirstResponse() {
+        return firstResponse;
+    }
+
+    private long main() {
+        if (applicationStartup instanceof BufferingApplicationStartup) {
+            StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).getBufferedTimeline();
+            if (timeline.getStartTime() != null) {
+                return timeline.getStartTime().toEpochMilli() - RUNTIME.getStartTime();
+            }
+        }
+        return -1;
+    }
+
+    private static String describe(StartupStep step) {
+        StringBuilder builder = new StringBuilder(step.getName());
+        for (StartupStep.Tag tag : step.getTags()) {
+            builder.append(' ').append(tag.getKey()).append('=').append(tag.getValue());
+        }
+        return builder.toString();
+    }
+}
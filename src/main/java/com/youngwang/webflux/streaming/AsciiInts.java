@@ -0,0 +1,48 @@
+package com.youngwang.webflux.streaming;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+/**
+ * 把 int 直接以 ASCII 数字写入 DataBuffer，避免 Integer.toString 产生的临时字符串
+ */
+public final class AsciiInts {
+
+    /**
+     * int 十进制表示的最大长度，"-2147483648"
+     */
+    public static final int MAX_LENGTH = 11;
+
+    private AsciiInts() {
+    }
+
+    /**
+     * 写入 value 的十进制表示
+     *
+     * @param buffer 目标 buffer
+     * @param value  值
+     * @return 写入的字节数
+     */
+    public static int write(DataBuffer buffer, int value) {
+        if (value == Integer.MIN_VALUE) {
+            buffer.write((byte) '-');
+            buffer.write((byte) '2');
+            return 2 + write(buffer, 147483648);
+        }
+        int length = 0;
+        if (value < 0) {
+            buffer.write((byte) '-');
+            value = -value;
+            length++;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            buffer.write((byte) ('0' + value / divisor % 10));
+            divisor /= 10;
+            length++;
+        }
+        return length;
+    }
+}
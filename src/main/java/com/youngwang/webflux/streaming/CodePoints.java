@@ -0,0 +1,123 @@
+package com.youngwang.webflux.streaming;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.publisher.Flux;
+
+/**
+ * 把字符串的 Unicode 码点直接编码成 DataBuffer
+ * <p>
+ * 按 String#codePointAt 和 Character#charCount 逐个码点遍历，用 AsciiInts 写成十进制，
+ * 每 batchSize 个码点申请一个 DataBuffer，中间不产生子串、Integer 或 Jackson 的 JsonGenerator。
+ * 代理对（例如 emoji）合成一个码点；孤立的代理字符按原值输出，和 String#codePoints 一致
+ */
+public final class CodePoints {
+
+    /**
+     * 码点十进制表示的最大长度，Character.MAX_CODE_POINT 为 1114111
+     */
+    static final int MAX_LENGTH = 7;
+
+    private static final byte[] SSE_DATA = {'d', 'a', 't', 'a', ':'};
+
+    /**
+     * 输出格式
+     */
+    public enum Format {
+
+        /**
+         * 一个 JSON 数组，例如 [122,104]
+         */
+        JSON_ARRAY(1),
+
+        /**
+         * 每行一个码点
+         */
+        NDJSON(1),
+
+        /**
+         * 每个码点一个 SSE 事件
+         */
+        SSE(SSE_DATA.length + 2);
+
+        private final int overhead;
+
+        Format(int overhead) {
+            this.overhead = overhead;
+        }
+    }
+
+    private CodePoints() {
+    }
+
+    /**
+     * 生成编码后的 DataBuffer 流，每个 DataBuffer 最多包含 batchSize 个码点
+     *
+     * @param factory   申请 DataBuffer 的工厂，服务端为响应的 bufferFactory（Netty 池化）
+     * @param text      字符串
+     * @param format    输出格式
+     * @param batchSize 每个 DataBuffer 的码点个数
+     * @return DataBuffer 流，下游负责释放
+     */
+    public static Flux<DataBuffer> encode(DataBufferFactory factory, String text, Format format, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        // 状态为下一个要编码的 char 下标，-1 表示已经结束
+        return Flux.generate(() -> 0, (start, sink) -> {
+            if (start < 0 || (start >= text.length() && format != Format.JSON_ARRAY)) {
+                sink.complete();
+                return -1;
+            }
+            DataBuffer buffer = factory.allocateBuffer(batchSize * (MAX_LENGTH + format.overhead) + 2);
+            int index = start;
+            if (format == Format.JSON_ARRAY && index == 0) {
+                buffer.write((byte) '[');
+            }
+            for (int count = 0; count < batchSize && index < text.length(); count++) {
+                int codePoint = text.codePointAt(index);
+                write(buffer, codePoint, format, index == 0);
+                index += Character.charCount(codePoint);
+            }
+            if (index >= text.length()) {
+                if (format == Format.JSON_ARRAY) {
+                    buffer.write((byte) ']');
+                }
+                index = -1;
+            }
+            sink.next(buffer);
+            return index;
+        });
+    }
+
+    /**
+     * 码点的装箱版本，给只接受 Flux&lt;Integer&gt; 的编码器使用（varint、CBOR、Smile）
+     *
+     * @param text 字符串
+     * @return 码点
+     */
+    public static Flux<Integer> boxed(String text) {
+        return Flux.fromStream(() -> text.codePoints().boxed());
+    }
+
+    private static void write(DataBuffer buffer, int codePoint, Format format, boolean first) {
+        switch (format) {
+            case JSON_ARRAY:
+                if (!first) {
+                    buffer.write((byte) ',');
+                }
+                AsciiInts.write(buffer, codePoint);
+                break;
+            case NDJSON:
+                AsciiInts.write(buffer, codePoint);
+                buffer.write((byte) '\n');
+                break;
+            default:
+                buffer.write(SSE_DATA);
+                AsciiInts.write(buffer, codePoint);
+                // SSE 的事件以空行结束
+                buffer.write((byte) '\n');
+                buffer.write((byte) '\n');
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.youngwang.webflux.streaming;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 以 NDJSON 或 SSE 的形式流式输出 Flux&lt;Integer&gt;
+ * <p>
+ * 直接返回 Flux&lt;Integer&gt; 时，application/json 会被编码成一个完整的 JSON 数组。
+ * 这里改用 ServerHttpResponse#writeAndFlushWith：每 batchSize 个元素编码成一个 DataBuffer，写完一批 flush 一批。
+ * writeAndFlushWith 只有在连接可写时才会向上游请求下一批，客户端读得慢，上游就生产得慢（背压）
+ */
+public class IntegerStreamWriter {
+
+    /**
+     * 支持的流式媒体类型
+     */
+    public static final List<MediaType> STREAMING_MEDIA_TYPES = List.of(
+            MediaType.APPLICATION_NDJSON,
+            MediaType.TEXT_EVENT_STREAM
+    );
+
+    private static final byte[] SSE_DATA = {'d', 'a', 't', 'a', ':'};
+
+    private final int batchSize;
+
+    public IntegerStreamWriter(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 按请求的 Accept 选择 NDJSON 或 SSE，分批写出
+     *
+     * @param exchange 当前请求
+     * @param values   要输出的元素
+     * @return 写完成的信号
+     */
+    public Mono<Void> write(ServerWebExchange exchange, Flux<Integer> values) {
+        MediaType mediaType = selectMediaType(exchange.getRequest());
+        boolean sse = MediaType.TEXT_EVENT_STREAM.isCompatibleWith(mediaType);
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setContentType(sse ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON);
+        DataBufferFactory factory = response.bufferFactory();
+
+        return response.writeAndFlushWith(values
+                .buffer(batchSize)
+                .map(batch -> Mono.fromSupplier(() -> encode(factory, batch, sse))));
+    }
+
+    /**
+     * 按请求的 Accept 选择 NDJSON 或 SSE，输出字符串的每个码点，见 CodePoints
+     *
+     * @param exchange 当前请求
+     * @param text     字符串
+     * @return 写完成的信号
+     */
+    public Mono<Void> writeCodePoints(ServerWebExchange exchange, String text) {
+        boolean sse = MediaType.TEXT_EVENT_STREAM.isCompatibleWith(selectMediaType(exchange.getRequest()));
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setContentType(sse ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON);
+        return response.writeAndFlushWith(CodePoints.encode(response.bufferFactory(), text,
+                sse ? CodePoints.Format.SSE : CodePoints.Format.NDJSON, batchSize).map(Mono::just));
+    }
+
+    /**
+     * 把字符串的每个码点输出为一个 JSON 数组，和 Jackson 编码 Flux&lt;Integer&gt; 的结果相同
+     *
+     * @param exchange 当前请求
+     * @param text     字符串
+     * @return 写完成的信号
+     */
+    public Mono<Void> writeCodePointArray(ServerWebExchange exchange, String text) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(CodePoints.encode(response.bufferFactory(), text, CodePoints.Format.JSON_ARRAY, batchSize));
+    }
+
+    /**
+     * 从 Accept 中选出第一个支持的流式媒体类型，都不匹配时默认 NDJSON
+     */
+    MediaType selectMediaType(ServerHttpRequest request) {
+        List<MediaType> accepted = new ArrayList<>(request.getHeaders().getAccept());
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType candidate : accepted) {
+            for (MediaType streaming : STREAMING_MEDIA_TYPES) {
+                if (candidate.isCompatibleWith(streaming)) {
+                    return streaming;
+                }
+            }
+        }
+        return MediaType.APPLICATION_NDJSON;
+    }
+
+    private DataBuffer encode(DataBufferFactory factory, List<Integer> batch, boolean sse) {
+        // 每个元素最多 11 个数字，加上 "data:" 和换行
+        int perElement = AsciiInts.MAX_LENGTH + (sse ? SSE_DATA.length + 2 : 1);
+        DataBuffer buffer = factory.allocateBuffer(batch.size() * perElement);
+        for (Integer value : batch) {
+            if (sse) {
+                buffer.write(SSE_DATA);
+            }
+            AsciiInts.write(buffer, value);
+            buffer.write((byte) '\n');
+            if (sse) {
+                // SSE 的事件以空行结束
+                buffer.write((byte) '\n');
+            }
+        }
+        return buffer;
+    }
+}
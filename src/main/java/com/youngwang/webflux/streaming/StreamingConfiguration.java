@@ -0,0 +1,18 @@
+package com.youngwang.webflux.streaming;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 流式输出的装配
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(StreamingProperties.class)
+public class StreamingConfiguration {
+
+    @Bean
+    public IntegerStreamWriter integerStreamWriter(StreamingProperties properties) {
+        return new IntegerStreamWriter(properties.getBatchSize());
+    }
+}
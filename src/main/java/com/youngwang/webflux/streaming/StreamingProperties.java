@@ -0,0 +1,24 @@
+package com.youngwang.webflux.streaming;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 流式输出配置
+ */
+@ConfigurationProperties(prefix = "webflux.streaming")
+public class StreamingProperties {
+
+    /**
+     * 每批元素的个数，每写完一批 flush 一次。
+     * 服务端同一时刻最多只持有一批数据，内存占用和总元素个数无关
+     */
+    private int batchSize = 256;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
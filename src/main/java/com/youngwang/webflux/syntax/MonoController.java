@@ -1,5 +1,13 @@
 package com.youngwang.webflux.syntax;
 
+import com.youngwang.webflux.deadline.Deadlines;
+import com.youngwang.webflux.eventlog.EventLog;
+import com.youngwang.webflux.hedge.HedgePolicies;
+import com.youngwang.webflux.metrics.ReactorMetrics;
+import com.youngwang.webflux.offload.OffloadExecutors;
+import com.youngwang.webflux.retry.RetryPolicies;
+import com.youngwang.webflux.singleflight.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -18,6 +26,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -28,18 +37,55 @@ import java.util.stream.Collectors;
 @RequestMapping("/mono")
 public class MonoController {
 
+    /**
+     * 阻塞任务不能放到 ForkJoinPool.commonPool 执行，统一卸载到有界线程池
+     */
+    private final OffloadExecutors executors;
+
+    /**
+     * 跨请求合并相同 key 的并发调用
+     */
+    private final SingleFlight<String, String> singleFlight;
+
+    /**
+     * 按路由开关的操作符指标
+     */
+    private final ReactorMetrics reactorMetrics;
+
+    private final EventLog eventLog;
+
+    /**
+     * 共享重试预算的重试策略
+     */
+    private final RetryPolicies retryPolicies;
+
+    /**
+     * 按路由统计耗时分位数的对冲策略
+     */
+    private final HedgePolicies hedgePolicies;
+
+    public MonoController(OffloadExecutors executors, MeterRegistry registry, ReactorMetrics reactorMetrics,
+                          EventLog eventLog, RetryPolicies retryPolicies, HedgePolicies hedgePolicies) {
+        this.executors = executors;
+        this.reactorMetrics = reactorMetrics;
+        this.eventLog = eventLog;
+        this.retryPolicies = retryPolicies;
+        this.hedgePolicies = hedgePolicies;
+        this.singleFlight = new SingleFlight<>("mono", registry);
+    }
+
     @GetMapping("/and")
     public Mono<String> and(@RequestParam("name") String name) {
         // mono.and 丢弃前面的结果，执行and 里面的流，同样丢弃结果
         Mono<String> m = Mono.defer(() -> {
-            System.out.println("1 hello " + name);
+            eventLog.log("/mono/and", "1 hello", "name", name);
             return Mono.just("1 hello " + name);
         }).and(Mono.defer(() -> {
-            System.out.println("2 hello " + name);
+            eventLog.log("/mono/and", "2 hello", "name", name);
             return Mono.just("2 hello " + name);
         })).thenReturn("3 hello " + name);
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/and", "你好", "name", name);
         return m;
     }
 
@@ -47,24 +93,24 @@ public class MonoController {
     public Mono<String> when(@RequestParam("name") String name) {
         // Mono.when 等待when 里面的所有流执行完成后，丢弃结果，并往下走
         Mono<String> m = Mono.when(
-                Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+                Deadlines.supplyAsync(() -> {
                     sleep(500);
-                    System.out.println("Future 1");
+                    eventLog.log("/mono/when", "Future 1");
                     return "Future 1";
-                })),
-                Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+                }, executors.blockingScheduler()),
+                Deadlines.supplyAsync(() -> {
                     sleep(1500);
-                    System.out.println("Future 2");
+                    eventLog.log("/mono/when", "Future 2");
                     return "Future 2";
-                })),
-                Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+                }, executors.blockingScheduler()),
+                Deadlines.supplyAsync(() -> {
                     sleep(300);
-                    System.out.println("Future 3");
+                    eventLog.log("/mono/when", "Future 3");
                     return "Future 3";
-                })))
+                }, executors.blockingScheduler()))
                 .thenReturn("3 hello " + name);
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/when", "你好", "name", name);
         return m;
     }
 
@@ -73,7 +119,7 @@ public class MonoController {
         // Mono.just() 不能接受 null 值
         // Mono.justOrEmpty() 可以接收 null 值，如果是 null 则相当于 Mono<Void>
         Mono<String> m = Mono.justOrEmpty(name).defaultIfEmpty("张三");
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/just-or-empty", "你好", "name", name);
         return m;
     }
 
@@ -85,7 +131,7 @@ public class MonoController {
         // mono.defaultIfEmpty 如果流是 Mono<Void>， 直接给个默认值
         // mono.switchIfEmpty 如果流是 Mono<Void>， 用个默认流替换返回结果
         Mono<String> m = Mono.justOrEmpty(name).switchIfEmpty(Mono.defer(() -> Mono.just("张三")));
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/switch-if-empty", "你好", "name", name);
         return m;
     }
 
@@ -97,6 +143,9 @@ public class MonoController {
         // 3 resourceCleanup 清理资源。如关闭流
         //
         // 这么做的好处在于，例如 网络IO 的建立需要耗费不少时间，分步处理可以等 网络IO 建立好了之后进行回调，避免CPU等待
+        //
+        // 注意：这里的 BufferedReader 是阻塞读取，所以用 subscribeOn 放到阻塞任务线程池执行，不能在 event loop 上读文件
+        // 真正提供文件下载可以参考 FileController：零拷贝 + AsynchronousFileChannel，不需要把整个文件读到内存
 
         Mono<String> m = Mono.using(
                 () -> {
@@ -114,16 +163,17 @@ public class MonoController {
                     } catch (IOException e) {
                         throw Exceptions.propagate(e);
                     }
-                });
+                })
+                .subscribeOn(executors.blockingScheduler());
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/using", "你好", "name", name);
         return m;
     }
 
     @GetMapping("/empty")
     public Mono<String> empty(@RequestParam(name = "name", required = false) String name) {
         // Mono.empty 直接终止的流
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/empty", "你好", "name", name);
         return Mono.empty();
     }
 
@@ -132,7 +182,7 @@ public class MonoController {
         // Mono.never 没内容的流，没有取消，没有终止。
         // 具体使用场景不明
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/never", "你好", "name", name);
         // 直接这样返回的话，会一直处于等待状态
         return Mono.never();
     }
@@ -144,15 +194,16 @@ public class MonoController {
         Mono<String> m = Mono.create(sink -> {
             sink.success("hello " + name);
         });
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/create", "你好", "name", name);
         return m;
     }
 
     @GetMapping("/delay")
     public Mono<String> delay(@RequestParam(name = "name", required = false) String name) {
         // Mono.delay 延迟指定的时间，之后发出元素
-        Mono<String> m = Mono.delay(Duration.ofSeconds(2)).map(l -> "hello " + name);
-        System.out.println("你好 " + name);
+        // Deadlines.delay 在请求剩余时间（X-Request-Timeout）不足 2 秒时直接返回 504，不白等
+        Mono<String> m = Deadlines.delay(Duration.ofSeconds(2)).map(l -> "hello " + name);
+        eventLog.log("/mono/delay", "你好", "name", name);
         return m;
     }
 
@@ -161,7 +212,7 @@ public class MonoController {
         // Mono.ignoreElements 忽略所有的元素，例如执行完毕后丢弃值
         // 用 then 可以达到同样的目的
         Mono<String> m = Mono.ignoreElements(Flux.just(1, 2, 3, 4, 5)).thenReturn("hello " + name);
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/ignore-elements", "你好", "name", name);
         return m;
     }
 
@@ -173,8 +224,9 @@ public class MonoController {
             return Mono.delay(Duration.ofSeconds(2)).map(l -> "hello " + name);
         })
                 // 1秒后还未得到元素，将抛出 TimeoutException
-                .timeout(Duration.ofSeconds(1));
-        System.out.println("你好 " + name);
+                // 请求剩余时间不足 1 秒时按剩余时间超时，抛出 DeadlineExceededException（504）
+                .transform(Deadlines.timeout(Duration.ofSeconds(1)));
+        eventLog.log("/mono/timeout", "你好", "name", name);
         return m;
     }
 
@@ -182,7 +234,7 @@ public class MonoController {
     public Mono<String> single(@RequestParam(name = "name", required = false) String name) {
         // mono#single 期望流有一个元素，如果是空流，则抛出 NoSuchElementException
         Mono<String> m = Mono.justOrEmpty(name).single();
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/single", "你好", "name", name);
         return m;
     }
 
@@ -193,7 +245,7 @@ public class MonoController {
             return Mono.just("李四".equals(str));
         })
                 .map(str -> "hello " + str);
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/filter-when", "你好", "name", name);
         return m;
     }
 
@@ -202,7 +254,7 @@ public class MonoController {
         // mono#cast 用于强转，cast(String.class) 等价于 map(o -> (String)o )
         Object obj = "hello " + name;
         Mono<String> m = Mono.just(obj).cast(String.class);
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/cast", "你好", "name", name);
         return m;
     }
 
@@ -211,7 +263,7 @@ public class MonoController {
         // mono#ofType 用于过滤，只保留目标类型，并将流做强制类型转换。相当于 filter + cast
         Object obj = "hello " + name;
         Mono<String> m = Mono.just(obj).ofType(String.class);
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/of-type", "你好", "name", name);
         return m;
     }
 
@@ -227,7 +279,19 @@ public class MonoController {
         });
 
         Mono<String> m = m1.or(m2).map(str -> "hello " + str);
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/or", "你好", "name", name);
+        return m;
+    }
+
+    @GetMapping("/hedge")
+    public Mono<String> hedge(@RequestParam(name = "name", required = false) String name) {
+        // mono#or 的生产用法：对冲请求。模拟的下游 95% 的请求 20ms 内返回，5% 需要 1 秒，
+        // 第一次请求超过最近的 p95 耗时仍未返回时再发一次，取先返回的结果，另一个被取消
+        Mono<String> m = hedgePolicies.forRoute("/mono/hedge").hedge(() -> Mono.defer(() -> {
+            long millis = ThreadLocalRandom.current().nextInt(100) < 5 ? 1000 : 10 + ThreadLocalRandom.current().nextInt(10);
+            return Mono.delay(Duration.ofMillis(millis)).thenReturn("hello " + name);
+        }));
+        eventLog.log("/mono/hedge", "你好", "name", name);
         return m;
     }
 
@@ -245,7 +309,7 @@ public class MonoController {
                 .mergeWith(m1)
                 .mergeWith(m2)
                 .collectList();
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/merge-with", "你好", "name", name);
         return m;
     }
 
@@ -263,7 +327,7 @@ public class MonoController {
                 .concatWith(m1)
                 .concatWith(m2)
                 .collectList();
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/concat-with", "你好", "name", name);
 
         return m;
     }
@@ -272,7 +336,7 @@ public class MonoController {
     public Mono<String> log(@RequestParam(name = "name", required = false) String name) {
         // mono#log 日志打印。将打印处理的详细信息
         Mono<String> m = Mono.justOrEmpty(name).log();
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/log", "你好", "name", name);
         return m;
     }
 
@@ -280,7 +344,7 @@ public class MonoController {
     public Mono<String> delayElement(@RequestParam(name = "name", required = false) String name) {
         // mono#delayElement 延迟指定的时间
         return Mono.defer(() -> {
-            System.out.println("你好 " + name);
+            eventLog.log("/mono/delay-element", "你好", "name", name);
             return Mono.just("hello " + name);
         }).delayElement(Duration.ofSeconds(3));
     }
@@ -289,10 +353,10 @@ public class MonoController {
     public Mono<String> delayUntil(@RequestParam(name = "name", required = false) String name) {
         // mono#delayUntil 顺序执行，丢弃第二个流的结果
         return Mono.defer(() -> {
-            System.out.println("1 你好 " + name);
+            eventLog.log("/mono/delay-until", "1 你好", "name", name);
             return Mono.just("hello " + name).delayElement(Duration.ofSeconds(5));
         }).delayUntil(s -> {
-            System.out.println("2 你好 " + name);
+            eventLog.log("/mono/delay-until", "2 你好", "name", name);
             return Mono.just(1).delayElement(Duration.ofSeconds(3));
         });
     }
@@ -303,13 +367,13 @@ public class MonoController {
         // 和 transformDeferred 对比，注意打印的顺序。
 
         Mono<String> m = Mono.just(name).transform(m1 -> {
-            System.out.println("1 你好 " + name);
+            eventLog.log("/mono/transform", "1 你好", "name", name);
             return m1.filter("张三"::equals)
                     .map(s -> "hello " + s)
                     .map(String::toUpperCase);
         });
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/transform", "你好", "name", name);
         return m;
     }
 
@@ -319,13 +383,13 @@ public class MonoController {
         // 和 transform 对比，注意打印的顺序。
 
         Mono<String> m = Mono.just(name).transformDeferred(m1 -> {
-            System.out.println("1 你好 " + name);
+            eventLog.log("/mono/transform-deferred", "1 你好", "name", name);
             return m1.filter("张三"::equals)
                     .map(s -> "hello " + s)
                     .map(String::toUpperCase);
         });
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/transform-deferred", "你好", "name", name);
         return m;
     }
 
@@ -334,32 +398,47 @@ public class MonoController {
         // mono#cache 缓存最终结果
         Mono<String> m = Mono.just(name)
                 .filter(s -> {
-                    System.out.println("1 你好 " + s);
+                    eventLog.log("/mono/cache", "1 你好", "value", s);
                     return "张三".equals(s);
                 })
                 .map(s -> {
-                    System.out.println("2 你好 " + s);
+                    eventLog.log("/mono/cache", "2 你好", "value", s);
                     return "hello " + s;
                 })
                 .delayElement(Duration.ofSeconds(3))
                 .map(s -> {
-                    System.out.println("3 你好 " + s);
+                    eventLog.log("/mono/cache", "3 你好", "value", s);
                     return s.toUpperCase();
                 })
                 .cache();
 
         m.subscribe(s -> {
-            System.out.println(s);
+            eventLog.log("/mono/cache", "subscribe", "value", s);
         });
 
         // 同个流，第二次订阅，直接返回结果，不再执行过程步骤
         m.subscribe(s -> {
-            System.out.println(s);
+            eventLog.log("/mono/cache", "subscribe", "value", s);
         });
 
         return Mono.just(name);
     }
 
+    @GetMapping("/single-flight")
+    public Mono<String> singleFlight(@RequestParam("name") String name) {
+        // mono#cache 只在同一个流内复用结果
+        // SingleFlight 按 key（路由 + name）合并不同请求：相同 name 的并发请求只执行一次，结果分发给所有请求
+        // 执行结束后立即移除，下一个请求会重新执行
+        Mono<String> m = singleFlight.execute("/mono/single-flight:" + name, () -> Mono.just(name)
+                .map(s -> {
+                    eventLog.log("/mono/single-flight", "1 你好", "value", s);
+                    return "hello " + s;
+                })
+                .delayElement(Duration.ofSeconds(3)));
+        eventLog.log("/mono/single-flight", "你好", "name", name);
+        return m;
+    }
+
     @GetMapping("/handle")
     public Mono<String> handle(@RequestParam("name") String name) {
         // mono#handle，用 sink 来转换元素，重新发射信号。类似 Flux.generate
@@ -369,7 +448,7 @@ public class MonoController {
                         sink.next("hello " + s);
                     }
                 });
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/handle", "你好", "name", name);
         return m;
     }
 
@@ -377,10 +456,10 @@ public class MonoController {
     public Mono<String> toFuture(@RequestParam("name") String name) {
         // mono#toFuture，字面意思
         CompletableFuture<String> f = Mono.defer(() -> {
-            System.out.println("1 你好 " + name);
+            eventLog.log("/mono/to-future", "1 你好", "name", name);
             return Mono.just("hello " + name).delayElement(Duration.ofSeconds(5));
         }).toFuture();
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/to-future", "你好", "name", name);
 
         return Mono.fromFuture(() -> f);
     }
@@ -388,21 +467,23 @@ public class MonoController {
     @GetMapping("/retry")
     public Mono<String> retry(@RequestParam("name") String name) {
         // mono#retry，发生错误后，重试指定次数
+        // retry(n) 立即重试、不受全局限制，下游故障时每个请求都会把负载放大 n+1 倍，
+        // 这里换成 retryWhen + RetryPolicy：指数退避加随机抖动，并受进程级重试预算限制
         Mono<String> m = Mono.just(name)
                 .map(s -> {
-                    System.out.println("1 你好 " + s);
+                    eventLog.log("/mono/retry", "1 你好", "value", s);
                     return s.toUpperCase();
                 })
                 .map(s -> {
-                    System.out.println("2 你好 " + s);
+                    eventLog.log("/mono/retry", "2 你好", "value", s);
                     if ("张三".equals(s)) {
                         return "hello " + s;
                     } else {
                         throw new RuntimeException("我只要张三");
                     }
                 })
-                .retry(1);
-        System.out.println("你好 " + name);
+                .retryWhen(retryPolicies.forRoute("/mono/retry"));
+        eventLog.log("/mono/retry", "你好", "name", name);
 
         return m;
     }
@@ -414,22 +495,19 @@ public class MonoController {
         // 每重试一次，消费一个元素，流结束则重试结束，或者重试执行成功，没有发生异常则重试结束
         // 重试结束最好将异常抛出或记录日志，否则将返回空流，吞掉异常
 
-        Retry customStrategy = Retry.from(companion -> companion.zipWith(
-                Flux.range(1, 4).delayElements(Duration.ofSeconds(2)),
-                (error, index) -> {
-                    if (index < 4) return index;
-                    else throw Exceptions.propagate(error.failure());
-                })
-        );
+        // 原来的策略是 Retry.from(companion -> companion.zipWith(Flux.range(1, 4).delayElements(2s), ...))：
+        // 固定间隔、所有请求同一时刻重试，且不限制全局重试次数。
+        // RetryPolicy 同样实现了 Retry#generateCompanion，换成指数退避 + 随机抖动 + 重试预算
+        Retry customStrategy = retryPolicies.forRoute("/mono/retry-when");
 
         AtomicInteger i = new AtomicInteger(2);
         Mono<String> m = Mono.just(name)
                 .map(s -> {
-                    System.out.println("1 你好 " + s);
+                    eventLog.log("/mono/retry-when", "1 你好", "value", s);
                     return s.toUpperCase();
                 })
                 .map(s -> {
-                    System.out.println("2 你好 " + s);
+                    eventLog.log("/mono/retry-when", "2 你好", "value", s);
                     if (i.get() != 0) {
                         i.getAndDecrement();
                         throw new RuntimeException("我只要张三");
@@ -437,7 +515,7 @@ public class MonoController {
                     return s;
                 })
                 .retryWhen(customStrategy);
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/retry-when", "你好", "name", name);
 
         return m;
     }
@@ -448,33 +526,35 @@ public class MonoController {
         Mono<List<String>> m = Mono.just(name)
                 .repeat(3)
                 .collectList();
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/repeat", "你好", "name", name);
         return m;
     }
 
     @GetMapping("/expand")
     public Mono<List<String>> expand(@RequestParam("name") String name) {
         // mono#expand，用于树的展开，广度优先，得到 Flux 流
+        // 每个节点都是对象、结果 collectList 到内存，只适合小树，大规模的树/图见 GraphController（/graph/tree）
         Mono<List<String>> m = Mono.just(buildTree())
                 .expand(n -> {
                     return Flux.fromIterable(n.children);
                 })
                 .map(n -> n.id)
                 .collectList();
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/expand", "你好", "name", name);
         return m;
     }
 
     @GetMapping("/expand-deep")
     public Mono<List<String>> expandDeep(@RequestParam("name") String name) {
         // mono#expandDeep，用于树的展开，深度优先，得到 Flux 流
+        // 大规模的树/图见 GraphController（/graph/tree?order=dfs）
         Mono<List<String>> m = Mono.just(buildTree())
                 .expandDeep(n -> {
                     return Flux.fromIterable(n.children);
                 })
                 .map(n -> n.id)
                 .collectList();
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/expand-deep", "你好", "name", name);
         return m;
     }
 
@@ -488,7 +568,7 @@ public class MonoController {
                 .map(t -> {
                     return t.getT2() + "， 用时 " + t.getT1() + " ms";
                 });
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/elapsed", "你好", "name", name);
         return m;
     }
 
@@ -497,27 +577,27 @@ public class MonoController {
         // mono#share 缓存最终结果。share()方法(针对Flux)，cache()方法(针对Mono)
         Mono<String> m = Mono.just(name)
                 .filter(s -> {
-                    System.out.println("1 你好 " + s);
+                    eventLog.log("/mono/share", "1 你好", "value", s);
                     return "张三".equals(s);
                 })
                 .map(s -> {
-                    System.out.println("2 你好 " + s);
+                    eventLog.log("/mono/share", "2 你好", "value", s);
                     return "hello " + s;
                 })
                 .delayElement(Duration.ofSeconds(3))
                 .map(s -> {
-                    System.out.println("3 你好 " + s);
+                    eventLog.log("/mono/share", "3 你好", "value", s);
                     return s.toUpperCase();
                 })
                 .share();
 
         m.subscribe(s -> {
-            System.out.println(s);
+            eventLog.log("/mono/share", "subscribe", "value", s);
         });
 
         // 同个流，第二次订阅，直接返回结果，不再执行过程步骤
         m.subscribe(s -> {
-            System.out.println(s);
+            eventLog.log("/mono/share", "subscribe", "value", s);
         });
 
         return m;
@@ -530,7 +610,7 @@ public class MonoController {
             return Mono.just("hello " + name).delayElement(Duration.ofSeconds(3));
         })
                 .take(Duration.ofSeconds(1));
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/take", "你好", "name", name);
         return m;
     }
 
@@ -548,7 +628,7 @@ public class MonoController {
         });
 
         Mono<String> m = m1.takeUntilOther(m2);
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/take-until-other", "你好", "name", name);
         return m;
     }
 
@@ -558,21 +638,21 @@ public class MonoController {
 
         Mono<String> m = Mono.just(name)
                 .filter(s -> {
-                    System.out.println("1 你好 " + s);
+                    eventLog.log("/mono/delay-subscription", "1 你好", "value", s);
                     return "张三".equals(s);
                 })
                 .map(s -> {
-                    System.out.println("2 你好 " + s);
+                    eventLog.log("/mono/delay-subscription", "2 你好", "value", s);
                     return "hello " + s;
                 })
                 .delayElement(Duration.ofSeconds(3))
                 .map(s -> {
-                    System.out.println("3 你好 " + s);
+                    eventLog.log("/mono/delay-subscription", "3 你好", "value", s);
                     return s.toUpperCase();
                 })
                 .delaySubscription(Duration.ofSeconds(2));
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/delay-subscription", "你好", "name", name);
         return m;
     }
 
@@ -582,7 +662,7 @@ public class MonoController {
         Mono<String> m = Mono.just("hello " + name)
                 .flatMapMany(s -> Flux.fromArray(s.split("")))
                 .as(f -> f.collect(Collectors.joining()));
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/as", "你好", "name", name);
         return m;
     }
 
@@ -590,8 +670,12 @@ public class MonoController {
     @GetMapping("/metrics")
     public Mono<String> metrics(@RequestParam("name") String name) {
         // mono#metrics，监控指标，需要配合 Micrometer 使用，做应用的指标收集与监控
-        Mono<String> m = Mono.just("hello " + name).metrics().name("test").tag("key", "hello");
-        System.out.println("你好 " + name);
+        // tag 需要在 transform 之前声明，指标只会读取上游的 tag
+        // 是否开启由 webflux.metrics.reactor.routes 按路由控制，指标通过 /actuator/prometheus 查看
+        Mono<String> m = Mono.just("hello " + name)
+                .tag("key", "hello")
+                .transform(reactorMetrics.mono("/mono/metrics", "test"));
+        eventLog.log("/mono/metrics", "你好", "name", name);
         return m;
     }
 
@@ -603,24 +687,24 @@ public class MonoController {
 
         Mono<String> m = Mono.just(name)
                 .filter(s -> {
-                    System.out.println("1 你好 " + s);
+                    eventLog.log("/mono/subscribe", "1 你好", "value", s);
                     return "张三".equals(s);
                 })
                 .map(s -> {
-                    System.out.println("2 你好 " + s);
+                    eventLog.log("/mono/subscribe", "2 你好", "value", s);
                     return "hello " + s;
                 })
                 .delayElement(Duration.ofSeconds(3))
                 .map(s -> {
-                    System.out.println("3 你好 " + s);
+                    eventLog.log("/mono/subscribe", "3 你好", "value", s);
                     return s.toUpperCase();
                 });
 
         m.subscribe(s -> {
-            System.out.println(s);
+            eventLog.log("/mono/subscribe", "subscribe", "value", s);
         });
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/subscribe", "你好", "name", name);
         return m;
     }
 
@@ -633,25 +717,25 @@ public class MonoController {
 
         Mono<String> m = Mono.just(name)
                 .filter(s -> {
-                    System.out.println("1 你好 " + s);
+                    eventLog.log("/mono/subscribe-on", "1 你好", "value", s);
                     return "张三".equals(s);
                 })
                 .map(s -> {
-                    System.out.println("2 你好 " + s);
+                    eventLog.log("/mono/subscribe-on", "2 你好", "value", s);
                     return "hello " + s;
                 })
                 .delayElement(Duration.ofSeconds(3))
                 .map(s -> {
-                    System.out.println("3 你好 " + s);
+                    eventLog.log("/mono/subscribe-on", "3 你好", "value", s);
                     return s.toUpperCase();
                 })
                 .subscribeOn(Schedulers.boundedElastic());
 
         m.subscribe(s -> {
-            System.out.println(s);
+            eventLog.log("/mono/subscribe-on", "subscribe", "value", s);
         });
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/subscribe-on", "你好", "name", name);
         return m;
     }
 
@@ -665,21 +749,21 @@ public class MonoController {
 
         Mono<String> m = Mono.just(name)
                 .filter(s -> {
-                    System.out.println("1 你好 " + s);
+                    eventLog.log("/mono/publish-on", "1 你好", "value", s);
                     return "张三".equals(s);
                 })
                 .publishOn(Schedulers.boundedElastic())
                 .map(s -> {
-                    System.out.println("2 你好 " + s);
+                    eventLog.log("/mono/publish-on", "2 你好", "value", s);
                     return "hello " + s;
                 })
                 .delayElement(Duration.ofSeconds(3))
                 .map(s -> {
-                    System.out.println("3 你好 " + s);
+                    eventLog.log("/mono/publish-on", "3 你好", "value", s);
                     return s.toUpperCase();
                 });
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/publish-on", "你好", "name", name);
         return m;
     }
 
@@ -689,31 +773,31 @@ public class MonoController {
 
         Mono<String> m = Mono.just(name)
                 .map(s -> {
-                    System.out.println("1 你好 " + s);
+                    eventLog.log("/mono/do-on", "1 你好", "value", s);
                     return "hello " + s;
                 })
 
                 // 每产生一个元素，就触发一次
-                .doOnNext(s -> System.out.println("doOnNext " + s))
+                .doOnNext(s -> eventLog.log("/mono/do-on", "doOnNext", "value", s))
 
                 .delayElement(Duration.ofSeconds(3))
 
                 // 每一步操作就触发一次，包括完成操作
-                .doOnEach(s -> System.out.println("doOnEach " + s.get() + ", " + s.toString()))
+                .doOnEach(s -> eventLog.log("/mono/do-on", "doOnEach", "value", s.get(), "signal", s.getType()))
                 .map(s -> {
-                    System.out.println("2 你好 " + s);
+                    eventLog.log("/mono/do-on", "2 你好", "value", s);
                     return s.toUpperCase();
                 })
 
                 // 订阅时触发
-                .doOnSubscribe(s -> System.out.println("doOnSubscribe"))
+                .doOnSubscribe(s -> eventLog.log("/mono/do-on", "doOnSubscribe"))
 
                 // 成功完成时触发
-                .doOnSuccess(s -> System.out.println("doOnSuccess " + s))
+                .doOnSuccess(s -> eventLog.log("/mono/do-on", "doOnSuccess", "value", s))
 
                 // 结束时触发
-                .doOnTerminate(() -> System.out.println("doOnTerminate"));
-        System.out.println("你好 " + name);
+                .doOnTerminate(() -> eventLog.log("/mono/do-on", "doOnTerminate"));
+        eventLog.log("/mono/do-on", "你好", "name", name);
         return m;
     }
 
@@ -723,29 +807,29 @@ public class MonoController {
 
         Mono<String> m = Mono.just(name)
                 .map(s -> {
-                    System.out.println("1 你好 " + s);
+                    eventLog.log("/mono/do-something", "1 你好", "value", s);
                     return "hello " + s;
                 })
 
                 .delayElement(Duration.ofSeconds(3))
 
                 // doFirst，订阅时触发。多个 doFirst 的执行顺序和声明顺序是反转的
-                .doFirst(() -> System.out.println("doFirst three"))
-                .doFirst(() -> System.out.println("doFirst two"))
-                .doFirst(() -> System.out.println("doFirst one"))
+                .doFirst(() -> eventLog.log("/mono/do-something", "doFirst three"))
+                .doFirst(() -> eventLog.log("/mono/do-something", "doFirst two"))
+                .doFirst(() -> eventLog.log("/mono/do-something", "doFirst one"))
 
                 .map(s -> {
-                    System.out.println("2 你好 " + s);
+                    eventLog.log("/mono/do-something", "2 你好", "value", s);
                     return s.toUpperCase();
                 })
 
                 // doAfterTerminate， 流结束后触发
-                .doAfterTerminate(() -> System.out.println("doAfterTerminate"))
+                .doAfterTerminate(() -> eventLog.log("/mono/do-something", "doAfterTerminate"))
 
                 // doFinally， 流结束后触发，这里可以拿到流是正常结束，还是异常或者取消，然后作出不同的逻辑
-                .doFinally(st -> System.out.println("doFinally " + st.name()));
+                .doFinally(st -> eventLog.log("/mono/do-something", "doFinally", "signal", st));
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/do-something", "你好", "name", name);
         return m;
     }
 
@@ -768,12 +852,12 @@ public class MonoController {
 
                 // 发生错误后，处理后返回新的值。类似 catch 操作
                 .onErrorResume(e -> {
-                    e.printStackTrace();
+                    eventLog.log("/mono/on-error-map", "onErrorResume", "error", e);
                     return Mono.just("fallback");
                 })
                 ;
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/on-error-map", "你好", "name", name);
         return m;
     }
 
@@ -794,12 +878,11 @@ public class MonoController {
                 // 将发生错误的元素移除，以便恢复流。 传入的参数为 (异常，发生错误的元素)
                 // 在mono中，移除了元素，就变空流了
                 .onErrorContinue((e, o) -> {
-                    e.printStackTrace();
-                    System.out.println("onErrorContinue " + o);
+                    eventLog.log("/mono/on-error-continue", "onErrorContinue", "value", o, "error", e);
                 })
                 ;
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/on-error-continue", "你好", "name", name);
         return m;
     }
 
@@ -820,7 +903,7 @@ public class MonoController {
                 .onErrorReturn("fallback")
                 ;
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/on-error-return", "你好", "name", name);
         return m;
     }
 
@@ -829,7 +912,8 @@ public class MonoController {
         try {
             Thread.sleep(time);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            // 请求截止时 Deadlines.supplyAsync 取消任务会中断线程，保留中断标记即可，结果已经没人接收
+            Thread.currentThread().interrupt();
         }
     }
 
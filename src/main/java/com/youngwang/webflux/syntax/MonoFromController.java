@@ -1,13 +1,26 @@
 package com.youngwang.webflux.syntax;
 
+import com.youngwang.webflux.batch.BatchLoader;
+import com.youngwang.webflux.deadline.Deadlines;
+import com.youngwang.webflux.eventlog.EventLog;
+import com.youngwang.webflux.offload.OffloadExecutors;
+import com.youngwang.webflux.template.ResponseTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -17,11 +30,32 @@ import java.util.stream.Stream;
 @RequestMapping("/mono/from")
 public class MonoFromController {
 
+    private static final ResponseTemplate HELLO = ResponseTemplate.compile("hello {name}");
+
+    /**
+     * 阻塞任务不能放到 ForkJoinPool.commonPool 执行，统一卸载到有界线程池
+     */
+    private final OffloadExecutors executors;
+
+    /**
+     * 并发请求的 name 合并成一次批量查询
+     */
+    private final BatchLoader<String, String> names;
+
+    private final EventLog eventLog;
+
+    public MonoFromController(OffloadExecutors executors, MeterRegistry registry, EventLog eventLog) {
+        this.executors = executors;
+        this.eventLog = eventLog;
+        this.names = new BatchLoader<>("mono-from-names", MonoFromController::loadNames, 128, Duration.ofMillis(5), registry);
+    }
+
     @GetMapping("mono")
-    public Mono<String> fromMono(@RequestParam("name") String name) {
+    public Mono<DataBuffer> fromMono(@RequestParam("name") String name, ServerWebExchange exchange) {
         // Mono.from(mono) 相当于脱裤子放屁。
         // 这个 API 的作用应该是将其他发布者流转换为 Mono
-        return Mono.from(Mono.defer(() -> Mono.just("hello " + name)));
+        // 响应体 "hello " + name 由预编码的模板写出，见 ResponseTemplate
+        return Mono.from(Mono.defer(() -> HELLO.render(exchange, name)));
     }
 
     @GetMapping("flux")
@@ -31,7 +65,7 @@ public class MonoFromController {
                 Flux.fromStream(
                         Stream.of(name.split(""))
                                 .map(s -> (int) s.charAt(0))
-                                .peek(System.out::println)
+                                .peek(c -> eventLog.log("/mono/from/flux", "codePoint", "value", c))
                 )
         ));
     }
@@ -41,21 +75,22 @@ public class MonoFromController {
         // Mono.fromCallable 基于一个 Callable 来创建
 
         Mono<String> m = Mono.fromCallable(() -> {
-            System.out.println("fromCallable : hello " + name);
+            eventLog.log("/mono/from/callable", "fromCallable : hello", "name", name);
             return "hello " + name;
         });
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/from/callable", "你好", "name", name);
         return m;
     }
 
     @GetMapping("future")
     public Mono<String> fromFuture(@RequestParam("name") String name) {
         // Mono.fromFuture 基于一个 Future 来创建
-        Mono<String> m = Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
-            System.out.println("fromFuture : hello " + name);
+        // Deadlines.fromFuture：订阅时才提交任务，请求截止时取消 future，还在队列中的任务不再执行
+        Mono<String> m = Deadlines.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+            eventLog.log("/mono/from/future", "fromFuture : hello", "name", name);
             return "hello " + name;
-        }));
-        System.out.println("你好 " + name);
+        }, executors.blocking()));
+        eventLog.log("/mono/from/future", "你好", "name", name);
         return m;
     }
 
@@ -64,9 +99,9 @@ public class MonoFromController {
         // Mono.fromRunnable 基于一个 Runnable 来创建，并返回 空流
 
         Mono<String> m = Mono.fromRunnable(() -> {
-            System.out.println("fromRunnable : hello " + name);
+            eventLog.log("/mono/from/runnable", "fromRunnable : hello", "name", name);
         }).thenReturn("hello " + name);
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/from/runnable", "你好", "name", name);
         return m;
     }
 
@@ -75,13 +110,19 @@ public class MonoFromController {
         // Mono.fromSupplier ，类似 defer，有异步效果
 
         Mono<String> m = Mono.fromSupplier(() -> {
-            System.out.println("fromSupplier : hello " + name);
+            eventLog.log("/mono/from/supplier", "fromSupplier : hello", "name", name);
             return "hello " + name;
         });
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/from/supplier", "你好", "name", name);
         return m;
     }
 
+    @GetMapping("supplier/batch")
+    public Mono<String> fromSupplierBatch(@RequestParam("name") String name) {
+        // 和 supplier 一样每个请求解析一个 name，但并发请求的 name 在 5ms 内合并成一次批量查询，
+        // 结果按 name 分发回各自的请求。后端按次计费、按批返回时，比逐个查询便宜得多
+        return names.load(name);
+    }
 
     @GetMapping("future/concurrent")
     public Mono<String> fromFutureConcurrent(@RequestParam("name") String name) {
@@ -93,20 +134,21 @@ public class MonoFromController {
         // 直接 返回，交由 Mono 去处理，执行 then，
         // 这样就不会阻塞，是回调操作
         //
-        Mono<String> m = Mono.fromFuture(
+        // 任务里的 sleep 模拟阻塞 I/O，放到 executors.io() 执行，由 webflux.offload.mode 选择虚拟线程、boundedElastic 或线程池
+        Mono<String> m = Deadlines.fromFuture(
                 () -> CompletableFuture.allOf(
                         CompletableFuture.runAsync(() -> {
                             sleep(500);
-                            System.out.println("Future 1");
-                        }),
+                            eventLog.log("/mono/from/future/concurrent", "Future 1");
+                        }, executors.io()),
                         CompletableFuture.runAsync(() -> {
                             sleep(1500);
-                            System.out.println("Future 2");
-                        }),
+                            eventLog.log("/mono/from/future/concurrent", "Future 2");
+                        }, executors.io()),
                         CompletableFuture.runAsync(() -> {
                             sleep(300);
-                            System.out.println("Future 3");
-                        })
+                            eventLog.log("/mono/from/future/concurrent", "Future 3");
+                        }, executors.io())
                 )
 
                 // thenApply 方法将造成阻塞，不能这么使用
@@ -116,11 +158,11 @@ public class MonoFromController {
 //                    return "hello " + name;
 //                })
         ).then(Mono.fromSupplier(() -> {
-            System.out.println("thenApply : hello " + name);
+            eventLog.log("/mono/from/future/concurrent", "thenApply : hello", "name", name);
             return "hello " + name;
         }));
 
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/from/future/concurrent", "你好", "name", name);
         return m;
     }
 
@@ -131,23 +173,23 @@ public class MonoFromController {
         // Tuple 可以获得每个流的结果
 
         Mono<String> m = Mono.zip(
-                Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+                Deadlines.supplyAsync(() -> {
                     sleep(500);
-                    System.out.println("Future 1");
+                    eventLog.log("/mono/from/future/concurrent/result", "Future 1");
                     return "Future 1";
-                })),
-                Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+                }, executors.blockingScheduler()),
+                Deadlines.supplyAsync(() -> {
                     sleep(1500);
-                    System.out.println("Future 2");
+                    eventLog.log("/mono/from/future/concurrent/result", "Future 2");
                     return "Future 2";
-                })),
-                Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+                }, executors.blockingScheduler()),
+                Deadlines.supplyAsync(() -> {
                     sleep(300);
-                    System.out.println("Future 3");
+                    eventLog.log("/mono/from/future/concurrent/result", "Future 3");
                     return "Future 3";
-                }))
+                }, executors.blockingScheduler())
         ).map(t -> t.getT1() + ",   " + t.getT2() + ",   " + t.getT3());
-        System.out.println("你好 " + name);
+        eventLog.log("/mono/from/future/concurrent/result", "你好", "name", name);
         return m;
     }
 
@@ -156,7 +198,16 @@ public class MonoFromController {
         try {
             Thread.sleep(time);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            // 请求截止时 Deadlines.supplyAsync 取消任务会中断线程，保留中断标记即可，结果已经没人接收
+            Thread.currentThread().interrupt();
         }
     }
+
+    /**
+     * 模拟的批量查询：一次往返 10ms，与 key 的个数无关
+     */
+    private static Mono<Map<String, String>> loadNames(List<String> names) {
+        return Mono.delay(Duration.ofMillis(10))
+                .map(l -> names.stream().collect(Collectors.toMap(Function.identity(), name -> "hello " + name)));
+    }
 }
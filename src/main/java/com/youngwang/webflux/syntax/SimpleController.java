@@ -1,16 +1,22 @@
 package com.youngwang.webflux.syntax;
 
+import com.youngwang.webflux.eventlog.EventLog;
+import com.youngwang.webflux.codec.IntegerMediaTypes;
+import com.youngwang.webflux.streaming.CodePoints;
+import com.youngwang.webflux.streaming.IntegerStreamWriter;
+import com.youngwang.webflux.template.ResponseTemplate;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.text.MessageFormat;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Stream;
 
 /**
  * Reactive 风格的基础示例
@@ -19,21 +25,32 @@ import java.util.stream.Stream;
 @RequestMapping("/simple")
 public class SimpleController {
 
+    private static final ResponseTemplate HELLO = ResponseTemplate.compile("hello {name}");
+
+    private final IntegerStreamWriter streamWriter;
+
+    private final EventLog eventLog;
+
+    public SimpleController(IntegerStreamWriter streamWriter, EventLog eventLog) {
+        this.streamWriter = streamWriter;
+        this.eventLog = eventLog;
+    }
 
     // 注意，在webflux 中，接口只需要定义 Mono 或 Flux，无需订阅
 
     @GetMapping("/mono")
-    public Mono<String> simpleMono(@RequestParam("name") String name) {
+    public Mono<DataBuffer> simpleMono(@RequestParam("name") String name, ServerWebExchange exchange) {
         // 简单示例，直接包装值然后返回
-        return Mono.just("hello " + name);
+        // 响应和 Mono.just("hello " + name) 相同，"hello " 已经预先编码，name 直接写进响应的 DataBuffer，见 ResponseTemplate
+        return HELLO.render(exchange, name);
     }
 
     @GetMapping("/mono/order/just")
     public Mono<String> simpleMonoJustOrder(@RequestParam("name") String name) {
         // 直接包装值,注意打印顺序
         // 和 defer 比较，这里是直接执行
-        Mono<String> result = Mono.just(getResponse(name));
-        System.out.println("已获取到 Mono<String> result ");
+        Mono<String> result = Mono.just(getResponse("/simple/mono/order/just", name));
+        eventLog.log("/simple/mono/order/just", "已获取到 Mono<String> result");
         return result;
     }
 
@@ -41,14 +58,15 @@ public class SimpleController {
     public Mono<String> simpleMonoDeferOrder(@RequestParam("name") String name) {
         // 直接包装值,注意打印顺序
         // 和 just 比较，这里是延迟执行
-        Mono<String> result = Mono.defer(() -> Mono.just(getResponse(name)));
-        System.out.println("已获取到 Mono<defer> result ");
+        Mono<String> result = Mono.defer(() -> Mono.just(getResponse("/simple/mono/order/defer", name)));
+        eventLog.log("/simple/mono/order/defer", "已获取到 Mono<defer> result");
         return result;
     }
 
-    private String getResponse(String name) {
+    private String getResponse(String route, String name) {
         String response = "hello " + name;
-        System.out.println(MessageFormat.format("调用 getResponse({0}) 返回值为 \"{1}\"", name, response));
+        // 调用线程只负责把字段放入队列，格式化和输出由后台线程完成
+        eventLog.log(route, "调用 getResponse", "name", name, "response", response);
         return response;
     }
 
@@ -73,20 +91,47 @@ public class SimpleController {
         return Flux.just("hello ", name).collectList();
     }
 
-    @GetMapping("/flux/from")
-    public Flux<Integer> simpleFluxFrom(@RequestParam("name") String name) {
-        // 包装Stream返回
-        // 类似的还有 Flux.fromArray , Flux.fromIterable
-        return Flux.fromStream(
-                Stream.of(name.split(""))
-        ).map(s -> (int) s.charAt(0));
+    @GetMapping(value = "/flux/from", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Void> simpleFluxFrom(@RequestParam("name") String name, ServerWebExchange exchange) {
+        // 输出 name 每个字符的码点，例如 [122,104]
+        // 原来的写法 Flux.fromStream(Stream.of(name.split(""))).map(s -> (int) s.charAt(0)) 每个字符产生一个子串和一个 Integer，
+        // 再由 Jackson 逐个编码，并且会把 emoji 这样的代理对拆成两个 char。
+        // 这里按码点遍历，直接写成 JSON 数组放进响应的 DataBuffer，见 CodePoints
+        return streamWriter.writeCodePointArray(exchange, name);
     }
 
-    @GetMapping("/flux/range")
+    @GetMapping(value = "/flux/from", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<Void> simpleFluxFromStream(@RequestParam("name") String name, ServerWebExchange exchange) {
+        // 和 simpleFluxFrom 相同的元素，Accept 为 application/x-ndjson 或 text/event-stream 时逐行流式输出
+        return streamWriter.writeCodePoints(exchange, name);
+    }
+
+    @GetMapping(value = "/flux/from", produces = {IntegerMediaTypes.VARINT_VALUE, MediaType.APPLICATION_CBOR_VALUE, IntegerMediaTypes.SMILE_VALUE})
+    public Flux<Integer> simpleFluxFromBinary(@RequestParam("name") String name) {
+        // 和 simpleFluxFrom 相同的元素，Accept 为 varint、CBOR 或 Smile 时由对应的二进制编码器输出
+        return CodePoints.boxed(name);
+    }
+
+    @GetMapping(value = "/flux/range", produces = MediaType.APPLICATION_JSON_VALUE)
     public Flux<Integer> simpleFluxRange(@RequestParam("size") Integer size) {
         // range 会从 start 累加指定的次数，形成的元素放入流中
         return Flux.range(0, size);
     }
 
+    @GetMapping(value = "/flux/range", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<Void> simpleFluxRangeStream(@RequestParam("size") Integer size, ServerWebExchange exchange) {
+        // 返回 Flux<Integer> 时，application/json 会把所有元素编码成一个 JSON 数组，size 很大时服务端和客户端都要持有整个数组
+        // Accept 为 application/x-ndjson 或 text/event-stream 时，按批次写出并 flush，并且遵循客户端的背压，
+        // 服务端内存占用和 size 无关
+        return streamWriter.write(exchange, Flux.range(0, size));
+    }
+
+    @GetMapping(value = "/flux/range", produces = {IntegerMediaTypes.VARINT_VALUE, MediaType.APPLICATION_CBOR_VALUE, IntegerMediaTypes.SMILE_VALUE})
+    public Flux<Integer> simpleFluxRangeBinary(@RequestParam("size") Integer size) {
+        // 二进制编码的整数流：varint 每个元素 1 ~ 5 个字节，CBOR 1 ~ 5 个字节，都不需要逐个格式化成十进制文本。
+        // varint 和 CBOR 按批次编码并 flush，和 NDJSON 一样遵循背压；Smile 由 Jackson 编码成一个完整的数组
+        return Flux.range(0, size);
+    }
+
 
 }
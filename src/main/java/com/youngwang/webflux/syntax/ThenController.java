@@ -1,9 +1,15 @@
 package com.youngwang.webflux.syntax;
 
+import com.youngwang.webflux.codec.IntegerMediaTypes;
+import com.youngwang.webflux.eventlog.EventLog;
+import com.youngwang.webflux.template.ResponseTemplate;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -17,29 +23,37 @@ import java.util.stream.Stream;
 @RequestMapping("/then")
 public class ThenController {
 
+    private static final ResponseTemplate NI_HAO = ResponseTemplate.compile("你好{name}");
+
+    private final EventLog eventLog;
+
+    public ThenController(EventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
     @GetMapping
     public Mono<Void> then(@RequestParam("name") String name) {
         // then() 忽略前面的流，返回 void
         // 但 步骤依然会执行
         return Mono.just("hello " + name)
                 .map(s -> {
-                    System.out.println("then map : " + s);
+                    eventLog.log("/then", "then map", "value", s);
                     return s;
                 })
                 .then();
     }
 
     @GetMapping("/mono")
-    public Mono<String> thenMono(@RequestParam("name") String name) {
+    public Mono<DataBuffer> thenMono(@RequestParam("name") String name, ServerWebExchange exchange) {
         // then(Mono) 忽略前面的流，返回 指定的 流
         // 但 步骤依然会执行
         return Mono.just("hello " + name)
                 .map(s -> {
-                    System.out.println("then map : " + s);
+                    eventLog.log("/then/mono", "then map", "value", s);
                     return s;
                 })
-                // defer 用于延时加载
-                .then(Mono.defer(() -> Mono.just("你好" + name)));
+                // 模板在订阅时才申请 DataBuffer，和 Mono.defer(() -> Mono.just("你好" + name)) 一样是延时加载
+                .then(NI_HAO.render(exchange, name));
     }
 
     @GetMapping("/return")
@@ -48,7 +62,7 @@ public class ThenController {
         // 但 步骤依然会执行
         return Mono.just("hello " + name)
                 .map(s -> {
-                    System.out.println("then map : " + s);
+                    eventLog.log("/then/return", "then map", "value", s);
                     return s;
                 })
                 .thenReturn("你好" + name);
@@ -60,7 +74,7 @@ public class ThenController {
         // 但 步骤依然会执行
         return Mono.just("hello " + name)
                 .map(s -> {
-                    System.out.println("then map : " + s);
+                    eventLog.log("/then/many", "then map", "value", s);
                     return s;
                 })
                 .thenMany(Flux.defer(() -> Flux.fromStream(
@@ -69,6 +83,12 @@ public class ThenController {
                 )));
     }
 
+    @GetMapping(value = "/many", produces = {IntegerMediaTypes.VARINT_VALUE, MediaType.APPLICATION_CBOR_VALUE, IntegerMediaTypes.SMILE_VALUE})
+    public Flux<Integer> thenManyBinary(@RequestParam("name") String name) {
+        // 和 thenMany 相同，Accept 为 varint、CBOR 或 Smile 时以二进制编码输出
+        return thenMany(name);
+    }
+
     @GetMapping("/empty")
     public Mono<Void> thenEmpty(@RequestParam("name") String name) {
         // thenEmpty() 忽略前面的流，然后执行一个任务后，忽略
@@ -76,7 +96,7 @@ public class ThenController {
         // 常用来执行不需要获取结果的任务
         return Mono.just("hello " + name)
                 .map(s -> {
-                    System.out.println("then map : " + s);
+                    eventLog.log("/then/empty", "then map", "value", s);
                     return s;
                 })
                 .thenEmpty(Mono.defer(() ->
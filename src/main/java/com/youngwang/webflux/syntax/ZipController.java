@@ -1,15 +1,23 @@
 package com.youngwang.webflux.syntax;
 
+import com.youngwang.webflux.deadline.Deadlines;
+import com.youngwang.webflux.eventlog.EventLog;
+import com.youngwang.webflux.fanout.FanOut;
+import com.youngwang.webflux.fanout.GatherResult;
+import com.youngwang.webflux.metrics.ReactorMetrics;
+import com.youngwang.webflux.offload.OffloadExecutors;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebInputException;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
@@ -19,20 +27,48 @@ import java.util.stream.Collectors;
 @RequestMapping("/zip")
 public class ZipController {
 
+    /**
+     * /gather 的分片数上限，每个分片在 event loop 上创建一个 Mono
+     */
+    private static final int MAX_SHARDS = 1000;
+
+    /**
+     * /gather 的截止时间上限（毫秒）
+     */
+    private static final long MAX_DEADLINE_MILLIS = 10_000;
+
+    /**
+     * 阻塞任务不能放到 ForkJoinPool.commonPool 执行，统一卸载到有界线程池
+     */
+    private final OffloadExecutors executors;
+
+    /**
+     * 按路由开关的操作符指标
+     */
+    private final ReactorMetrics reactorMetrics;
+
+    private final EventLog eventLog;
+
+    public ZipController(OffloadExecutors executors, ReactorMetrics reactorMetrics, EventLog eventLog) {
+        this.executors = executors;
+        this.reactorMetrics = reactorMetrics;
+        this.eventLog = eventLog;
+    }
+
     @GetMapping("/tuple2")
     public Mono<String> tuple2(@RequestParam("name") String name) {
         Mono<String> m1 = Mono.just("Mono.just");
-        Mono<String> m2 = Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+        Mono<String> m2 = Deadlines.supplyAsync(() -> {
             sleep(1500);
-            System.out.println("Future 2");
+            eventLog.log("/zip/tuple2", "Future 2");
             return "Future 2";
-        }));
+        }, executors.blockingScheduler());
 
         // Mono.zip 对流进行合并，并返回 tuple 用于后续处理
         Mono<String> m = Mono.zip(m1, m2)
                 .map(t -> t.getT1() + ", " + t.getT2());
 
-        System.out.println("你好 " + name);
+        eventLog.log("/zip/tuple2", "你好", "name", name);
         return m;
     }
 
@@ -42,11 +78,11 @@ public class ZipController {
         // 从 tuple2 到 tuple8，对应不同的参数数量
         Mono<String> m = Mono.zip(
                 Mono.just("1 Mono.just"),
-                Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+                Deadlines.supplyAsync(() -> {
                     sleep(1500);
-                    System.out.println("Future 2");
+                    eventLog.log("/zip/tuple8", "Future 2");
                     return "2 Mono.fromFuture";
-                })),
+                }, executors.blockingScheduler()),
                 Mono.defer(() -> Mono.just("3 Mono.defer")),
                 Mono.from(Mono.just("4 Mono.from")),
                 Mono.fromDirect(Mono.just("5 Mono.fromDirect")),
@@ -54,20 +90,21 @@ public class ZipController {
                     sink.success("6 Mono.create");
                 }),
                 Mono.fromSupplier(() -> {
-                    System.out.println("Supplier 7");
+                    eventLog.log("/zip/tuple8", "Supplier 7");
                     return "7 Mono.fromSupplier";
                 }),
                 Mono.fromCallable(() -> {
                     sleep(1000);
-                    System.out.println("Callable 8");
+                    eventLog.log("/zip/tuple8", "Callable 8");
                     return "8 Mono.fromCallable";
-                })
+                }).subscribeOn(executors.blockingScheduler())
         )
                 .map(t -> t.toList().stream()
                         .map(o -> (String) o)
-                        .collect(Collectors.joining("\n")));
+                        .collect(Collectors.joining("\n")))
+                .transform(reactorMetrics.mono("/zip/tuple8", "zip.tuple8"));
 
-        System.out.println("你好 " + name);
+        eventLog.log("/zip/tuple8", "你好", "name", name);
         return m;
     }
 
@@ -80,7 +117,7 @@ public class ZipController {
                 Mono.just("1 Mono.just"),
                 Mono.just("2 Mono.just")
         );
-        System.out.println("你好 " + name);
+        eventLog.log("/zip/tuples", "你好", "name", name);
         return m;
     }
 
@@ -94,7 +131,41 @@ public class ZipController {
         Mono<String> m = Mono.zip(monoList, objs -> {
             return Arrays.stream(objs).map(o -> (String) o).collect(Collectors.joining("\n"));
         });
-        System.out.println("你好 " + name);
+        eventLog.log("/zip/tuples2", "你好", "name", name);
+        return m;
+    }
+
+    @GetMapping("/gather")
+    public Mono<GatherResult<String>> gather(@RequestParam("name") String name,
+                                             @RequestParam(name = "shards", defaultValue = "20") int shards,
+                                             @RequestParam(name = "concurrency", defaultValue = "8") int concurrency,
+                                             @RequestParam(name = "deadline", defaultValue = "500") long deadlineMillis) {
+        // 和 tuples2 一样合并 20 个 Mono，但 zip 要等最慢的一个，任何一个失败整体失败。
+        // FanOut.gather 最多同时执行 concurrency 个，截止时间到了取消还没完成的，返回已完成的结果和每个任务的状态
+        // 模拟的分片耗时 20~800ms，每 7 个有 1 个失败
+        // 参数在创建 Mono 之前校验，非法时响应 400，而不是由 FanOut.gather 同步抛出 IllegalArgumentException 变成 500
+        if (shards < 1 || shards > MAX_SHARDS) {
+            throw new ServerWebInputException("Parameter 'shards' must be between 1 and " + MAX_SHARDS + ": " + shards);
+        }
+        if (concurrency < 1) {
+            throw new ServerWebInputException("Parameter 'concurrency' must be positive: " + concurrency);
+        }
+        if (deadlineMillis < 1 || deadlineMillis > MAX_DEADLINE_MILLIS) {
+            throw new ServerWebInputException("Parameter 'deadline' must be between 1 and " + MAX_DEADLINE_MILLIS + ": " + deadlineMillis);
+        }
+        List<Mono<String>> monoList = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            int shard = i;
+            monoList.add(Mono.defer(() -> {
+                if (shard % 7 == 6) {
+                    return Mono.error(new IllegalStateException("shard " + shard + " unavailable"));
+                }
+                long millis = 20 + ThreadLocalRandom.current().nextLong(780);
+                return Mono.delay(Duration.ofMillis(millis)).thenReturn("shard " + shard + " hello " + name);
+            }));
+        }
+        Mono<GatherResult<String>> m = FanOut.gather(monoList, concurrency, Duration.ofMillis(deadlineMillis));
+        eventLog.log("/zip/gather", "你好", "name", name);
         return m;
     }
 
@@ -102,47 +173,49 @@ public class ZipController {
     public Mono<String> with(@RequestParam("name") String name) {
         // mono.with ，合并两个流，得到 tuple2
         // 两个流会并发执行
+        // sleep 模拟的是阻塞 I/O，放到 executors.io() 执行，由 webflux.offload.mode 选择虚拟线程、boundedElastic 或线程池
 
-        Mono<String> m1 = Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+        // Deadlines.supplyAsync：请求截止时取消，还在队列中的任务不再执行，正在执行的任务被中断
+        Mono<String> m1 = Deadlines.supplyAsync(() -> {
             sleep(1500);
-            System.out.println(Thread.currentThread().getName() + " fromFuture1 : hello " + name);
+            eventLog.log("/zip/with", "fromFuture1", "name", name);
             return "fromFuture1 " + name;
-        }));
+        }, executors.ioScheduler());
 
         Mono<String> m2 = Mono.defer(() -> {
-            return Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+            return Deadlines.supplyAsync(() -> {
                 sleep(500);
-                System.out.println(Thread.currentThread().getName() + " fromFuture2 : hello " + name);
+                eventLog.log("/zip/with", "fromFuture2", "name", name);
                 return "fromFuture2 " + name;
-            }));
+            }, executors.ioScheduler());
         });
 
         Mono<String> m = m1.zipWith(m2)
                 .map(t -> t.getT1() + ",   " + t.getT2());
 
-        System.out.println("你好 " + name);
+        eventLog.log("/zip/with", "你好", "name", name);
         return m;
     }
 
     @GetMapping("/with2")
     public Mono<String> with2(@RequestParam("name") String name) {
         // mono.with ，合并两个流，并返回两个流处理后的 结果
-        Mono<String> m1 = Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
-            System.out.println("fromFuture1 : hello " + name);
+        Mono<String> m1 = Deadlines.supplyAsync(() -> {
+            eventLog.log("/zip/with2", "fromFuture1", "name", name);
             return "fromFuture1 " + name;
-        }));
+        }, executors.ioScheduler());
 
         Mono<String> m2 = Mono.defer(() -> {
-            return Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+            return Deadlines.supplyAsync(() -> {
                 sleep(500);
-                System.out.println("fromFuture2 : hello " + name);
+                eventLog.log("/zip/with2", "fromFuture2", "name", name);
                 return "fromFuture2 " + name;
-            }));
+            }, executors.ioScheduler());
         });
 
         Mono<String> m = m1.zipWith(m2, (t1, t2) -> t1 + ",   " + t2);
 
-        System.out.println("你好 " + name);
+        eventLog.log("/zip/with2", "你好", "name", name);
         return m;
     }
 
@@ -151,18 +224,19 @@ public class ZipController {
         // mono.when ，合并两个流，得到 tuple2
         // 两个流会顺序执行
         // 第一个流完成后，再把结果给第二个流开始执行
+        // 阻塞的 sleep 同样放到 executors.io() 执行
 
-        Mono<String> m1 = Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+        Mono<String> m1 = Deadlines.supplyAsync(() -> {
             sleep(500);
-            System.out.println("fromFuture1 : hello " + name);
+            eventLog.log("/zip/when", "fromFuture1", "name", name);
             return "fromFuture1 " + name;
-        }));
+        }, executors.ioScheduler());
         Mono<String> m2 = Mono.defer(() -> {
-            return Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> {
+            return Deadlines.supplyAsync(() -> {
                 sleep(1500);
-                System.out.println("fromFuture2 : hello " + name);
+                eventLog.log("/zip/when", "fromFuture2", "name", name);
                 return "fromFuture2 " + name;
-            }));
+            }, executors.ioScheduler());
         });
 
 
@@ -170,7 +244,7 @@ public class ZipController {
             return m2;
         }).map(t -> t.getT1() + ",   " + t.getT2());
 
-        System.out.println("你好 " + name);
+        eventLog.log("/zip/when", "你好", "name", name);
         return m;
     }
 
@@ -179,7 +253,8 @@ public class ZipController {
         try {
             Thread.sleep(time);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            // 请求截止时 Deadlines.supplyAsync 取消任务会中断线程，保留中断标记即可，结果已经没人接收
+            Thread.currentThread().interrupt();
         }
     }
 }
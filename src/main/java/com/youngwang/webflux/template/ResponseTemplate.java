@@ -0,0 +1,235 @@
+package com.youngwang.webflux.template;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 预编码的响应模板
+ * <p>
+ * 返回 Mono&lt;String&gt; 时，每个请求先拼接出一个新的字符串，再由 CharSequenceEncoder 编码成 UTF-8 的 byte[]，最后复制进 DataBuffer。
+ * 模板在创建时把常量部分编码成 byte[]，渲染时按 UTF-8 的最大长度申请一个 DataBuffer，常量部分直接复制，
+ * 变量部分由 DataBuffer#write(CharSequence, Charset) 写入，Netty 的 DataBuffer 直接编码进池化内存，不产生中间字符串和 byte[]
+ * <p>
+ * 模板中的 {xxx} 为变量，按出现顺序对应渲染时的参数，名字只用于阅读，例如 ResponseTemplate.compile("hello {name}")。
+ * 不支持转义，常量部分不能包含花括号
+ * <p>
+ * Accept 不接受模板的 Content-Type 时（例如 application/json），和 Mono&lt;String&gt; 一样按 Accept 协商出响应类型，
+ * 响应体不变；协商出的字符集不是 UTF-8 时按该字符集编码
+ */
+public final class ResponseTemplate {
+
+    /**
+     * 默认的 Content-Type，和 Mono&lt;String&gt; 在没有 Accept 时的响应一致
+     */
+    public static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    /**
+     * 一个 char 编码成 UTF-8 最多 3 个字节，代理对两个 char 编码成 4 个字节
+     */
+    private static final int MAX_BYTES_PER_CHAR = 3;
+
+    private static final List<MediaType> ALL_APPLICATION_MEDIA_TYPES = List.of(MediaType.ALL, new MediaType("application"));
+
+    private final String pattern;
+
+    private final MediaType contentType;
+
+    /**
+     * 和 CharSequenceEncoder 一样，能写出模板的 Content-Type 和任意类型
+     */
+    private final List<MediaType> producibleTypes;
+
+    /**
+     * 常量部分的原文，只在协商出的字符集不是 UTF-8 时使用
+     */
+    private final String[] literalTexts;
+
+    /**
+     * 常量部分，比变量多一个，第 i 个变量写在 literals[i] 和 literals[i + 1] 之间
+     */
+    private final byte[][] literals;
+
+    private final int literalLength;
+
+    private ResponseTemplate(String pattern, MediaType contentType, String[] literalTexts) {
+        this.pattern = pattern;
+        this.contentType = contentType;
+        this.producibleTypes = List.of(contentType, MediaType.ALL);
+        this.literalTexts = literalTexts;
+        this.literals = new byte[literalTexts.length][];
+        for (int i = 0; i < literalTexts.length; i++) {
+            literals[i] = literalTexts[i].getBytes(StandardCharsets.UTF_8);
+        }
+        int length = 0;
+        for (byte[] literal : literals) {
+            length += literal.length;
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 编译模板，Content-Type 为 text/plain;charset=UTF-8
+     *
+     * @param pattern 模板，例如 "hello {name}"
+     * @return 模板
+     */
+    public static ResponseTemplate compile(String pattern) {
+        return compile(pattern, TEXT_PLAIN_UTF8);
+    }
+
+    /**
+     * 编译模板
+     *
+     * @param pattern     模板，例如 "hello {name}"
+     * @param contentType 响应的 Content-Type，字符集需要是 UTF-8
+     * @return 模板
+     */
+    public static ResponseTemplate compile(String pattern, MediaType contentType) {
+        List<String> literals = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = pattern.indexOf('{', start)) >= 0) {
+            int close = pattern.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("unclosed '{' at " + open + " in template: " + pattern);
+            }
+            literals.add(pattern.substring(start, open));
+            start = close + 1;
+        }
+        literals.add(pattern.substring(start));
+        return new ResponseTemplate(pattern, contentType, literals.toArray(new String[0]));
+    }
+
+    /**
+     * @return 变量个数
+     */
+    public int getVariables() {
+        return literals.length - 1;
+    }
+
+    public MediaType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 按 Accept 协商出 Content-Type 并设置到响应上，订阅时用响应的 bufferFactory 申请 DataBuffer 并写入
+     * <p>
+     * 注解映射返回 Mono&lt;DataBuffer&gt; 时由 DataBufferEncoder 原样写出，已经设置的 Content-Type 不会再参与协商，
+     * 所以这里按 Mono&lt;String&gt; 的协商规则选出响应类型：Accept 接受模板的 Content-Type 时直接写入预编码的模板，
+     * 否则使用协商出的类型（没有字符集时补上 UTF-8），都不接受时响应 406
+     *
+     * @param exchange 当前请求
+     * @param values   变量的值
+     * @return 渲染后的 DataBuffer，由写出响应的一方释放
+     */
+    public Mono<DataBuffer> render(ServerWebExchange exchange, CharSequence... values) {
+        MediaType selected;
+        try {
+            selected = selectMediaType(exchange.getRequest().getHeaders().getAccept());
+        } catch (InvalidMediaTypeException e) {
+            return Mono.error(new NotAcceptableStatusException("Could not parse 'Accept' header: " + e.getMessage()));
+        }
+        if (selected == null) {
+            return Mono.error(new NotAcceptableStatusException(producibleTypes));
+        }
+        DataBufferFactory factory = exchange.getResponse().bufferFactory();
+        if (selected.equalsTypeAndSubtype(contentType) && (selected.getCharset() == null || StandardCharsets.UTF_8.equals(selected.getCharset()))) {
+            exchange.getResponse().getHeaders().setContentType(contentType);
+            return Mono.fromSupplier(() -> write(factory, values));
+        }
+        Charset charset = selected.getCharset() != null ? selected.getCharset() : StandardCharsets.UTF_8;
+        exchange.getResponse().getHeaders().setContentType(new MediaType(selected, charset));
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return Mono.fromSupplier(() -> write(factory, values));
+        }
+        return Mono.fromSupplier(() -> factory.wrap(toString(values).getBytes(charset)));
+    }
+
+    /**
+     * 和 HandlerResultHandlerSupport#selectMediaType 相同的规则：Accept 和可写出的类型两两取兼容的更具体的一方，
+     * 按具体程度和 q 值排序后取第一个具体类型；application/* 和 *&#47;* 协商为 application/octet-stream，
+     * EncoderHttpMessageWriter 写出时会换成编码器的默认类型，也就是模板的 Content-Type
+     *
+     * @param accept 请求的 Accept，为空时等同于 *&#47;*
+     * @return 响应类型，没有兼容的类型时返回 null
+     */
+    private MediaType selectMediaType(List<MediaType> accept) {
+        List<MediaType> acceptable = accept.isEmpty() ? List.of(MediaType.ALL) : accept;
+        Set<MediaType> compatible = new LinkedHashSet<>();
+        for (MediaType acceptType : acceptable) {
+            for (MediaType producibleType : producibleTypes) {
+                if (acceptType.isCompatibleWith(producibleType)) {
+                    compatible.add(moreSpecific(acceptType, producibleType));
+                }
+            }
+        }
+        List<MediaType> sorted = new ArrayList<>(compatible);
+        MediaType.sortBySpecificityAndQuality(sorted);
+        for (MediaType mediaType : sorted) {
+            if (mediaType.isConcrete()) {
+                return mediaType.removeQualityValue();
+            }
+            if (mediaType.isPresentIn(ALL_APPLICATION_MEDIA_TYPES)) {
+                return contentType;
+            }
+        }
+        return null;
+    }
+
+    private static MediaType moreSpecific(MediaType acceptable, MediaType producible) {
+        MediaType producibleWithQuality = producible.copyQualityValue(acceptable);
+        return MediaType.SPECIFICITY_COMPARATOR.compare(acceptable, producibleWithQuality) <= 0 ? acceptable : producibleWithQuality;
+    }
+
+    private String toString(CharSequence... values) {
+        if (values.length != getVariables()) {
+            throw new IllegalArgumentException("template '" + pattern + "' expects " + getVariables() + " values, got " + values.length);
+        }
+        StringBuilder text = new StringBuilder(literalTexts[0]);
+        for (int i = 0; i < values.length; i++) {
+            text.append(values[i]).append(literalTexts[i + 1]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * 申请一个 DataBuffer 并写入渲染结果
+     *
+     * @param factory 申请 DataBuffer 的工厂
+     * @param values  变量的值
+     * @return 渲染后的 DataBuffer
+     */
+    public DataBuffer write(DataBufferFactory factory, CharSequence... values) {
+        if (values.length != getVariables()) {
+            throw new IllegalArgumentException("template '" + pattern + "' expects " + getVariables() + " values, got " + values.length);
+        }
+        int capacity = literalLength;
+        for (CharSequence value : values) {
+            capacity += value.length() * MAX_BYTES_PER_CHAR;
+        }
+        DataBuffer buffer = factory.allocateBuffer(capacity);
+        buffer.write(literals[0]);
+        for (int i = 0; i < values.length; i++) {
+            buffer.write(values[i], StandardCharsets.UTF_8);
+            buffer.write(literals[i + 1]);
+        }
+        return buffer;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
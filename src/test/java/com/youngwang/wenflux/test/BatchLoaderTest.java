@@ -0,0 +1,66 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.batch.BatchLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class BatchLoaderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final List<List<String>> batches = new ArrayList<>();
+
+    private Mono<Map<String, String>> upperCase(List<String> keys) {
+        batches.add(keys);
+        return Mono.just(keys.stream().filter(k -> !k.equals("missing"))
+                .collect(Collectors.toMap(Function.identity(), String::toUpperCase)));
+    }
+
+    @Test
+    public void testConcurrentKeysAreLoadedInOneBatch() {
+        BatchLoader<String, String> loader = new BatchLoader<>("test", this::upperCase, 100, Duration.ofMillis(10), registry);
+
+        StepVerifier.withVirtualTime(() -> Mono.zip(loader.load("a"), loader.load("b"), loader.load("a"))
+                .map(t -> t.getT1() + t.getT2() + t.getT3()))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(9))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext("ABA")
+                .verifyComplete();
+        Assertions.assertEquals(List.of(List.of("a", "b")), batches);
+        Assertions.assertEquals(2, registry.get("batch.size").tag("name", "test").summary().totalAmount());
+        Assertions.assertEquals(3, registry.get("batch.wait").tag("name", "test").timer().count());
+    }
+
+    @Test
+    public void testFullBatchIsDispatchedWithoutWaiting() {
+        BatchLoader<String, String> loader = new BatchLoader<>("test", this::upperCase, 2, Duration.ofHours(1), registry);
+
+        StepVerifier.create(Mono.zip(loader.load("a"), loader.load("b"), (a, b) -> a + b))
+                .expectNext("AB")
+                .verifyComplete();
+        Assertions.assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void testMissingKeyIsEmptyAndErrorsFailTheBatch() {
+        BatchLoader<String, String> loader = new BatchLoader<>("test", this::upperCase, 1, Duration.ofHours(1), registry);
+        StepVerifier.create(loader.load("missing")).verifyComplete();
+
+        BatchLoader<String, String> failing = new BatchLoader<>("failing",
+                keys -> Mono.error(new IllegalStateException("backend down")), 2, Duration.ofHours(1), registry);
+        StepVerifier.create(Mono.zip(failing.load("a"), failing.load("b")))
+                .expectErrorMessage("backend down")
+                .verify(Duration.ofSeconds(1));
+    }
+}
@@ -0,0 +1,165 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.WebfluxApplication;
+import com.youngwang.webflux.blocking.BlockingCall;
+import com.youngwang.webflux.blocking.BlockingDetector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 开启阻塞检测启动整个应用，请求 syntax 包下所有 GET 接口，有接口阻塞了 event loop 等 NonBlocking 线程时测试失败
+ */
+@SpringBootTest(classes = WebfluxApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"webflux.blocking.enabled=true", "webflux.blocking.sample-interval=1ms",
+                // 所有接口同时请求，不能被并发限制拒绝
+                "webflux.limiter.enabled=false",
+                // /mono/timeout 的 500 由 Spring 的错误处理打印日志，经 ConsoleAppender 同步写出，不属于示例接口的阻塞
+                "webflux.blocking.allowed[0]=ch.qos.logback.core.OutputStreamAppender"})
+@Import(BlockingDetectorTest.BlockingController.class)
+public class BlockingDetectorTest {
+
+    private static final Map<String, String> PARAMS = Map.of("name", "张三", "size", "10");
+
+    /**
+     * 不请求的接口：/mono/never 不会结束
+     */
+    private static final Set<String> SKIPPED = Set.of("/mono/never");
+
+    /**
+     * 不是 2xx 的接口：/mono/timeout 演示超时，固定返回 500
+     */
+    private static final Map<String, HttpStatus> EXPECTED = Map.of("/mono/timeout", HttpStatus.INTERNAL_SERVER_ERROR);
+
+    /**
+     * 最慢的接口（/then/empty）约 10 秒
+     */
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Autowired
+    private BlockingDetector detector;
+
+    @BeforeEach
+    public void reset() {
+        detector.reset();
+    }
+
+    @Test
+    public void testSyntaxRoutesDoNotBlock() {
+        WebClient client = WebClient.create();
+        List<Endpoint> endpoints = SyntaxRoutes.discover(handlerMapping, port, PARAMS, route -> !SKIPPED.contains(route));
+        Assertions.assertFalse(endpoints.isEmpty());
+        List<String> failures = Flux.fromIterable(endpoints)
+                .flatMap(endpoint -> client.get()
+                        .uri(endpoint.uri)
+                        .accept(endpoint.accept)
+                        .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()))
+                        .timeout(TIMEOUT)
+                        .filter(status -> EXPECTED.containsKey(endpoint.route) ? status != EXPECTED.get(endpoint.route) : !status.is2xxSuccessful())
+                        .map(status -> endpoint.name() + " " + status)
+                        .onErrorResume(e -> Mono.just(endpoint.name() + " " + e)), endpoints.size())
+                .collectList()
+                .block();
+        Assertions.assertTrue(failures.isEmpty(), () -> "failed requests:\n" + String.join("\n", failures));
+
+        List<BlockingCall> calls = settle();
+        Assertions.assertTrue(calls.isEmpty(), () -> "blocking calls on non-blocking threads:\n"
+                + calls.stream().map(call -> call + "\n\t" + String.join("\n\t", call.getStack()))
+                .collect(Collectors.joining("\n")));
+    }
+
+    @Test
+    public void testDetectsBlockingInHandler() {
+        // 冷启动时采样线程可能停顿（类加载、GC），多请求几次再看最长的一次
+        for (int i = 0; i < 3; i++) {
+            WebClient.create().get().uri(base("/test/blocking/handler")).retrieve().bodyToMono(String.class).block();
+        }
+        BlockingCall call = find(settle(), "/test/blocking/handler");
+        Assertions.assertEquals("java.lang.Thread.sleep", call.getBlockingMethod());
+        Assertions.assertTrue(call.getCallSite().startsWith(BlockingController.class.getName() + ".handler("), call.getCallSite());
+        Assertions.assertEquals(3, call.getCount());
+        Assertions.assertTrue(call.getMaxMillis() >= 20, call.toString());
+        Assertions.assertTrue(call.getThread().startsWith("webflux-http"), call.getThread());
+    }
+
+    @Test
+    public void testDetectsBlockingAfterAsyncBoundary() {
+        WebClient.create().get().uri(base("/test/blocking/delayed")).retrieve().bodyToMono(String.class).block();
+        // delay 之后在 parallel 线程上执行，线程上没有请求标记，按栈中的 lambda 找到路由
+        BlockingCall call = find(settle(), "/test/blocking/delayed");
+        Assertions.assertEquals("java.lang.Thread.sleep", call.getBlockingMethod());
+        Assertions.assertTrue(call.getThread().startsWith("parallel"), call.getThread());
+    }
+
+    /**
+     * 等待正在阻塞的调用结束、被采样线程记录
+     */
+    private List<BlockingCall> settle() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return detector.calls();
+    }
+
+    private static BlockingCall find(List<BlockingCall> calls, String route) {
+        return calls.stream()
+                .filter(call -> call.getRoute().equals(route))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no blocking call for " + route + " in " + calls));
+    }
+
+    private URI base(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    @RestController
+    static class BlockingController {
+
+        @GetMapping("/test/blocking/handler")
+        public Mono<String> handler() throws InterruptedException {
+            Thread.sleep(50);
+            return Mono.just("handler");
+        }
+
+        @GetMapping("/test/blocking/delayed")
+        public Mono<String> delayed() {
+            return Mono.delay(Duration.ofMillis(10))
+                    .map(i -> {
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "delayed";
+                    });
+        }
+    }
+}
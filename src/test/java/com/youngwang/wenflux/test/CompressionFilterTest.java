@@ -0,0 +1,153 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.compression.CompressionFilter;
+import com.youngwang.webflux.compression.CompressionProperties;
+import com.youngwang.webflux.compression.Compressor;
+import com.youngwang.webflux.compression.ContentEncoding;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+public class CompressionFilterTest {
+
+    private static final String BIG = "hello webflux ".repeat(1000);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final WebTestClient client = WebTestClient.bindToRouterFunction(routes())
+            .webFilter(new CompressionFilter(new CompressionProperties(), registry))
+            .build();
+
+    @Test
+    public void testNegotiate() {
+        Assertions.assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate(List.of("gzip, deflate, br")));
+        Assertions.assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate(List.of("gzip;q=0.5, deflate")));
+        Assertions.assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate(List.of("gzip;q=0, *")));
+        Assertions.assertNull(ContentEncoding.negotiate(List.of("br, identity")));
+        Assertions.assertNull(ContentEncoding.negotiate(List.of()));
+    }
+
+    @Test
+    public void testCompressesLargeResponse() throws IOException {
+        byte[] body = client.get().uri("/big")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_LENGTH)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        Assertions.assertEquals(BIG, read(new GZIPInputStream(new ByteArrayInputStream(body))));
+        Assertions.assertTrue(body.length < BIG.length() / 10);
+        Assertions.assertEquals(1, registry.get("http.compression.ratio").tag("encoding", "gzip").tag("mode", "buffered").summary().count());
+    }
+
+    @Test
+    public void testDeflateUsesZlibFormat() throws IOException {
+        byte[] body = client.get().uri("/big")
+                .header(HttpHeaders.ACCEPT_ENCODING, "deflate")
+                .exchange()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "deflate")
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        Assertions.assertEquals(BIG, read(new InflaterInputStream(new ByteArrayInputStream(body))));
+    }
+
+    @Test
+    public void testSkipsResponsesUnderThreshold() {
+        // 有 Content-Length 的小响应
+        client.get().uri("/small")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .expectBody(String.class)
+                .isEqualTo("hello");
+        // 长度未知、分多个 buffer 的小响应
+        client.get().uri("/small/chunks")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .expectBody(String.class)
+                .isEqualTo("abc");
+        Assertions.assertEquals(2, registry.get("http.compression.skipped").tag("reason", "threshold").counter().count());
+    }
+
+    @Test
+    public void testCompressesStreamingResponse() throws IOException {
+        byte[] body = client.get().uri("/stream")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        String expected = IntStream.range(0, 100).mapToObj(i -> i + "\n").collect(Collectors.joining());
+        Assertions.assertEquals(expected, read(new GZIPInputStream(new ByteArrayInputStream(body))));
+        Assertions.assertEquals(1, registry.get("http.compression.cpu").tag("encoding", "gzip").tag("mode", "streaming").timer().count());
+    }
+
+    @Test
+    public void testSyncFlushMakesEachBatchDecodable() throws Exception {
+        DefaultDataBufferFactory factory = new DefaultDataBufferFactory();
+        Compressor compressor = new Compressor(ContentEncoding.DEFLATE, 6, factory);
+        Inflater inflater = new Inflater();
+        try {
+            for (String batch : List.of("first batch\n", "second batch\n")) {
+                DataBuffer input = factory.wrap(batch.getBytes(StandardCharsets.UTF_8));
+                DataBuffer output = compressor.compress(List.of(input), true);
+                byte[] compressed = new byte[output.readableByteCount()];
+                output.read(compressed);
+                // 还没有 finish，收到这一批的字节就能完整解压出这一批
+                inflater.setInput(compressed);
+                byte[] plain = new byte[64];
+                int length = inflater.inflate(plain);
+                Assertions.assertEquals(batch, new String(plain, 0, length, StandardCharsets.UTF_8));
+            }
+        } finally {
+            compressor.end();
+            inflater.end();
+        }
+    }
+
+    private static RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/big", request -> ServerResponse.ok().contentType(MediaType.TEXT_PLAIN).bodyValue(BIG))
+                .GET("/small", request -> ServerResponse.ok().contentType(MediaType.TEXT_PLAIN).bodyValue("hello"))
+                .GET("/small/chunks", request -> ServerResponse.ok().contentType(MediaType.TEXT_PLAIN)
+                        .body(Flux.just("a", "b", "c"), String.class))
+                .GET("/stream", request -> ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+                        .body(Flux.range(0, 100), Integer.class))
+                .build();
+    }
+
+    private static String read(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        input.transferTo(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
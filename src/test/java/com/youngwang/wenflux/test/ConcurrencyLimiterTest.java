@@ -0,0 +1,242 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.limiter.ConcurrencyLimitFilter;
+import com.youngwang.webflux.limiter.ConcurrencyLimitProperties;
+import com.youngwang.webflux.limiter.ConcurrencyLimiter;
+import com.youngwang.webflux.limiter.GradientLimit;
+import com.youngwang.webflux.offload.OffloadExecutors;
+import com.youngwang.webflux.offload.OffloadProperties;
+import com.youngwang.webflux.offload.RejectPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.function.server.support.RouterFunctionMapping;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void testLimitGrowsWhileLatencyIsStable() {
+        GradientLimit limit = newLimit(20);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(RTT, limit.getLimit(), false);
+        }
+        Assertions.assertTrue(limit.getLimit() > 100, "limit " + limit.getLimit());
+    }
+
+    @Test
+    public void testLimitToleratesOccasionalSlowRequests() {
+        GradientLimit limit = newLimit(50);
+        for (int i = 0; i < 1000; i++) {
+            // 5% 的请求比平均耗时慢 100 倍，属于接口本身的长尾
+            limit.onSample(i % 20 == 0 ? RTT * 100 : RTT, limit.getLimit(), false);
+        }
+        Assertions.assertTrue(limit.getLimit() >= 50, "limit " + limit.getLimit());
+    }
+
+    @Test
+    public void testLimitShrinksWhenRequestsQueue() {
+        GradientLimit limit = newLimit(200);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(RTT, limit.getLimit(), false);
+        }
+        int before = limit.getLimit();
+        // 排队导致耗时整体上升到原来的 4 倍
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(RTT * 4, limit.getLimit(), false);
+        }
+        Assertions.assertTrue(limit.getLimit() < before / 2, before + " -> " + limit.getLimit());
+    }
+
+    @Test
+    public void testLimitIgnoresSamplesWhenUnderused() {
+        GradientLimit limit = newLimit(100);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(i < 50 ? RTT : RTT * 10, 1, false);
+        }
+        Assertions.assertEquals(100, limit.getLimit());
+    }
+
+    @Test
+    public void testFilterRejectsOverLimitWithRetryAfter() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        ConcurrencyLimitProperties.Limit route = new ConcurrencyLimitProperties.Limit();
+        route.setInitialLimit(2);
+        route.setMinLimit(1);
+        properties.getRoutes().put("/mono/delay", route);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties, registry);
+        Sinks.Empty<Void> pending = Sinks.empty();
+
+        Disposable first = filter.filter(exchange("/mono/delay"), e -> pending.asMono()).subscribe();
+        Disposable second = filter.filter(exchange("/mono/delay"), e -> pending.asMono()).subscribe();
+        MockServerWebExchange rejected = exchange("/mono/delay");
+        filter.filter(rejected, e -> Mono.error(new AssertionError("should not reach the handler"))).block();
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse().getStatusCode());
+        Assertions.assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        // 其它路由、排除的路径不受影响
+        MockServerWebExchange other = exchange("/mono/just");
+        filter.filter(other, e -> Mono.empty()).block();
+        Assertions.assertNull(other.getResponse().getStatusCode());
+
+        // 取消后释放名额
+        first.dispose();
+        MockServerWebExchange admitted = exchange("/mono/delay");
+        filter.filter(admitted, e -> Mono.empty()).block();
+        Assertions.assertNull(admitted.getResponse().getStatusCode());
+        second.dispose();
+        // 响应完成后上游再收到 cancel 也只释放一次
+        MockServerWebExchange completed = exchange("/mono/delay");
+        filter.filter(completed, e -> Mono.empty()).subscribe().dispose();
+
+        Assertions.assertEquals(1, registry.get("limiter.rejected").tag("route", "/mono/delay").counter().count());
+        Assertions.assertEquals(0, registry.get("limiter.inflight").tag("route", "/mono/delay").gauge().value());
+    }
+
+    @Test
+    public void testFilterCreatesLimiterPerRoute() {
+        // 函数式路由带 path 前缀，和 webflux.routing.mode=functional 的注册方式相同
+        HandlerFunction<ServerResponse> ok = request -> ServerResponse.ok().build();
+        RouterFunctionMapping mapping = new RouterFunctionMapping(route()
+                .path("/fn/simple", builder -> builder
+                        .GET("/mono", ok)
+                        .GET("/files/{name}", ok))
+                .GET("/mono/delay", ok)
+                .build());
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        ConcurrencyLimitProperties.Limit slow = new ConcurrencyLimitProperties.Limit();
+        slow.setInitialLimit(7);
+        properties.getRoutes().put("/mono/delay*/**", slow);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties, registry, () -> List.of(mapping));
+
+        for (String path : List.of("/fn/simple/mono", "/fn/simple/files/a", "/fn/simple/files/b", "/mono/delay", "/not/found")) {
+            filter.filter(exchange(path), e -> Mono.empty()).block();
+        }
+        Map<String, ConcurrencyLimiter> limiters = filter.getLimiters();
+        Assertions.assertEquals(Set.of("/fn/simple/mono", "/fn/simple/files/{name}", "/mono/delay", ConcurrencyLimitFilter.UNMATCHED), limiters.keySet());
+        // routes 中的模式只覆盖参数，路由仍然是各自的限制器
+        Assertions.assertEquals(7, limiters.get("/mono/delay").getLimit());
+        Assertions.assertEquals(50, limiters.get("/fn/simple/mono").getLimit());
+    }
+
+    @Test
+    public void testFilterReleasesStreamingResponsesWithoutSampling() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        ConcurrencyLimitProperties.Limit route = new ConcurrencyLimitProperties.Limit();
+        route.setInitialLimit(1);
+        route.setMinLimit(1);
+        properties.getRoutes().put("/simple/flux/range", route);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 3; i++) {
+            MockServerWebExchange exchange = exchange("/simple/flux/range");
+            filter.filter(exchange, e -> {
+                e.getResponse().getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+                return Mono.empty();
+            }).block();
+            Assertions.assertNull(exchange.getResponse().getStatusCode());
+        }
+        ConcurrencyLimiter limiter = filter.getLimiters().get("/simple/flux/range");
+        Assertions.assertEquals(0, limiter.getInFlight());
+        Assertions.assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void testFilterShrinksLimitWhenBlockingPoolIsSaturated() {
+        OffloadProperties offload = new OffloadProperties();
+        OffloadProperties.Pool blocking = new OffloadProperties.Pool();
+        blocking.setCoreSize(1);
+        blocking.setMaxSize(1);
+        blocking.setQueueCapacity(1);
+        blocking.setRejectPolicy(RejectPolicy.ABORT);
+        offload.getPools().put(OffloadExecutors.BLOCKING, blocking);
+        OffloadExecutors executors = new OffloadExecutors(offload, new SimpleMeterRegistry());
+
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        ConcurrencyLimitProperties.Limit route = new ConcurrencyLimitProperties.Limit();
+        route.setInitialLimit(20);
+        route.setMinLimit(1);
+        properties.getRoutes().put("/zip/with", route);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties, new SimpleMeterRegistry());
+        // 和 OffloadRejectedHandler 一样，线程池拒绝在 DispatcherHandler 中被转换为正常完成的 503
+        WebFilterChain handler = e -> Mono.fromCallable(() -> {
+                    Thread.sleep(100);
+                    return "ok";
+                })
+                .subscribeOn(executors.blockingScheduler())
+                .then()
+                .onErrorResume(RejectedExecutionException.class, error -> {
+                    e.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                    return e.getResponse().setComplete();
+                });
+        try {
+            List<MockServerWebExchange> exchanges = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                exchanges.add(exchange("/zip/with"));
+            }
+            Flux.fromIterable(exchanges)
+                    .flatMap(e -> filter.filter(e, handler))
+                    .blockLast(Duration.ofSeconds(5));
+
+            long rejected = exchanges.stream()
+                    .filter(e -> e.getResponse().getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+                    .count();
+            Assertions.assertTrue(rejected > 0, "no request was rejected by the pool");
+            ConcurrencyLimiter limiter = filter.getLimiters().get("/zip/with");
+            Assertions.assertTrue(limiter.getLimit() < 20, "limit " + limiter.getLimit());
+            Assertions.assertEquals(0, limiter.getInFlight());
+        } finally {
+            executors.destroy();
+        }
+    }
+
+    @Test
+    public void testFilterShrinksLimitOnGatewayTimeout() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        ConcurrencyLimitProperties.Limit route = new ConcurrencyLimitProperties.Limit();
+        route.setInitialLimit(20);
+        route.setMinLimit(1);
+        properties.getRoutes().put("/mono/delay", route);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties, new SimpleMeterRegistry());
+
+        // DeadlineFilter 截止时间已过时响应 504，同样是正常完成
+        filter.filter(exchange("/mono/delay"), e -> {
+            e.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+            return e.getResponse().setComplete();
+        }).block();
+        Assertions.assertTrue(filter.getLimiters().get("/mono/delay").getLimit() < 20);
+    }
+
+    private static GradientLimit newLimit(int initial) {
+        return new GradientLimit(initial, 4, 1000, 2.0, 0.2, 600);
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+}
@@ -0,0 +1,211 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.deadline.Deadline;
+import com.youngwang.webflux.deadline.DeadlineExceededException;
+import com.youngwang.webflux.deadline.DeadlineFilter;
+import com.youngwang.webflux.deadline.DeadlineProperties;
+import com.youngwang.webflux.deadline.Deadlines;
+import com.youngwang.webflux.retry.RetryPolicies;
+import com.youngwang.webflux.retry.RetryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DeadlineTest {
+
+    @Test
+    public void testDelayFailsFastWhenBudgetIsTooSmall() {
+        Mono<Long> delay = Deadlines.delay(Duration.ofSeconds(2))
+                .contextWrite(Deadlines.with(Deadline.after(Duration.ofMillis(500))));
+
+        StepVerifier.create(delay)
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofMillis(200));
+    }
+
+    @Test
+    public void testTimeoutUsesRemainingBudget() {
+        Mono<String> slow = Mono.<String>never()
+                .transform(Deadlines.timeout(Duration.ofSeconds(10)))
+                .contextWrite(Deadlines.with(Deadline.after(Duration.ofMillis(50))));
+
+        StepVerifier.create(slow)
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void testRetryStopsWhenBackoffExceedsDeadline() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RetryProperties properties = new RetryProperties();
+        properties.getDefaults().setMinBackoff(Duration.ofSeconds(1));
+        properties.getDefaults().setMaxBackoff(Duration.ofSeconds(1));
+        RetryPolicies policies = new RetryPolicies(properties, registry);
+        AtomicInteger subscriptions = new AtomicInteger();
+        // 退避时间固定为 [0, 1s] 的随机值，剩余时间为 0 时一定放弃
+        Mono<String> call = Mono.<String>error(new IllegalStateException("boom"))
+                .doOnSubscribe(s -> subscriptions.incrementAndGet())
+                .retryWhen(policies.forRoute("/test"))
+                .contextWrite(Deadlines.with(Deadline.after(Duration.ZERO)));
+
+        StepVerifier.create(call).expectErrorMessage("boom").verify(Duration.ofSeconds(1));
+        Assertions.assertEquals(1, subscriptions.get());
+        Assertions.assertEquals(1, registry.get("retry.giveups").tag("reason", "deadline").counter().count());
+        Assertions.assertEquals(0, registry.get("retry.attempts").tag("route", "/test").counter().count());
+    }
+
+    @Test
+    public void testQueuedOffloadIsSkippedAfterDeadline() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        // 和 OffloadExecutors 的调度器一样由 fromExecutorService 创建
+        Scheduler scheduler = Schedulers.fromExecutorService(executor, "deadline-test");
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+        List<Throwable> dropped = new CopyOnWriteArrayList<>();
+        Hooks.onErrorDropped(dropped::add);
+        try {
+            // 占住唯一的线程，第二个任务只能排队
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Mono<String> queued = Deadlines.supplyAsync(() -> {
+                ran.set(true);
+                return "ran";
+            }, scheduler).contextWrite(Deadlines.with(Deadline.after(Duration.ofMillis(50))));
+
+            StepVerifier.create(queued)
+                    .expectError(DeadlineExceededException.class)
+                    .verify(Duration.ofSeconds(1));
+            release.countDown();
+            executor.submit(() -> { }).get();
+            Assertions.assertFalse(ran.get());
+            // 排队中被跳过的任务不应该产生无人接收的异常
+            Assertions.assertEquals(List.of(), dropped);
+        } finally {
+            Hooks.resetOnErrorDropped();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSupplyAsyncAbandonsRunningTask() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Scheduler scheduler = Schedulers.fromExecutorService(executor, "deadline-test");
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        List<Throwable> dropped = new CopyOnWriteArrayList<>();
+        Hooks.onErrorDropped(dropped::add);
+        try {
+            Mono<String> running = Deadlines.supplyAsync(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+                return "ran";
+            }, scheduler).contextWrite(Deadlines.with(Deadline.after(Duration.ofMillis(50))));
+
+            StepVerifier.create(running)
+                    .expectError(DeadlineExceededException.class)
+                    .verify(Duration.ofSeconds(1));
+            Assertions.assertTrue(finished.await(1, TimeUnit.SECONDS));
+            executor.submit(() -> { }).get();
+            // 正在执行的任务被中断，尽早释放线程；取消不会在任务里留下没人接收的异常
+            Assertions.assertTrue(interrupted.get());
+            Assertions.assertEquals(List.of(), dropped);
+        } finally {
+            Hooks.resetOnErrorDropped();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFromFutureCancelsQueuedTask() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+        AtomicInteger created = new AtomicInteger();
+        List<Throwable> dropped = new CopyOnWriteArrayList<>();
+        Hooks.onErrorDropped(dropped::add);
+        try {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Mono<String> queued = Deadlines.fromFuture(() -> {
+                created.incrementAndGet();
+                return CompletableFuture.supplyAsync(() -> {
+                    ran.set(true);
+                    return "ran";
+                }, executor);
+            });
+
+            StepVerifier.create(queued.contextWrite(Deadlines.with(Deadline.after(Duration.ofMillis(50)))))
+                    .expectError(DeadlineExceededException.class)
+                    .verify(Duration.ofSeconds(1));
+            // 截止时间已过时不再提交任务
+            StepVerifier.create(queued.contextWrite(Deadlines.with(Deadline.after(Duration.ZERO))))
+                    .expectError(DeadlineExceededException.class)
+                    .verify(Duration.ofSeconds(1));
+            release.countDown();
+            executor.submit(() -> { }).get();
+            Assertions.assertFalse(ran.get());
+            Assertions.assertEquals(1, created.get());
+            Assertions.assertEquals(List.of(), dropped);
+        } finally {
+            Hooks.resetOnErrorDropped();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFilterCancelsWorkAndReportsBudget() {
+        DeadlineProperties properties = new DeadlineProperties();
+        DeadlineFilter filter = new DeadlineFilter(properties);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/mono/delay")
+                .header("X-Request-Timeout", "50"));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean hasDeadline = new AtomicBoolean();
+
+        filter.filter(exchange, e -> Mono.deferContextual(context -> {
+            hasDeadline.set(Deadlines.get(context).isPresent());
+            return Mono.<Void>never();
+        }).doOnCancel(() -> cancelled.set(true))).block(Duration.ofSeconds(1));
+
+        Assertions.assertTrue(hasDeadline.get());
+        Assertions.assertTrue(cancelled.get());
+        Assertions.assertEquals(HttpStatus.GATEWAY_TIMEOUT, exchange.getResponse().getStatusCode());
+        Assertions.assertEquals("50", exchange.getResponse().getHeaders().getFirst(DeadlineFilter.BUDGET_HEADER));
+        long used = Long.parseLong(exchange.getResponse().getHeaders().getFirst(DeadlineFilter.USED_HEADER));
+        Assertions.assertTrue(used >= 50, "used " + used);
+    }
+}
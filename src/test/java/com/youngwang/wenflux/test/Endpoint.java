@@ -0,0 +1,27 @@
+package com.youngwang.wenflux.test;
+
+import org.springframework.http.MediaType;
+
+import java.net.URI;
+
+/**
+ * 一个被请求的接口：一个路径加上一个 Accept，同一路径按 produces 区分的接口分别请求
+ */
+public final class Endpoint {
+
+    public final String route;
+
+    public final URI uri;
+
+    public final MediaType accept;
+
+    public Endpoint(String route, URI uri, MediaType accept) {
+        this.route = route;
+        this.uri = uri;
+        this.accept = accept;
+    }
+
+    public String name() {
+        return MediaType.ALL.equals(accept) ? route : route + " [" + accept + "]";
+    }
+}
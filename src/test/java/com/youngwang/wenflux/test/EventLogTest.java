@@ -0,0 +1,52 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.eventlog.EventLog;
+import com.youngwang.webflux.eventlog.EventLogProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+public class EventLogTest {
+
+    @Test
+    public void testFailingFieldDoesNotStopDrainer() throws InterruptedException {
+        EventLogProperties properties = new EventLogProperties();
+        properties.setIdleWait(Duration.ofMillis(1));
+        EventLog eventLog = new EventLog(properties);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        eventLog.bindTo(registry);
+
+        Object broken = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("broken toString");
+            }
+        };
+        eventLog.log("/test", "broken", "value", broken);
+        waitFor(registry, "failed", 1);
+
+        for (int i = 0; i < 3; i++) {
+            eventLog.log("/test", "normal", "i", i);
+        }
+        waitFor(registry, "written", 3);
+        eventLog.log("/test", "broken again", "value", broken);
+        waitFor(registry, "failed", 2);
+
+        eventLog.destroy();
+        Assertions.assertEquals(0, count(registry, "dropped"));
+    }
+
+    private static void waitFor(SimpleMeterRegistry registry, String result, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (count(registry, result) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(expected, count(registry, result));
+    }
+
+    private static double count(SimpleMeterRegistry registry, String result) {
+        return registry.get("eventlog.events").tag("result", result).functionCounter().count();
+    }
+}
@@ -0,0 +1,67 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.fanout.FanOut;
+import com.youngwang.webflux.fanout.GatherResult;
+import com.youngwang.webflux.fanout.TaskResult;
+import com.youngwang.webflux.fanout.TaskStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public class FanOutTest {
+
+    @Test
+    public void testReturnsPartialResultsAtDeadline() {
+        AtomicInteger cancelled = new AtomicInteger();
+        // 并发 2：0、1 先开始；0 在 100ms 完成后开始 2；1 在 200ms 完成后开始 3（失败）、4（空）、5；
+        // 500ms 截止时 2、5 执行中被取消，6 没有开始
+        // Mono.delay 在组装时取调度器，任务要在虚拟时间的 supplier 中创建
+        StepVerifier.withVirtualTime(() -> FanOut.gather(List.of(
+                delayed("a", 100, cancelled),
+                delayed("b", 200, cancelled),
+                delayed("c", 1000, cancelled),
+                Mono.<String>error(new IllegalStateException("shard down")),
+                Mono.<String>empty(),
+                delayed("f", 1000, cancelled),
+                delayed("g", 10, cancelled)), 2, Duration.ofMillis(500)))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(499))
+                .thenAwait(Duration.ofMillis(1))
+                .assertNext(result -> {
+                    Assertions.assertEquals(List.of(TaskStatus.SUCCESS, TaskStatus.SUCCESS, TaskStatus.TIMED_OUT,
+                            TaskStatus.FAILED, TaskStatus.EMPTY, TaskStatus.TIMED_OUT, TaskStatus.NOT_STARTED), statuses(result));
+                    Assertions.assertEquals(List.of("a", "b"), result.getValues());
+                    Assertions.assertEquals("java.lang.IllegalStateException: shard down", result.getResults().get(3).getError());
+                    Assertions.assertFalse(result.isComplete());
+                })
+                .verifyComplete();
+        Assertions.assertEquals(2, cancelled.get());
+    }
+
+    @Test
+    public void testCompletesEarlyWhenAllTasksFinish() {
+        List<Mono<Integer>> tasks = List.of(Mono.just(1), Mono.just(2), Mono.just(3));
+
+        StepVerifier.create(FanOut.gather(tasks, 8, Duration.ofSeconds(10)))
+                .assertNext(result -> {
+                    Assertions.assertTrue(result.isComplete());
+                    Assertions.assertEquals(List.of(1, 2, 3), result.getValues());
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+    }
+
+    private static Mono<String> delayed(String value, long millis, AtomicInteger cancelled) {
+        return Mono.delay(Duration.ofMillis(millis)).thenReturn(value).doOnCancel(cancelled::incrementAndGet);
+    }
+
+    private static List<TaskStatus> statuses(GatherResult<?> result) {
+        return result.getResults().stream().map(TaskResult::getStatus).collect(Collectors.toList());
+    }
+}
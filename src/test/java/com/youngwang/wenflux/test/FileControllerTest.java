@@ -0,0 +1,129 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.file.FileController;
+import com.youngwang.webflux.file.FileServingProperties;
+import com.youngwang.webflux.file.HotFileCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 小文件走内存缓存，大文件走 AsynchronousFileChannel（MockServerHttpResponse 不支持零拷贝）
+ */
+public class FileControllerTest {
+
+    private static final byte[] SMALL = "hello webflux\n".getBytes();
+
+    private static final byte[] LARGE = new byte[100 * 1024];
+
+    static {
+        for (int i = 0; i < LARGE.length; i++) {
+            LARGE[i] = (byte) i;
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private WebTestClient client() throws IOException {
+        Path root = Files.createDirectory(dir.resolve("root"));
+        Files.write(root.resolve("small.txt"), SMALL);
+        Files.write(root.resolve("large.bin"), LARGE);
+        Files.write(dir.resolve("secret.txt"), SMALL);
+        Files.createSymbolicLink(root.resolve("link.txt"), dir.resolve("secret.txt"));
+        Files.createSymbolicLink(root.resolve("outside"), dir);
+
+        FileServingProperties properties = new FileServingProperties();
+        properties.setRoot(root);
+        properties.setChunkSize(DataSize.ofKilobytes(4));
+        properties.getCache().setMaxFileSize(DataSize.ofKilobytes(1));
+        FileServingProperties.Cache cache = properties.getCache();
+        return WebTestClient.bindToController(new FileController(properties,
+                new HotFileCache(cache.getMaxFileSize().toBytes(), cache.getMaxTotalSize().toBytes()))).build();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"small.txt", "large.bin"})
+    public void testFullFile(String name) throws IOException {
+        byte[] content = content(name);
+        WebTestClient client = client();
+        // 第二次请求缓存命中
+        for (int i = 0; i < 2; i++) {
+            client.get().uri("/files/" + name).exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentLength(content.length)
+                    .expectHeader().valueEquals(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .expectBody(byte[].class).isEqualTo(content);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"small.txt", "large.bin"})
+    public void testSingleRange(String name) throws IOException {
+        byte[] content = content(name);
+        int n = content.length;
+        WebTestClient client = client();
+        client.get().uri("/files/" + name).header(HttpHeaders.RANGE, "bytes=2-9").exchange()
+                .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 2-9/" + n)
+                .expectHeader().contentLength(8)
+                .expectBody(byte[].class).isEqualTo(Arrays.copyOfRange(content, 2, 10));
+        // 后缀 range：最后 5 个字节
+        client.get().uri("/files/" + name).header(HttpHeaders.RANGE, "bytes=-5").exchange()
+                .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes " + (n - 5) + "-" + (n - 1) + "/" + n)
+                .expectBody(byte[].class).isEqualTo(Arrays.copyOfRange(content, n - 5, n));
+        // 结束位置超出文件大小时截断到文件末尾
+        client.get().uri("/files/" + name).header(HttpHeaders.RANGE, "bytes=" + (n - 3) + "-" + (n + 100)).exchange()
+                .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes " + (n - 3) + "-" + (n - 1) + "/" + n)
+                .expectBody(byte[].class).isEqualTo(Arrays.copyOfRange(content, n - 3, n));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"small.txt", "large.bin"})
+    public void testUnsatisfiableRange(String name) throws IOException {
+        int n = content(name).length;
+        WebTestClient client = client();
+        for (String range : new String[]{"bytes=" + n + "-", "bytes=" + (n + 10) + "-" + (n + 20), "bytes=9-2", "bytes=abc", "items=0-1"}) {
+            client.get().uri("/files/" + name).header(HttpHeaders.RANGE, range).exchange()
+                    .expectStatus().isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes */" + n)
+                    .expectBody().isEmpty();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"small.txt", "large.bin"})
+    public void testMultipleRangesReturnWholeFile(String name) throws IOException {
+        byte[] content = content(name);
+        client().get().uri("/files/" + name).header(HttpHeaders.RANGE, "bytes=0-1,4-5").exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_RANGE)
+                .expectHeader().contentLength(content.length)
+                .expectBody(byte[].class).isEqualTo(content);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/files/../secret.txt", "/files/link.txt",
+            "/files/outside/secret.txt", "/files/missing.txt", "/files/"})
+    public void testOutsideRootIsNotFound(String uri) throws IOException {
+        WebTestClient client = client();
+        client.get().uri(uri).exchange().expectStatus().isNotFound();
+    }
+
+    private static byte[] content(String name) {
+        Assertions.assertTrue(name.equals("small.txt") || name.equals("large.bin"));
+        return name.equals("small.txt") ? SMALL : LARGE;
+    }
+}
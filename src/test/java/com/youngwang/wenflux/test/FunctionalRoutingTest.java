@@ -0,0 +1,80 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.WebfluxApplication;
+import com.youngwang.webflux.codec.IntegerMediaTypes;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.stream.Stream;
+
+/**
+ * webflux.routing.mode=functional 且前缀为 /fn 时两种路由并存，同一请求分别发给注解映射和函数式路由，响应应该一致
+ */
+@SpringBootTest(classes = WebfluxApplication.class,
+        properties = {"webflux.routing.mode=functional", "webflux.routing.prefix=/fn",
+                "webflux.limiter.enabled=false"})
+@AutoConfigureWebTestClient
+public class FunctionalRoutingTest {
+
+    private static final String PREFIX = "/fn";
+
+    @Autowired
+    private WebTestClient webClient;
+
+    static Stream<Arguments> acceptVariants() {
+        // 空字符串表示不带 Accept；*/* 和 application/* 不能走流式输出，和注解映射一样返回 JSON 数组
+        return Stream.of("/simple/flux/range?size=3", "/simple/flux/from?name=zhangsan")
+                .flatMap(uri -> Stream.of("", MediaType.ALL_VALUE, "application/*", MediaType.APPLICATION_JSON_VALUE,
+                                MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+                                MediaType.APPLICATION_CBOR_VALUE, IntegerMediaTypes.VARINT_VALUE)
+                        .map(accept -> Arguments.of(uri, accept)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("acceptVariants")
+    public void testSameResponseAsAnnotated(String uri, String accept) {
+        EntityExchangeResult<byte[]> annotated = get(uri, accept);
+        EntityExchangeResult<byte[]> functional = get(PREFIX + uri, accept);
+
+        Assertions.assertEquals(HttpStatus.OK, annotated.getStatus());
+        Assertions.assertEquals(annotated.getStatus(), functional.getStatus());
+        Assertions.assertEquals(contentType(annotated), contentType(functional));
+        Assertions.assertArrayEquals(annotated.getResponseBody(), functional.getResponseBody(),
+                () -> new String(annotated.getResponseBody()) + " <> " + new String(functional.getResponseBody()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/simple/mono", "/simple/flux/from", "/simple/flux/range", "/simple/flux/range?size=abc",
+            "/zip/gather?name=zhangsan&shards=abc", "/zip/gather?name=zhangsan&shards=0",
+            "/zip/gather?name=zhangsan&shards=100000", "/zip/gather?name=zhangsan&concurrency=0",
+            "/zip/gather?name=zhangsan&deadline=0", "/zip/gather?name=zhangsan&deadline=600000"})
+    public void testBadRequestParams(String uri) {
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, get(uri, MediaType.APPLICATION_JSON_VALUE).getStatus());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, get(PREFIX + uri, MediaType.APPLICATION_JSON_VALUE).getStatus());
+    }
+
+    private EntityExchangeResult<byte[]> get(String uri, String accept) {
+        WebTestClient.RequestHeadersSpec<?> request = webClient.get().uri(uri);
+        if (!accept.isEmpty()) {
+            request = request.header(HttpHeaders.ACCEPT, accept);
+        }
+        return request.exchange().expectBody(byte[].class).returnResult();
+    }
+
+    private static MediaType contentType(EntityExchangeResult<byte[]> result) {
+        // 忽略 charset 等参数，只比较类型
+        MediaType type = result.getResponseHeaders().getContentType();
+        return type == null ? null : new MediaType(type.getType(), type.getSubtype());
+    }
+}
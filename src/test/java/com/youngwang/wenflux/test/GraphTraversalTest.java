@@ -0,0 +1,143 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.graph.CsrGraph;
+import com.youngwang.webflux.graph.GraphTraversal;
+import com.youngwang.webflux.graph.TraversalOrder;
+import com.youngwang.webflux.graph.VisitBatch;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+public class GraphTraversalTest {
+
+    @Test
+    public void testBfsMatchesExpand() {
+        // 根节点 3 个子节点，每个子节点 3 个叶子，层序编号
+        CsrGraph tree = CsrGraph.completeTree(3, 2);
+        Assertions.assertEquals(13, tree.nodeCount());
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12),
+                nodes(GraphTraversal.of(tree).batchSize(5)));
+    }
+
+    @Test
+    public void testDfsIsPreorder() {
+        CsrGraph tree = CsrGraph.completeTree(3, 2);
+        Assertions.assertEquals(Arrays.asList(0, 1, 4, 5, 6, 2, 7, 8, 9, 3, 10, 11, 12),
+                nodes(GraphTraversal.of(tree).order(TraversalOrder.DFS)));
+    }
+
+    @Test
+    public void testCycleVisitsEachNodeOnce() {
+        CsrGraph graph = CsrGraph.builder(4)
+                .addEdge(0, 1)
+                .addEdge(1, 2)
+                .addEdge(2, 0)
+                .addEdge(2, 3)
+                .addEdge(3, 1)
+                .build();
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3), nodes(GraphTraversal.of(graph)));
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3), nodes(GraphTraversal.of(graph).order(TraversalOrder.DFS)));
+    }
+
+    @Test
+    public void testMaxDepth() {
+        CsrGraph tree = CsrGraph.completeTree(3, 4);
+        List<VisitBatch> batches = GraphTraversal.of(tree).maxDepth(1).from(0).collectList().block();
+        int count = 0;
+        for (VisitBatch batch : batches) {
+            for (int i = 0; i < batch.size(); i++) {
+                Assertions.assertTrue(batch.depth(i) <= 1);
+                count++;
+            }
+        }
+        Assertions.assertEquals(4, count);
+    }
+
+    @Test
+    public void testMaxDepthWithSharedNodes() {
+        // DFS 先沿 0 -> 1 -> 2 在深度 2 到达 2，之后 0 -> 2 在深度 1 到达时需要重新展开，3 的最短深度为 2
+        CsrGraph graph = CsrGraph.builder(4)
+                .addEdge(0, 1)
+                .addEdge(0, 2)
+                .addEdge(1, 2)
+                .addEdge(2, 3)
+                .build();
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3), nodes(GraphTraversal.of(graph).maxDepth(2)));
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3), nodes(GraphTraversal.of(graph).order(TraversalOrder.DFS).maxDepth(2)));
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), nodes(GraphTraversal.of(graph).order(TraversalOrder.DFS).maxDepth(1)));
+    }
+
+    @Test
+    public void testConcurrentMaxDepthWithSharedNodes() {
+        // 满 4 叉树加上指向其他子树的横向边，和单线程 BFS（最短深度）比较不超过 maxDepth 的节点集合
+        CsrGraph dag = crossLinkedTree();
+        for (int maxDepth = 1; maxDepth <= 4; maxDepth++) {
+            BitSet expected = new BitSet();
+            nodes(GraphTraversal.of(dag).maxDepth(maxDepth)).forEach(expected::set);
+            for (TraversalOrder order : TraversalOrder.values()) {
+                List<Integer> visited = nodes(GraphTraversal.of(dag)
+                        .order(order)
+                        .maxDepth(maxDepth)
+                        .batchSize(16)
+                        .concurrency(4, Schedulers.parallel()));
+                BitSet seen = new BitSet();
+                visited.forEach(seen::set);
+                Assertions.assertEquals(expected, seen, order + " maxDepth " + maxDepth);
+                Assertions.assertEquals(seen.cardinality(), visited.size(), "each node once");
+
+                BitSet single = new BitSet();
+                nodes(GraphTraversal.of(dag).order(order).maxDepth(maxDepth)).forEach(single::set);
+                Assertions.assertEquals(expected, single, order + " maxDepth " + maxDepth + " single thread");
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentTraversalVisitsEachNodeOnce() {
+        CsrGraph dag = crossLinkedTree();
+
+        for (TraversalOrder order : TraversalOrder.values()) {
+            List<Integer> visited = nodes(GraphTraversal.of(dag)
+                    .order(order)
+                    .batchSize(64)
+                    .concurrency(4, Schedulers.parallel()));
+            Assertions.assertEquals(dag.nodeCount(), visited.size());
+            BitSet seen = new BitSet();
+            visited.forEach(seen::set);
+            Assertions.assertEquals(dag.nodeCount(), seen.cardinality());
+        }
+    }
+
+    /**
+     * 满 4 叉树再加上指向其他子树的横向边，构成有共享节点的图
+     */
+    private static CsrGraph crossLinkedTree() {
+        CsrGraph tree = CsrGraph.completeTree(4, 7);
+        CsrGraph.Builder builder = CsrGraph.builder(tree.nodeCount());
+        for (int node = 0; node < tree.nodeCount(); node++) {
+            for (int i = 0; i < tree.degree(node); i++) {
+                builder.addEdge(node, tree.child(node, i));
+            }
+            builder.addEdge(node, (node * 31 + 7) % tree.nodeCount());
+        }
+        return builder.build();
+    }
+
+    private static List<Integer> nodes(GraphTraversal traversal) {
+        List<Integer> nodes = new ArrayList<>();
+        traversal.from(0)
+                .doOnNext(batch -> {
+                    for (int i = 0; i < batch.size(); i++) {
+                        nodes.add(batch.node(i));
+                    }
+                })
+                .blockLast(Duration.ofSeconds(10));
+        return nodes;
+    }
+}
@@ -0,0 +1,99 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.hedge.HedgePolicies;
+import com.youngwang.webflux.hedge.HedgePolicy;
+import com.youngwang.webflux.hedge.HedgeProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HedgePolicyTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void testHedgeWinsAndCancelsSlowAttempt() {
+        HedgePolicies policies = new HedgePolicies(new HedgeProperties(), registry);
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        // 没有样本时按 max-delay（1 秒）对冲
+        StepVerifier.withVirtualTime(() -> policies.forRoute("/test").hedge(() -> attempts.incrementAndGet() == 1
+                ? Mono.<String>never().doOnCancel(() -> cancelled.set(true))
+                : Mono.just("hedged")))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(999))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext("hedged")
+                .verifyComplete();
+        Assertions.assertEquals(2, attempts.get());
+        Assertions.assertTrue(cancelled.get());
+        Assertions.assertEquals(1, registry.get("hedge.wins").tag("route", "/test").counter().count());
+    }
+
+    @Test
+    public void testFastAttemptIsNotHedged() {
+        HedgePolicies policies = new HedgePolicies(new HedgeProperties(), registry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.withVirtualTime(() -> policies.forRoute("/test").hedge(() -> {
+            attempts.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(100)).thenReturn("primary");
+        }))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectNext("primary")
+                .verifyComplete();
+        Assertions.assertEquals(1, attempts.get());
+        Assertions.assertEquals(0, registry.get("hedge.attempts").tag("route", "/test").counter().count());
+    }
+
+    @Test
+    public void testBudgetLimitsHedges() {
+        HedgeProperties properties = new HedgeProperties();
+        properties.getDefaults().setBudgetRatio(0);
+        properties.getDefaults().setBudgetMaxTokens(0);
+        HedgePolicies policies = new HedgePolicies(properties, registry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.withVirtualTime(() -> policies.forRoute("/test").hedge(() -> {
+            attempts.incrementAndGet();
+            return Mono.delay(Duration.ofSeconds(2)).thenReturn("primary");
+        }))
+                .thenAwait(Duration.ofSeconds(2))
+                .expectNext("primary")
+                .verifyComplete();
+        Assertions.assertEquals(1, attempts.get());
+        Assertions.assertEquals(1, registry.get("hedge.denied").tag("route", "/test").counter().count());
+    }
+
+    @Test
+    public void testCancelledPrimaryKeepsDelayFromCollapsing() {
+        HedgeProperties properties = new HedgeProperties();
+        HedgeProperties.Policy policy = properties.getDefaults();
+        policy.setPercentile(0.5);
+        policy.setMinDelay(Duration.ofMillis(1));
+        policy.setMaxDelay(Duration.ofMillis(20));
+        policy.setWindow(Duration.ZERO);
+        policy.setMinSamples(5);
+        policy.setBudgetRatio(1);
+        policy.setBudgetMaxTokens(100);
+        HedgePolicy hedge = new HedgePolicies(properties, registry).forRoute("/test");
+
+        // 第一次请求总是很慢，对冲请求立即返回：对冲每次都获胜
+        for (int i = 0; i < 20; i++) {
+            AtomicInteger attempts = new AtomicInteger();
+            hedge.hedge(() -> attempts.incrementAndGet() == 1
+                    ? Mono.delay(Duration.ofSeconds(1)).thenReturn("primary")
+                    : Mono.just("hedged")).block(Duration.ofSeconds(2));
+        }
+        Assertions.assertEquals(20, registry.get("hedge.wins").tag("route", "/test").counter().count());
+        // 被取消的第一次请求按等待时间计入，对冲等待时间不会因为对冲获胜而缩小到 min-delay
+        Assertions.assertTrue(hedge.delay().toMillis() >= 15, "delay " + hedge.delay());
+    }
+}
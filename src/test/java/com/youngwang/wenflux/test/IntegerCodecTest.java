@@ -0,0 +1,114 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.codec.AbstractIntegerDecoder;
+import com.youngwang.webflux.codec.AbstractIntegerEncoder;
+import com.youngwang.webflux.codec.CborIntegerDecoder;
+import com.youngwang.webflux.codec.CborIntegerEncoder;
+import com.youngwang.webflux.codec.IntegerMediaTypes;
+import com.youngwang.webflux.codec.VarintIntegerDecoder;
+import com.youngwang.webflux.codec.VarintIntegerEncoder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class IntegerCodecTest {
+
+    private static final ResolvableType INTEGER = ResolvableType.forClass(Integer.class);
+
+    private static final List<Integer> VALUES = List.of(0, 1, -1, 23, 24, -24, -25, 63, 64, -64, -65, 255, 256,
+            65535, 65536, -65536, -65537, Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+    private final DefaultDataBufferFactory factory = new DefaultDataBufferFactory();
+
+    @Test
+    public void testVarintEncoding() {
+        VarintIntegerEncoder encoder = new VarintIntegerEncoder(256);
+        Assertions.assertArrayEquals(new byte[]{0, 1, 2, (byte) 0x80, 1},
+                encode(encoder, List.of(0, -1, 1, 64)));
+        Assertions.assertArrayEquals(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F},
+                encode(encoder, List.of(Integer.MIN_VALUE)));
+    }
+
+    @Test
+    public void testCborEncoding() {
+        CborIntegerEncoder encoder = new CborIntegerEncoder(256);
+        // RFC 8949 附录 A 的例子：23、24、-1、-25、1000 外面包一层不定长数组
+        Assertions.assertArrayEquals(new byte[]{(byte) 0x9F, 0x17, 0x18, 0x18, 0x20, 0x38, 0x18, 0x19, 0x03, (byte) 0xE8, (byte) 0xFF},
+                encode(encoder, List.of(23, 24, -1, -25, 1000)));
+        Assertions.assertArrayEquals(new byte[]{(byte) 0x9F, (byte) 0xFF}, encode(encoder, List.of()));
+    }
+
+    @Test
+    public void testRoundTripAcrossBufferBoundaries() {
+        assertRoundTrip(new VarintIntegerEncoder(4), new VarintIntegerDecoder(), IntegerMediaTypes.VARINT);
+        assertRoundTrip(new CborIntegerEncoder(4), new CborIntegerDecoder(), MediaType.APPLICATION_CBOR);
+    }
+
+    @Test
+    public void testCborDecodesDefiniteArray() {
+        // [1, 2, 3] 的定长数组形式
+        StepVerifier.create(decode(new CborIntegerDecoder(), MediaType.APPLICATION_CBOR, new byte[]{(byte) 0x83, 1, 2, 3}, 2))
+                .expectNext(1, 2, 3)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testTruncatedInputFails() {
+        StepVerifier.create(decode(new VarintIntegerDecoder(), IntegerMediaTypes.VARINT, new byte[]{2, (byte) 0x80}, 1))
+                .expectNext(1)
+                .expectError(DecodingException.class)
+                .verify();
+        // 不定长数组缺少结尾的 0xFF
+        StepVerifier.create(decode(new CborIntegerDecoder(), MediaType.APPLICATION_CBOR, new byte[]{(byte) 0x9F, 1}, 1))
+                .expectNext(1)
+                .expectError(DecodingException.class)
+                .verify();
+    }
+
+    @Test
+    public void testOnlyExplicitMediaTypeIsEncodable() {
+        // 不指定媒体类型时不参与协商，Accept: */* 仍然由 Jackson 输出 JSON
+        VarintIntegerEncoder encoder = new VarintIntegerEncoder(256);
+        Assertions.assertFalse(encoder.canEncode(INTEGER, null));
+        Assertions.assertFalse(encoder.canEncode(INTEGER, MediaType.ALL));
+        Assertions.assertFalse(encoder.canEncode(ResolvableType.forClass(String.class), IntegerMediaTypes.VARINT));
+        Assertions.assertTrue(encoder.canEncode(INTEGER, IntegerMediaTypes.VARINT));
+    }
+
+    private void assertRoundTrip(AbstractIntegerEncoder encoder, AbstractIntegerDecoder decoder, MediaType mediaType) {
+        byte[] bytes = encode(encoder, VALUES);
+        // 每种切分长度都会把一部分元素拆到两个 buffer 里
+        for (int chunk = 1; chunk <= 6; chunk++) {
+            List<Integer> decoded = decode(decoder, mediaType, bytes, chunk).collectList().block();
+            Assertions.assertEquals(VALUES, decoded, mediaType + " chunk " + chunk);
+        }
+    }
+
+    private byte[] encode(AbstractIntegerEncoder encoder, List<Integer> values) {
+        DataBuffer joined = DataBufferUtils.join(encoder.encode(Flux.fromIterable(values), factory, INTEGER,
+                encoder.getEncodableMimeTypes().get(0), Collections.emptyMap())).block();
+        byte[] bytes = new byte[joined.readableByteCount()];
+        joined.read(bytes);
+        return bytes;
+    }
+
+    private Flux<Integer> decode(AbstractIntegerDecoder decoder, MediaType mediaType, byte[] bytes, int chunk) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += chunk) {
+            int length = Math.min(chunk, bytes.length - i);
+            buffers.add(factory.allocateBuffer(length).write(bytes, i, length));
+        }
+        return decoder.decode(Flux.fromIterable(buffers), INTEGER, mediaType, Collections.emptyMap());
+    }
+}
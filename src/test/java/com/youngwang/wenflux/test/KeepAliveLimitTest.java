@@ -0,0 +1,48 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.WebfluxApplication;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * webflux.server.max-keep-alive-requests=2 时，同一连接上的第 2 个响应带 Connection: close，之后的请求使用新连接重新计数
+ */
+@SpringBootTest(classes = WebfluxApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "webflux.server.max-keep-alive-requests=2")
+public class KeepAliveLimitTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void testSecondResponseClosesConnection() {
+        // 只有一个连接的连接池，连接未关闭时请求一定复用它
+        ConnectionProvider provider = ConnectionProvider.create("keep-alive-limit-test", 1);
+        try {
+            HttpClient client = HttpClient.create(provider).port(port);
+            List<Boolean> closes = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                closes.add(client.get()
+                        .uri("/simple/mono?name=test")
+                        .responseSingle((res, body) -> body.asString()
+                                .then(Mono.fromCallable(() -> res.responseHeaders()
+                                        .contains(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE, true))))
+                        .block(Duration.ofSeconds(5)));
+            }
+            Assertions.assertEquals(List.of(false, true, false, true), closes);
+        } finally {
+            provider.disposeLater().block(Duration.ofSeconds(5));
+        }
+    }
+}
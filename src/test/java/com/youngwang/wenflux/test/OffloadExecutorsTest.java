@@ -0,0 +1,219 @@
+package com.youngwang.wenflux.test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.youngwang.webflux.offload.ExecutionMode;
+import com.youngwang.webflux.offload.OffloadExecutors;
+import com.youngwang.webflux.offload.OffloadProperties;
+import com.youngwang.webflux.offload.OffloadRejectedHandler;
+import com.youngwang.webflux.offload.RejectPolicy;
+import com.youngwang.webflux.offload.VirtualThreads;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class OffloadExecutorsTest {
+
+    private static final String TINY = "tiny";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private OffloadExecutors executors;
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        if (executors != null) {
+            executors.destroy();
+        }
+    }
+
+    @Test
+    public void testAbortRespondsServiceUnavailable() throws InterruptedException {
+        executors = newExecutors(RejectPolicy.ABORT);
+        ExecutorService tiny = executors.get(TINY);
+        fill(tiny);
+
+        Assertions.assertThrows(RejectedExecutionException.class, () -> tiny.execute(() -> {
+        }));
+        WebTestClient client = WebTestClient.bindToController(new OffloadController(tiny))
+                .controllerAdvice(new OffloadRejectedHandler())
+                .build();
+        client.get().uri("/offload")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
+
+        Assertions.assertEquals(2, registry.get("offload.rejected").tag("pool", TINY).counter().count());
+        Assertions.assertEquals(0, registry.get("offload.rejected").tag("pool", OffloadExecutors.BLOCKING).counter().count());
+    }
+
+    @Test
+    public void testCallerRunsWhenQueueIsFull() throws InterruptedException {
+        executors = newExecutors(RejectPolicy.CALLER_RUNS);
+        ExecutorService tiny = executors.get(TINY);
+        fill(tiny);
+
+        AtomicReference<Thread> runner = new AtomicReference<>();
+        tiny.execute(() -> runner.set(Thread.currentThread()));
+        Assertions.assertSame(Thread.currentThread(), runner.get());
+        Assertions.assertEquals(1, registry.get("offload.rejected").tag("pool", TINY).counter().count());
+    }
+
+    @Test
+    public void testExecutorMetricsAreTaggedWithPoolName() throws Exception {
+        executors = newExecutors(RejectPolicy.ABORT);
+        String thread = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), executors.get(TINY))
+                .get(5, TimeUnit.SECONDS);
+        Assertions.assertTrue(thread.startsWith("offload-" + TINY + "-"), thread);
+
+        Assertions.assertEquals(1, registry.get("executor").tag("name", "offload." + TINY).timer().count());
+        Assertions.assertEquals(1, registry.get("executor.idle").tag("name", "offload." + TINY).timer().count());
+        Assertions.assertEquals(0, registry.get("executor.queued").tag("name", "offload." + TINY).gauge().value());
+        // 没有配置的默认线程池同样存在并注册指标
+        Assertions.assertNotNull(registry.find("executor.queued").tag("name", "offload." + OffloadExecutors.BLOCKING).gauge());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> executors.get("unknown"));
+    }
+
+    @Test
+    public void testVirtualModeFallsBackWithWarning() throws Exception {
+        Logger logger = (Logger) LoggerFactory.getLogger(OffloadExecutors.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            executors = newExecutors(ExecutionMode.VIRTUAL);
+        } finally {
+            logger.detachAppender(appender);
+        }
+
+        if (VirtualThreads.isSupported()) {
+            Assertions.assertEquals(ExecutionMode.VIRTUAL, executors.mode());
+            Assertions.assertTrue(appender.list.stream().noneMatch(event -> event.getLevel() == Level.WARN));
+            Thread thread = ioThread();
+            Assertions.assertTrue(isVirtual(thread), thread.toString());
+            Assertions.assertTrue(thread.getName().startsWith("offload-virtual-"), thread.getName());
+        } else {
+            // JDK 21 以下退化为 boundedElastic，并打印一次警告
+            Assertions.assertEquals(ExecutionMode.BOUNDED_ELASTIC, executors.mode());
+            Assertions.assertSame(Schedulers.boundedElastic(), executors.ioScheduler());
+            Assertions.assertEquals(1, appender.list.stream()
+                    .filter(event -> event.getLevel() == Level.WARN)
+                    .filter(event -> event.getFormattedMessage().contains("virtual threads are not supported on Java " + System.getProperty("java.version")))
+                    .count());
+            Assertions.assertTrue(ioThread().getName().startsWith("boundedElastic-"));
+        }
+    }
+
+    @Test
+    public void testIoRunsOnModeThreads() throws Exception {
+        executors = newExecutors(ExecutionMode.POOL);
+        Assertions.assertSame(executors.blocking(), executors.io());
+        Assertions.assertSame(executors.blockingScheduler(), executors.ioScheduler());
+        assertIoThread("offload-" + OffloadExecutors.BLOCKING + "-");
+        executors.destroy();
+
+        executors = newExecutors(ExecutionMode.BOUNDED_ELASTIC);
+        Assertions.assertSame(Schedulers.boundedElastic(), executors.ioScheduler());
+        assertIoThread("boundedElastic-");
+    }
+
+    private void assertIoThread(String prefix) throws Exception {
+        Thread thread = ioThread();
+        Assertions.assertTrue(thread.getName().startsWith(prefix), thread.getName());
+        Assertions.assertFalse(isVirtual(thread));
+        String scheduled = Mono.fromCallable(() -> Thread.currentThread().getName())
+                .subscribeOn(executors.ioScheduler())
+                .block(Duration.ofSeconds(5));
+        Assertions.assertTrue(scheduled.startsWith(prefix), scheduled);
+    }
+
+    private Thread ioThread() throws Exception {
+        return CompletableFuture.supplyAsync(Thread::currentThread, executors.io()).get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Thread#isVirtual 是 JDK 21 的方法，编译目标为 Java 11，通过反射调用
+     */
+    private static boolean isVirtual(Thread thread) throws Exception {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private OffloadExecutors newExecutors(ExecutionMode mode) {
+        OffloadProperties properties = new OffloadProperties();
+        properties.setMode(mode);
+        return new OffloadExecutors(properties, registry);
+    }
+
+    private OffloadExecutors newExecutors(RejectPolicy policy) {
+        OffloadProperties properties = new OffloadProperties();
+        OffloadProperties.Pool pool = new OffloadProperties.Pool();
+        pool.setCoreSize(1);
+        pool.setMaxSize(1);
+        pool.setQueueCapacity(1);
+        pool.setRejectPolicy(policy);
+        properties.getPools().put(TINY, pool);
+        return new OffloadExecutors(properties, registry);
+    }
+
+    /**
+     * 占满唯一的线程和唯一的队列位置
+     */
+    private void fill(ExecutorService executor) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> await(release));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @RestController
+    static class OffloadController {
+
+        private final ExecutorService executor;
+
+        OffloadController(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @GetMapping("/offload")
+        public Mono<String> offload() {
+            return Mono.fromFuture(() -> CompletableFuture.supplyAsync(() -> "done", executor));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.introspect.OperatorGraph;
+import com.youngwang.webflux.introspect.OperatorNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+public class OperatorGraphTest {
+
+    @Test
+    public void testFusedChain() {
+        OperatorGraph graph = OperatorGraph.of(Flux.range(0, 10).map(i -> i + 1).filter(i -> i % 2 == 0), 100);
+        Assertions.assertEquals(3, graph.getOperators());
+        Assertions.assertEquals(3, graph.getFuseable());
+        Assertions.assertEquals(2, graph.getLinks());
+        Assertions.assertEquals(2, graph.getFusedLinks());
+        Assertions.assertTrue(graph.getBarriers().isEmpty());
+        Assertions.assertEquals(0, graph.getAsyncBoundaries());
+        Assertions.assertEquals("filter", graph.getRoot().getName());
+        Assertions.assertEquals("FluxRange", graph.getRoot().getSources().get(0).getSources().get(0).getOperator());
+    }
+
+    @Test
+    public void testBarrierAndAsyncBoundary() {
+        OperatorGraph graph = OperatorGraph.of(Mono.just("a")
+                .map(String::toUpperCase)
+                .delayElement(Duration.ofMillis(10))
+                .subscribeOn(Schedulers.parallel()), 100);
+        Assertions.assertEquals(4, graph.getOperators());
+        Assertions.assertEquals(2, graph.getAsyncBoundaries());
+        Assertions.assertTrue(graph.getBarriers().contains("MonoDelayElement"));
+        Assertions.assertEquals(1, graph.getFusedLinks());
+        OperatorNode just = graph.getRoot().getSources().get(0).getSources().get(0).getSources().get(0);
+        Assertions.assertEquals("scalar", just.getScalar());
+    }
+
+    @Test
+    public void testZipSources() {
+        Mono<String> a = Mono.just("a");
+        Mono<String> b = Mono.fromCallable(() -> "b");
+        OperatorGraph graph = OperatorGraph.of(Mono.zip(a, b), 100);
+        Assertions.assertEquals(3, graph.getOperators());
+        Assertions.assertEquals(2, graph.getRoot().getSources().size());
+        Assertions.assertEquals("callable", graph.getRoot().getSources().get(1).getScalar());
+    }
+
+    @Test
+    public void testPrefetch() {
+        OperatorGraph graph = OperatorGraph.of(Flux.range(0, 10).publishOn(Schedulers.parallel(), 32), 100);
+        Assertions.assertEquals(32, graph.getRoot().getPrefetch());
+        Assertions.assertEquals(1, graph.getAsyncBoundaries());
+    }
+
+    @Test
+    public void testTruncated() {
+        Flux<Integer> flux = Flux.range(0, 10);
+        for (int i = 0; i < 20; i++) {
+            flux = flux.map(x -> x + 1).hide();
+        }
+        OperatorGraph graph = OperatorGraph.of(flux, 10);
+        Assertions.assertEquals(10, graph.getOperators());
+        Assertions.assertTrue(graph.isTruncated());
+    }
+}
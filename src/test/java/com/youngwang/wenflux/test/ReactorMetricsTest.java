@@ -0,0 +1,75 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.WebfluxApplication;
+import com.youngwang.webflux.metrics.ReactorMetrics;
+import com.youngwang.webflux.metrics.ReactorMetricsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest(classes = WebfluxApplication.class)
+@AutoConfigureWebTestClient
+public class ReactorMetricsTest {
+
+    @Autowired
+    private WebTestClient webClient;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    public void testMonoMetricsRouteWritesToInjectedRegistry() {
+        double before = completed(registry);
+        webClient.get().uri("/mono/metrics?name=test")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("hello test");
+
+        Assertions.assertEquals(before + 1, completed(registry));
+        Assertions.assertTrue(registry.get("test.subscribed").tag("route", "/mono/metrics").counter().count() >= 1);
+    }
+
+    @Test
+    public void testRegistriesDoNotInterfere() {
+        ReactorMetricsProperties properties = new ReactorMetricsProperties();
+        properties.setEnabled(true);
+        SimpleMeterRegistry first = new SimpleMeterRegistry();
+        SimpleMeterRegistry second = new SimpleMeterRegistry();
+        ReactorMetrics firstMetrics = new ReactorMetrics(properties, first);
+        // 后创建的 ReactorMetrics 不能把先创建的指标改写到自己的 registry
+        ReactorMetrics secondMetrics = new ReactorMetrics(properties, second);
+
+        Mono.just("a").transform(firstMetrics.mono("/a", "a")).block();
+        Mono.empty().transform(firstMetrics.mono("/a", "a")).block();
+        Flux.range(0, 3).transform(secondMetrics.flux("/b", "b")).blockLast();
+        Mono.error(new IllegalStateException()).transform(secondMetrics.mono("/b", "b"))
+                .onErrorResume(e -> Mono.empty())
+                .block();
+
+        Assertions.assertEquals(1, first.get("a.flow.duration").tag("status", "completed").timer().count());
+        Assertions.assertEquals(1, first.get("a.flow.duration").tag("status", "completedEmpty").timer().count());
+        Assertions.assertEquals(2, first.get("a.subscribed").counter().count());
+        Assertions.assertNull(first.find("b.subscribed").counter());
+
+        Assertions.assertEquals(1, second.get("b.flow.duration").tag("type", "Flux").tag("status", "completed").timer().count());
+        Assertions.assertEquals(1, second.get("b.flow.duration").tag("type", "Mono").tag("status", "error")
+                .tag("exception", IllegalStateException.class.getName()).timer().count());
+        Assertions.assertNull(second.find("a.subscribed").counter());
+    }
+
+    private static double completed(MeterRegistry registry) {
+        // key=hello 是 /mono/metrics 在 transform 之前用 tag() 声明的
+        return registry.find("test.flow.duration")
+                .tags("route", "/mono/metrics", "status", "completed", "key", "hello", "type", "Mono")
+                .timers().stream()
+                .mapToLong(timer -> timer.count())
+                .sum();
+    }
+}
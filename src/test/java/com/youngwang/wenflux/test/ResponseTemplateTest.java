@@ -0,0 +1,116 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.template.ResponseTemplate;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class ResponseTemplateTest {
+
+    @Test
+    public void testWriteMatchesConcatenation() {
+        ResponseTemplate template = ResponseTemplate.compile("hello {name}, 你好{name2}!");
+        Assertions.assertEquals(2, template.getVariables());
+        // 堆内存和 Netty 池化内存两种 DataBuffer，变量包含汉字和代理对
+        for (DataBufferFactory factory : List.of(new DefaultDataBufferFactory(), new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT))) {
+            for (String name : List.of("", "wzy", "张三", "a😀b")) {
+                DataBuffer buffer = template.write(factory, name, name);
+                Assertions.assertEquals("hello " + name + ", 你好" + name + "!", toString(buffer));
+            }
+        }
+    }
+
+    @Test
+    public void testConstantAndInvalidTemplates() {
+        ResponseTemplate constant = ResponseTemplate.compile("pong");
+        Assertions.assertEquals(0, constant.getVariables());
+        Assertions.assertEquals("pong", toString(constant.write(new DefaultDataBufferFactory())));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ResponseTemplate.compile("hello {name"));
+        ResponseTemplate hello = ResponseTemplate.compile("hello {name}");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> hello.write(new DefaultDataBufferFactory()));
+    }
+
+    @Test
+    public void testRenderSetsContentTypeAndDefersAllocation() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/simple/mono").accept(MediaType.TEXT_PLAIN));
+        ResponseTemplate hello = ResponseTemplate.compile("hello {name}");
+
+        Mono<DataBuffer> body = hello.render(exchange, "张三");
+        // Content-Type 在组装时设置，DataBuffer 在订阅时才申请
+        Assertions.assertEquals(ResponseTemplate.TEXT_PLAIN_UTF8, exchange.getResponse().getHeaders().getContentType());
+        Assertions.assertEquals("hello 张三", toString(body.block()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "*/*", "text/*", "text/plain", "text/plain;q=0", "application/json", "text/plain;q=0.1, application/json",
+            "text/html", "application/*", "application/cbor", "application/json, text/plain", "text/html;charset=ISO-8859-1",
+            "text/plain;charset=UTF-16", "not a media type"})
+    public void testRenderNegotiatesLikeString(String accept) {
+        WebTestClient client = WebTestClient.bindToController(new HelloController()).build();
+        EntityExchangeResult<byte[]> expected = get(client, "/string", accept);
+        EntityExchangeResult<byte[]> actual = get(client, "/template", accept);
+
+        Assertions.assertEquals(expected.getStatus(), actual.getStatus());
+        Assertions.assertEquals(expected.getResponseHeaders().getContentType(), actual.getResponseHeaders().getContentType());
+        if (expected.getStatus().is2xxSuccessful()) {
+            Assertions.assertArrayEquals(expected.getResponseBody(), actual.getResponseBody());
+        }
+    }
+
+    private static EntityExchangeResult<byte[]> get(WebTestClient client, String uri, String accept) {
+        WebTestClient.RequestHeadersSpec<?> request = client.get().uri(uri + "?name=张三");
+        if (!accept.isEmpty()) {
+            request = request.header(HttpHeaders.ACCEPT, accept);
+        }
+        return request.exchange().expectBody().returnResult();
+    }
+
+    /**
+     * 同一个响应分别用 Mono&lt;String&gt; 和模板写出
+     */
+    @RestController
+    static class HelloController {
+
+        private static final ResponseTemplate HELLO = ResponseTemplate.compile("hello {name}");
+
+        @GetMapping("/string")
+        public Mono<String> string(@RequestParam("name") String name) {
+            return Mono.just("hello " + name);
+        }
+
+        @GetMapping("/template")
+        public Mono<DataBuffer> template(@RequestParam("name") String name, ServerWebExchange exchange) {
+            return HELLO.render(exchange, name);
+        }
+    }
+
+    private static String toString(DataBuffer buffer) {
+        try {
+            return buffer.toString(StandardCharsets.UTF_8);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.retry.RetryPolicies;
+import com.youngwang.webflux.retry.RetryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RetryPolicyTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void testRetriesUntilSuccess() {
+        RetryPolicies policies = new RetryPolicies(new RetryProperties(), registry);
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> call = Mono.fromCallable(() -> {
+            if (subscriptions.incrementAndGet() < 3) {
+                throw new IllegalStateException("boom");
+            }
+            return "ok";
+        });
+
+        StepVerifier.withVirtualTime(() -> call.retryWhen(policies.forRoute("/test")))
+                .thenAwait(Duration.ofSeconds(10))
+                .expectNext("ok")
+                .verifyComplete();
+        Assertions.assertEquals(3, subscriptions.get());
+        Assertions.assertEquals(1, registry.get("retry.calls").tag("route", "/test").counter().count());
+        Assertions.assertEquals(2, registry.get("retry.attempts").tag("route", "/test").counter().count());
+    }
+
+    @Test
+    public void testGivesUpWithLastErrorAfterMaxRetries() {
+        RetryProperties properties = new RetryProperties();
+        properties.getDefaults().setMaxRetries(2);
+        properties.getDefaults().setMaxBackoff(Duration.ofMillis(500));
+        RetryPolicies policies = new RetryPolicies(properties, registry);
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> call = Mono.error(() -> new IllegalStateException("boom " + subscriptions.incrementAndGet()));
+
+        // 两次重试的退避上限分别是 100ms、200ms
+        StepVerifier.withVirtualTime(() -> call.retryWhen(policies.forRoute("/test")))
+                .thenAwait(Duration.ofMillis(300))
+                .expectErrorMessage("boom 3")
+                .verify();
+        Assertions.assertEquals(1, registry.get("retry.giveups").tag("reason", "exhausted").counter().count());
+    }
+
+    @Test
+    public void testBudgetLimitsRetries() {
+        RetryProperties properties = new RetryProperties();
+        properties.getBudget().setRatio(0);
+        properties.getBudget().setMaxTokens(1);
+        properties.getDefaults().setMinBackoff(Duration.ZERO);
+        properties.getDefaults().setMaxBackoff(Duration.ZERO);
+        RetryPolicies policies = new RetryPolicies(properties, registry);
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> call = Mono.<String>error(new IllegalStateException("boom"))
+                .doOnSubscribe(s -> subscriptions.incrementAndGet())
+                .retryWhen(policies.forRoute("/test"));
+
+        // 只有 1 个令牌：第一次调用重试 1 次后预算耗尽，第二次调用不再重试
+        StepVerifier.create(call).expectError(IllegalStateException.class).verify(Duration.ofSeconds(1));
+        Assertions.assertEquals(2, subscriptions.get());
+        StepVerifier.create(call).expectError(IllegalStateException.class).verify(Duration.ofSeconds(1));
+        Assertions.assertEquals(3, subscriptions.get());
+        Assertions.assertEquals(2, registry.get("retry.giveups").tag("reason", "budget").counter().count());
+        Assertions.assertEquals(0, policies.budget().tokens());
+    }
+}
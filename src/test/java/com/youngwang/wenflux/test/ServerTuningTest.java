@@ -0,0 +1,81 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.server.ServerTuning;
+import com.youngwang.webflux.server.ServerTuningProperties;
+import com.youngwang.webflux.server.TunedNettyWebServerFactory;
+import io.netty.channel.epoll.Epoll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.HttpHandler;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+
+public class ServerTuningTest {
+
+    @Test
+    public void testAcceptorsFallBackToOneWithoutEpoll() {
+        ServerTuningProperties properties = new ServerTuningProperties();
+        properties.setNativeTransport(false);
+        properties.setAcceptors(4);
+        ServerTuning tuning = new ServerTuning(properties);
+        try {
+            Assertions.assertEquals(1, tuning.getAcceptors());
+            Assertions.assertTrue(tuning.report(0).contains("transport               nio"), tuning.report(0));
+        } finally {
+            tuning.dispose();
+        }
+    }
+
+    @Test
+    public void testAcceptorsFallBackToOneWhenEpollIsUnavailable() {
+        Assumptions.assumeFalse(Epoll.isAvailable(), "epoll is available");
+        ServerTuningProperties properties = new ServerTuningProperties();
+        properties.setAcceptors(4);
+        ServerTuning tuning = new ServerTuning(properties);
+        try {
+            Assertions.assertEquals(1, tuning.getAcceptors());
+        } finally {
+            tuning.dispose();
+        }
+    }
+
+    @Test
+    public void testMultipleAcceptorsBindTheSamePort() {
+        Assumptions.assumeTrue(Epoll.isAvailable(), "epoll is unavailable");
+        ServerTuningProperties properties = new ServerTuningProperties();
+        properties.setAcceptors(3);
+        ServerTuning tuning = new ServerTuning(properties);
+        TunedNettyWebServerFactory factory = new TunedNettyWebServerFactory(tuning);
+        factory.setPort(0);
+        HttpHandler handler = (request, response) -> {
+            response.setStatusCode(HttpStatus.OK);
+            return response.setComplete();
+        };
+        WebServer server = factory.getWebServer(handler);
+        try {
+            server.start();
+            Assertions.assertEquals(3, tuning.getAcceptors());
+            Assertions.assertTrue(server.getPort() > 0);
+            // 额外的 server 绑定到实际端口后，工厂配置的端口保持不变
+            Assertions.assertEquals(0, factory.getPort());
+
+            for (int i = 0; i < 10; i++) {
+                Integer status = HttpClient.create()
+                        .port(server.getPort())
+                        .get()
+                        .uri("/")
+                        .responseSingle((res, body) -> Mono.just(res.status().code()))
+                        .block(Duration.ofSeconds(5));
+                Assertions.assertEquals(200, status);
+            }
+        } finally {
+            server.stop();
+            tuning.dispose();
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package com.youngwang.wenflux.test;
 
 import com.youngwang.webflux.WebfluxApplication;
+import com.youngwang.webflux.codec.IntegerCodecConfiguration;
+import com.youngwang.webflux.codec.IntegerMediaTypes;
+import com.youngwang.webflux.eventlog.EventLogConfiguration;
+import com.youngwang.webflux.streaming.StreamingConfiguration;
 import com.youngwang.webflux.syntax.SimpleController;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -18,6 +24,7 @@ import java.util.stream.Collectors;
 // 需要指定程序入口所在类
 @ContextConfiguration(classes = WebfluxApplication.class)
 @WebFluxTest(controllers = SimpleController.class)
+@Import({StreamingConfiguration.class, EventLogConfiguration.class, IntegerCodecConfiguration.class})
 public class SimpleControllerTest {
 
     @Autowired
@@ -100,4 +107,114 @@ public class SimpleControllerTest {
                 .value(l -> System.out.println("testSimpleFluxRange: " + l.stream().map(String::valueOf).collect(Collectors.joining(","))));
     }
 
+    @Test
+    public void testSimpleFluxRangeNdjson() {
+        webClient.get()
+                .uri("/simple/flux/range?size={size}", Map.of("size", "1000"))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Integer.class)
+                .hasSize(1000)
+                .contains(0, 500, 999);
+    }
+
+    @Test
+    public void testSimpleFluxRangeEventStream() {
+        webClient.get()
+                .uri("/simple/flux/range?size={size}", Map.of("size", "3"))
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .expectBody(String.class)
+                .isEqualTo("data:0\n\ndata:1\n\ndata:2\n\n");
+    }
+
+    @Test
+    public void testSimpleFluxFromNdjson() {
+        webClient.get()
+                .uri("/simple/flux/from?name={name}", Map.of("name", "zhangsan"))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectBodyList(Integer.class)
+                .hasSize(8)
+                .contains(122, 104, 97, 110, 103, 115);
+    }
+
+    @Test
+    public void testSimpleFluxRangeBinary() {
+        // WebTestClient 也应用了 CodecCustomizer，可以直接解码 varint 和 CBOR
+        for (MediaType mediaType : List.of(IntegerMediaTypes.VARINT, MediaType.APPLICATION_CBOR, IntegerMediaTypes.SMILE)) {
+            webClient.get()
+                    .uri("/simple/flux/range?size={size}", Map.of("size", "1000"))
+                    .accept(mediaType)
+                    .exchange()
+                    .expectHeader().contentTypeCompatibleWith(mediaType)
+                    .expectBodyList(Integer.class)
+                    .hasSize(1000)
+                    .contains(0, 500, 999);
+        }
+    }
+
+    @Test
+    public void testSimpleFluxRangeDefaultsToJson() {
+        webClient.get()
+                .uri("/simple/flux/range?size={size}", Map.of("size", "3"))
+                .accept(MediaType.ALL)
+                .exchange()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody(String.class)
+                .isEqualTo("[0,1,2]");
+    }
+
+    @Test
+    public void testSimpleFluxFromSurrogatePair() {
+        // 😀 是一个代理对，应输出一个码点 128512，而不是两个 char
+        webClient.get()
+                .uri("/simple/flux/from?name={name}", Map.of("name", "a😀张"))
+                .accept(MediaType.ALL)
+                .exchange()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody(String.class)
+                .isEqualTo("[97,128512,24352]");
+        webClient.get()
+                .uri("/simple/flux/from?name={name}", Map.of("name", "a😀张"))
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectBody(String.class)
+                .isEqualTo("data:97\n\ndata:128512\n\ndata:24352\n\n");
+        webClient.get()
+                .uri("/simple/flux/from?name={name}", Map.of("name", "a😀张"))
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectBodyList(Integer.class)
+                .isEqualTo(List.of(97, 128512, 24352));
+    }
+
+    @Test
+    public void testSimpleFluxFromLongInput() {
+        // 超过一批（batch-size 256）的输入，批次边界可能落在代理对中间
+        String name = "z😀".repeat(500) + "张三";
+        List<Integer> expected = name.codePoints().boxed().collect(Collectors.toList());
+        for (MediaType mediaType : List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON)) {
+            webClient.get()
+                    .uri("/simple/flux/from?name={name}", Map.of("name", name))
+                    .accept(mediaType)
+                    .exchange()
+                    .expectHeader().contentTypeCompatibleWith(mediaType)
+                    .expectBodyList(Integer.class)
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testSimpleFluxFromEmpty() {
+        webClient.get()
+                .uri("/simple/flux/from?name=")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectBody(String.class)
+                .isEqualTo("[]");
+    }
+
 }
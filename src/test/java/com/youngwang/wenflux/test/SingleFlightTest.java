@@ -0,0 +1,103 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.singleflight.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>("test", registry);
+
+    @Test
+    public void testConcurrentCallsShareOneExecution() {
+        AtomicInteger executions = new AtomicInteger();
+        Mono<String> call = singleFlight.execute("key", () -> Mono.fromSupplier(() -> {
+            executions.incrementAndGet();
+            return "hello";
+        }).delayElement(Duration.ofMillis(200)));
+
+        List<String> results = Flux.range(0, 1000)
+                .flatMap(i -> call, 1000)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        Assertions.assertEquals(1000, results.size());
+        Assertions.assertEquals(1, executions.get());
+        Assertions.assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    public void testCompletedFlightIsNotReused() {
+        AtomicInteger executions = new AtomicInteger();
+        Mono<String> call = singleFlight.execute("key", () -> Mono.fromSupplier(() -> "hello " + executions.incrementAndGet()));
+
+        StepVerifier.create(call).expectNext("hello 1").verifyComplete();
+        // 上游完成之后才订阅的调用方重新执行，并且计入 executions
+        StepVerifier.create(call).expectNext("hello 2").verifyComplete();
+        Assertions.assertEquals(0, singleFlight.inFlight());
+        Assertions.assertEquals(2, registry.get("singleflight.executions").tag("name", "test").counter().count());
+        Assertions.assertEquals(0, registry.get("singleflight.shared").tag("name", "test").counter().count());
+    }
+
+    @Test
+    public void testErrorRemovesFlight() {
+        StepVerifier.create(singleFlight.execute("key", () -> Mono.error(new IllegalStateException("boom"))))
+                .verifyError(IllegalStateException.class);
+        Assertions.assertEquals(0, singleFlight.inFlight());
+
+        StepVerifier.create(singleFlight.execute("key", () -> Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+    }
+
+    @Test
+    public void testCancelAllCallersCancelsUpstream() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Mono<String> call = singleFlight.execute("key", () -> Mono.delay(Duration.ofSeconds(10))
+                .map(l -> "hello")
+                .doOnCancel(() -> cancelled.set(true)));
+
+        Disposable d1 = call.subscribe();
+        Disposable d2 = call.subscribe();
+        Assertions.assertEquals(1, singleFlight.inFlight());
+
+        d1.dispose();
+        Assertions.assertFalse(cancelled.get());
+        d2.dispose();
+        Assertions.assertTrue(cancelled.get());
+        Assertions.assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    public void testEveryExecutionIsCounted() {
+        // 上游完成的同时有调用方订阅：拿到 flight 之后、订阅之前上游已经结束的调用方，不能在 executions 之外再执行一次
+        SingleFlight<String, Integer> counted = new SingleFlight<>("counted", registry);
+        AtomicInteger invocations = new AtomicInteger();
+        Mono<Integer> call = counted.execute("key", () -> Mono.fromSupplier(invocations::incrementAndGet));
+
+        List<Integer> results = Flux.range(0, 200_000)
+                .parallel(4)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> call)
+                .sequential()
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        Assertions.assertEquals(200_000, results.size());
+        Assertions.assertEquals(invocations.get(), registry.get("singleflight.executions").tag("name", "counted").counter().count());
+        Assertions.assertEquals(0, counted.inFlight());
+    }
+}
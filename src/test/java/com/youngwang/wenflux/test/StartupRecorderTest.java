@@ -0,0 +1,59 @@
+package com.youngwang.wenflux.test;
+
+import com.youngwang.webflux.startup.FirstRequestFilter;
+import com.youngwang.webflux.startup.StartupProperties;
+import com.youngwang.webflux.startup.StartupRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.util.concurrent.TimeUnit;
+
+public class StartupRecorderTest {
+
+    private final BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(16);
+
+    private final StartupProperties properties = new StartupProperties();
+
+    private final StartupRecorder recorder = new StartupRecorder(applicationStartup, properties);
+
+    private final WebTestClient client = WebTestClient.bindToRouterFunction(RouterFunctions.route()
+            .GET("/hello", request -> ServerResponse.ok().bodyValue("hello"))
+            .GET("/actuator/health", request -> ServerResponse.ok().bodyValue("UP"))
+            .build())
+            .webFilter(new FirstRequestFilter(recorder, properties))
+            .build();
+
+    @Test
+    public void testFirstRequest() {
+        StartupStep step = applicationStartup.start("test.step");
+        step.end();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        recorder.bindTo(registry);
+        Assertions.assertTrue(Double.isNaN(registry.get("application.startup.time").tag("phase", "first-request")
+                .timeGauge().value(TimeUnit.MILLISECONDS)));
+
+        // actuator 请求不算首个请求
+        client.get().uri("/actuator/health").exchange().expectStatus().isOk();
+        Assertions.assertEquals(-1, recorder.getFirstRequest());
+
+        client.get().uri("/hello").exchange().expectStatus().isOk();
+        long firstRequest = recorder.getFirstRequest();
+        long firstResponse = recorder.getFirstResponse();
+        Assertions.assertTrue(firstRequest > 0);
+        Assertions.assertTrue(firstResponse >= firstRequest);
+        Assertions.assertTrue(recorder.getMain() >= 0);
+
+        // 之后的请求不再记录
+        client.get().uri("/hello").exchange().expectStatus().isOk();
+        Assertions.assertEquals(firstRequest, recorder.getFirstRequest());
+        Assertions.assertEquals(firstResponse, recorder.getFirstResponse());
+        Assertions.assertEquals(firstResponse, registry.get("application.startup.time").tag("phase", "first-response")
+                .timeGauge().value(TimeUnit.MILLISECONDS));
+    }
+}
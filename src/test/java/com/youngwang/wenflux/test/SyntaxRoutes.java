@@ -0,0 +1,86 @@
+package com.youngwang.wenflux.test;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 从 RequestMappingHandlerMapping 中找出 syntax 包下的 GET 接口，BlockingDetectorTest 和压测共用
+ * <p>
+ * 注入 handlerMapping 时需要 @Qualifier("requestMappingHandlerMapping")，
+ * actuator 还注册了一个同类型的 ControllerEndpointHandlerMapping
+ */
+public final class SyntaxRoutes {
+
+    public static final String SYNTAX_PACKAGE = "com.youngwang.webflux.syntax";
+
+    private SyntaxRoutes() {
+    }
+
+    /**
+     * 找出 syntax 包下的 GET 接口，按名称排序
+     *
+     * @param handlerMapping 注解映射
+     * @param port           应用的端口
+     * @param params         @RequestParam 的取值，没有取值的参数不带
+     * @param routes         按路径过滤
+     * @return 接口，Accept 取 produces 的第一个，没有 produces 时为 MediaType.ALL
+     */
+    public static List<Endpoint> discover(RequestMappingHandlerMapping handlerMapping, int port,
+                                          Map<String, String> params, Predicate<String> routes) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        handlerMapping.getHandlerMethods().forEach((info, method) -> {
+            if (!method.getBeanType().getPackage().getName().equals(SYNTAX_PACKAGE)) {
+                return;
+            }
+            Set<RequestMethod> methods = info.getMethodsCondition().getMethods();
+            if (!methods.isEmpty() && !methods.contains(RequestMethod.GET)) {
+                return;
+            }
+            for (PathPattern pattern : info.getPatternsCondition().getPatterns()) {
+                String route = pattern.getPatternString();
+                if (routes.test(route)) {
+                    endpoints.add(new Endpoint(route, uri(port, route, method, params), accept(info)));
+                }
+            }
+        });
+        endpoints.sort(Comparator.comparing(Endpoint::name));
+        return endpoints;
+    }
+
+    private static URI uri(int port, String route, HandlerMethod method, Map<String, String> params) {
+        UriComponentsBuilder builder = UriComponentsBuilder.newInstance()
+                .scheme("http").host("localhost").port(port).path(route);
+        for (MethodParameter parameter : method.getMethodParameters()) {
+            RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+            if (requestParam == null) {
+                continue;
+            }
+            String name = requestParam.name().isEmpty() ? requestParam.value() : requestParam.name();
+            String value = params.get(name);
+            if (value != null) {
+                builder.queryParam(name, value);
+            }
+        }
+        return builder.encode().build().toUri();
+    }
+
+    private static MediaType accept(RequestMappingInfo info) {
+        Set<MediaType> produces = info.getProducesCondition().getProducibleMediaTypes();
+        return produces.isEmpty() ? MediaType.ALL : produces.iterator().next();
+    }
+}
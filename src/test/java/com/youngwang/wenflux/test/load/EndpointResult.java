@@ -0,0 +1,95 @@
+package com.youngwang.wenflux.test.load;
+
+import com.youngwang.wenflux.test.Endpoint;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个接口的压测结果
+ * <p>
+ * 延迟以微秒记录在 HdrHistogram 中。开环模式下延迟从计划发送时间开始计算，
+ * 服务端变慢导致请求没能按时发出时，排队的时间也计入延迟，避免协调遗漏（coordinated omission）
+ */
+final class EndpointResult {
+
+    private final Endpoint endpoint;
+
+    private final Histogram latency = new ConcurrentHistogram(3);
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final ConcurrentMap<String, LongAdder> errorKinds = new ConcurrentHashMap<>();
+
+    private long elapsedNanos;
+
+    EndpointResult(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void success(long latencyNanos) {
+        requests.increment();
+        latency.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    void error(long latencyNanos, String kind) {
+        requests.increment();
+        errors.increment();
+        errorKinds.computeIfAbsent(kind, k -> new LongAdder()).increment();
+        latency.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    void elapsed(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    double throughput() {
+        return elapsedNanos == 0 ? 0 : requests.sum() * 1e9 / elapsedNanos;
+    }
+
+    double errorRate() {
+        long total = requests.sum();
+        return total == 0 ? 0 : (double) errors.sum() / total;
+    }
+
+    double percentileMillis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("endpoint", endpoint.name());
+        map.put("uri", endpoint.uri.toString());
+        map.put("requests", requests.sum());
+        map.put("throughput", round(throughput()));
+        map.put("errors", errors.sum());
+        map.put("errorRate", round(errorRate()));
+        Map<String, Long> kinds = new LinkedHashMap<>();
+        errorKinds.forEach((kind, count) -> kinds.put(kind, count.sum()));
+        map.put("errorKinds", kinds);
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        latencyMillis.put("p50", percentileMillis(50));
+        latencyMillis.put("p99", percentileMillis(99));
+        latencyMillis.put("p999", percentileMillis(99.9));
+        latencyMillis.put("max", latency.getMaxValue() / 1000.0);
+        latencyMillis.put("mean", round(latency.getMean() / 1000.0));
+        map.put("latencyMillis", latencyMillis);
+        return map;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
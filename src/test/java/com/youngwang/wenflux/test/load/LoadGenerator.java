@@ -0,0 +1,91 @@
+package com.youngwang.wenflux.test.load;
+
+import com.youngwang.wenflux.test.Endpoint;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 对单个接口施加负载
+ * <p>
+ * 开环：按固定速率计划第 i 个请求的发送时间 start + i / rate，到时间就发送，不等待之前的请求完成；
+ * 在途请求达到 concurrency 时发送线程会被阻塞，但延迟仍从计划发送时间开始计算。
+ * 闭环：不限速，在途请求数保持为 concurrency，延迟从实际发送时间开始计算
+ */
+final class LoadGenerator {
+
+    private final WebClient client;
+
+    private final LoadSettings settings;
+
+    LoadGenerator(WebClient client, LoadSettings settings) {
+        this.client = client;
+        this.settings = settings;
+    }
+
+    EndpointResult run(Endpoint endpoint, Duration duration) throws InterruptedException {
+        EndpointResult result = new EndpointResult(endpoint);
+        Semaphore inFlight = new Semaphore(settings.concurrency);
+        long periodNanos = settings.openLoop() ? TimeUnit.SECONDS.toNanos(1) / settings.rate : 0;
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended;
+            if (settings.openLoop()) {
+                intended = start + i * periodNanos;
+                if (intended >= end) {
+                    break;
+                }
+                parkUntil(intended);
+                inFlight.acquire();
+            } else {
+                inFlight.acquire();
+                intended = System.nanoTime();
+                if (intended >= end) {
+                    inFlight.release();
+                    break;
+                }
+            }
+            send(endpoint, intended, result, inFlight);
+        }
+        // 等待所有在途请求完成或超时
+        if (!inFlight.tryAcquire(settings.concurrency, settings.timeout.toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("requests to " + endpoint.name() + " did not finish in time");
+        }
+        result.elapsed(System.nanoTime() - start);
+        return result;
+    }
+
+    private void send(Endpoint endpoint, long intended, EndpointResult result, Semaphore inFlight) {
+        client.get()
+                .uri(endpoint.uri)
+                .accept(endpoint.accept)
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode()))
+                .timeout(settings.timeout)
+                .subscribe(status -> {
+                    long latency = System.nanoTime() - intended;
+                    if (status >= 400) {
+                        result.error(latency, "status_" + status);
+                    } else {
+                        result.success(latency);
+                    }
+                    inFlight.release();
+                }, error -> {
+                    result.error(System.nanoTime() - intended,
+                            error instanceof TimeoutException ? "timeout" : error.getClass().getSimpleName());
+                    inFlight.release();
+                });
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
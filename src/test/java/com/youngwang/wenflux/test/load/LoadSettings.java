@@ -0,0 +1,83 @@
+package com.youngwang.wenflux.test.load;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 压测参数，全部通过系统属性传入，例如：
+ * <pre>
+ * mvn test -Dtest=SyntaxLoadTest -Dload.test=true -Dload.rate=200 -Dload.duration=PT10S -Dload.routes=/simple/.*
+ * </pre>
+ */
+final class LoadSettings {
+
+    /**
+     * 每个接口每秒发出的请求数（开环），为 0 时改为闭环：concurrency 个请求轮流发送，一个完成再发下一个
+     */
+    final int rate = Integer.getInteger("load.rate", 100);
+
+    /**
+     * 最大并发请求数，也是连接池大小
+     */
+    final int concurrency = Integer.getInteger("load.concurrency", 64);
+
+    /**
+     * 每个接口的压测时长
+     */
+    final Duration duration = Duration.parse(System.getProperty("load.duration", "PT5S"));
+
+    /**
+     * 每个接口正式压测前的预热时长，结果不计入报告
+     */
+    final Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT1S"));
+
+    /**
+     * 单个请求的超时时间，超时计为错误
+     */
+    final Duration timeout = Duration.parse(System.getProperty("load.timeout", "PT10S"));
+
+    /**
+     * 只压测路径匹配该正则的接口
+     */
+    final Pattern routes = Pattern.compile(System.getProperty("load.routes", ".*"));
+
+    /**
+     * 请求参数的取值，格式 name=张三,size=100，只会填充接口声明了的参数
+     */
+    final Map<String, String> params = parseParams(System.getProperty("load.params", "name=张三,size=100"));
+
+    /**
+     * 报告输出路径
+     */
+    final String report = System.getProperty("load.report", "target/load-report.json");
+
+    boolean openLoop() {
+        return rate > 0;
+    }
+
+    private static Map<String, String> parseParams(String value) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (String pair : value.split(",")) {
+            int index = pair.indexOf('=');
+            if (index > 0) {
+                params.put(pair.substring(0, index).trim(), pair.substring(index + 1).trim());
+            }
+        }
+        return params;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("mode", openLoop() ? "open-loop" : "closed-loop");
+        map.put("rate", rate);
+        map.put("concurrency", concurrency);
+        map.put("duration", duration.toString());
+        map.put("warmup", warmup.toString());
+        map.put("timeout", timeout.toString());
+        map.put("routes", routes.pattern());
+        map.put("params", params);
+        return map;
+    }
+}
@@ -0,0 +1,91 @@
+package com.youngwang.wenflux.test.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.youngwang.webflux.WebfluxApplication;
+import com.youngwang.wenflux.test.Endpoint;
+import com.youngwang.wenflux.test.SyntaxRoutes;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * syntax 包下所有 GET 接口的端到端压测，默认不执行，需要 -Dload.test=true 开启，参数见 {@link LoadSettings}
+ * <p>
+ * 在随机端口启动整个应用，从 RequestMappingHandlerMapping 中找出 syntax 包下的接口，逐个施加负载，
+ * 每个接口的吞吐量、p50/p99/p999 延迟和错误率写入 target/load-report.json
+ */
+@EnabledIfSystemProperty(named = "load.test", matches = "true")
+@SpringBootTest(classes = WebfluxApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class SyntaxLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    /**
+     * actuator 还注册了一个同类型的 ControllerEndpointHandlerMapping，这里只要 @RequestMapping 的那个
+     */
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Test
+    public void testSyntaxRoutes() throws InterruptedException, IOException {
+        LoadSettings settings = new LoadSettings();
+        List<Endpoint> endpoints = SyntaxRoutes.discover(handlerMapping, port, settings.params, settings.routes.asPredicate());
+        Assertions.assertFalse(endpoints.isEmpty(), "no route matches " + settings.routes.pattern());
+
+        // 默认连接池的连接数和 CPU 核数有关，改成和并发度一致，避免客户端成为瓶颈
+        ConnectionProvider provider = ConnectionProvider.builder("load-test")
+                .maxConnections(settings.concurrency)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+                .build();
+        LoadGenerator generator = new LoadGenerator(client, settings);
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        try {
+            for (Endpoint endpoint : endpoints) {
+                if (!settings.warmup.isZero()) {
+                    generator.run(endpoint, settings.warmup);
+                }
+                EndpointResult result = generator.run(endpoint, settings.duration);
+                results.add(result.toMap());
+                System.out.printf("%-50s %8d req %10.1f req/s  p50 %8.2f ms  p99 %8.2f ms  p999 %8.2f ms  errors %6.2f%%%n",
+                        endpoint.name(), result.requests(), result.throughput(),
+                        result.percentileMillis(50), result.percentileMillis(99), result.percentileMillis(99.9),
+                        result.errorRate() * 100);
+            }
+        } finally {
+            provider.dispose();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("settings", settings.toMap());
+        report.put("endpoints", results);
+        File file = new File(settings.report);
+        file.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        System.out.println("load test report: " + file.getAbsolutePath());
+    }
+}